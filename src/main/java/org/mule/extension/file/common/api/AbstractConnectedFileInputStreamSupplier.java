@@ -11,8 +11,10 @@ import static java.util.Optional.of;
 import static org.mule.runtime.api.i18n.I18nMessageFactory.createStaticMessage;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import org.mule.extension.file.common.api.connection.ConnectionPool;
 import org.mule.extension.file.common.api.connection.ConnectionSource;
 import org.mule.extension.file.common.api.connection.ManagerBasedConnectionSource;
+import org.mule.extension.file.common.api.connection.PooledConnectionSource;
 import org.mule.extension.file.common.api.connection.StaticConnectionSource;
 import org.mule.runtime.api.connection.ConnectionException;
 import org.mule.runtime.api.exception.MuleRuntimeException;
@@ -53,6 +55,17 @@ public abstract class AbstractConnectedFileInputStreamSupplier<T extends FileSys
     this(attributes, timeBetweenSizeCheck, new ManagerBasedConnectionSource<>(config, connectionManager));
   }
 
+  /**
+   * Creates a new instance which borrows its connections from the given {@code connectionPool}, keyed by the path of the
+   * file, so that the attributes refreshes and the content retrieval reuse the same warm connection whenever possible.
+   *
+   * @since 1.5.0
+   */
+  public AbstractConnectedFileInputStreamSupplier(FileAttributes attributes, Long timeBetweenSizeCheck,
+                                                  ConnectionPool<T> connectionPool) {
+    this(attributes, timeBetweenSizeCheck, new PooledConnectionSource<>(connectionPool, attributes.getPath()));
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -60,8 +73,12 @@ public abstract class AbstractConnectedFileInputStreamSupplier<T extends FileSys
   protected final FileAttributes getUpdatedAttributes() {
     try {
       T fileSystem = connectionSource.getConnection();
-      FileAttributes updatedFileAttributes = getUpdatedAttributes(fileSystem);
-      releaseConnection();
+      FileAttributes updatedFileAttributes;
+      try {
+        updatedFileAttributes = getUpdatedAttributes(fileSystem);
+      } finally {
+        releaseConnection();
+      }
       if (updatedFileAttributes == null) {
         LOGGER.error(String.format(FILE_NO_LONGER_EXISTS_MESSAGE, attributes.getPath()));
       }
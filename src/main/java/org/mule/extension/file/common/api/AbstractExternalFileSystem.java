@@ -7,6 +7,7 @@
 package org.mule.extension.file.common.api;
 
 import static java.lang.String.format;
+import static org.mule.extension.file.common.api.util.UriUtils.createUri;
 
 import org.mule.extension.file.common.api.exceptions.FileLockedException;
 
@@ -15,6 +16,9 @@ import org.mule.extension.file.common.api.lock.UriLock;
 
 import java.net.URI;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Interface that allows to obtain a {@link UriLock} on a uri given as a {@link URI}.
@@ -102,6 +106,21 @@ public abstract class AbstractExternalFileSystem extends AbstractFileSystem impl
     throw new UnsupportedOperationException("This method is not supported for an External File System. Use verifyNotLocked(URI uri) instead.");
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Since {@link #verifyNotLocked(Path)} is not supported, each path is converted to the {@link URI} it represents and
+   * checked through {@link #verifyUrisNotLocked(Collection)}.
+   */
+  @Override
+  public void verifyNotLocked(Collection paths) {
+    List<URI> uris = new ArrayList<>(paths.size());
+    for (Object path : paths) {
+      uris.add(createUri(path.toString().replace('\\', '/')));
+    }
+    verifyUrisNotLocked(uris);
+  }
+
   @Override
   protected final boolean isLocked(Path path) {
     throw new UnsupportedOperationException("This method is not supported for an External File System. Use isLocked(URI uri) instead.");
@@ -6,11 +6,14 @@
  */
 package org.mule.extension.file.common.api;
 
+import static java.lang.reflect.Modifier.isStatic;
 import static org.apache.commons.lang3.builder.ToStringStyle.SHORT_PREFIX_STYLE;
 
+import org.mule.extension.file.common.api.util.FieldAppender;
 import org.mule.runtime.extension.api.annotation.param.Parameter;
 
 import java.io.Serializable;
+import java.lang.reflect.Field;
 import java.net.URI;
 import java.nio.file.Path;
 import java.time.Instant;
@@ -29,6 +32,23 @@ public abstract class AbstractFileAttributes implements FileAttributes, Serializ
 
   private static final long serialVersionUID = 3249780732227598L;
 
+  private static final ClassValue<Boolean> APPENDS_FIELDS = new ClassValue<Boolean>() {
+
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      for (Class<?> current = type; current != AbstractFileAttributes.class; current = current.getSuperclass()) {
+        if (declaresAppendFields(current)) {
+          return true;
+        }
+        if (declaresInstanceFields(current)) {
+          // the closest override of appendFields belongs to a superclass, which doesn't know about these fields
+          return false;
+        }
+      }
+      return false;
+    }
+  };
+
   @Parameter
   protected final String path;
 
@@ -83,8 +103,47 @@ public abstract class AbstractFileAttributes implements FileAttributes, Serializ
     return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
   }
 
+  /**
+   * Appends the fields of this instance to its {@link #toString()} representation. Implementations which add fields of their
+   * own should override this method, invoking the super implementation first. That includes subclasses of an implementation
+   * which already overrides it, since otherwise {@link #toString()} has to fall back to reflection to represent them.
+   *
+   * @param appender the {@link FieldAppender} to append the fields to
+   * @since 1.5.0
+   */
+  protected void appendFields(FieldAppender appender) {
+    appender.append("path", path).append("fileName", fileName);
+  }
+
+  /**
+   * Builds the representation out of the fields appended by {@link #appendFields(FieldAppender)}. Implementations which don't
+   * override that method are represented through reflection instead, so that none of their fields are left out. The same
+   * goes for subclasses which declare fields of their own but inherit {@link #appendFields(FieldAppender)} from a superclass
+   * which overrides it.
+   */
   @Override
   public String toString() {
-    return ReflectionToStringBuilder.toString(this, SHORT_PREFIX_STYLE);
+    if (!APPENDS_FIELDS.get(getClass())) {
+      return ReflectionToStringBuilder.toString(this, SHORT_PREFIX_STYLE);
+    }
+    return FieldAppender.toString(this, this::appendFields);
+  }
+
+  private static boolean declaresAppendFields(Class<?> type) {
+    try {
+      type.getDeclaredMethod("appendFields", FieldAppender.class);
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  private static boolean declaresInstanceFields(Class<?> type) {
+    for (Field field : type.getDeclaredFields()) {
+      if (!isStatic(field.getModifiers()) && !field.isSynthetic()) {
+        return true;
+      }
+    }
+    return false;
   }
 }
@@ -17,7 +17,9 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 
 import static java.lang.String.format;
+import static java.lang.Thread.currentThread;
 import static java.lang.Thread.sleep;
+import static org.mule.extension.file.common.api.util.VirtualThreads.isVirtual;
 import static org.mule.runtime.api.i18n.I18nMessageFactory.createStaticMessage;
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -77,7 +79,7 @@ public abstract class AbstractFileInputStreamSupplier implements Supplier<InputS
         if (LOGGER.isDebugEnabled()) {
           LOGGER.debug(format(STARTING_WAIT_MESSAGE, attributes.getPath()));
         }
-        if (alreadyLoggedWarning.compareAndSet(false, true)) {
+        if (!isVirtual(currentThread()) && alreadyLoggedWarning.compareAndSet(false, true)) {
           LOGGER.warn(format(WAIT_WARNING_MESSAGE, attributes.getPath()));
         }
         sleep(timeBetweenSizeCheck);
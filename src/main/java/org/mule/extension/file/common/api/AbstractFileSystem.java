@@ -7,6 +7,29 @@
 package org.mule.extension.file.common.api;
 
 import static java.lang.String.format;
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.mule.extension.file.common.api.DurabilityPolicy.FILE_SYNC;
+import static org.mule.extension.file.common.api.DurabilityPolicy.NONE;
+import static org.mule.extension.file.common.api.FileWriteMode.ATOMIC_OVERWRITE;
+import static org.mule.extension.file.common.api.FileWriteMode.OVERWRITE;
+import static org.mule.extension.file.common.api.cache.DirectoryCache.DEFAULT_MAX_ENTRIES;
+import static org.mule.extension.file.common.api.cache.DirectoryCache.DEFAULT_TTL_MILLIS;
+import static org.mule.extension.file.common.api.cache.PathKeys.getParent;
+import static org.mule.extension.file.common.api.cache.PathKeys.normalize;
+import static org.mule.extension.file.common.api.cache.PathKeys.resolve;
+import static org.mule.extension.file.common.api.util.StreamProxyUtil.getInputStreamFromStreamFactory;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import org.mule.extension.file.common.api.batch.BatchRunner;
+import org.mule.extension.file.common.api.batch.FileOperationResult;
+import org.mule.extension.file.common.api.batch.PooledBatchRunner;
+import org.mule.extension.file.common.api.batch.WriteRequest;
+import org.mule.extension.file.common.api.cache.DirectoryCache;
+import org.mule.extension.file.common.api.cache.ListingCache;
+import org.mule.extension.file.common.api.cache.MediaTypeCache;
+import org.mule.extension.file.common.api.cache.StatCache;
+import org.mule.extension.file.common.api.command.AbstractFileCommand;
 import org.mule.extension.file.common.api.command.CopyCommand;
 import org.mule.extension.file.common.api.command.CreateDirectoryCommand;
 import org.mule.extension.file.common.api.command.DeleteCommand;
@@ -14,23 +37,43 @@ import org.mule.extension.file.common.api.command.ListCommand;
 import org.mule.extension.file.common.api.command.MoveCommand;
 import org.mule.extension.file.common.api.command.ReadCommand;
 import org.mule.extension.file.common.api.command.RenameCommand;
+import org.mule.extension.file.common.api.command.StatCommand;
 import org.mule.extension.file.common.api.command.WriteCommand;
 import org.mule.extension.file.common.api.exceptions.FileLockedException;
+import org.mule.extension.file.common.api.listing.CompactListing;
+import org.mule.extension.file.common.api.listing.DirectoryWatcher;
+import org.mule.extension.file.common.api.listing.Watermark;
+import org.mule.extension.file.common.api.lock.DirectoryCreationCoordinator;
 import org.mule.extension.file.common.api.lock.PathLock;
+import org.mule.extension.file.common.api.stream.LazyStreamSupplier;
 import org.mule.extension.file.common.api.subset.SubsetList;
+import org.mule.extension.file.common.api.write.GroupCommit;
 import org.mule.runtime.api.lock.LockFactory;
 import org.mule.runtime.api.metadata.MediaType;
 import org.mule.runtime.extension.api.runtime.operation.Result;
 
 import java.io.InputStream;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
-import javax.activation.MimetypesFileTypeMap;
 import javax.inject.Inject;
 
+import org.slf4j.Logger;
+
 /**
  * Base class for implementations of {@link FileSystem}
  *
@@ -38,13 +81,45 @@ import javax.inject.Inject;
  */
 public abstract class AbstractFileSystem<A extends FileAttributes> implements FileSystem<A> {
 
-  private final MimetypesFileTypeMap mimetypesFileTypeMap = new MimetypesFileTypeMap();
+  private static final Logger LOGGER = getLogger(AbstractFileSystem.class);
+
+  /**
+   * Suffix of the temporary files used by {@link FileWriteMode#ATOMIC_OVERWRITE} writes
+   */
+  public static final String ATOMIC_WRITE_TEMP_SUFFIX = ".writing";
+
+  /**
+   * Shared by every file system, so that new connections don't start with an empty cache and registered mappings survive
+   * reconnections
+   */
+  private static final MediaTypeCache MEDIA_TYPE_CACHE = new MediaTypeCache();
+
+  /**
+   * Storage id reported by default by the file systems which are reachable through the default
+   * {@link java.nio.file.FileSystem}, which are all backed by the storage of this host
+   */
+  private static final String LOCAL_STORAGE_ID = "local";
+
+  /**
+   * State shared by the file systems which report the same {@link #getStorageId() storage id}, so that the connections of a
+   * config coordinate with each other instead of with themselves. The storages reached by a JVM are few, so entries are
+   * never removed.
+   */
+  private static final ConcurrentMap<String, SharedState> SHARED_STATES = new ConcurrentHashMap<>();
 
   @Inject
   private LockFactory lockFactory;
 
   private final String basePath;
 
+  private final DirectoryCreationCoordinator directoryCreationCoordinator = new DirectoryCreationCoordinator();
+  private final Object directoryCacheLock = new Object();
+  private final AtomicBoolean nonAtomicRenameReported = new AtomicBoolean();
+  private volatile DirectoryCache directoryCache;
+  private volatile ListingCache<A> listingCache;
+  private volatile AsyncFileSystem<A> asyncFileSystem;
+  private volatile GroupCommit groupCommit;
+
   public AbstractFileSystem(String basePath) {
     this.basePath = basePath;
   }
@@ -89,6 +164,19 @@ public abstract class AbstractFileSystem<A extends FileAttributes> implements Fi
    */
   protected abstract CreateDirectoryCommand getCreateDirectoryCommand();
 
+  /**
+   * Returns the {@link StatCommand} used to obtain the attributes of files without reading them, which also allows listings to
+   * check the size stability of all their files at once. Defaults to {@code null}, in which case
+   * {@link #getAttributes(FileConnectorConfig, Collection)} falls back to reading the files one at a time and each listed file
+   * checks its own size right before being read.
+   *
+   * @return a {@link StatCommand}, or {@code null}
+   * @since 1.5.0
+   */
+  protected StatCommand<A> getStatCommand() {
+    return null;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -98,11 +186,16 @@ public abstract class AbstractFileSystem<A extends FileAttributes> implements Fi
                                            String directoryPath,
                                            boolean recursive,
                                            Predicate<A> matcher) {
-    return getListCommand().list(config, directoryPath, recursive, matcher);
+    return getListCommand().list(config, directoryPath, recursive, withoutAtomicWriteTempFiles(matcher));
   }
 
   /**
    * {@inheritDoc}
+   * <p>
+   * When a {@link #getStatCommand() StatCommand} is available, the size stability check is applied to the whole listing at
+   * once through {@link #retainStableFiles(FileConnectorConfig, List, long)}, instead of on each file right before it's read.
+   * In that case the files which are still being written are <b>left out of the listing</b>, to be picked up by a later one,
+   * rather than being listed and then waited for (or failing) when their content is read.
    */
   @Override
   public List<Result<InputStream, A>> list(FileConnectorConfig config,
@@ -110,11 +203,21 @@ public abstract class AbstractFileSystem<A extends FileAttributes> implements Fi
                                            boolean recursive,
                                            Predicate<A> matcher,
                                            Long timeBetweenSizeCheck) {
-    return getListCommand().list(config, directoryPath, recursive, matcher, timeBetweenSizeCheck);
+    return getListingCache().get(resolve(basePath, directoryPath), recursive, matcher, timeBetweenSizeCheck, null,
+                                 () -> listStable(config, timeBetweenSizeCheck,
+                                                  sizeCheck -> getListCommand().list(config, directoryPath, recursive,
+                                                                                     withoutAtomicWriteTempFiles(matcher),
+                                                                                     sizeCheck)),
+                                 results -> withFreshContent(config, results, perFileSizeCheck(timeBetweenSizeCheck)));
   }
 
   /**
    * {@inheritDoc}
+   * <p>
+   * When a {@link #getStatCommand() StatCommand} is available, the size stability check is applied to the whole listing at
+   * once through {@link #retainStableFiles(FileConnectorConfig, List, long)}, instead of on each file right before it's read.
+   * In that case the files which are still being written are <b>left out of the listing</b>, to be picked up by a later one,
+   * rather than being listed and then waited for (or failing) when their content is read.
    */
   @Override
   public List<Result<InputStream, A>> list(FileConnectorConfig config,
@@ -123,7 +226,165 @@ public abstract class AbstractFileSystem<A extends FileAttributes> implements Fi
                                            Predicate<A> matcher,
                                            Long timeBetweenSizeCheck,
                                            SubsetList subsetList) {
-    return getListCommand().list(config, directoryPath, recursive, matcher, timeBetweenSizeCheck, subsetList);
+    return getListingCache().get(resolve(basePath, directoryPath), recursive, matcher, timeBetweenSizeCheck, subsetList,
+                                 () -> listStable(config, timeBetweenSizeCheck,
+                                                  sizeCheck -> getListCommand().list(config, directoryPath, recursive,
+                                                                                     withoutAtomicWriteTempFiles(matcher),
+                                                                                     sizeCheck, subsetList)),
+                                 results -> withFreshContent(config, results, perFileSizeCheck(timeBetweenSizeCheck)));
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Each file is added to the {@link CompactListing} as soon as it's listed, through
+   * {@link ListCommand#visit(FileConnectorConfig, String, boolean, Predicate, Consumer)}, so no {@link Result} is kept for
+   * it. The listing cache is bypassed.
+   */
+  @Override
+  public CompactListing listCompact(FileConnectorConfig config,
+                                    String directoryPath,
+                                    boolean recursive,
+                                    Predicate<A> matcher,
+                                    ToLongFunction<A> lastModifiedTime) {
+    ListCommand<A> listCommand = getListCommand();
+    CompactListing.Builder builder = CompactListing.builder();
+    listCommand.visit(config, directoryPath, recursive, withoutAtomicWriteTempFiles(matcher),
+                      attributes -> builder.add(attributes, lastModifiedTime.applyAsLong(attributes)));
+    return builder.build();
+  }
+
+  /**
+   * Performs a listing through the given {@code lister}, which is given the {@code timeBetweenSizeCheck} to apply to each
+   * file. If the check can be applied to the whole listing at once, the {@code lister} is given {@code null} instead and the
+   * unstable files are discarded from its result.
+   */
+  private List<Result<InputStream, A>> listStable(FileConnectorConfig config, Long timeBetweenSizeCheck,
+                                                  Function<Long, List<Result<InputStream, A>>> lister) {
+    if (!isBulkSizeCheck(timeBetweenSizeCheck)) {
+      return lister.apply(timeBetweenSizeCheck);
+    }
+    return retainStableFiles(config, lister.apply(null), timeBetweenSizeCheck);
+  }
+
+  /**
+   * @return whether the given {@code timeBetweenSizeCheck} is applied to the whole listing at once, which is the case when
+   *         a {@link #getStatCommand() StatCommand} is available
+   */
+  private boolean isBulkSizeCheck(Long timeBetweenSizeCheck) {
+    return timeBetweenSizeCheck != null && timeBetweenSizeCheck > 0 && getStatCommand() != null;
+  }
+
+  /**
+   * @return the {@code timeBetweenSizeCheck} to apply to each file of a listing, which is {@code null} when the whole
+   *         listing is checked at once
+   */
+  private Long perFileSizeCheck(Long timeBetweenSizeCheck) {
+    return isBulkSizeCheck(timeBetweenSizeCheck) ? null : timeBetweenSizeCheck;
+  }
+
+  /**
+   * Copies the given cached listing, replacing the content of each file with a stream which lazily {@link #read reads} it,
+   * since the streams of the original listing can only be consumed once.
+   */
+  private List<Result<InputStream, A>> withFreshContent(FileConnectorConfig config, List<Result<InputStream, A>> results,
+                                                        Long timeBetweenSizeCheck) {
+    List<Result<InputStream, A>> copies = new ArrayList<>(results.size());
+    for (Result<InputStream, A> result : results) {
+      A attributes = result.getAttributes().orElse(null);
+      if (attributes == null || attributes.isDirectory() || result.getOutput() == null) {
+        copies.add(result);
+        continue;
+      }
+
+      LazyStreamSupplier content =
+          new LazyStreamSupplier(() -> read(config, attributes.getPath(), false, timeBetweenSizeCheck).getOutput());
+      copies.add(Result.<InputStream, A>builder()
+          .output(getInputStreamFromStreamFactory(content))
+          .attributes(attributes)
+          .mediaType(result.getMediaType().orElse(null))
+          .attributesMediaType(result.getAttributesMediaType().orElse(null))
+          .build());
+    }
+    return copies;
+  }
+
+  /**
+   * Returns the local {@link Path} of the given {@code filePath}, for the file systems whose files are reachable through the
+   * default {@link java.nio.file.FileSystem}. Defaults to {@code null}, in which case directories can't be
+   * {@link #watch watched}.
+   *
+   * @param filePath the path of a file or directory
+   * @return a {@link Path}, or {@code null}
+   * @since 1.5.0
+   */
+  protected Path getLocalPath(String filePath) {
+    return null;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Supported when {@link #getLocalPath(String)} is implemented.
+   */
+  @Override
+  public boolean supportsWatch() {
+    return getLocalPath(basePath) != null;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Supported when {@link #getLocalPath(String)} is implemented. The reported files are read through
+   * {@link #read(FileConnectorConfig, String, boolean, Long)}, and the rescans bypass the {@link #getListingCache() listing
+   * cache}, since they happen when events were lost.
+   */
+  @Override
+  public DirectoryWatcher<A> watch(FileConnectorConfig config,
+                                   String directoryPath,
+                                   boolean recursive,
+                                   Predicate<A> matcher,
+                                   Long timeBetweenSizeCheck,
+                                   Consumer<Result<InputStream, A>> listener) {
+    Path directory = getLocalPath(directoryPath);
+    if (directory == null) {
+      return FileSystem.super.watch(config, directoryPath, recursive, matcher, timeBetweenSizeCheck, listener);
+    }
+
+    Predicate<A> watchedFiles = withoutAtomicWriteTempFiles(matcher);
+    DirectoryWatcher<A> watcher =
+        new DirectoryWatcher<>(directory, recursive, path -> read(config, path.toString(), false, null),
+                               () -> listStable(config, timeBetweenSizeCheck,
+                                                sizeCheck -> getListCommand().list(config, directoryPath, recursive,
+                                                                                   watchedFiles, sizeCheck)),
+                               watchedFiles, timeBetweenSizeCheck, listener);
+    watcher.start();
+    return watcher;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<Result<InputStream, A>> listNewerThan(FileConnectorConfig config,
+                                                    String directoryPath,
+                                                    boolean recursive,
+                                                    Predicate<A> matcher,
+                                                    Long timeBetweenSizeCheck,
+                                                    Watermark watermark,
+                                                    ToLongFunction<A> lastModifiedTime) {
+    return getListCommand().listNewerThan(config, directoryPath, recursive, withoutAtomicWriteTempFiles(matcher),
+                                          timeBetweenSizeCheck, watermark, lastModifiedTime);
+  }
+
+  /**
+   * Decorates the given {@code matcher} so that it also rejects the temporary files of the
+   * {@link FileWriteMode#ATOMIC_OVERWRITE} writes which are in progress (or which were interrupted by a crash), so that they
+   * never show up in listings.
+   */
+  private Predicate<A> withoutAtomicWriteTempFiles(Predicate<A> matcher) {
+    return attributes -> (attributes.isDirectory() || !isAtomicWriteTempFile(attributes.getName()))
+        && matcher.test(attributes);
   }
 
   /**
@@ -133,7 +394,7 @@ public abstract class AbstractFileSystem<A extends FileAttributes> implements Fi
   @Override
   public Result<InputStream, A> read(FileConnectorConfig config, String filePath,
                                      boolean lock) {
-    return getReadCommand().read(config, filePath, lock);
+    return callCommand(() -> getReadCommand().read(config, filePath, lock));
   }
 
   /**
@@ -142,7 +403,21 @@ public abstract class AbstractFileSystem<A extends FileAttributes> implements Fi
   @Override
   public Result<InputStream, A> read(FileConnectorConfig config, String filePath,
                                      boolean lock, Long timeBetweenSizeCheck) {
-    return getReadCommand().read(config, filePath, lock, timeBetweenSizeCheck);
+    return callCommand(() -> getReadCommand().read(config, filePath, lock, timeBetweenSizeCheck));
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Delegates to {@link #getStatCommand()} when available.
+   */
+  @Override
+  public Map<String, A> getAttributes(FileConnectorConfig config, Collection<String> filePaths) {
+    StatCommand<A> statCommand = getStatCommand();
+    if (statCommand == null) {
+      return FileSystem.super.getAttributes(config, filePaths);
+    }
+    return callCommand(() -> statCommand.getAttributes(filePaths));
   }
 
   /**
@@ -153,7 +428,18 @@ public abstract class AbstractFileSystem<A extends FileAttributes> implements Fi
   @Override
   public void write(String filePath, InputStream content, FileWriteMode mode,
                     boolean lock, boolean createParentDirectories, String encoding) {
-    getWriteCommand().write(filePath, content, mode, lock, createParentDirectories, encoding);
+    try {
+      if (mode == ATOMIC_OVERWRITE) {
+        writeAtomically(filePath,
+                        tempPath -> runCommand(() -> getWriteCommand().write(tempPath, content, OVERWRITE, lock,
+                                                                              createParentDirectories, encoding)),
+                        NONE);
+      } else {
+        runCommand(() -> getWriteCommand().write(filePath, content, mode, lock, createParentDirectories, encoding));
+      }
+    } finally {
+      forgetListings(filePath);
+    }
   }
 
   /**
@@ -162,7 +448,199 @@ public abstract class AbstractFileSystem<A extends FileAttributes> implements Fi
   @Override
   public void write(String filePath, InputStream content, FileWriteMode mode,
                     boolean lock, boolean createParentDirectories) {
-    getWriteCommand().write(filePath, content, mode, lock, createParentDirectories);
+    write(filePath, content, mode, NONE, lock, createParentDirectories);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Files are synced through {@link WriteCommand#sync(String)}. With {@link DurabilityPolicy#GROUP_COMMIT}, concurrent
+   * writes of the same file share a single sync through the {@link GroupCommit} of {@code this} instance, waiting for the
+   * running sync of that file for up to {@link #getGroupCommitIntervalMillis()}. Any {@code durability} other than
+   * {@link DurabilityPolicy#NONE} is rejected before writing anything if the {@link WriteCommand} doesn't
+   * {@link WriteCommand#isSyncSupported() support syncing}.
+   */
+  @Override
+  public void write(String filePath, InputStream content, FileWriteMode mode, DurabilityPolicy durability, boolean lock,
+                    boolean createParentDirectories) {
+    checkSyncSupported(durability);
+    try {
+      if (mode == ATOMIC_OVERWRITE) {
+        writeAtomically(filePath,
+                        tempPath -> runCommand(() -> getWriteCommand().write(tempPath, content, OVERWRITE, lock,
+                                                                              createParentDirectories)),
+                        durability);
+      } else {
+        runCommand(() -> getWriteCommand().write(filePath, content, mode, lock, createParentDirectories));
+        sync(filePath, durability);
+      }
+    } finally {
+      forgetListings(filePath);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The entries are written on {@link #getAsyncExecutor()}, with up to {@link #getMaxConcurrentOperations()} of them in
+   * flight, which means one at a time unless overridden. Entries which create their parent directories are grouped by that
+   * directory: the first entry of each group is written before the rest of them start, so that the directory is created (and
+   * remembered by the {@link #getDirectoryCache() directory cache}) only once.
+   */
+  @Override
+  public List<FileOperationResult> writeAll(Iterator<WriteRequest> requests) {
+    return this.<WriteRequest>newBatchRunner()
+        .run(requests, WriteRequest::getPath,
+             request -> request.isCreateParentDirectories() && request.getPath() != null
+                 ? getParent(normalize(request.getPath()))
+                 : null,
+             request -> write(request.getPath(), request.getContent(), request.getMode(), request.getDurability(),
+                              request.isLock(), request.isCreateParentDirectories()));
+  }
+
+  private void checkSyncSupported(DurabilityPolicy durability) {
+    if (durability != NONE && !getWriteCommand().isSyncSupported()) {
+      throw new IllegalArgumentException(format("%s can't sync files to the storage device, so it doesn't support the %s "
+          + "durability policy", getClass().getSimpleName(), durability));
+    }
+  }
+
+  private void sync(String filePath, DurabilityPolicy durability) {
+    switch (durability) {
+      case FILE_SYNC:
+        getWriteCommand().sync(filePath);
+        break;
+      case GROUP_COMMIT:
+        getGroupCommit().sync(filePath);
+        break;
+      default:
+        break;
+    }
+  }
+
+  private GroupCommit getGroupCommit() {
+    GroupCommit commit = groupCommit;
+    if (commit == null) {
+      synchronized (this) {
+        commit = groupCommit;
+        if (commit == null) {
+          commit = new GroupCommit(path -> getWriteCommand().sync(path), getGroupCommitIntervalMillis(), MILLISECONDS);
+          groupCommit = commit;
+        }
+      }
+    }
+    return commit;
+  }
+
+  /**
+   * @return the maximum amount of milliseconds that a batch of {@link DurabilityPolicy#GROUP_COMMIT} writes waits for the
+   *         running sync of its file
+   * @since 1.5.0
+   */
+  protected long getGroupCommitIntervalMillis() {
+    return GroupCommit.DEFAULT_INTERVAL_MILLIS;
+  }
+
+  /**
+   * Implements {@link FileWriteMode#ATOMIC_OVERWRITE} on top of the {@link WriteCommand} and {@link RenameCommand}: the
+   * content is written into a hidden sibling of the target file, which is then synced according to the {@code durability} (or
+   * {@link #isSyncBeforeAtomicRename()} if it's {@link DurabilityPolicy#NONE}) and
+   * {@link RenameCommand#renameAtomically(String, String) renamed} into place. When the temporary file was synced, so is the
+   * parent directory after the rename, so that the new directory entry survives a crash as well. The temporary file is removed
+   * if anything goes wrong.
+   *
+   * @param filePath   the path of the file to be written
+   * @param write      writes the content into the given temporary path
+   * @param durability the {@link DurabilityPolicy} of the write
+   */
+  private void writeAtomically(String filePath, Consumer<String> write, DurabilityPolicy durability) {
+    DurabilityPolicy tempDurability = durability == NONE && isSyncBeforeAtomicRename() ? FILE_SYNC : durability;
+    checkSyncSupported(tempDurability);
+    String tempPath = getAtomicWriteTempPath(filePath);
+    boolean renamed = false;
+    try {
+      write.accept(tempPath);
+      sync(tempPath, tempDurability);
+      RenameCommand renameCommand = getRenameCommand();
+      if (!renameCommand.isAtomicRenameSupported()) {
+        reportNonAtomicRename(filePath);
+      }
+      runCommand(() -> renameCommand.renameAtomically(tempPath, getFileName(filePath)));
+      renamed = true;
+      if (tempDurability != NONE) {
+        runCommand(() -> getWriteCommand().syncParentDirectory(filePath));
+      }
+    } finally {
+      if (!renamed) {
+        deleteQuietly(tempPath);
+      }
+    }
+  }
+
+  private void reportNonAtomicRename(String filePath) {
+    String message = format("Atomic overwrite of '%s' falls back to a regular overwriting rename, since %s doesn't support "
+        + "atomic renames. The file might be briefly missing while it's replaced", filePath, getClass().getSimpleName());
+    if (nonAtomicRenameReported.compareAndSet(false, true)) {
+      LOGGER.warn(message);
+    } else {
+      LOGGER.debug(message);
+    }
+  }
+
+  private void deleteQuietly(String tempPath) {
+    try {
+      runCommand(() -> getDeleteCommand().delete(tempPath));
+    } catch (RuntimeException e) {
+      LOGGER.debug(format("Could not delete temporary file '%s' of a failed atomic write", tempPath), e);
+    }
+  }
+
+  /**
+   * Whether the temporary file of an {@link FileWriteMode#ATOMIC_OVERWRITE} write is synced to the storage device before being
+   * renamed into place, so that a crash never leaves an empty or partial file behind the final name. Defaults to
+   * {@code false}, which only guarantees that concurrent readers never see a partial file: unless the write asks for a
+   * {@link DurabilityPolicy} other than {@link DurabilityPolicy#NONE}, a crash of the host right after the rename might
+   * still leave an empty or partial file behind. Implementations which can {@link WriteCommand#sync(String) sync} cheaply
+   * might want to return {@code true}.
+   *
+   * @return whether to sync before renaming
+   * @since 1.5.0
+   */
+  protected boolean isSyncBeforeAtomicRename() {
+    return false;
+  }
+
+  /**
+   * Returns the path of the temporary file used to atomically write the file at the given path: a hidden file in the same
+   * directory, with a unique name ending in {@link #ATOMIC_WRITE_TEMP_SUFFIX}.
+   *
+   * @param filePath the path of the file to be written
+   * @return the path of the temporary file
+   * @since 1.5.0
+   */
+  public static String getAtomicWriteTempPath(String filePath) {
+    int separatorIndex = lastSeparatorIndex(filePath);
+    return filePath.substring(0, separatorIndex + 1) + "." + filePath.substring(separatorIndex + 1) + "." + randomUUID()
+        + ATOMIC_WRITE_TEMP_SUFFIX;
+  }
+
+  /**
+   * Whether the given file name is the one of a temporary file created by {@link #getAtomicWriteTempPath(String)}.
+   *
+   * @param fileName the name of a file, without its parent path
+   * @return whether it's an atomic write temporary file
+   * @since 1.5.0
+   */
+  public static boolean isAtomicWriteTempFile(String fileName) {
+    return fileName != null && fileName.startsWith(".") && fileName.endsWith(ATOMIC_WRITE_TEMP_SUFFIX);
+  }
+
+  private static String getFileName(String filePath) {
+    return filePath.substring(lastSeparatorIndex(filePath) + 1);
+  }
+
+  private static int lastSeparatorIndex(String filePath) {
+    return Math.max(filePath.lastIndexOf('/'), filePath.lastIndexOf('\\'));
   }
 
   /**
@@ -171,7 +649,11 @@ public abstract class AbstractFileSystem<A extends FileAttributes> implements Fi
   @Override
   public void copy(FileConnectorConfig config, String sourcePath, String targetDirectory, boolean overwrite,
                    boolean createParentDirectories, String renameTo) {
-    getCopyCommand().copy(config, sourcePath, targetDirectory, overwrite, createParentDirectories, renameTo);
+    try {
+      runCommand(() -> getCopyCommand().copy(config, sourcePath, targetDirectory, overwrite, createParentDirectories, renameTo));
+    } finally {
+      forgetListings(targetDirectory);
+    }
   }
 
   /**
@@ -180,7 +662,13 @@ public abstract class AbstractFileSystem<A extends FileAttributes> implements Fi
   @Override
   public void move(FileConnectorConfig config, String sourcePath, String targetDirectory, boolean overwrite,
                    boolean createParentDirectories, String renameTo) {
-    getMoveCommand().move(config, sourcePath, targetDirectory, overwrite, createParentDirectories, renameTo);
+    try {
+      runCommand(() -> getMoveCommand().move(config, sourcePath, targetDirectory, overwrite, createParentDirectories, renameTo));
+    } finally {
+      forgetDirectory(sourcePath);
+      forgetListings(sourcePath);
+      forgetListings(targetDirectory);
+    }
   }
 
   /**
@@ -188,7 +676,42 @@ public abstract class AbstractFileSystem<A extends FileAttributes> implements Fi
    */
   @Override
   public void delete(String filePath) {
-    getDeleteCommand().delete(filePath);
+    try {
+      runCommand(() -> getDeleteCommand().delete(filePath));
+    } finally {
+      forgetDirectory(filePath);
+      forgetListings(filePath);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The files are deleted on {@link #getAsyncExecutor()}, with up to {@link #getMaxConcurrentOperations()} of them in flight,
+   * which means sequentially unless overridden.
+   */
+  @Override
+  public List<FileOperationResult> deleteAll(Iterator<String> filePaths) {
+    return this.<String>newBatchRunner().run(filePaths, path -> path, null, this::delete);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The files are moved on {@link #getAsyncExecutor()}, with up to {@link #getMaxConcurrentOperations()} of them in flight,
+   * which means sequentially unless overridden. When parent directories are to be created, the first file is moved before
+   * the rest of them start, so that the {@code targetPath} is created only once.
+   */
+  @Override
+  public List<FileOperationResult> moveAll(FileConnectorConfig config, Iterator<String> sourcePaths, String targetPath,
+                                           boolean overwrite, boolean createParentDirectories) {
+    return this.<String>newBatchRunner()
+        .run(sourcePaths, path -> path, path -> createParentDirectories ? targetPath : null,
+             path -> move(config, path, targetPath, overwrite, createParentDirectories, null));
+  }
+
+  private <T> BatchRunner<T> newBatchRunner() {
+    return new BatchRunner<>(getAsyncExecutor(), getMaxConcurrentOperations());
   }
 
   /**
@@ -196,7 +719,27 @@ public abstract class AbstractFileSystem<A extends FileAttributes> implements Fi
    */
   @Override
   public final void rename(String filePath, String newName, boolean overwrite) {
-    getRenameCommand().rename(filePath, newName, overwrite);
+    try {
+      runCommand(() -> getRenameCommand().rename(filePath, newName, overwrite));
+    } finally {
+      forgetDirectory(filePath);
+      forgetListings(filePath);
+      String parent = getParent(resolve(basePath, filePath));
+      if (parent != null) {
+        forgetStat(resolve(parent, newName));
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The files are renamed on {@link #getAsyncExecutor()}, with up to {@link #getMaxConcurrentOperations()} of them in flight,
+   * which means sequentially unless overridden.
+   */
+  @Override
+  public List<FileOperationResult> renameAll(Iterator<String> filePaths, String newName, boolean overwrite) {
+    return this.<String>newBatchRunner().run(filePaths, path -> path, null, path -> rename(path, newName, overwrite));
   }
 
   /**
@@ -204,7 +747,11 @@ public abstract class AbstractFileSystem<A extends FileAttributes> implements Fi
    */
   @Override
   public void createDirectory(String directoryName) {
-    getCreateDirectoryCommand().createDirectory(directoryName);
+    try {
+      runCommand(() -> getCreateDirectoryCommand().createDirectory(directoryName));
+    } finally {
+      forgetListings(directoryName);
+    }
   }
 
   /**
@@ -234,10 +781,34 @@ public abstract class AbstractFileSystem<A extends FileAttributes> implements Fi
 
   /**
    * {@inheritDoc}
+   * <p>
+   * The {@link MediaType} of each extension is resolved once and then served by the {@link #getMediaTypeCache() media type
+   * cache}.
    */
   @Override
   public MediaType getFileMessageMediaType(FileAttributes attributes) {
-    return MediaType.parse(mimetypesFileTypeMap.getContentType(attributes.getPath()));
+    return getMediaTypeCache().getMediaType(attributes.getPath());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public MediaType getFileMessageMediaType(FileAttributes attributes, Supplier<InputStream> content) {
+    return getMediaTypeCache().getMediaType(attributes.getPath(), content);
+  }
+
+  /**
+   * Returns the {@link MediaTypeCache} used to resolve the {@link MediaType} of files, on which custom mappings can be
+   * {@link MediaTypeCache#register(String, MediaType) registered}. Defaults to one which is shared by all the file systems
+   * loaded by the same class loader, which means all the connections of an application. Implementations which need their
+   * mappings to differ per config should override it with a cache that their config holds.
+   *
+   * @return a {@link MediaTypeCache}
+   * @since 1.5.0
+   */
+  public MediaTypeCache getMediaTypeCache() {
+    return MEDIA_TYPE_CACHE;
   }
 
   /**
@@ -280,4 +851,242 @@ public abstract class AbstractFileSystem<A extends FileAttributes> implements Fi
   public String getBasePath() {
     return basePath;
   }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The cache is lazily created through {@link #createDirectoryCache()}. It's shared by all the file systems with the same
+   * {@link #getStorageId() storage id}, in which case the first one to use it creates it.
+   */
+  @Override
+  public DirectoryCache getDirectoryCache() {
+    DirectoryCache cache = directoryCache;
+    if (cache == null) {
+      synchronized (directoryCacheLock) {
+        cache = directoryCache;
+        if (cache == null) {
+          SharedState sharedState = getSharedState();
+          cache = sharedState != null ? sharedState.getDirectoryCache(this::createDirectoryCache) : createDirectoryCache();
+          directoryCache = cache;
+        }
+      }
+    }
+    return cache;
+  }
+
+  /**
+   * Creates the {@link DirectoryCache} returned by {@link #getDirectoryCache()}. Implementations can override this method to
+   * tune its size and time to live, or to return {@link DirectoryCache#disabled()}. Instances with the same
+   * {@link #getStorageId() storage id} are expected to create equivalent caches, since only one of them is used.
+   *
+   * @return a new {@link DirectoryCache}
+   * @since 1.5.0
+   */
+  protected DirectoryCache createDirectoryCache() {
+    return new DirectoryCache(DEFAULT_MAX_ENTRIES, DEFAULT_TTL_MILLIS, MILLISECONDS);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The cache is lazily created through {@link #createListingCache()}.
+   */
+  @Override
+  public ListingCache<A> getListingCache() {
+    ListingCache<A> cache = listingCache;
+    if (cache == null) {
+      synchronized (directoryCacheLock) {
+        cache = listingCache;
+        if (cache == null) {
+          cache = createListingCache();
+          listingCache = cache;
+        }
+      }
+    }
+    return cache;
+  }
+
+  /**
+   * Creates the {@link ListingCache} returned by {@link #getListingCache()}. Since cached listings don't reflect the
+   * changes made by other processes until they expire, this default implementation returns a
+   * {@link ListingCache#disabled() disabled} cache. Implementations which want listings to be cached can override it.
+   *
+   * @return a new {@link ListingCache}
+   * @since 1.5.0
+   */
+  protected ListingCache<A> createListingCache() {
+    return ListingCache.disabled();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The coordinator is shared by all the file systems with the same {@link #getStorageId() storage id}, so that the
+   * connections of a config which create the same directory coalesce too.
+   */
+  @Override
+  public DirectoryCreationCoordinator getDirectoryCreationCoordinator() {
+    SharedState sharedState = getSharedState();
+    return sharedState != null ? sharedState.directoryCreationCoordinator : directoryCreationCoordinator;
+  }
+
+  /**
+   * Identifies the storage behind {@code this} file system, so that the {@link #getDirectoryCreationCoordinator()
+   * directory creation coordinator} and the {@link #getDirectoryCache() directory cache} are shared by the file systems of
+   * this JVM which reach the same storage, such as the connections of a config. The paths they handle are absolute, so they
+   * are used as keys within the shared instances.
+   * <p>
+   * The file systems which are reachable through the default {@link java.nio.file.FileSystem}, as reported by
+   * {@link #getLocalPath(String)}, share the storage of this host by default. Otherwise this method returns {@code null},
+   * since the same path might refer to different files on different servers, and each instance keeps its own state.
+   * Implementations for remote servers can return an id which identifies the server, such as its address and port.
+   *
+   * @return the id of the storage behind {@code this} file system, or {@code null} if unknown
+   * @since 1.5.0
+   */
+  protected String getStorageId() {
+    return getLocalPath(basePath) != null ? LOCAL_STORAGE_ID : null;
+  }
+
+  private SharedState getSharedState() {
+    String storageId = getStorageId();
+    return storageId != null ? SHARED_STATES.computeIfAbsent(storageId, id -> new SharedState()) : null;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The operations are run on {@link #getAsyncExecutor()}, with up to {@link #getMaxConcurrentOperations()} of them in flight.
+   * The same instance is returned on every invocation, so that the limit applies to all the callers.
+   */
+  @Override
+  public AsyncFileSystem<A> async() {
+    AsyncFileSystem<A> async = asyncFileSystem;
+    if (async == null) {
+      synchronized (this) {
+        async = asyncFileSystem;
+        if (async == null) {
+          async = new ExecutorAsyncFileSystem<>(this, getAsyncExecutor(), getMaxConcurrentOperations());
+          asyncFileSystem = async;
+        }
+      }
+    }
+    return async;
+  }
+
+  /**
+   * Returns the {@link Executor} on which the operations of the {@link #async()} view and of the batch operations are run.
+   * This default implementation returns the {@link ExecutorAsyncFileSystem#sharedExecutor() executor shared} by all the file
+   * systems, so that connections don't allocate threads of their own.
+   *
+   * @return the {@link Executor} on which the operations of the {@link #async()} view are run
+   * @since 1.5.0
+   */
+  protected Executor getAsyncExecutor() {
+    return ExecutorAsyncFileSystem.sharedExecutor();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Closes the {@link #async()} view, failing the operations which are still queued. It's created again if used afterwards.
+   */
+  @Override
+  public void releaseResources() {
+    AsyncFileSystem<A> async;
+    synchronized (this) {
+      async = asyncFileSystem;
+      asyncFileSystem = null;
+    }
+
+    if (async instanceof ExecutorAsyncFileSystem) {
+      ((ExecutorAsyncFileSystem<A>) async).close();
+    }
+  }
+
+  /**
+   * Returns the maximum amount of operations of the {@link #async()} view and of the batch operations, such as
+   * {@link #deleteAll(Iterator)}, which can be in flight at the same time. Defaults to {@code 1}, since the connection behind
+   * most implementations doesn't support concurrent usage, which makes the batch operations sequential. Implementations which
+   * do support it can override this method. Otherwise, {@link PooledBatchRunner} allows to run batch operations in parallel
+   * over pooled connections.
+   *
+   * @return the maximum amount of concurrent operations
+   * @since 1.5.0
+   */
+  protected int getMaxConcurrentOperations() {
+    return 1;
+  }
+
+  /**
+   * Removes the given {@code path} from the {@link #getDirectoryCache() directory cache} and from the {@link StatCache} of the
+   * enclosing command, since it might have been a directory which no longer exists.
+   *
+   * @param path the path of a deleted, moved or renamed file or directory
+   */
+  private void forgetDirectory(String path) {
+    if (path != null) {
+      String key = resolve(basePath, path);
+      getDirectoryCache().invalidate(key);
+      forgetStat(key);
+    }
+  }
+
+  /**
+   * Removes the listings which might have changed because of the given {@code path} from the
+   * {@link #getListingCache() listing cache}, along with what the {@link StatCache} of the enclosing command knows about it.
+   *
+   * @param path the path of a created, modified, deleted, moved or renamed file or directory
+   */
+  private void forgetListings(String path) {
+    if (path != null) {
+      String key = resolve(basePath, path);
+      getListingCache().invalidate(key);
+      forgetStat(key);
+    }
+  }
+
+  /**
+   * When this file system is invoked from within the command of another one of its operations, as a move which deletes its
+   * source, the {@link StatCache} of that command is still open once the nested operation finished, so what it knew about the
+   * given {@code key} is discarded.
+   */
+  private void forgetStat(String key) {
+    StatCache cache = StatCache.current(this);
+    if (cache != null) {
+      cache.invalidate(key);
+    }
+  }
+
+  /**
+   * Runs a single command within a {@link StatCache} scope, so that the lookups it performs through
+   * {@link AbstractFileCommand#cachedExists(Object)} are memoized while it runs.
+   */
+  private void runCommand(Runnable command) {
+    try (StatCache.Scope scope = StatCache.open(this)) {
+      command.run();
+    }
+  }
+
+  /**
+   * Same as {@link #runCommand(Runnable)}, for commands which return a value
+   */
+  private <T> T callCommand(Supplier<T> command) {
+    try (StatCache.Scope scope = StatCache.open(this)) {
+      return command.get();
+    }
+  }
+
+  private static final class SharedState {
+
+    private final DirectoryCreationCoordinator directoryCreationCoordinator = new DirectoryCreationCoordinator();
+    private DirectoryCache directoryCache;
+
+    private synchronized DirectoryCache getDirectoryCache(Supplier<DirectoryCache> factory) {
+      if (directoryCache == null) {
+        directoryCache = factory.get();
+      }
+      return directoryCache;
+    }
+  }
 }
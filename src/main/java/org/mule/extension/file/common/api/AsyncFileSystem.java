@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api;
+
+import org.mule.runtime.extension.api.runtime.operation.Result;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+/**
+ * Asynchronous view of a {@link FileSystem}. Each method has the same semantics as its synchronous counterpart on
+ * {@link FileSystem}, but returns immediately with a {@link CompletableFuture} which is completed once the operation finishes,
+ * or completed exceptionally with the exception that the synchronous method would have thrown.
+ * <p>
+ * This allows callers to overlap independent operations, such as deleting already processed files while the next batch is
+ * being listed. Implementations are expected to bound the amount of operations in flight, queuing the ones which go beyond
+ * it rather than blocking their callers.
+ *
+ * @param <A> the generic type of the file attributes
+ * @see FileSystem#async()
+ * @since 1.5.0
+ */
+public interface AsyncFileSystem<A extends FileAttributes> {
+
+  /**
+   * Asynchronous version of {@link FileSystem#list(FileConnectorConfig, String, boolean, Predicate, Long)}
+   */
+  CompletableFuture<List<Result<InputStream, A>>> list(FileConnectorConfig config, String directoryPath, boolean recursive,
+                                                       Predicate<A> matcher, Long timeBetweenSizeCheck);
+
+  /**
+   * Asynchronous version of {@link FileSystem#read(FileConnectorConfig, String, boolean, Long)}
+   */
+  CompletableFuture<Result<InputStream, A>> read(FileConnectorConfig config, String filePath, boolean lock,
+                                                 Long timeBetweenSizeCheck);
+
+  /**
+   * Asynchronous version of {@link FileSystem#write(String, InputStream, FileWriteMode, boolean, boolean)}
+   */
+  CompletableFuture<Void> write(String filePath, InputStream content, FileWriteMode mode, boolean lock,
+                                boolean createParentDirectories);
+
+  /**
+   * Asynchronous version of {@link FileSystem#copy(FileConnectorConfig, String, String, boolean, boolean, String)}
+   */
+  CompletableFuture<Void> copy(FileConnectorConfig config, String sourcePath, String targetPath, boolean overwrite,
+                               boolean createParentDirectories, String renameTo);
+
+  /**
+   * Asynchronous version of {@link FileSystem#move(FileConnectorConfig, String, String, boolean, boolean, String)}
+   */
+  CompletableFuture<Void> move(FileConnectorConfig config, String sourcePath, String targetPath, boolean overwrite,
+                               boolean createParentDirectories, String renameTo);
+
+  /**
+   * Asynchronous version of {@link FileSystem#delete(String)}
+   */
+  CompletableFuture<Void> delete(String filePath);
+
+  /**
+   * Asynchronous version of {@link FileSystem#rename(String, String, boolean)}
+   */
+  CompletableFuture<Void> rename(String filePath, String newName, boolean overwrite);
+
+  /**
+   * Asynchronous version of {@link FileSystem#createDirectory(String)}
+   */
+  CompletableFuture<Void> createDirectory(String directoryPath);
+}
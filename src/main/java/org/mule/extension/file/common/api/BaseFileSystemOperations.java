@@ -8,9 +8,14 @@ package org.mule.extension.file.common.api;
 
 import static java.lang.String.format;
 import static java.nio.file.Paths.get;
+import static org.mule.extension.file.common.api.cache.MediaTypeCache.SNIFF_LENGTH;
+import static org.mule.runtime.api.metadata.MediaType.BINARY;
 import static org.mule.runtime.core.api.util.StringUtils.isBlank;
 import static org.mule.runtime.extension.api.annotation.param.display.Placement.ADVANCED_TAB;
 
+import org.mule.extension.file.common.api.batch.FileOperationResult;
+import org.mule.extension.file.common.api.batch.WriteRequest;
+import org.mule.extension.file.common.api.cache.MediaTypeCache;
 import org.mule.extension.file.common.api.exceptions.IllegalContentException;
 import org.mule.extension.file.common.api.exceptions.IllegalPathException;
 import org.mule.extension.file.common.api.matcher.FileMatcher;
@@ -18,6 +23,7 @@ import org.mule.extension.file.common.api.matcher.NullFilePayloadPredicate;
 import org.mule.extension.file.common.api.subset.SubsetList;
 import org.mule.runtime.api.exception.MuleException;
 import org.mule.runtime.api.message.Message;
+import org.mule.runtime.api.metadata.MediaType;
 import org.mule.runtime.api.streaming.CursorProvider;
 import org.mule.runtime.extension.api.annotation.param.Config;
 import org.mule.runtime.extension.api.annotation.param.Connection;
@@ -28,12 +34,20 @@ import org.mule.runtime.extension.api.runtime.operation.Result;
 import org.mule.runtime.extension.api.runtime.streaming.PagingProvider;
 import org.mule.runtime.extension.api.runtime.streaming.StreamingHelper;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import javax.activation.MimetypesFileTypeMap;
 
@@ -46,6 +60,11 @@ public abstract class BaseFileSystemOperations {
 
   private static final Integer LIST_PAGE_SIZE = 10;
 
+  /**
+   * Shared so that unfiltered listings of the same directory can be served from the file system's listing cache
+   */
+  private static final Predicate<FileAttributes> MATCH_ALL = new NullFilePayloadPredicate<>();
+
   /**
    * Lists all the files in the {@code directoryPath} which match the given {@code matcher}.
    * <p>
@@ -250,7 +269,43 @@ public abstract class BaseFileSystemOperations {
                                                            tab = ADVANCED_TAB) boolean lock,
                                                        Long timeBetweenSizeCheck) {
     fileSystem.changeToBaseDir();
-    return fileSystem.read(config, path, lock, timeBetweenSizeCheck);
+    return withGuessedMediaType(fileSystem, fileSystem.read(config, path, lock, timeBetweenSizeCheck));
+  }
+
+  /**
+   * When the {@link MediaType} of the given read {@code result} could not be told out of the file's extension, gives the
+   * {@code fileSystem} the chance to {@link FileSystem#getFileMessageMediaType(FileAttributes, Supplier) guess it} out of the
+   * first bytes of the file. Those are read ahead from the content of the {@code result} itself, which is then replaced by a
+   * stream that yields them again, so the file is only read once. The content is left untouched if the {@code fileSystem}
+   * doesn't need it to guess the type.
+   */
+  private Result<InputStream, FileAttributes> withGuessedMediaType(FileSystem fileSystem,
+                                                                   Result<InputStream, FileAttributes> result) {
+    FileAttributes attributes = result.getAttributes().orElse(null);
+    MediaType mediaType = result.getMediaType().orElse(null);
+    if (attributes == null || attributes.isDirectory() || (mediaType != null && !mediaType.matches(BINARY))) {
+      return result;
+    }
+
+    ContentHead content = new ContentHead(result.getOutput());
+    MediaType guessed = fileSystem.getFileMessageMediaType(attributes, content::read);
+    if (guessed == null || guessed.matches(BINARY)) {
+      return content.isRead() ? withOutput(result, content.getContent(), mediaType) : result;
+    }
+    if (mediaType != null && mediaType.getCharset().isPresent()) {
+      guessed = guessed.withCharset(mediaType.getCharset().get());
+    }
+    return withOutput(result, content.getContent(), guessed);
+  }
+
+  private Result<InputStream, FileAttributes> withOutput(Result<InputStream, FileAttributes> result, InputStream output,
+                                                         MediaType mediaType) {
+    return Result.<InputStream, FileAttributes>builder()
+        .output(output)
+        .attributes(result.getAttributes().orElse(null))
+        .mediaType(mediaType)
+        .attributesMediaType(result.getAttributesMediaType().orElse(null))
+        .build();
   }
 
   /**
@@ -327,6 +382,57 @@ public abstract class BaseFileSystemOperations {
     fileSystem.write(path, content, mode, lock, createParentDirectories);
   }
 
+  /**
+   * Writes the {@code content} into the file pointed by {@code path} under the same considerations as
+   * {@link #doWrite(FileConnectorConfig, FileSystem, String, InputStream, boolean, boolean, FileWriteMode)}, and doesn't
+   * return until the content is stored according to the given {@code durability}.
+   *
+   * @param config                  the {@link FileConnectorConfig} on which the operation is being executed
+   * @param fileSystem              a reference to the host {@link FileSystem}
+   * @param path                    the path of the file to be written
+   * @param content                 the content to be written into the file. Defaults to the current {@link Message} payload
+   * @param createParentDirectories whether or not to attempt creating any parent directories which don't exists.
+   * @param lock                    whether or not to lock the file. Defaults to false
+   * @param mode                    a {@link FileWriteMode}. Defaults to {@code OVERWRITE}
+   * @param durability              a {@link DurabilityPolicy}. Defaults to {@code NONE}
+   * @throws IllegalArgumentException if an illegal combination of arguments is supplied
+   * @since 1.5.0
+   */
+  protected void doWrite(FileConnectorConfig config, FileSystem fileSystem, String path, InputStream content,
+                         boolean createParentDirectories, boolean lock, FileWriteMode mode, DurabilityPolicy durability) {
+    if (content == null) {
+      throw new IllegalContentException("Cannot write a null content");
+    }
+
+    validatePath(path, "path");
+    fileSystem.changeToBaseDir();
+
+    fileSystem.write(path, content, mode, durability, lock, createParentDirectories);
+  }
+
+  /**
+   * Writes each of the given {@code requests} under the same considerations as
+   * {@link #doWrite(FileConnectorConfig, FileSystem, String, InputStream, boolean, boolean, FileWriteMode, DurabilityPolicy)}.
+   * <p>
+   * The base directory is resolved once for the whole batch. Entries with a {@code null} content or an invalid path are
+   * reported as failed without affecting the rest of them.
+   *
+   * @param config     the {@link FileConnectorConfig} on which the operation is being executed
+   * @param fileSystem a reference to the host {@link FileSystem}
+   * @param requests   the {@link WriteRequest}s to process
+   * @return a {@link FileOperationResult} per request, in the same order as the {@code requests}
+   * @since 1.5.0
+   */
+  protected List<FileOperationResult> doWriteAll(FileConnectorConfig config, FileSystem fileSystem,
+                                                 Iterator<WriteRequest> requests) {
+    return runBatch(fileSystem, requests, WriteRequest::getPath, request -> {
+      if (request.getContent() == null) {
+        throw new IllegalContentException("Cannot write a null content");
+      }
+      validatePath(request.getPath(), "path");
+    }, fileSystem::writeAll);
+  }
+
   /**
    * Copies the file at the {@code sourcePath} into the {@code targetPath}.
    * <p>
@@ -387,6 +493,30 @@ public abstract class BaseFileSystemOperations {
     fileSystem.move(config, sourcePath, targetPath, overwrite, createParentDirectories, renameTo);
   }
 
+  /**
+   * Moves each of the files pointed by the given {@code sourcePaths} into the {@code targetPath}, under the same
+   * considerations as {@link #doMove(FileConnectorConfig, FileSystem, String, String, boolean, boolean, String)}.
+   * <p>
+   * The base directory is resolved once for the whole batch. Invalid source paths are reported as failed without affecting
+   * the rest of them.
+   *
+   * @param config                  the config that is parameterizing this operation
+   * @param fileSystem              a reference to the host {@link FileSystem}
+   * @param sourcePaths             the paths to the files to be moved
+   * @param targetPath              the target directory
+   * @param createParentDirectories whether or not to attempt creating any parent directories which don't exists.
+   * @param overwrite               whether or not overwrite the files if the target destination already exists.
+   * @return a {@link FileOperationResult} per source path, in the same order as the {@code sourcePaths}
+   * @throws IllegalArgumentException if the {@code targetPath} is not valid
+   * @since 1.5.0
+   */
+  protected List<FileOperationResult> doMoveAll(FileConnectorConfig config, FileSystem fileSystem, Iterator<String> sourcePaths,
+                                                String targetPath, boolean createParentDirectories, boolean overwrite) {
+    validatePath(targetPath, "target path");
+    return runBatch(fileSystem, sourcePaths, path -> path, path -> validatePath(path, "source path"),
+                    accepted -> fileSystem.moveAll(config, accepted, targetPath, overwrite, createParentDirectories));
+  }
+
   /**
    * Deletes the file pointed by {@code path}, provided that it's not locked
    *
@@ -399,6 +529,22 @@ public abstract class BaseFileSystemOperations {
     fileSystem.delete(path);
   }
 
+  /**
+   * Deletes each of the files pointed by the given {@code paths}, under the same considerations as
+   * {@link #doDelete(FileSystem, String)}.
+   * <p>
+   * The base directory is resolved once for the whole batch. Invalid paths are reported as failed without affecting the rest
+   * of them.
+   *
+   * @param fileSystem a reference to the host {@link FileSystem}
+   * @param paths      the paths to the files to be deleted
+   * @return a {@link FileOperationResult} per path, in the same order as the {@code paths}
+   * @since 1.5.0
+   */
+  protected List<FileOperationResult> doDeleteAll(FileSystem fileSystem, Iterator<String> paths) {
+    return runBatch(fileSystem, paths, path -> path, path -> validatePath(path, "path"), fileSystem::deleteAll);
+  }
+
   /**
    * Renames the file pointed by {@code path} to the name provided on the {@code to} parameter
    * <p>
@@ -434,6 +580,39 @@ public abstract class BaseFileSystemOperations {
     fileSystem.createDirectory(directoryPath);
   }
 
+  /**
+   * Validates each of the given {@code entries} and hands the valid ones to the {@code batch} operation, resolving the base
+   * directory only once. Invalid entries are reported as failed, in their original position.
+   */
+  private <T> List<FileOperationResult> runBatch(FileSystem fileSystem, Iterator<T> entries, Function<T, String> pathOf,
+                                                 Consumer<T> validator,
+                                                 Function<Iterator<T>, List<FileOperationResult>> batch) {
+    List<FileOperationResult> results = new ArrayList<>();
+    List<T> accepted = new ArrayList<>();
+    List<Integer> acceptedIndexes = new ArrayList<>();
+    while (entries.hasNext()) {
+      T entry = entries.next();
+      try {
+        validator.accept(entry);
+        acceptedIndexes.add(results.size());
+        accepted.add(entry);
+        results.add(null);
+      } catch (RuntimeException e) {
+        results.add(FileOperationResult.failure(pathOf.apply(entry), e));
+      }
+    }
+
+    if (!accepted.isEmpty()) {
+      fileSystem.changeToBaseDir();
+      List<FileOperationResult> processed = batch.apply(accepted.iterator());
+      for (int i = 0; i < processed.size(); i++) {
+        results.set(acceptedIndexes.get(i), processed.get(i));
+      }
+    }
+
+    return results;
+  }
+
   private void validatePath(String path, String pathName) {
     if (isBlank(path)) {
       throw new IllegalPathException(format("%s cannot be null nor blank", pathName));
@@ -441,6 +620,51 @@ public abstract class BaseFileSystemOperations {
   }
 
   private Predicate<FileAttributes> getPredicate(FileMatcher builder) {
-    return builder != null ? builder.build() : new NullFilePayloadPredicate();
+    return builder != null ? builder.build() : MATCH_ALL;
+  }
+
+  /**
+   * Reads ahead the first {@link MediaTypeCache#SNIFF_LENGTH} bytes of a content, pushing them back so that whoever consumes
+   * the content reads them again. Files shorter than that are fully read ahead, which closes their stream (and releases their
+   * lock) before the operation returns.
+   */
+  private static final class ContentHead {
+
+    private final InputStream original;
+    private PushbackInputStream content;
+    private byte[] head;
+    private int length;
+
+    private ContentHead(InputStream original) {
+      this.original = original;
+    }
+
+    private InputStream read() {
+      if (content == null) {
+        head = new byte[SNIFF_LENGTH];
+        content = new PushbackInputStream(original, head.length);
+        try {
+          try {
+            int read;
+            while (length < head.length && (read = content.read(head, length, head.length - length)) > 0) {
+              length += read;
+            }
+          } finally {
+            content.unread(head, 0, length);
+          }
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      return new ByteArrayInputStream(head, 0, length);
+    }
+
+    private boolean isRead() {
+      return content != null;
+    }
+
+    private InputStream getContent() {
+      return content != null ? content : original;
+    }
   }
 }
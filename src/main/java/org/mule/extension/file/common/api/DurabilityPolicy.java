@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api;
+
+import org.mule.extension.file.common.api.command.WriteCommand;
+import org.mule.extension.file.common.api.write.GroupCommit;
+
+/**
+ * List different guarantees regarding when written content is considered to be safely stored
+ *
+ * @since 1.5.0
+ */
+public enum DurabilityPolicy {
+
+  /**
+   * Means that the write returns as soon as the content was handed to the operating system, which will eventually store it.
+   * Content might be lost if the host crashes shortly after.
+   */
+  NONE,
+
+  /**
+   * Means that each written file is {@link WriteCommand#sync(String) synced} to the storage device before the write returns.
+   * File systems which can't sync reject it.
+   */
+  FILE_SYNC,
+
+  /**
+   * Means that the write returns once the file was synced to the storage device, like with {@link #FILE_SYNC}, but concurrent
+   * writes of the same file share a single sync through a {@link GroupCommit}. Writes of different files are synced
+   * separately.
+   */
+  GROUP_COMMIT
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api;
+
+import static java.lang.Math.max;
+import static java.lang.Runtime.getRuntime;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.mule.extension.file.common.api.util.VirtualThreads.newExecutor;
+
+import org.mule.runtime.extension.api.runtime.operation.Result;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Implementation of {@link AsyncFileSystem} which runs the operations of a delegate {@link FileSystem} on an {@link Executor}.
+ * <p>
+ * The amount of operations in flight is bounded: once the limit is reached, further operations are queued and started, in
+ * the order in which they were requested, as the ongoing ones complete. Callers are never blocked. Because most
+ * {@link FileSystem} implementations wrap a single connection which is not thread-safe, a limit of {@code 1} (the default)
+ * makes the operations run one at a time while still letting the caller do other work meanwhile. Implementations whose
+ * connections support concurrent usage can use a greater limit.
+ * <p>
+ * Keep in mind that the delegate {@link FileSystem} should not be used directly while operations submitted through this class
+ * are in flight, unless it's thread-safe.
+ * <p>
+ * Instances should be {@link #close() closed} once no longer needed, so that the operations which are still queued fail
+ * instead of running against a released connection. The {@link Executor} is never shut down by this class.
+ *
+ * @param <A> the generic type of the file attributes
+ * @since 1.5.0
+ */
+public class ExecutorAsyncFileSystem<A extends FileAttributes> implements AsyncFileSystem<A>, Closeable {
+
+  private final FileSystem<A> delegate;
+  private final Executor executor;
+  private final int maxInFlightOperations;
+  private final Deque<Operation<?>> queued = new ArrayDeque<>();
+  private int inFlight = 0;
+  private boolean closed = false;
+
+  /**
+   * Creates a new instance which runs one operation at a time on the {@link #sharedExecutor() shared executor}
+   *
+   * @param delegate the {@link FileSystem} which actually performs the operations
+   */
+  public ExecutorAsyncFileSystem(FileSystem<A> delegate) {
+    this(delegate, sharedExecutor(), 1);
+  }
+
+  /**
+   * Creates a new instance which runs its operations on the given {@code executor}, which is not shut down on
+   * {@link #close()}
+   *
+   * @param delegate              the {@link FileSystem} which actually performs the operations
+   * @param executor              the {@link Executor} on which the operations are run
+   * @param maxInFlightOperations the maximum amount of operations in flight
+   */
+  public ExecutorAsyncFileSystem(FileSystem<A> delegate, Executor executor, int maxInFlightOperations) {
+    if (maxInFlightOperations < 1) {
+      throw new IllegalArgumentException("maxInFlightOperations must be greater than zero");
+    }
+    this.delegate = delegate;
+    this.executor = executor;
+    this.maxInFlightOperations = maxInFlightOperations;
+  }
+
+  /**
+   * Returns the {@link Executor} shared by all the file systems of this JVM to run file operations, which is lazily created
+   * on first use. It runs each operation on a virtual thread when the
+   * {@link org.mule.extension.file.common.api.util.VirtualThreads virtual threads mode} is enabled, or on a bounded pool of
+   * daemon threads otherwise, which time out when idle. Since most file systems run one operation at a time, sharing it
+   * keeps the amount of threads proportional to the load rather than to the amount of connections.
+   * <p>
+   * The executor is never shut down, so it must not be shut down by its users either.
+   *
+   * @return the shared {@link Executor}
+   */
+  public static Executor sharedExecutor() {
+    return SharedExecutorHolder.EXECUTOR;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CompletableFuture<List<Result<InputStream, A>>> list(FileConnectorConfig config, String directoryPath,
+                                                              boolean recursive, Predicate<A> matcher,
+                                                              Long timeBetweenSizeCheck) {
+    return submit(() -> delegate.list(config, directoryPath, recursive, matcher, timeBetweenSizeCheck));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CompletableFuture<Result<InputStream, A>> read(FileConnectorConfig config, String filePath, boolean lock,
+                                                        Long timeBetweenSizeCheck) {
+    return submit(() -> delegate.read(config, filePath, lock, timeBetweenSizeCheck));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CompletableFuture<Void> write(String filePath, InputStream content, FileWriteMode mode, boolean lock,
+                                       boolean createParentDirectories) {
+    return run(() -> delegate.write(filePath, content, mode, lock, createParentDirectories));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CompletableFuture<Void> copy(FileConnectorConfig config, String sourcePath, String targetPath, boolean overwrite,
+                                      boolean createParentDirectories, String renameTo) {
+    return run(() -> delegate.copy(config, sourcePath, targetPath, overwrite, createParentDirectories, renameTo));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CompletableFuture<Void> move(FileConnectorConfig config, String sourcePath, String targetPath, boolean overwrite,
+                                      boolean createParentDirectories, String renameTo) {
+    return run(() -> delegate.move(config, sourcePath, targetPath, overwrite, createParentDirectories, renameTo));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CompletableFuture<Void> delete(String filePath) {
+    return run(() -> delegate.delete(filePath));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CompletableFuture<Void> rename(String filePath, String newName, boolean overwrite) {
+    return run(() -> delegate.rename(filePath, newName, overwrite));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CompletableFuture<Void> createDirectory(String directoryPath) {
+    return run(() -> delegate.createDirectory(directoryPath));
+  }
+
+  /**
+   * Rejects any further operation and fails the ones which are queued. The operations in flight run to completion.
+   */
+  @Override
+  public void close() {
+    List<Operation<?>> rejected;
+    synchronized (queued) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      rejected = new ArrayList<>(queued);
+      queued.clear();
+    }
+
+    rejected.forEach(operation -> operation.fail(new RejectedExecutionException("The async file system was closed")));
+  }
+
+  /**
+   * @return whether this instance was {@link #close() closed}
+   */
+  public boolean isClosed() {
+    synchronized (queued) {
+      return closed;
+    }
+  }
+
+  private CompletableFuture<Void> run(Runnable operation) {
+    return submit(() -> {
+      operation.run();
+      return null;
+    });
+  }
+
+  private <R> CompletableFuture<R> submit(Supplier<R> supplier) {
+    Operation<R> operation = new Operation<>(supplier);
+    synchronized (queued) {
+      if (closed) {
+        operation.fail(new RejectedExecutionException("The async file system was closed"));
+        return operation.future;
+      }
+      if (inFlight >= maxInFlightOperations) {
+        queued.addLast(operation);
+        return operation.future;
+      }
+      inFlight++;
+    }
+
+    dispatch(operation);
+    return operation.future;
+  }
+
+  private void dispatch(Operation<?> operation) {
+    while (operation != null) {
+      try {
+        executor.execute(operation);
+        return;
+      } catch (RejectedExecutionException e) {
+        operation.fail(e);
+        operation = next();
+      }
+    }
+  }
+
+  /**
+   * Frees the slot of an operation which is no longer in flight, handing it over to the next queued one, if any
+   */
+  private Operation<?> next() {
+    synchronized (queued) {
+      Operation<?> next = queued.pollFirst();
+      if (next == null) {
+        inFlight--;
+      }
+      return next;
+    }
+  }
+
+  private class Operation<R> implements Runnable {
+
+    private final Supplier<R> supplier;
+    private final CompletableFuture<R> future = new CompletableFuture<>();
+
+    private Operation(Supplier<R> supplier) {
+      this.supplier = supplier;
+    }
+
+    @Override
+    public void run() {
+      R result = null;
+      Throwable failure = null;
+      try {
+        result = supplier.get();
+      } catch (Throwable t) {
+        failure = t;
+      } finally {
+        // the next operation is started before completing, so that dependent stages don't wait for it
+        dispatch(next());
+      }
+
+      if (failure != null) {
+        future.completeExceptionally(failure);
+      } else {
+        future.complete(result);
+      }
+    }
+
+    private void fail(Throwable failure) {
+      future.completeExceptionally(failure);
+    }
+  }
+
+  private static final class SharedExecutorHolder {
+
+    private static final Executor EXECUTOR = newExecutor("file-connector-async-", () -> {
+      int threads = max(4, getRuntime().availableProcessors() * 2);
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, SECONDS, new LinkedBlockingQueue<>(),
+                                                           new DaemonThreadFactory());
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
+    });
+  }
+
+  private static class DaemonThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "file-connector-async-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -6,9 +6,15 @@
  */
 package org.mule.extension.file.common.api;
 
+import static java.lang.String.format;
+
+import org.mule.extension.file.common.api.exceptions.FileLockedException;
 import org.mule.extension.file.common.api.lock.UriLock;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Represents an external file system and the operations which can be performed on it.
@@ -42,4 +48,28 @@ public interface ExternalFileSystem extends FileSystem {
    */
   void verifyNotLocked(URI uri);
 
+  /**
+   * Verify that none of the given {@code uris} is locked, reporting all the locked ones at once.
+   * <p>
+   * This default implementation checks one uri at a time through {@link #verifyNotLocked(URI)}.
+   *
+   * @param uris the uris to test
+   * @throws FileLockedException if any of the {@code uris} is locked
+   * @since 1.5.0
+   */
+  default void verifyUrisNotLocked(Collection<URI> uris) {
+    List<URI> locked = new ArrayList<>();
+    for (URI uri : uris) {
+      try {
+        verifyNotLocked(uri);
+      } catch (FileLockedException e) {
+        locked.add(uri);
+      }
+    }
+
+    if (!locked.isEmpty()) {
+      throw new FileLockedException(format("Files %s are locked by another process", locked));
+    }
+  }
+
 }
@@ -6,6 +6,23 @@
  */
 package org.mule.extension.file.common.api;
 
+import static java.lang.String.format;
+import static org.apache.commons.io.IOUtils.closeQuietly;
+import static org.mule.extension.file.common.api.DurabilityPolicy.NONE;
+
+import org.mule.extension.file.common.api.batch.BatchRunner;
+import org.mule.extension.file.common.api.batch.FileOperationResult;
+import org.mule.extension.file.common.api.batch.WriteRequest;
+import org.mule.extension.file.common.api.cache.DirectoryCache;
+import org.mule.extension.file.common.api.cache.ListingCache;
+import org.mule.extension.file.common.api.exceptions.FileLockedException;
+import org.mule.extension.file.common.api.exceptions.IllegalPathException;
+import org.mule.extension.file.common.api.listing.CompactListing;
+import org.mule.extension.file.common.api.listing.DirectoryWatcher;
+import org.mule.extension.file.common.api.listing.SizeStabilityCheck;
+import org.mule.extension.file.common.api.listing.Watermark;
+import org.mule.extension.file.common.api.listing.WatermarkStore;
+import org.mule.extension.file.common.api.lock.DirectoryCreationCoordinator;
 import org.mule.extension.file.common.api.lock.PathLock;
 import org.mule.extension.file.common.api.subset.SubsetList;
 import org.mule.runtime.api.message.Message;
@@ -16,10 +33,17 @@ import org.mule.runtime.extension.api.runtime.operation.Result;
 
 import java.io.InputStream;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
 import javax.activation.MimetypesFileTypeMap;
 
@@ -105,6 +129,104 @@ public interface FileSystem<A extends FileAttributes> {
     return list(config, directoryPath, recursive, matcher, timeBetweenSizeCheck);
   }
 
+  /**
+   * Lists the files in the {@code directoryPath} which match the given {@code matcher} and are new according to the given
+   * {@code watermark}, under the same considerations as {@link #list(FileConnectorConfig, String, boolean, Predicate, Long)}.
+   * Directories are not filtered by the {@code watermark}.
+   * <p>
+   * The caller is expected to {@link Watermark#advance(List, ToLongFunction) advance} the watermark with the returned files
+   * once they're processed, typically persisting it on a {@link WatermarkStore}.
+   * <p>
+   * This default implementation lists the whole directory and discards the files which are not new through
+   * {@link Watermark#newFiles(ToLongFunction)}.
+   *
+   * @param config               the config that is parameterizing this operation
+   * @param directoryPath        the path to the directory to be listed
+   * @param recursive            whether to include the contents of sub-directories
+   * @param matcher              a {@link Predicate} of {@link FileAttributes} used to filter the output list
+   * @param timeBetweenSizeCheck wait time between size checks to determine if a file is ready to be read in milliseconds.
+   * @param watermark            the {@link Watermark} of the files already emitted
+   * @param lastModifiedTime     extracts the modification time of each file, in milliseconds
+   * @return a {@link List} of {@link Result} objects, each one containing each file's content in the payload and metadata in the
+   *         attributes
+   * @throws IllegalArgumentException if {@code directoryPath} points to a file which doesn't exist or is not a directory
+   * @since 1.5.0
+   */
+  default List<Result<InputStream, A>> listNewerThan(FileConnectorConfig config,
+                                                     String directoryPath,
+                                                     boolean recursive,
+                                                     Predicate<A> matcher,
+                                                     Long timeBetweenSizeCheck,
+                                                     Watermark watermark,
+                                                     ToLongFunction<A> lastModifiedTime) {
+    return list(config, directoryPath, recursive, watermark.newFiles(lastModifiedTime).and(matcher), timeBetweenSizeCheck);
+  }
+
+  /**
+   * Lists the files in the {@code directoryPath} which match the given {@code matcher} into a {@link CompactListing}, under
+   * the same considerations as {@link #list(FileConnectorConfig, String, boolean, Predicate, Long)} but without a size
+   * check.
+   * <p>
+   * This default implementation builds the {@link CompactListing} out of a regular listing, so it only reduces the memory
+   * retained afterwards. Implementations which can hand each file over as soon as it's listed should override it.
+   *
+   * @param config           the config that is parameterizing this operation
+   * @param directoryPath    the path to the directory to be listed
+   * @param recursive        whether to include the contents of sub-directories
+   * @param matcher          a {@link Predicate} of {@link FileAttributes} used to filter the output list
+   * @param lastModifiedTime extracts the modification time of each file, in milliseconds
+   * @return a {@link CompactListing} of the matching files
+   * @throws IllegalArgumentException if {@code directoryPath} points to a file which doesn't exist or is not a directory
+   * @since 1.5.0
+   */
+  default CompactListing listCompact(FileConnectorConfig config,
+                                     String directoryPath,
+                                     boolean recursive,
+                                     Predicate<A> matcher,
+                                     ToLongFunction<A> lastModifiedTime) {
+    return CompactListing.of(list(config, directoryPath, recursive, matcher, null), lastModifiedTime);
+  }
+
+  /**
+   * Tells whether the directories of this file system can be {@link #watch watched}. Only file systems which the operating
+   * system can notify about changes support it, so callers are expected to fall back to polling when they don't.
+   * <p>
+   * This default implementation returns {@code false}.
+   *
+   * @return whether {@link #watch} is supported
+   * @since 1.5.0
+   */
+  default boolean supportsWatch() {
+    return false;
+  }
+
+  /**
+   * Watches the {@code directoryPath} and pushes each file which is created or modified in it and matches the given
+   * {@code matcher} to the {@code listener}, as the same {@link Result} that
+   * {@link #list(FileConnectorConfig, String, boolean, Predicate, Long)} would have returned for it. The files which the
+   * directory already contains are pushed as well. See {@link DirectoryWatcher} for the delivery guarantees.
+   * <p>
+   * Must only be invoked when {@link #supportsWatch()} returns {@code true}.
+   *
+   * @param config               the config that is parameterizing this operation
+   * @param directoryPath        the path to the directory to be watched
+   * @param recursive            whether to watch the sub-directories as well
+   * @param matcher              a {@link Predicate} of {@link FileAttributes} used to filter the pushed files
+   * @param timeBetweenSizeCheck wait time between size checks to determine if a file is ready to be read in milliseconds.
+   * @param listener             receives each of the pushed files
+   * @return the started {@link DirectoryWatcher}, which must be closed once it's no longer needed
+   * @throws UnsupportedOperationException if {@link #supportsWatch()} returns {@code false}
+   * @since 1.5.0
+   */
+  default DirectoryWatcher<A> watch(FileConnectorConfig config,
+                                    String directoryPath,
+                                    boolean recursive,
+                                    Predicate<A> matcher,
+                                    Long timeBetweenSizeCheck,
+                                    Consumer<Result<InputStream, A>> listener) {
+    throw new UnsupportedOperationException("This file system doesn't support watching directories");
+  }
+
   /**
    * Obtains the content and metadata of a file at a given path.
    * <p>
@@ -228,6 +350,53 @@ public interface FileSystem<A extends FileAttributes> {
     write(filePath, content, mode, lock, createParentDirectories, null);
   }
 
+  /**
+   * Writes the {@code content} into the file pointed by {@code filePath} under the same considerations as
+   * {@link #write(String, InputStream, FileWriteMode, boolean, boolean)}, and doesn't return until the content is stored
+   * according to the given {@code durability}.
+   * <p>
+   * This default implementation can't control when the content reaches the storage device, so it rejects any
+   * {@code durability} other than {@link DurabilityPolicy#NONE} instead of silently ignoring it.
+   *
+   * @param filePath                the path of the file to be written
+   * @param content                 the content to be written into the file
+   * @param mode                    a {@link FileWriteMode}
+   * @param durability              a {@link DurabilityPolicy}
+   * @param lock                    whether or not to lock the file
+   * @param createParentDirectories whether or not to attempt creating any parent directories which don't exists.
+   * @throws IllegalArgumentException if an illegal combination of arguments is supplied, or the {@code durability} is not
+   *                                  supported
+   * @since 1.5.0
+   */
+  default void write(String filePath, InputStream content, FileWriteMode mode, DurabilityPolicy durability, boolean lock,
+                     boolean createParentDirectories) {
+    if (durability != NONE) {
+      throw new IllegalArgumentException(format("%s can't sync files to the storage device, so it doesn't support the %s "
+          + "durability policy", getClass().getSimpleName(), durability));
+    }
+    write(filePath, content, mode, lock, createParentDirectories);
+  }
+
+  /**
+   * Writes each of the given {@code requests} under the same considerations as
+   * {@link #write(String, InputStream, FileWriteMode, DurabilityPolicy, boolean, boolean)}. A failure to write one of the
+   * entries doesn't prevent the rest of them from being written: the outcome of each entry is reported on its own
+   * {@link FileOperationResult}.
+   * <p>
+   * This default implementation writes the entries one after the other, in the given order. Implementations which can
+   * write several files at the same time can override it.
+   *
+   * @param requests the {@link WriteRequest}s to process
+   * @return a {@link FileOperationResult} per request, in the same order as the {@code requests}
+   * @since 1.5.0
+   */
+  default List<FileOperationResult> writeAll(Iterator<WriteRequest> requests) {
+    return new BatchRunner<WriteRequest>().run(requests, WriteRequest::getPath, null,
+                                               request -> write(request.getPath(), request.getContent(), request.getMode(),
+                                                                request.getDurability(), request.isLock(),
+                                                                request.isCreateParentDirectories()));
+  }
+
 
 
   /**
@@ -286,6 +455,28 @@ public interface FileSystem<A extends FileAttributes> {
   void move(FileConnectorConfig config, String sourcePath, String targetPath, boolean overwrite, boolean createParentDirectories,
             String renameTo);
 
+  /**
+   * Moves each of the files pointed by the given {@code sourcePaths} into the {@code targetPath}, under the same considerations
+   * as {@link #move(FileConnectorConfig, String, String, boolean, boolean, String)}. A failure to move one of them doesn't
+   * prevent the rest from being moved: the outcome of each path is reported on its own {@link FileOperationResult}.
+   * <p>
+   * This default implementation moves the files one after the other. Implementations can override it to move them
+   * concurrently, or through a native bulk command.
+   *
+   * @param config                  the config that is parameterizing this operation
+   * @param sourcePaths             the paths to the files to be moved
+   * @param targetPath              the target directory
+   * @param overwrite               whether or not overwrite the files if the target destination already exists.
+   * @param createParentDirectories whether or not to attempt creating any parent directories which don't exists.
+   * @return a {@link FileOperationResult} per source path, in the same order as the {@code sourcePaths}
+   * @since 1.5.0
+   */
+  default List<FileOperationResult> moveAll(FileConnectorConfig config, Iterator<String> sourcePaths, String targetPath,
+                                            boolean overwrite, boolean createParentDirectories) {
+    return new BatchRunner<String>().run(sourcePaths, path -> path, null,
+                                         path -> move(config, path, targetPath, overwrite, createParentDirectories, null));
+  }
+
   /**
    * Deletes the file pointed by {@code filePath}, provided that it's not locked
    *
@@ -294,6 +485,22 @@ public interface FileSystem<A extends FileAttributes> {
    */
   void delete(String filePath);
 
+  /**
+   * Deletes each of the files pointed by the given {@code filePaths}, under the same considerations as
+   * {@link #delete(String)}. A failure to delete one of them doesn't prevent the rest from being deleted: the outcome of each
+   * path is reported on its own {@link FileOperationResult}.
+   * <p>
+   * This default implementation deletes the files one after the other. Implementations can override it to delete them
+   * concurrently, or through a native multi-delete command.
+   *
+   * @param filePaths the paths of the files to be deleted
+   * @return a {@link FileOperationResult} per path, in the same order as the {@code filePaths}
+   * @since 1.5.0
+   */
+  default List<FileOperationResult> deleteAll(Iterator<String> filePaths) {
+    return new BatchRunner<String>().run(filePaths, path -> path, null, this::delete);
+  }
+
   /**
    * Renames the file pointed by {@code filePath} to the provided {@code newName}
    *
@@ -303,6 +510,24 @@ public interface FileSystem<A extends FileAttributes> {
    */
   void rename(String filePath, String newName, boolean overwrite);
 
+  /**
+   * Renames each of the files pointed by the given {@code filePaths} to the provided {@code newName}, under the same
+   * considerations as {@link #rename(String, String, boolean)}. A failure to rename one of them doesn't prevent the rest
+   * from being renamed: the outcome of each path is reported on its own {@link FileOperationResult}.
+   * <p>
+   * This default implementation renames the files one after the other. Implementations can override it to rename them
+   * concurrently, or through a native bulk command.
+   *
+   * @param filePaths the paths to the files to be renamed
+   * @param newName   the files' new name
+   * @param overwrite whether or not overwrite the files if the target destination already exists.
+   * @return a {@link FileOperationResult} per path, in the same order as the {@code filePaths}
+   * @since 1.5.0
+   */
+  default List<FileOperationResult> renameAll(Iterator<String> filePaths, String newName, boolean overwrite) {
+    return new BatchRunner<String>().run(filePaths, path -> path, null, path -> rename(path, newName, overwrite));
+  }
+
   /**
    * Creates a new directory
    *
@@ -340,6 +565,23 @@ public interface FileSystem<A extends FileAttributes> {
    */
   MediaType getFileMessageMediaType(FileAttributes attributes);
 
+  /**
+   * Behaves like {@link #getFileMessageMediaType(FileAttributes)}, but files which have no extension can have their
+   * {@link MediaType} guessed out of the first bytes of their {@code content}.
+   * <p>
+   * Implementations which don't support guessing out of the content can rely on this default implementation, which ignores
+   * it.
+   *
+   * @param attributes the {@link FileAttributes} of the file being processed
+   * @param content    provides a new stream with the content of the file, which is only opened if needed and closed right
+   *                   after reading its first bytes
+   * @return the {@link MediaType} of the file
+   * @since 1.5.0
+   */
+  default MediaType getFileMessageMediaType(FileAttributes attributes, Supplier<InputStream> content) {
+    return getFileMessageMediaType(attributes);
+  }
+
   /**
    * Verify that the given {@code path} is not locked
    *
@@ -348,10 +590,151 @@ public interface FileSystem<A extends FileAttributes> {
    */
   void verifyNotLocked(Path path);
 
+  /**
+   * Verify that none of the given {@code paths} is locked, reporting all the locked ones at once.
+   * <p>
+   * This default implementation checks one path at a time through {@link #verifyNotLocked(Path)}.
+   *
+   * @param paths the paths to test
+   * @throws FileLockedException if any of the {@code paths} is locked
+   * @since 1.5.0
+   */
+  default void verifyNotLocked(Collection<Path> paths) {
+    List<Path> locked = new ArrayList<>();
+    for (Path path : paths) {
+      try {
+        verifyNotLocked(path);
+      } catch (FileLockedException e) {
+        locked.add(path);
+      }
+    }
+
+    if (!locked.isEmpty()) {
+      throw new FileLockedException(format("Files %s are locked by another process", locked));
+    }
+  }
+
+  /**
+   * Obtains the current attributes of the files at the given paths, without reading them.
+   * <p>
+   * This default implementation {@link #read(FileConnectorConfig, String, boolean, Long) reads} one file at a time and closes
+   * its content right away, without consuming it. Implementations should override it with a
+   * {@link org.mule.extension.file.common.api.command.StatCommand}, ideally one which obtains all the files of a directory
+   * in a single round trip.
+   *
+   * @param config    the config that is parameterizing this operation
+   * @param filePaths the paths to the files
+   * @return the attributes of the files which exist, keyed by the given paths, in the same order
+   * @since 1.5.0
+   */
+  default Map<String, A> getAttributes(FileConnectorConfig config, Collection<String> filePaths) {
+    Map<String, A> attributes = new LinkedHashMap<>();
+    for (String filePath : filePaths) {
+      Result<InputStream, A> result;
+      try {
+        result = read(config, filePath, false, null);
+      } catch (IllegalPathException e) {
+        // doesn't exist anymore
+        continue;
+      }
+      result.getAttributes().ifPresent(a -> attributes.put(filePath, a));
+      closeQuietly(result.getOutput());
+    }
+    return attributes;
+  }
+
+  /**
+   * Applies the size stability check to all the files of a listing at once, through a {@link SizeStabilityCheck} backed
+   * by {@link #getAttributes(FileConnectorConfig, Collection)}. Files which are not stable are discarded.
+   * <p>
+   * Since this replaces the check performed by each file right before being read, the {@code listing} should be obtained
+   * without a {@code timeBetweenSizeCheck}.
+   *
+   * @param config               the config that is parameterizing this operation
+   * @param listing              the result of a listing
+   * @param timeBetweenSizeCheck wait time between size checks in milliseconds
+   * @return the stable results of the {@code listing}
+   * @since 1.5.0
+   */
+  default List<Result<InputStream, A>> retainStableFiles(FileConnectorConfig config, List<Result<InputStream, A>> listing,
+                                                         long timeBetweenSizeCheck) {
+    return new SizeStabilityCheck<A>(paths -> getAttributes(config, paths), timeBetweenSizeCheck,
+                                     SizeStabilityCheck.DEFAULT_MAX_RETRIES).retainStable(listing);
+  }
+
   /**
    * Changes the current working directory to the user base
    */
   void changeToBaseDir();
 
   String getBasePath();
+
+  /**
+   * Returns the {@link DirectoryCache} in which the commands operating over {@code this} file system remember the
+   * directories that are known to exist, so that they don't need to check for them again.
+   * <p>
+   * Implementations which don't support caching can rely on this default implementation, which returns a
+   * {@link DirectoryCache#disabled() disabled} cache.
+   *
+   * @return a {@link DirectoryCache}
+   * @since 1.5.0
+   */
+  default DirectoryCache getDirectoryCache() {
+    return DirectoryCache.disabled();
+  }
+
+  /**
+   * Returns the {@link ListingCache} in which the listings performed on {@code this} file system are remembered for a short
+   * time, along with its hit ratio metrics.
+   * <p>
+   * Implementations which don't support caching can rely on this default implementation, which returns a
+   * {@link ListingCache#disabled() disabled} cache.
+   *
+   * @return a {@link ListingCache}
+   * @since 1.5.0
+   */
+  default ListingCache<A> getListingCache() {
+    return ListingCache.disabled();
+  }
+
+  /**
+   * Returns the {@link DirectoryCreationCoordinator} used to make sure that only one thread of this JVM at a time creates a
+   * given directory on {@code this} file system (and therefore competes for the cluster wide lock obtained through
+   * {@link #createMuleLock(String)}).
+   * <p>
+   * Implementations which don't support coordination can rely on this default implementation, which returns an
+   * {@link DirectoryCreationCoordinator#uncoordinated() uncoordinated} instance.
+   *
+   * @return a {@link DirectoryCreationCoordinator}
+   * @since 1.5.0
+   */
+  default DirectoryCreationCoordinator getDirectoryCreationCoordinator() {
+    return DirectoryCreationCoordinator.uncoordinated();
+  }
+
+  /**
+   * Returns an {@link AsyncFileSystem} view of {@code this} file system, which allows to overlap independent operations.
+   * <p>
+   * This default implementation returns a new {@link ExecutorAsyncFileSystem} on every invocation, which runs the operations
+   * one at a time on the {@link ExecutorAsyncFileSystem#sharedExecutor() shared executor}. The limit applies to each view, so
+   * callers which submit operations from different places should keep and reuse the view. Implementations can override this
+   * method to return a single view to all the callers, as {@link AbstractFileSystem} does, or to use a native asynchronous
+   * client or support concurrent operations.
+   *
+   * @return an {@link AsyncFileSystem}
+   * @since 1.5.0
+   */
+  default AsyncFileSystem<A> async() {
+    return new ExecutorAsyncFileSystem<>(this);
+  }
+
+  /**
+   * Releases the resources that {@code this} file system allocated besides its connection, such as the threads on which the
+   * operations of its {@link #async()} view run. Connection providers are expected to invoke it when disconnecting.
+   * <p>
+   * This default implementation does nothing, since the default {@link #async()} views don't own any threads.
+   *
+   * @since 1.5.0
+   */
+  default void releaseResources() {}
 }
@@ -25,5 +25,18 @@ public enum FileWriteMode {
   /**
    * Means that a new file should be created and an error should be raised if the file already exists
    */
-  CREATE_NEW
+  CREATE_NEW,
+
+  /**
+   * Means that the content is first written into a hidden temporary file in the same directory, which is then atomically
+   * renamed into place, overwriting the file if it already exists. Readers never see a partially written file, so they don't
+   * need to check whether its size is stable. Listings skip the temporary files.
+   * <p>
+   * On its own, this mode doesn't make the write durable: unless a {@link DurabilityPolicy} other than
+   * {@link DurabilityPolicy#NONE} is requested (or the file system syncs before renaming), a crash of the host right after the
+   * rename might leave an empty or partial file behind the final name.
+   *
+   * @since 1.5.0
+   */
+  ATOMIC_OVERWRITE
 }
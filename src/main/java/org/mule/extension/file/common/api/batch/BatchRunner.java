@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.batch;
+
+import static org.mule.extension.file.common.api.batch.FileOperationResult.failure;
+import static org.mule.extension.file.common.api.batch.FileOperationResult.success;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs an operation over each of the entries of a batch, reporting the outcome of each of them as a
+ * {@link FileOperationResult} instead of stopping at the first failure.
+ * <p>
+ * With a parallelism of {@code 1} the entries are processed one after the other on the calling thread. Otherwise, they're
+ * processed on the given {@link Executor}, with at most that amount of them in flight at any time. The entries are consumed
+ * lazily from the given {@link Iterator}, so that the caller is blocked while the limit is reached.
+ * <p>
+ * An {@link Error} thrown while processing an entry is not reported as its outcome, but rethrown by
+ * {@link #run(Iterator, Function, Function, Consumer)} once the rest of the entries are processed.
+ * <p>
+ * Entries can optionally be grouped. The first entry of each group is completed before any other entry of the same group
+ * starts, which allows that entry to perform (and cache) the work which is common to the whole group, such as creating a
+ * directory. Entries of different groups, or entries which belong to no group, don't wait for each other.
+ *
+ * @param <T> the type of the entries
+ * @since 1.5.0
+ */
+public class BatchRunner<T> {
+
+  private final Executor executor;
+  private final int parallelism;
+
+  /**
+   * Creates a new instance which processes one entry at a time on the calling thread
+   */
+  public BatchRunner() {
+    this(null, 1);
+  }
+
+  /**
+   * Creates a new instance
+   *
+   * @param executor    the {@link Executor} on which the entries are processed. Only used if {@code parallelism} is greater
+   *                    than {@code 1}
+   * @param parallelism the maximum amount of entries in flight
+   */
+  public BatchRunner(Executor executor, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be greater than zero");
+    }
+    this.executor = executor;
+    this.parallelism = executor != null ? parallelism : 1;
+  }
+
+  /**
+   * Processes all the given {@code entries}
+   *
+   * @param entries   the entries to process
+   * @param pathOf    obtains the path which identifies each entry on its {@link FileOperationResult}
+   * @param groupOf   obtains the group each entry belongs to, or {@code null} if it belongs to none
+   * @param operation the operation to run over each entry
+   * @return the outcome of each entry, in the same order as the {@code entries}
+   */
+  public List<FileOperationResult> run(Iterator<T> entries, Function<T, String> pathOf, Function<T, String> groupOf,
+                                       Consumer<T> operation) {
+    if (parallelism == 1) {
+      List<FileOperationResult> results = new ArrayList<>();
+      Error error = null;
+      while (entries.hasNext()) {
+        try {
+          results.add(runOne(entries.next(), pathOf, operation));
+        } catch (Error e) {
+          if (error == null) {
+            error = e;
+          }
+        }
+      }
+
+      if (error != null) {
+        throw error;
+      }
+      return results;
+    }
+
+    Semaphore inFlight = new Semaphore(parallelism);
+    Map<String, CompletableFuture<FileOperationResult>> groupLeaders = new HashMap<>();
+    List<CompletableFuture<FileOperationResult>> results = new ArrayList<>();
+
+    while (entries.hasNext()) {
+      T entry = entries.next();
+      String group = groupOf != null ? groupOf.apply(entry) : null;
+      CompletableFuture<FileOperationResult> leader = group != null ? groupLeaders.get(group) : null;
+      if (leader != null) {
+        // an error of the leader is rethrown once the whole batch is processed
+        leader.exceptionally(t -> null).join();
+      }
+
+      CompletableFuture<FileOperationResult> result = new CompletableFuture<>();
+      try {
+        inFlight.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        result.complete(failure(pathOf.apply(entry), e));
+        results.add(result);
+        continue;
+      }
+
+      try {
+        executor.execute(() -> {
+          try {
+            result.complete(runOne(entry, pathOf, operation));
+          } catch (Throwable t) {
+            // errors are not outcomes of the entry, but the batch must not wait for it forever
+            result.completeExceptionally(t);
+          } finally {
+            inFlight.release();
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        inFlight.release();
+        result.complete(failure(pathOf.apply(entry), e));
+      }
+
+      if (group != null && leader == null) {
+        groupLeaders.put(group, result);
+      }
+      results.add(result);
+    }
+
+    List<FileOperationResult> outcomes = new ArrayList<>(results.size());
+    Error error = null;
+    for (CompletableFuture<FileOperationResult> result : results) {
+      try {
+        outcomes.add(result.join());
+      } catch (CompletionException e) {
+        if (!(e.getCause() instanceof Error)) {
+          throw e;
+        }
+        if (error == null) {
+          error = (Error) e.getCause();
+        }
+      }
+    }
+
+    if (error != null) {
+      throw error;
+    }
+    return outcomes;
+  }
+
+  private FileOperationResult runOne(T entry, Function<T, String> pathOf, Consumer<T> operation) {
+    String path = pathOf.apply(entry);
+    try {
+      operation.accept(entry);
+      return success(path);
+    } catch (Exception e) {
+      return failure(path, e);
+    }
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.batch;
+
+import static java.lang.String.format;
+import static java.util.Optional.ofNullable;
+
+import java.util.Optional;
+
+/**
+ * The outcome of the operation performed over one of the entries of a batch operation
+ *
+ * @since 1.5.0
+ */
+public final class FileOperationResult {
+
+  private final String path;
+  private final Exception failure;
+
+  /**
+   * @param path the path of the entry
+   * @return a result for an entry which was successfully processed
+   */
+  public static FileOperationResult success(String path) {
+    return new FileOperationResult(path, null);
+  }
+
+  /**
+   * @param path    the path of the entry
+   * @param failure the exception which prevented the entry to be processed
+   * @return a result for an entry which could not be processed
+   */
+  public static FileOperationResult failure(String path, Exception failure) {
+    return new FileOperationResult(path, failure);
+  }
+
+  private FileOperationResult(String path, Exception failure) {
+    this.path = path;
+    this.failure = failure;
+  }
+
+  /**
+   * @return the path of the entry
+   */
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * @return whether the entry was successfully processed
+   */
+  public boolean isSuccessful() {
+    return failure == null;
+  }
+
+  /**
+   * @return the exception which prevented the entry to be processed, if any
+   */
+  public Optional<Exception> getFailure() {
+    return ofNullable(failure);
+  }
+
+  @Override
+  public String toString() {
+    return isSuccessful() ? format("%s: success", path) : format("%s: failure (%s)", path, failure);
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.batch;
+
+import static java.lang.String.format;
+import static org.mule.extension.file.common.api.cache.PathKeys.getParent;
+import static org.mule.extension.file.common.api.cache.PathKeys.normalize;
+import static org.mule.runtime.api.i18n.I18nMessageFactory.createStaticMessage;
+
+import org.mule.extension.file.common.api.FileConnectorConfig;
+import org.mule.extension.file.common.api.FileSystem;
+import org.mule.extension.file.common.api.connection.ConnectionPool;
+import org.mule.extension.file.common.api.connection.PooledConnectionSource;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.exception.MuleRuntimeException;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Runs the batch operations of a {@link FileSystem} in parallel, processing each entry over a connection of its own borrowed
+ * from a {@link ConnectionPool}.
+ * <p>
+ * The batch operations of a single {@link FileSystem}, such as {@link FileSystem#deleteAll(Iterator)}, are bound to its
+ * connection, which most implementations can't use concurrently, so they process one entry at a time. Operations which
+ * handle many files can use this class instead, so that up to {@code parallelism} entries are in flight at the same time
+ * without ever sharing a connection. Each entry borrows its connection using its path as key and gives it back to the pool
+ * once processed, whatever the outcome.
+ * <p>
+ * The {@code parallelism} should not exceed the maximum amount of connections of the pool, since entries beyond it would
+ * just wait for a connection to be released. For the same reason, instances are meant to be scoped like the pool they borrow
+ * from, usually one per config, rather than created per connection or per operation: the {@code parallelism} of separate
+ * instances adds up.
+ *
+ * @param <T> the type of the {@link FileSystem} provided by the pool
+ * @since 1.5.0
+ */
+public class PooledBatchRunner<T extends FileSystem> {
+
+  private final ConnectionPool<T> connectionPool;
+  private final Executor executor;
+  private final int parallelism;
+
+  /**
+   * Creates a new instance
+   *
+   * @param connectionPool the {@link ConnectionPool} to borrow the connections from
+   * @param executor       the {@link Executor} on which the entries are processed
+   * @param parallelism    the maximum amount of entries in flight
+   */
+  public PooledBatchRunner(ConnectionPool<T> connectionPool, Executor executor, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be greater than zero");
+    }
+    this.connectionPool = connectionPool;
+    this.executor = executor;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Parallel version of {@link FileSystem#deleteAll(Iterator)}
+   *
+   * @param filePaths the paths of the files to be deleted
+   * @return a {@link FileOperationResult} per path, in the same order as the {@code filePaths}
+   */
+  public List<FileOperationResult> deleteAll(Iterator<String> filePaths) {
+    return run(filePaths, path -> path, null, (fileSystem, path) -> fileSystem.delete(path));
+  }
+
+  /**
+   * Parallel version of {@link FileSystem#moveAll(FileConnectorConfig, Iterator, String, boolean, boolean)}. When parent
+   * directories are to be created, the first file is moved before the rest of them start, so that the {@code targetPath} is
+   * created only once.
+   *
+   * @param config                  the config that is parameterizing this operation
+   * @param sourcePaths             the paths to the files to be moved
+   * @param targetPath              the target directory
+   * @param overwrite               whether or not overwrite the files if the target destination already exists.
+   * @param createParentDirectories whether or not to attempt creating any parent directories which don't exists.
+   * @return a {@link FileOperationResult} per source path, in the same order as the {@code sourcePaths}
+   */
+  public List<FileOperationResult> moveAll(FileConnectorConfig config, Iterator<String> sourcePaths, String targetPath,
+                                           boolean overwrite, boolean createParentDirectories) {
+    return run(sourcePaths, path -> path, path -> createParentDirectories ? targetPath : null,
+               (fileSystem, path) -> fileSystem.move(config, path, targetPath, overwrite, createParentDirectories, null));
+  }
+
+  /**
+   * Parallel version of {@link FileSystem#renameAll(Iterator, String, boolean)}
+   *
+   * @param filePaths the paths to the files to be renamed
+   * @param newName   the files' new name
+   * @param overwrite whether or not overwrite the files if the target destination already exists.
+   * @return a {@link FileOperationResult} per path, in the same order as the {@code filePaths}
+   */
+  public List<FileOperationResult> renameAll(Iterator<String> filePaths, String newName, boolean overwrite) {
+    return run(filePaths, path -> path, null, (fileSystem, path) -> fileSystem.rename(path, newName, overwrite));
+  }
+
+  /**
+   * Parallel version of {@link FileSystem#writeAll(Iterator)}. Entries which create their parent directories are grouped by
+   * that directory, so that it's created only once.
+   *
+   * @param requests the {@link WriteRequest}s to process
+   * @return a {@link FileOperationResult} per request, in the same order as the {@code requests}
+   */
+  public List<FileOperationResult> writeAll(Iterator<WriteRequest> requests) {
+    return run(requests, WriteRequest::getPath,
+               request -> request.isCreateParentDirectories() && request.getPath() != null
+                   ? getParent(normalize(request.getPath()))
+                   : null,
+               (fileSystem, request) -> fileSystem.write(request.getPath(), request.getContent(), request.getMode(),
+                                                         request.getDurability(), request.isLock(),
+                                                         request.isCreateParentDirectories()));
+  }
+
+  /**
+   * Processes all the given {@code entries}, each one over a connection borrowed for it
+   *
+   * @param entries   the entries to process
+   * @param pathOf    obtains the path which identifies each entry, also used as key to borrow its connection
+   * @param groupOf   obtains the group each entry belongs to, or {@code null} if it belongs to none
+   * @param operation the operation to run over each entry
+   * @param <E>       the type of the entries
+   * @return the outcome of each entry, in the same order as the {@code entries}
+   * @see BatchRunner#run(Iterator, Function, Function, java.util.function.Consumer)
+   */
+  public <E> List<FileOperationResult> run(Iterator<E> entries, Function<E, String> pathOf, Function<E, String> groupOf,
+                                           BiConsumer<T, E> operation) {
+    return new BatchRunner<E>(executor, parallelism).run(entries, pathOf, groupOf, entry -> {
+      String path = pathOf.apply(entry);
+      PooledConnectionSource<T> connectionSource = new PooledConnectionSource<>(connectionPool, path);
+      try {
+        operation.accept(connectionSource.getConnection(), entry);
+      } catch (ConnectionException e) {
+        throw new MuleRuntimeException(createStaticMessage(format("Could not obtain a connection to process file '%s'", path)),
+                                       e);
+      } finally {
+        connectionSource.releaseConnection();
+      }
+    });
+  }
+}
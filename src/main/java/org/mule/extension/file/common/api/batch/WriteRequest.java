@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.batch;
+
+import static org.mule.extension.file.common.api.DurabilityPolicy.NONE;
+
+import org.mule.extension.file.common.api.DurabilityPolicy;
+import org.mule.extension.file.common.api.FileSystem;
+import org.mule.extension.file.common.api.FileWriteMode;
+
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * One of the entries of a {@link FileSystem#writeAll(Iterator)} batch, carrying the same arguments as a single
+ * {@link FileSystem#write(String, InputStream, FileWriteMode, DurabilityPolicy, boolean, boolean)} invocation
+ *
+ * @since 1.5.0
+ */
+public final class WriteRequest {
+
+  private final String path;
+  private final InputStream content;
+  private final FileWriteMode mode;
+  private final DurabilityPolicy durability;
+  private final boolean lock;
+  private final boolean createParentDirectories;
+
+  /**
+   * Creates a new instance with {@link DurabilityPolicy#NONE}
+   *
+   * @param path                    the path of the file to be written
+   * @param content                 the content to be written into the file
+   * @param mode                    a {@link FileWriteMode}
+   * @param lock                    whether or not to lock the file
+   * @param createParentDirectories whether or not to attempt creating any parent directories which don't exists.
+   */
+  public WriteRequest(String path, InputStream content, FileWriteMode mode, boolean lock, boolean createParentDirectories) {
+    this(path, content, mode, NONE, lock, createParentDirectories);
+  }
+
+  /**
+   * Creates a new instance
+   *
+   * @param path                    the path of the file to be written
+   * @param content                 the content to be written into the file
+   * @param mode                    a {@link FileWriteMode}
+   * @param durability              a {@link DurabilityPolicy}
+   * @param lock                    whether or not to lock the file
+   * @param createParentDirectories whether or not to attempt creating any parent directories which don't exists.
+   */
+  public WriteRequest(String path, InputStream content, FileWriteMode mode, DurabilityPolicy durability, boolean lock,
+                      boolean createParentDirectories) {
+    this.path = path;
+    this.content = content;
+    this.mode = mode;
+    this.durability = durability;
+    this.lock = lock;
+    this.createParentDirectories = createParentDirectories;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  public InputStream getContent() {
+    return content;
+  }
+
+  public FileWriteMode getMode() {
+    return mode;
+  }
+
+  public DurabilityPolicy getDurability() {
+    return durability;
+  }
+
+  public boolean isLock() {
+    return lock;
+  }
+
+  public boolean isCreateParentDirectories() {
+    return createParentDirectories;
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.cache;
+
+import static java.lang.System.nanoTime;
+import static org.mule.extension.file.common.api.cache.PathKeys.getParent;
+import static org.mule.extension.file.common.api.cache.PathKeys.isSameOrDescendant;
+import static org.mule.extension.file.common.api.cache.PathKeys.normalize;
+
+import org.mule.extension.file.common.api.FileSystem;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded cache of directories which are known to exist on a given {@link FileSystem}.
+ * <p>
+ * Commands use it to avoid checking the existence of (and eventually locking on) a parent directory each time a file is
+ * written into it. Entries expire after a configurable time to live, so that directories removed by external processes are
+ * eventually noticed, and the least recently used entries are evicted once the maximum size is reached.
+ * <p>
+ * Operations which could remove a directory are expected to {@link #invalidate(String)} the affected path.
+ * <p>
+ * Instances are thread-safe.
+ *
+ * @since 1.5.0
+ */
+public class DirectoryCache {
+
+  /**
+   * Default maximum amount of directories remembered by a cache
+   */
+  public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+  /**
+   * Default amount of milliseconds that a directory is remembered for
+   */
+  public static final long DEFAULT_TTL_MILLIS = 5000;
+
+  private static final DirectoryCache DISABLED = new DirectoryCache(0, 0, TimeUnit.MILLISECONDS);
+
+  private final int maxEntries;
+  private final long ttlNanos;
+  private final Map<String, Long> expirations;
+
+  /**
+   * @return a cache which never remembers any directory
+   */
+  public static DirectoryCache disabled() {
+    return DISABLED;
+  }
+
+  /**
+   * Creates a new instance
+   *
+   * @param maxEntries the maximum amount of directories to remember
+   * @param ttl        the amount of time each directory is remembered for
+   * @param ttlUnit    the {@link TimeUnit} of the {@code ttl}
+   */
+  public DirectoryCache(int maxEntries, long ttl, TimeUnit ttlUnit) {
+    this.maxEntries = maxEntries;
+    this.ttlNanos = ttlUnit.toNanos(ttl);
+    this.expirations = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+        return size() > DirectoryCache.this.maxEntries;
+      }
+    };
+  }
+
+  /**
+   * @return whether this cache remembers directories at all
+   */
+  public boolean isEnabled() {
+    return maxEntries > 0 && ttlNanos > 0;
+  }
+
+  /**
+   * @param directoryPath the path to a directory
+   * @return whether the directory is known to exist
+   */
+  public boolean isKnown(String directoryPath) {
+    if (!isEnabled() || directoryPath == null) {
+      return false;
+    }
+
+    String key = normalize(directoryPath);
+    synchronized (expirations) {
+      Long expiration = expirations.get(key);
+      if (expiration == null) {
+        return false;
+      }
+      if (expiration - nanoTime() < 0) {
+        expirations.remove(key);
+        return false;
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Remembers that the given directory exists. Because that implies that all of its ancestors exist as well, those are
+   * remembered too.
+   *
+   * @param directoryPath the path to a directory which is known to exist
+   */
+  public void markExisting(String directoryPath) {
+    if (!isEnabled() || directoryPath == null) {
+      return;
+    }
+
+    Long expiration = nanoTime() + ttlNanos;
+    synchronized (expirations) {
+      for (String key = normalize(directoryPath); key != null; key = getParent(key)) {
+        expirations.put(key, expiration);
+      }
+    }
+  }
+
+  /**
+   * Forgets the given path and any directory inside of it.
+   *
+   * @param path a path which might have been removed
+   */
+  public void invalidate(String path) {
+    if (!isEnabled() || path == null) {
+      return;
+    }
+
+    String invalidatedKey = normalize(path);
+    synchronized (expirations) {
+      for (Iterator<String> it = expirations.keySet().iterator(); it.hasNext();) {
+        if (isSameOrDescendant(it.next(), invalidatedKey)) {
+          it.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * Forgets all the remembered directories
+   */
+  public void clear() {
+    synchronized (expirations) {
+      expirations.clear();
+    }
+  }
+}
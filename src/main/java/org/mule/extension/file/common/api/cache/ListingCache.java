@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.cache;
+
+import static java.lang.System.nanoTime;
+import static java.util.Collections.unmodifiableList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.mule.extension.file.common.api.cache.PathKeys.getParent;
+import static org.mule.extension.file.common.api.cache.PathKeys.isSameOrDescendant;
+import static org.mule.extension.file.common.api.cache.PathKeys.normalize;
+
+import org.mule.extension.file.common.api.FileAttributes;
+import org.mule.extension.file.common.api.FileSystem;
+import org.mule.extension.file.common.api.subset.SubsetList;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * A bounded cache of the listings performed on a given {@link FileSystem}, so that listing the same directory several times
+ * within a short time span only hits the server once.
+ * <p>
+ * Listings are keyed by their directory, whether they're recursive, their {@code timeBetweenSizeCheck} and the identity of
+ * their matcher and {@link SubsetList}, which means that only callers which reuse the same matcher instance share
+ * listings. Entries expire after a configurable time to live, so that changes made by external processes are eventually
+ * noticed, and the least recently used entries are evicted once the maximum size is reached.
+ * <p>
+ * Operations which change the contents of a directory are expected to {@link #invalidate(String)} the affected path. A
+ * listing which was running while a path was invalidated is not cached, since it might not reflect the change.
+ * <p>
+ * Instances are thread-safe.
+ *
+ * @param <A> the generic type of the file attributes
+ * @since 1.5.0
+ */
+public class ListingCache<A extends FileAttributes> {
+
+  /**
+   * Default maximum amount of listings remembered by a cache
+   */
+  public static final int DEFAULT_MAX_ENTRIES = 64;
+
+  /**
+   * Default amount of milliseconds that a listing is remembered for
+   */
+  public static final long DEFAULT_TTL_MILLIS = 2000;
+
+  private static final ListingCache<?> DISABLED = new ListingCache<>(0, 0, MILLISECONDS);
+
+  private final int maxEntries;
+  private final long ttlNanos;
+  private final Map<ListingKey, CachedListing<A>> listings;
+  private final AtomicLong generation = new AtomicLong();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * @param <A> the generic type of the file attributes
+   * @return a cache which never remembers any listing
+   */
+  @SuppressWarnings("unchecked")
+  public static <A extends FileAttributes> ListingCache<A> disabled() {
+    return (ListingCache<A>) DISABLED;
+  }
+
+  /**
+   * Creates a new instance
+   *
+   * @param maxEntries the maximum amount of listings to remember
+   * @param ttl        the amount of time each listing is remembered for
+   * @param ttlUnit    the {@link TimeUnit} of the {@code ttl}
+   */
+  public ListingCache(int maxEntries, long ttl, TimeUnit ttlUnit) {
+    this.maxEntries = maxEntries;
+    this.ttlNanos = ttlUnit.toNanos(ttl);
+    this.listings = new LinkedHashMap<ListingKey, CachedListing<A>>(16, 0.75f, true) {
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<ListingKey, CachedListing<A>> eldest) {
+        if (size() > ListingCache.this.maxEntries) {
+          evictions.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * @return whether this cache remembers listings at all
+   */
+  public boolean isEnabled() {
+    return maxEntries > 0 && ttlNanos > 0;
+  }
+
+  /**
+   * Returns the cached listing for the given parameters, or performs it through the {@code lister} and caches it.
+   *
+   * @param directoryPath        the path to the listed directory
+   * @param recursive            whether the listing includes the contents of sub-directories
+   * @param matcher              the {@link Predicate} used to filter the listing
+   * @param timeBetweenSizeCheck the wait time between size checks of the listing
+   * @param subsetList           the {@link SubsetList} of the listing. Might be {@code null}
+   * @param lister               performs the listing on a miss
+   * @param onHit                transforms a cached listing before returning it, for example to provide fresh content
+   *                             streams, since those can only be consumed once
+   * @return the listing
+   */
+  public List<Result<InputStream, A>> get(String directoryPath, boolean recursive, Predicate<A> matcher,
+                                          Long timeBetweenSizeCheck, SubsetList subsetList,
+                                          Supplier<List<Result<InputStream, A>>> lister,
+                                          UnaryOperator<List<Result<InputStream, A>>> onHit) {
+    if (!isEnabled() || directoryPath == null) {
+      return lister.get();
+    }
+
+    ListingKey key = new ListingKey(normalize(directoryPath), recursive, matcher, timeBetweenSizeCheck, subsetList);
+    CachedListing<A> cached;
+    long listingGeneration;
+    synchronized (listings) {
+      cached = listings.get(key);
+      if (cached != null && cached.expiration - nanoTime() < 0) {
+        listings.remove(key);
+        cached = null;
+      }
+      listingGeneration = generation.get();
+    }
+
+    if (cached != null) {
+      hits.incrementAndGet();
+      return onHit.apply(cached.results);
+    }
+
+    misses.incrementAndGet();
+    List<Result<InputStream, A>> results = lister.get();
+    synchronized (listings) {
+      if (generation.get() == listingGeneration) {
+        listings.put(key, new CachedListing<>(unmodifiableList(new ArrayList<>(results)), nanoTime() + ttlNanos));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Forgets the listings which might have changed because the given path was created, modified or removed: the ones of
+   * directories inside that path, the ones of its parent and the recursive ones of its ancestors.
+   *
+   * @param path a path which changed
+   */
+  public void invalidate(String path) {
+    if (!isEnabled() || path == null) {
+      return;
+    }
+
+    String changedKey = normalize(path);
+    String parentKey = getParent(changedKey);
+    synchronized (listings) {
+      generation.incrementAndGet();
+      for (Iterator<ListingKey> it = listings.keySet().iterator(); it.hasNext();) {
+        ListingKey key = it.next();
+        if (isSameOrDescendant(key.directory, changedKey)
+            || (parentKey != null && isSameOrDescendant(parentKey, key.directory)
+                && (key.recursive || key.directory.equals(parentKey)))) {
+          it.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * Forgets all the remembered listings
+   */
+  public void clear() {
+    synchronized (listings) {
+      generation.incrementAndGet();
+      listings.clear();
+    }
+  }
+
+  /**
+   * @return the amount of listings which were served from the cache
+   */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /**
+   * @return the amount of listings which had to be performed
+   */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /**
+   * @return the amount of listings evicted because the maximum size was reached
+   */
+  public long getEvictionCount() {
+    return evictions.get();
+  }
+
+  /**
+   * @return the ratio of listings which were served from the cache, or {@code 0} if there were none
+   */
+  public double getHitRatio() {
+    long hitCount = hits.get();
+    long total = hitCount + misses.get();
+    return total == 0 ? 0 : (double) hitCount / total;
+  }
+
+  private static final class ListingKey {
+
+    private final String directory;
+    private final boolean recursive;
+    private final Predicate<?> matcher;
+    private final Long timeBetweenSizeCheck;
+    private final SubsetList subsetList;
+
+    private ListingKey(String directory, boolean recursive, Predicate<?> matcher, Long timeBetweenSizeCheck,
+                       SubsetList subsetList) {
+      this.directory = directory;
+      this.recursive = recursive;
+      this.matcher = matcher;
+      this.timeBetweenSizeCheck = timeBetweenSizeCheck;
+      this.subsetList = subsetList;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof ListingKey)) {
+        return false;
+      }
+      ListingKey other = (ListingKey) obj;
+      return directory.equals(other.directory) && recursive == other.recursive && matcher == other.matcher
+          && subsetList == other.subsetList && Objects.equals(timeBetweenSizeCheck, other.timeBetweenSizeCheck);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * directory.hashCode() + (recursive ? 1 : 0)) + System.identityHashCode(matcher);
+    }
+  }
+
+  private static final class CachedListing<A extends FileAttributes> {
+
+    private final List<Result<InputStream, A>> results;
+    private final long expiration;
+
+    private CachedListing(List<Result<InputStream, A>> results, long expiration) {
+      this.results = results;
+      this.expiration = expiration;
+    }
+  }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.cache;
+
+import static java.util.Locale.ENGLISH;
+import static org.mule.runtime.api.metadata.MediaType.APPLICATION_JSON;
+import static org.mule.runtime.api.metadata.MediaType.APPLICATION_XML;
+import static org.mule.runtime.api.metadata.MediaType.BINARY;
+import static org.mule.runtime.api.metadata.MediaType.HTML;
+import static org.mule.runtime.api.metadata.MediaType.TEXT;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import org.mule.runtime.api.metadata.MediaType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import javax.activation.MimetypesFileTypeMap;
+
+import org.slf4j.Logger;
+
+/**
+ * Resolves the {@link MediaType} of files out of their extension, remembering the parsed {@link MediaType} of each extension
+ * so that resolving it again neither goes through the {@link MimetypesFileTypeMap}, which synchronizes internally, nor parses
+ * the type again.
+ * <p>
+ * Custom mappings can be {@link #register(String, MediaType) registered}, in which case they take precedence over the ones of
+ * the {@link MimetypesFileTypeMap}. For files without extension, the type can be guessed out of the first bytes of their
+ * content, which are only read when needed.
+ * <p>
+ * The amount of remembered extensions is bounded, after which new extensions are resolved each time. Instances are
+ * thread-safe.
+ *
+ * @since 1.5.0
+ */
+public class MediaTypeCache {
+
+  private static final Logger LOGGER = getLogger(MediaTypeCache.class);
+
+  /**
+   * Default maximum amount of extensions remembered by a cache
+   */
+  public static final int DEFAULT_MAX_ENTRIES = 512;
+
+  /**
+   * Amount of bytes of the content which are inspected to guess the type of files without extension
+   */
+  public static final int SNIFF_LENGTH = 512;
+
+  private static final MediaType PDF = MediaType.create("application", "pdf");
+  private static final MediaType ZIP = MediaType.create("application", "zip");
+  private static final MediaType GZIP = MediaType.create("application", "gzip");
+  private static final MediaType PNG = MediaType.create("image", "png");
+  private static final MediaType GIF = MediaType.create("image", "gif");
+  private static final MediaType JPEG = MediaType.create("image", "jpeg");
+
+  private final MimetypesFileTypeMap mimetypesFileTypeMap;
+  private final int maxEntries;
+  private final Map<String, MediaType> mediaTypes = new ConcurrentHashMap<>();
+  private final Map<String, MediaType> customMediaTypes = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a new instance backed by a default {@link MimetypesFileTypeMap}
+   */
+  public MediaTypeCache() {
+    this(new MimetypesFileTypeMap(), DEFAULT_MAX_ENTRIES);
+  }
+
+  /**
+   * Creates a new instance
+   *
+   * @param mimetypesFileTypeMap the {@link MimetypesFileTypeMap} used to resolve the extensions which are not in the cache
+   * @param maxEntries           the maximum amount of extensions to remember
+   */
+  public MediaTypeCache(MimetypesFileTypeMap mimetypesFileTypeMap, int maxEntries) {
+    this.mimetypesFileTypeMap = mimetypesFileTypeMap;
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Maps the given {@code extension} to the given {@code mediaType}, replacing any previous mapping. Extensions are matched
+   * ignoring their case.
+   *
+   * @param extension the file extension, without the leading dot
+   * @param mediaType the {@link MediaType} of the files with that extension
+   */
+  public void register(String extension, MediaType mediaType) {
+    customMediaTypes.put(extension.toLowerCase(ENGLISH), mediaType);
+  }
+
+  /**
+   * Resolves the {@link MediaType} of the file at the given {@code path} out of its extension
+   *
+   * @param path the path of the file
+   * @return the {@link MediaType}, which defaults to {@code application/octet-stream}
+   */
+  public MediaType getMediaType(String path) {
+    return getMediaType(path, null);
+  }
+
+  /**
+   * Resolves the {@link MediaType} of the file at the given {@code path} out of its extension or, if it has none, out of the
+   * first bytes of its content.
+   *
+   * @param path    the path of the file
+   * @param content provides a new stream with the content of the file, which is only opened if the file has no extension and
+   *                is closed after reading its first bytes. Might be {@code null}
+   * @return the {@link MediaType}, which defaults to {@code application/octet-stream}
+   */
+  public MediaType getMediaType(String path, Supplier<InputStream> content) {
+    String extension = getExtension(path);
+    if (extension == null) {
+      return content != null ? sniff(path, content) : BINARY;
+    }
+
+    if (!customMediaTypes.isEmpty()) {
+      MediaType custom = customMediaTypes.get(extension.toLowerCase(ENGLISH));
+      if (custom != null) {
+        return custom;
+      }
+    }
+
+    MediaType mediaType = mediaTypes.get(extension);
+    if (mediaType == null) {
+      mediaType = MediaType.parse(mimetypesFileTypeMap.getContentType(path));
+      if (mediaTypes.size() < maxEntries) {
+        mediaTypes.putIfAbsent(extension, mediaType);
+      }
+    }
+    return mediaType;
+  }
+
+  /**
+   * Forgets the remembered extensions. Custom mappings are kept.
+   */
+  public void clear() {
+    mediaTypes.clear();
+  }
+
+  private static String getExtension(String path) {
+    int dot = path.lastIndexOf('.');
+    if (dot < 0 || dot == path.length() - 1 || dot < Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'))) {
+      return null;
+    }
+    return path.substring(dot + 1);
+  }
+
+  private MediaType sniff(String path, Supplier<InputStream> content) {
+    byte[] head = new byte[SNIFF_LENGTH];
+    int length = 0;
+    try (InputStream stream = content.get()) {
+      if (stream == null) {
+        return BINARY;
+      }
+      int read;
+      while (length < head.length && (read = stream.read(head, length, head.length - length)) > 0) {
+        length += read;
+      }
+    } catch (IOException | RuntimeException e) {
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug("Could not read the content of file '{}' to guess its media type", path, e);
+      }
+      return BINARY;
+    }
+    return sniff(head, length);
+  }
+
+  private static MediaType sniff(byte[] head, int length) {
+    if (startsWith(head, length, 0x25, 0x50, 0x44, 0x46, 0x2D)) {
+      return PDF;
+    } else if (startsWith(head, length, 0x89, 0x50, 0x4E, 0x47)) {
+      return PNG;
+    } else if (startsWith(head, length, 0x47, 0x49, 0x46, 0x38)) {
+      return GIF;
+    } else if (startsWith(head, length, 0xFF, 0xD8, 0xFF)) {
+      return JPEG;
+    } else if (startsWith(head, length, 0x50, 0x4B, 0x03, 0x04)) {
+      return ZIP;
+    } else if (startsWith(head, length, 0x1F, 0x8B)) {
+      return GZIP;
+    }
+
+    for (int i = 0; i < length; i++) {
+      int b = head[i] & 0xFF;
+      if (b < 0x20 && b != '\t' && b != '\n' && b != '\r' && b != '\f') {
+        return BINARY;
+      }
+    }
+
+    int start = startsWith(head, length, 0xEF, 0xBB, 0xBF) ? 3 : 0;
+    while (start < length && Character.isWhitespace(head[start])) {
+      start++;
+    }
+    if (start == length) {
+      return length == 0 ? BINARY : TEXT;
+    }
+
+    if (head[start] == '{' || head[start] == '[') {
+      return APPLICATION_JSON;
+    } else if (head[start] == '<') {
+      String markup = new String(head, start, Math.min(length - start, 15), StandardCharsets.US_ASCII).toLowerCase(ENGLISH);
+      if (markup.startsWith("<?xml")) {
+        return APPLICATION_XML;
+      } else if (markup.startsWith("<!doctype html") || markup.startsWith("<html")) {
+        return HTML;
+      }
+    }
+    return TEXT;
+  }
+
+  private static boolean startsWith(byte[] head, int length, int... prefix) {
+    if (length < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if ((head[i] & 0xFF) != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
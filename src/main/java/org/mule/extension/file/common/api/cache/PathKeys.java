@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.cache;
+
+import org.mule.extension.file.common.api.FileSystem;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Utility methods which turn the different path representations used across the module ({@link java.nio.file.Path},
+ * {@link java.net.URI} or plain {@link String strings} received through the {@link FileSystem} facade) into normalized
+ * {@link String} keys, so that the entries of the caches in this package can be compared regardless of their origin.
+ * <p>
+ * Keys always use {@code /} as separator, have no trailing separator (unless they represent a root) and have all the
+ * {@code .} and {@code ..} segments resolved.
+ *
+ * @since 1.5.0
+ */
+public final class PathKeys {
+
+  private static final char SEPARATOR = '/';
+  private static final String CURRENT_DIRECTORY = ".";
+  private static final String PARENT_DIRECTORY = "..";
+
+  private PathKeys() {}
+
+  /**
+   * Normalizes the given {@code path} into a key
+   *
+   * @param path a path
+   * @return the normalized key, or {@code null} if {@code path} was {@code null}
+   */
+  public static String normalize(String path) {
+    if (path == null) {
+      return null;
+    }
+
+    String unixPath = path.replace('\\', SEPARATOR);
+    String root = getRoot(unixPath);
+    Deque<String> segments = new ArrayDeque<>();
+    for (String segment : unixPath.substring(root.length()).split(String.valueOf(SEPARATOR))) {
+      if (segment.isEmpty() || CURRENT_DIRECTORY.equals(segment)) {
+        continue;
+      }
+      if (PARENT_DIRECTORY.equals(segment) && !segments.isEmpty() && !PARENT_DIRECTORY.equals(segments.peekLast())) {
+        segments.removeLast();
+      } else if (!PARENT_DIRECTORY.equals(segment) || root.isEmpty()) {
+        segments.addLast(segment);
+      }
+    }
+
+    StringBuilder key = new StringBuilder(unixPath.length()).append(root);
+    for (Iterator<String> it = segments.iterator(); it.hasNext();) {
+      key.append(it.next());
+      if (it.hasNext()) {
+        key.append(SEPARATOR);
+      }
+    }
+
+    return key.toString();
+  }
+
+  /**
+   * Resolves the given {@code path} against the {@code basePath} and normalizes the outcome. If {@code path} is absolute,
+   * then the {@code basePath} is ignored.
+   *
+   * @param basePath the path that relative paths are relative to. Might be {@code null}
+   * @param path     the path to resolve
+   * @return the normalized key
+   */
+  public static String resolve(String basePath, String path) {
+    if (path == null) {
+      return normalize(basePath);
+    }
+
+    if (basePath == null || basePath.isEmpty() || isAbsolute(path)) {
+      return normalize(path);
+    }
+
+    return normalize(basePath + SEPARATOR + path);
+  }
+
+  /**
+   * @param path a path
+   * @return whether the {@code path} is absolute, either in its unix or windows form
+   */
+  public static boolean isAbsolute(String path) {
+    return !getRoot(path.replace('\\', SEPARATOR)).isEmpty();
+  }
+
+  /**
+   * @param key         a normalized key
+   * @param ancestorKey another normalized key
+   * @return whether {@code key} equals {@code ancestorKey} or points to an element inside of it
+   */
+  public static boolean isSameOrDescendant(String key, String ancestorKey) {
+    if (!key.startsWith(ancestorKey)) {
+      return false;
+    }
+
+    return key.length() == ancestorKey.length()
+        || ancestorKey.isEmpty()
+        || ancestorKey.charAt(ancestorKey.length() - 1) == SEPARATOR
+        || key.charAt(ancestorKey.length()) == SEPARATOR;
+  }
+
+  /**
+   * @param key a normalized key
+   * @return the key of the parent, or {@code null} if the {@code key} has no parent
+   */
+  public static String getParent(String key) {
+    String root = getRoot(key);
+    if (key.length() <= root.length()) {
+      return null;
+    }
+
+    int index = key.lastIndexOf(SEPARATOR);
+    if (index < root.length()) {
+      return root.isEmpty() ? null : root;
+    }
+
+    return key.substring(0, index);
+  }
+
+  /**
+   * @param key a normalized key
+   * @return the last segment of the {@code key}
+   */
+  public static String getName(String key) {
+    return key.substring(key.lastIndexOf(SEPARATOR) + 1);
+  }
+
+  private static String getRoot(String unixPath) {
+    if (unixPath.length() >= 2 && Character.isLetter(unixPath.charAt(0)) && unixPath.charAt(1) == ':') {
+      return unixPath.length() > 2 && unixPath.charAt(2) == SEPARATOR ? unixPath.substring(0, 3) : unixPath.substring(0, 2);
+    }
+
+    return !unixPath.isEmpty() && unixPath.charAt(0) == SEPARATOR ? String.valueOf(SEPARATOR) : "";
+  }
+}
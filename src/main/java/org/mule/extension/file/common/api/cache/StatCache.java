@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.cache;
+
+import static org.mule.extension.file.common.api.cache.PathKeys.getParent;
+import static org.mule.extension.file.common.api.cache.PathKeys.isSameOrDescendant;
+import static org.mule.extension.file.common.api.cache.PathKeys.normalize;
+
+import org.mule.extension.file.common.api.FileSystem;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Memoizes the existence checks and attribute lookups performed while a single command runs, so that a command which looks
+ * up the same path several times (for example, a copy which verifies the source, its attributes, the target and its parent)
+ * only pays for one round trip per path.
+ * <p>
+ * A cache only lives between {@link #open(Object)} and the {@link Scope#close() closing} of the returned scope, and is only
+ * visible to the thread which opened it and to the owner it was opened for, typically a {@link FileSystem}. Opening a scope
+ * while another one for the same owner is open on the same thread reuses the outer one. When no scope is open, lookups are
+ * not cached at all.
+ * <p>
+ * Commands which create, modify or remove a path while a scope is open are expected to {@link #invalidate(String)} it.
+ *
+ * @since 1.5.0
+ */
+public final class StatCache {
+
+  private static final ThreadLocal<StatCache> CURRENT = new ThreadLocal<>();
+
+  private final Object owner;
+  private final StatCache previous;
+  private final Map<String, Boolean> existence = new HashMap<>();
+  private final Map<String, Object> attributes = new HashMap<>();
+  private int lookups = 0;
+  private int hits = 0;
+
+  private StatCache(Object owner, StatCache previous) {
+    this.owner = owner;
+    this.previous = previous;
+  }
+
+  /**
+   * Opens a scope in which lookups performed on behalf of the given {@code owner} are cached
+   *
+   * @param owner the object the lookups are performed for, typically a {@link FileSystem}
+   * @return the {@link Scope}, which must be closed once the command finished
+   */
+  public static Scope open(Object owner) {
+    StatCache current = CURRENT.get();
+    if (current != null && current.owner == owner) {
+      return Scope.NESTED;
+    }
+
+    StatCache cache = new StatCache(owner, current);
+    CURRENT.set(cache);
+    return new Scope(cache);
+  }
+
+  /**
+   * @param owner the object the lookups are performed for
+   * @return the cache of the scope opened for the {@code owner} on this thread, or {@code null} if there's none
+   */
+  public static StatCache current(Object owner) {
+    StatCache current = CURRENT.get();
+    return current != null && current.owner == owner ? current : null;
+  }
+
+  /**
+   * Returns whether the given path exists, performing the {@code lookup} only if it was not already checked within this
+   * scope, either directly or through {@link #getAttributes(String, Supplier)}
+   *
+   * @param path   the path to check
+   * @param lookup checks whether the path exists
+   * @return whether the path exists
+   */
+  public boolean exists(String path, BooleanSupplier lookup) {
+    String key = normalize(path);
+    Boolean exists = existence.get(key);
+    if (exists != null) {
+      hits++;
+      return exists;
+    }
+
+    lookups++;
+    exists = lookup.getAsBoolean();
+    existence.put(key, exists);
+    return exists;
+  }
+
+  /**
+   * Returns the attributes of the given path, performing the {@code lookup} only if they were not already obtained within
+   * this scope. A {@code null} outcome is remembered as the path not existing.
+   *
+   * @param path   the path to look up
+   * @param lookup obtains the attributes of the path, or {@code null} if it doesn't exist
+   * @param <T>    the type of the attributes
+   * @return the attributes, or {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T getAttributes(String path, Supplier<T> lookup) {
+    String key = normalize(path);
+    if (attributes.containsKey(key)) {
+      hits++;
+      return (T) attributes.get(key);
+    }
+
+    lookups++;
+    T value = lookup.get();
+    attributes.put(key, value);
+    existence.put(key, value != null);
+    return value;
+  }
+
+  /**
+   * Forgets everything known about the given path, its parent and anything inside of it
+   *
+   * @param path a path which was created, modified or removed
+   */
+  public void invalidate(String path) {
+    String key = normalize(path);
+    String parentKey = getParent(key);
+    existence.keySet().removeIf(cached -> isSameOrDescendant(cached, key) || cached.equals(parentKey));
+    attributes.keySet().removeIf(cached -> isSameOrDescendant(cached, key) || cached.equals(parentKey));
+  }
+
+  /**
+   * @return the amount of lookups which were actually performed within this scope
+   */
+  public int getLookupCount() {
+    return lookups;
+  }
+
+  /**
+   * @return the amount of lookups which were answered from this cache
+   */
+  public int getHitCount() {
+    return hits;
+  }
+
+  /**
+   * The lifespan of a {@link StatCache}
+   */
+  public static final class Scope implements AutoCloseable {
+
+    private static final Scope NESTED = new Scope(null);
+
+    private final StatCache cache;
+
+    private Scope(StatCache cache) {
+      this.cache = cache;
+    }
+
+    /**
+     * Discards the cache and restores the one which was open before, if any
+     */
+    @Override
+    public void close() {
+      if (cache == null) {
+        return;
+      }
+
+      if (cache.previous != null) {
+        CURRENT.set(cache.previous);
+      } else {
+        CURRENT.remove();
+      }
+    }
+  }
+}
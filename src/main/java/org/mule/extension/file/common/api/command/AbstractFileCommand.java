@@ -12,11 +12,13 @@ import static org.slf4j.LoggerFactory.getLogger;
 
 import org.mule.extension.file.common.api.FileConnectorConfig;
 import org.mule.extension.file.common.api.FileSystem;
+import org.mule.extension.file.common.api.cache.StatCache;
 import org.mule.extension.file.common.api.exceptions.FileAlreadyExistsException;
 import org.mule.extension.file.common.api.exceptions.IllegalPathException;
 import org.mule.runtime.api.exception.MuleRuntimeException;
 
 import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 import org.slf4j.Logger;
@@ -63,18 +65,24 @@ public abstract class AbstractFileCommand<F extends FileSystem, I> {
    * @throws {@link IllegalPathException} if the parent path does not exists and createParentFolder is set to false.
    */
   protected void assureParentFolderExists(I path, boolean createParentFolder) {
-    if (exists(path)) {
+    I parentFolder = getParent(path);
+    if (isKnownDirectory(parentFolder)) {
       return;
     }
 
-    I parentFolder = getParent(path);
-    if (!exists(parentFolder)) {
+    if (cachedExists(path)) {
+      return;
+    }
+
+    if (!cachedExists(parentFolder)) {
       if (createParentFolder) {
         mkdirs(parentFolder);
       } else {
         throw new IllegalPathException(format("Cannot write to file '%s' because path to it doesn't exist. Consider setting the 'createParentDirectories' attribute to 'true'",
                                               pathToString(path)));
       }
+    } else {
+      rememberDirectory(parentFolder);
     }
   }
 
@@ -84,21 +92,120 @@ public abstract class AbstractFileCommand<F extends FileSystem, I> {
    * @param directoryPath the path to the directory you want to create
    */
   protected void mkdirs(I directoryPath) {
-    Lock lock = fileSystem.createMuleLock(format("%s-mkdirs-%s", getClass().getName(), directoryPath));
+    if (isKnownDirectory(directoryPath)) {
+      return;
+    }
+
+    fileSystem.getDirectoryCreationCoordinator().create(pathToString(directoryPath), () -> mkdirsWithMuleLock(directoryPath));
+  }
+
+  /**
+   * Creates the directory while holding a {@link FileSystem#createMuleLock(String) Mule lock}, so that other nodes in the
+   * cluster don't attempt to do the same. Threads of this JVM are coalesced before reaching this point by the
+   * {@link FileSystem#getDirectoryCreationCoordinator() directory creation coordinator}, so only one of them takes the lock.
+   *
+   * @param directoryPath the path to the directory you want to create
+   */
+  private void mkdirsWithMuleLock(I directoryPath) {
+    // a previous owner might have just created it
+    if (isKnownDirectory(directoryPath)) {
+      return;
+    }
+
+    Lock lock = fileSystem.createMuleLock(getClass().getName() + "-mkdirs-" + directoryPath);
     lock.lock();
     try {
-      // verify no other thread beat us to it
+      // verify no other node beat us to it
       if (exists(directoryPath)) {
+        rememberDirectory(directoryPath);
         return;
       }
       doMkDirs(directoryPath);
     } finally {
       lock.unlock();
+      invalidateStat(directoryPath);
     }
 
+    rememberDirectory(directoryPath);
     LOGGER.debug("Directory '{}' created", directoryPath);
   }
 
+  /**
+   * @param directoryPath the path to a directory
+   * @return whether the {@link FileSystem#getDirectoryCache() directory cache} knows that the directory exists
+   */
+  protected boolean isKnownDirectory(I directoryPath) {
+    return directoryPath != null && fileSystem.getDirectoryCache().isKnown(pathToString(directoryPath));
+  }
+
+  /**
+   * Records on the {@link FileSystem#getDirectoryCache() directory cache} that the given directory exists.
+   *
+   * @param directoryPath the path to a directory which is known to exist
+   */
+  protected void rememberDirectory(I directoryPath) {
+    if (directoryPath != null) {
+      fileSystem.getDirectoryCache().markExisting(pathToString(directoryPath));
+    }
+  }
+
+  /**
+   * Removes the given path, and anything inside of it, from the {@link FileSystem#getDirectoryCache() directory cache} and
+   * from the {@link StatCache} of the running command. Commands which delete or relocate directories should invoke this
+   * method.
+   *
+   * @param path the path that might no longer be a directory
+   */
+  protected void forgetDirectory(I path) {
+    if (path != null) {
+      fileSystem.getDirectoryCache().invalidate(pathToString(path));
+      invalidateStat(path);
+    }
+  }
+
+  /**
+   * Same as {@link #exists(Object)}, but memoized on the {@link StatCache} opened for the {@link #fileSystem} on the current
+   * thread, if any, so that a command which checks the same path several times only does it once.
+   *
+   * @param path the path to test
+   * @return whether the {@code path} exists
+   * @since 1.5.0
+   */
+  protected boolean cachedExists(I path) {
+    StatCache cache = StatCache.current(fileSystem);
+    return cache != null ? cache.exists(pathToString(path), () -> exists(path)) : exists(path);
+  }
+
+  /**
+   * Obtains the attributes of the given {@code path} through the given {@code lookup}, memoized on the {@link StatCache}
+   * opened for the {@link #fileSystem} on the current thread, if any. Memoized attributes also answer
+   * {@link #cachedExists(Object)}.
+   *
+   * @param path   the path to look up
+   * @param lookup obtains the attributes of the path, or {@code null} if it doesn't exist
+   * @param <T>    the type of the attributes
+   * @return the attributes, or {@code null}
+   * @since 1.5.0
+   */
+  protected <T> T cachedAttributes(I path, Function<I, T> lookup) {
+    StatCache cache = StatCache.current(fileSystem);
+    return cache != null ? cache.getAttributes(pathToString(path), () -> lookup.apply(path)) : lookup.apply(path);
+  }
+
+  /**
+   * Forgets what the {@link StatCache} of the running command knows about the given {@code path}. Commands which create,
+   * modify or remove a path and then look it up again should invoke this method in between.
+   *
+   * @param path a path which was created, modified or removed
+   * @since 1.5.0
+   */
+  protected void invalidateStat(I path) {
+    StatCache cache = StatCache.current(fileSystem);
+    if (cache != null && path != null) {
+      cache.invalidate(pathToString(path));
+    }
+  }
+
   /**
    * Returns an absolute path for the given {@code filePath}
    *
@@ -125,14 +232,14 @@ public abstract class AbstractFileCommand<F extends FileSystem, I> {
    * Similar to {@link #resolvePath(String)} only that it throws a {@link IllegalArgumentException} if the
    * given path doesn't exist.
    * <p>
-   * The existence of the obtained path is verified by delegating into {@link #exists(I)}
+   * The existence of the obtained path is verified by delegating into {@link #cachedExists(I)}
    *
    * @param filePath the path to a file or directory
    * @return an absolute path
    */
   protected I resolveExistingPath(String filePath) {
     I path = resolvePath(filePath);
-    if (!exists(path)) {
+    if (!cachedExists(path)) {
       throw pathNotFoundException(path);
     }
 
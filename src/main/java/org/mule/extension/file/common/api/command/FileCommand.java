@@ -6,10 +6,33 @@
  */
 package org.mule.extension.file.common.api.command;
 
+import static java.lang.Math.max;
+import static java.lang.Runtime.getRuntime;
+import static java.lang.String.format;
+import static java.nio.file.LinkOption.NOFOLLOW_LINKS;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.mule.extension.file.common.api.util.VirtualThreads.newExecutor;
 import static org.slf4j.LoggerFactory.getLogger;
+
+import org.mule.extension.file.common.api.ExecutorAsyncFileSystem;
 import org.mule.extension.file.common.api.FileSystem;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.mule.extension.file.common.api.exceptions.FileAlreadyExistsException;
 import org.mule.extension.file.common.api.exceptions.IllegalPathException;
@@ -161,4 +184,160 @@ public abstract class FileCommand<F extends FileSystem> extends AbstractFileComm
   public FileAlreadyExistsException alreadyExistsException(Path path) {
     return super.alreadyExistsException(path);
   }
+
+  /**
+   * Local implementation of {@link RenameCommand#isAtomicRenameSupported()}, which subclasses implementing
+   * {@link RenameCommand} inherit along with {@link #renameAtomically(String, String)}. The target file always lives in the
+   * same directory as the source, so even the regular move the latter falls back to is an atomic rename.
+   *
+   * @return {@code true}
+   * @since 1.5.0
+   */
+  public boolean isAtomicRenameSupported() {
+    return true;
+  }
+
+  /**
+   * Local implementation of {@link RenameCommand#renameAtomically(String, String)}, which subclasses implementing
+   * {@link RenameCommand} inherit. The file is moved with {@link java.nio.file.StandardCopyOption#ATOMIC_MOVE}, falling back
+   * to a regular replacing move if the underlying file system doesn't support it.
+   *
+   * @param filePath the path to the file to be renamed
+   * @param newName  the file's new name
+   * @since 1.5.0
+   */
+  public void renameAtomically(String filePath, String newName) {
+    Path source = resolveExistingPath(filePath);
+    Path target = source.resolveSibling(newName);
+    try {
+      try {
+        Files.move(source, target, ATOMIC_MOVE, REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        LOGGER.debug("Atomic move is not supported for '{}', falling back to a regular move", source);
+        Files.move(source, target, REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      throw exception(format("Exception was found renaming '%s' to '%s'", source, newName), e);
+    } finally {
+      invalidateStat(source);
+      invalidateStat(target);
+    }
+  }
+
+  /**
+   * Local implementation of {@link WriteCommand#sync(String)}, which subclasses implementing {@link WriteCommand} inherit.
+   *
+   * @param filePath the path of a file which was written
+   * @since 1.5.0
+   */
+  public void sync(String filePath) {
+    Path path = resolveExistingPath(filePath);
+    try (FileChannel channel = FileChannel.open(path, WRITE)) {
+      channel.force(true);
+    } catch (IOException e) {
+      throw exception(format("Could not sync file '%s' to the storage device", path), e);
+    }
+  }
+
+  /**
+   * Local implementation of {@link WriteCommand#isSyncSupported()}, which subclasses implementing {@link WriteCommand}
+   * inherit.
+   *
+   * @return {@code true}
+   * @since 1.5.0
+   */
+  public boolean isSyncSupported() {
+    return true;
+  }
+
+  /**
+   * Local implementation of {@link WriteCommand#syncParentDirectory(String)}, which subclasses implementing
+   * {@link WriteCommand} inherit. Platforms which can't open directories (such as Windows) don't need this to persist renames,
+   * so the sync is skipped on them.
+   *
+   * @param filePath the path of a file which was created or renamed
+   * @since 1.5.0
+   */
+  public void syncParentDirectory(String filePath) {
+    Path directory = resolveExistingPath(filePath).getParent();
+    if (directory == null) {
+      return;
+    }
+    try (FileChannel channel = FileChannel.open(directory, READ)) {
+      channel.force(true);
+    } catch (IOException e) {
+      LOGGER.debug(format("Could not sync directory '%s' to the storage device", directory), e);
+    }
+  }
+
+  /**
+   * Local implementation of a {@link ParallelTreeDelete}, which {@link DeleteCommand} implementations can use to delete
+   * directories. Symbolic links are deleted, but never followed.
+   *
+   * @param path        the file or directory to delete
+   * @param parallelism the maximum amount of files deleted at the same time
+   * @return a {@link TreeDeleteReport}
+   * @since 1.5.0
+   */
+  protected TreeDeleteReport deleteTree(Path path, int parallelism) {
+    try {
+      return new ParallelTreeDelete<Path>(TreeDeleteExecutorHolder.EXECUTOR, parallelism) {
+
+        @Override
+        protected List<Path> listChildren(Path directory) throws IOException {
+          List<Path> children = new ArrayList<>();
+          try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            stream.forEach(children::add);
+          }
+          return children;
+        }
+
+        @Override
+        protected boolean isDirectory(Path file) {
+          return Files.isDirectory(file, NOFOLLOW_LINKS);
+        }
+
+        @Override
+        protected void deleteFile(Path file) throws IOException {
+          Files.deleteIfExists(file);
+        }
+
+        @Override
+        protected void deleteEmptyDirectory(Path directory) throws IOException {
+          Files.deleteIfExists(directory);
+        }
+
+        @Override
+        protected String pathToString(Path file) {
+          return FileCommand.this.pathToString(file);
+        }
+      }.delete(path);
+    } finally {
+      forgetDirectory(path);
+    }
+  }
+
+  /**
+   * Holds the executor shared by all the tree deletes, which is lazily created on first use. It's not the
+   * {@link ExecutorAsyncFileSystem#sharedExecutor() one shared by the async operations}, since a delete running on it would
+   * wait for its own tasks, which could starve it.
+   */
+  private static final class TreeDeleteExecutorHolder {
+
+    private static final String NAME_PREFIX = "file-connector-tree-delete-";
+    private static final AtomicInteger THREADS = new AtomicInteger();
+    private static final Executor EXECUTOR = newExecutor(NAME_PREFIX, () -> {
+      int threads = max(4, getRuntime().availableProcessors() * 2);
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, SECONDS, new LinkedBlockingQueue<>(),
+                                                           TreeDeleteExecutorHolder::newThread);
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
+    });
+
+    private static Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, NAME_PREFIX + THREADS.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
 }
@@ -9,11 +9,14 @@ package org.mule.extension.file.common.api.command;
 import org.mule.extension.file.common.api.FileAttributes;
 import org.mule.extension.file.common.api.FileConnectorConfig;
 import org.mule.extension.file.common.api.FileSystem;
+import org.mule.extension.file.common.api.listing.Watermark;
 import org.mule.extension.file.common.api.subset.SubsetList;
 import org.mule.runtime.extension.api.runtime.operation.Result;
 import java.io.InputStream;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
 
 /**
  * Command design pattern for listing files
@@ -79,4 +82,61 @@ public interface ListCommand<A extends FileAttributes> {
                                             SubsetList subsetList) {
     return list(config, directoryPath, recursive, matcher, timeBetweenSizeCheck);
   }
+
+  /**
+   * Lists files under the considerations of {@link FileSystem#list(FileConnectorConfig, String, boolean, Predicate)}, but
+   * hands the attributes of each matching file to the {@code visitor} as soon as it's listed instead of returning them. No
+   * {@link Result} nor content stream is created for the files, so callers which only need the attributes of large
+   * directories don't hold the whole listing in memory.
+   * <p>
+   * This default implementation performs a regular listing through
+   * {@link #list(FileConnectorConfig, String, boolean, Predicate, Long)} and then visits its attributes, so the whole listing
+   * is still held at once. Implementations which iterate the directory should override it.
+   *
+   * @param config        the config that is parameterizing this operation
+   * @param directoryPath the path to the directory to be listed
+   * @param recursive     whether to include the contents of sub-directories
+   * @param matcher       a {@link Predicate} of {@link FileAttributes} used to filter the visited files
+   * @param visitor       receives the attributes of each matching file, in listing order
+   * @throws IllegalArgumentException if {@code directoryPath} points to a file which doesn't exist or is not a directory
+   * @since 1.5.0
+   */
+  default void visit(FileConnectorConfig config,
+                     String directoryPath,
+                     boolean recursive,
+                     Predicate<A> matcher,
+                     Consumer<A> visitor) {
+    for (Result<InputStream, A> result : list(config, directoryPath, recursive, matcher, null)) {
+      result.getAttributes().ifPresent(visitor);
+    }
+  }
+
+  /**
+   * Lists the files which are new according to the given {@code watermark}, under the considerations of
+   * {@link FileSystem#listNewerThan(FileConnectorConfig, String, boolean, Predicate, Long, Watermark, ToLongFunction)}
+   * <p>
+   * This default implementation lists the whole directory and discards the files which are not new, through
+   * {@link Watermark#newFiles(ToLongFunction)}, before evaluating the {@code matcher} on them. Implementations which can filter by modification time on the server side should override it,
+   * pushing down {@link Watermark#getModifiedSince()}.
+   *
+   * @param config               the config that is parameterizing this operation
+   * @param directoryPath        the path to the directory to be listed
+   * @param recursive            whether to include the contents of sub-directories
+   * @param matcher              a {@link Predicate} of {@link FileAttributes} used to filter the output list
+   * @param timeBetweenSizeCheck wait time between size checks to determine if a file is ready to be read in milliseconds.
+   * @param watermark            the {@link Watermark} of the files already emitted
+   * @param lastModifiedTime     extracts the modification time of each file, in milliseconds
+   * @return a {@link List} of {@link Result} objects each one containing each file's content in the payload and metadata in the
+   *         attributes
+   * @since 1.5.0
+   */
+  default List<Result<InputStream, A>> listNewerThan(FileConnectorConfig config,
+                                                     String directoryPath,
+                                                     boolean recursive,
+                                                     Predicate<A> matcher,
+                                                     Long timeBetweenSizeCheck,
+                                                     Watermark watermark,
+                                                     ToLongFunction<A> lastModifiedTime) {
+    return list(config, directoryPath, recursive, watermark.newFiles(lastModifiedTime).and(matcher), timeBetweenSizeCheck);
+  }
 }
@@ -0,0 +1,373 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.command;
+
+import static java.lang.String.format;
+import static org.mule.extension.file.common.api.batch.FileOperationResult.failure;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import org.mule.extension.file.common.api.batch.FileOperationResult;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+
+/**
+ * Deletes a directory and everything inside of it, performing up to a configurable amount of file system operations at the
+ * same time.
+ * <p>
+ * The tree is walked depth first: the contents of the most recently listed directory are deleted before moving on to the
+ * rest of its parent's, and each directory is deleted once all of its contents are (post-order). If anything inside a
+ * directory cannot be deleted, that directory is kept, and so are its ancestors. Every failure is reported on the returned
+ * {@link TreeDeleteReport}, instead of aborting the whole operation.
+ * <p>
+ * The walk is driven by the thread which invokes {@link #delete(Object)}, which hands at most {@code parallelism} operations
+ * to the {@link Executor} at a time and only picks the next one once there's room for it. The memory used is therefore
+ * bounded by the parallelism and the depth of the tree rather than by its size. Operations which the {@link Executor}
+ * rejects are performed by the driving thread itself, one at a time.
+ * <p>
+ * Implementations provide the primitive operations over the same path abstraction as the {@link AbstractFileCommand} which
+ * uses them. Those operations are invoked concurrently, so they must be safe to use from several threads at the same time.
+ * The operations never wait for each other, so the engine cannot deadlock regardless of the given parallelism.
+ *
+ * @param <I> the type which identifies a file or directory
+ * @since 1.5.0
+ */
+public abstract class ParallelTreeDelete<I> {
+
+  private static final Logger LOGGER = getLogger(ParallelTreeDelete.class);
+
+  /**
+   * Default maximum amount of concurrent file system operations
+   */
+  public static final int DEFAULT_PARALLELISM = 8;
+
+  private final Executor executor;
+  private final int parallelism;
+
+  /**
+   * Creates a new instance
+   *
+   * @param executor    the {@link Executor} on which the file system operations are performed
+   * @param parallelism the maximum amount of concurrent file system operations
+   */
+  protected ParallelTreeDelete(Executor executor, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be greater than zero");
+    }
+    this.executor = executor;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Deletes the given {@code root}. If it's a directory, everything inside of it is deleted first.
+   *
+   * @param root the file or directory to delete
+   * @return a {@link TreeDeleteReport}
+   */
+  public TreeDeleteReport delete(I root) {
+    Run run = new Run();
+    run.walk(root);
+    return new TreeDeleteReport(pathToString(root), run.deleted, new ArrayList<>(run.failures));
+  }
+
+  /**
+   * @param directory a directory
+   * @return the files and directories directly inside the given {@code directory}
+   */
+  protected abstract List<I> listChildren(I directory) throws Exception;
+
+  /**
+   * @param path a file or directory
+   * @return whether the given {@code path} is a directory. Links to directories should not be considered directories, so
+   *         that the directories they point to are not deleted
+   */
+  protected abstract boolean isDirectory(I path);
+
+  /**
+   * Deletes the given file
+   *
+   * @param file a file which is not a directory
+   */
+  protected abstract void deleteFile(I file) throws Exception;
+
+  /**
+   * Deletes the given directory, which is already empty
+   *
+   * @param directory an empty directory
+   */
+  protected abstract void deleteEmptyDirectory(I directory) throws Exception;
+
+  /**
+   * @return the given {@code path} as a String, to be used in the {@link TreeDeleteReport}
+   */
+  protected abstract String pathToString(I path);
+
+  /**
+   * A directory being deleted. Only accessed by the thread driving the {@link Run}.
+   */
+  private class Directory {
+
+    private final I path;
+    private final Directory parent;
+    private Iterator<I> children;
+    private int remaining;
+    private boolean failed;
+
+    private Directory(I path, Directory parent) {
+      this.path = path;
+      this.parent = parent;
+    }
+  }
+
+  private class Run {
+
+    private final BlockingQueue<Operation<?>> completed = new LinkedBlockingQueue<>();
+    private final Deque<Directory> open = new ArrayDeque<>();
+    private final Queue<Operation<?>> ready = new ArrayDeque<>();
+    private final List<FileOperationResult> failures = new ArrayList<>();
+    private int inFlight = 0;
+    private long deleted = 0;
+
+    private void walk(I root) {
+      if (isDirectory(root)) {
+        ready.add(new ListChildren(new Directory(root, null)));
+      } else {
+        ready.add(new DeleteFile(root, null));
+      }
+
+      boolean interrupted = false;
+      try {
+        while (true) {
+          Operation<?> next;
+          while (inFlight < parallelism && (next = next()) != null) {
+            start(next);
+          }
+          if (inFlight == 0) {
+            return;
+          }
+
+          Operation<?> operation;
+          try {
+            operation = completed.take();
+          } catch (InterruptedException e) {
+            interrupted = true;
+            continue;
+          }
+          do {
+            inFlight--;
+            operation.done();
+          } while ((operation = completed.poll()) != null);
+        }
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+    /**
+     * @return the next operation to perform, or {@code null} if none can be performed until a running one completes
+     */
+    private Operation<?> next() {
+      Operation<?> operation = ready.poll();
+      if (operation != null) {
+        return operation;
+      }
+
+      while (!open.isEmpty()) {
+        Directory directory = open.peek();
+        if (!directory.children.hasNext()) {
+          directory.children = null;
+          open.pop();
+          continue;
+        }
+
+        I child = directory.children.next();
+        try {
+          return isDirectory(child) ? new ListChildren(new Directory(child, directory)) : new DeleteFile(child, directory);
+        } catch (RuntimeException e) {
+          failures.add(failure(pathToString(child), e));
+          finished(directory, false);
+        }
+      }
+      return null;
+    }
+
+    private void start(Operation<?> operation) {
+      inFlight++;
+      try {
+        executor.execute(operation);
+      } catch (RejectedExecutionException e) {
+        operation.run();
+      }
+    }
+
+    /**
+     * Accounts for a child of the given {@code directory} being finished, scheduling the deletion of the directory once
+     * all of its children are. A directory which can't be deleted is itself finished unsuccessfully, up to the root.
+     */
+    private void finished(Directory directory, boolean successful) {
+      while (directory != null) {
+        directory.remaining--;
+        directory.failed |= !successful;
+        if (directory.remaining > 0) {
+          return;
+        }
+        if (!directory.failed) {
+          ready.add(new DeleteEmptyDirectory(directory));
+          return;
+        }
+        LOGGER.debug("Directory '{}' was not deleted because some of its contents could not be deleted", directory.path);
+        successful = false;
+        directory = directory.parent;
+      }
+    }
+
+    /**
+     * A file system operation, which is performed by the {@link Executor} and then handed back to the driving thread
+     * through {@link #done()}.
+     */
+    private abstract class Operation<R> implements Runnable {
+
+      protected final I path;
+      private R outcome;
+      private Exception failure;
+      private Error error;
+
+      private Operation(I path) {
+        this.path = path;
+      }
+
+      @Override
+      public final void run() {
+        try {
+          outcome = call();
+        } catch (Exception e) {
+          failure = e;
+        } catch (Error e) {
+          error = e;
+        } finally {
+          completed.add(this);
+        }
+      }
+
+      private void done() {
+        if (error != null) {
+          throw error;
+        }
+        if (failure != null) {
+          LOGGER.debug(format("Could not delete '%s'", pathToString(path)), failure);
+          failures.add(failure(pathToString(path), failure));
+          failed();
+        } else {
+          succeeded(outcome);
+        }
+      }
+
+      protected abstract R call() throws Exception;
+
+      protected abstract void succeeded(R outcome);
+
+      protected abstract void failed();
+    }
+
+    private class ListChildren extends Operation<List<I>> {
+
+      private final Directory directory;
+
+      private ListChildren(Directory directory) {
+        super(directory.path);
+        this.directory = directory;
+      }
+
+      @Override
+      protected List<I> call() throws Exception {
+        return listChildren(path);
+      }
+
+      @Override
+      protected void succeeded(List<I> children) {
+        if (children == null || children.isEmpty()) {
+          ready.add(new DeleteEmptyDirectory(directory));
+          return;
+        }
+        directory.children = children.iterator();
+        directory.remaining = children.size();
+        open.push(directory);
+      }
+
+      @Override
+      protected void failed() {
+        finished(directory.parent, false);
+      }
+    }
+
+    private class DeleteFile extends Operation<Void> {
+
+      private final Directory parent;
+
+      private DeleteFile(I file, Directory parent) {
+        super(file);
+        this.parent = parent;
+      }
+
+      @Override
+      protected Void call() throws Exception {
+        deleteFile(path);
+        return null;
+      }
+
+      @Override
+      protected void succeeded(Void outcome) {
+        deleted++;
+        finished(parent, true);
+      }
+
+      @Override
+      protected void failed() {
+        finished(parent, false);
+      }
+    }
+
+    private class DeleteEmptyDirectory extends Operation<Void> {
+
+      private final Directory directory;
+
+      private DeleteEmptyDirectory(Directory directory) {
+        super(directory.path);
+        this.directory = directory;
+      }
+
+      @Override
+      protected Void call() throws Exception {
+        deleteEmptyDirectory(path);
+        return null;
+      }
+
+      @Override
+      protected void succeeded(Void outcome) {
+        deleted++;
+        finished(directory.parent, true);
+      }
+
+      @Override
+      protected void failed() {
+        finished(directory.parent, false);
+      }
+    }
+  }
+}
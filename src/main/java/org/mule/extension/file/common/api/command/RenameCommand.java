@@ -24,4 +24,30 @@ public interface RenameCommand {
    * @param overwrite whether to overwrite the target file if it already exists
    */
   void rename(String filePath, String newName, boolean overwrite);
+
+  /**
+   * Renames a file the same way as {@link #rename(String, String, boolean)} would with {@code overwrite} enabled, but making
+   * sure that, if the target file already exists, there's no moment at which it is missing or partially replaced.
+   * <p>
+   * This default implementation can't make such guarantee: it falls back to {@link #rename(String, String, boolean)}, which
+   * on many remote file systems replaces an existing target by deleting it first, or isn't atomic at the protocol level. In
+   * that case {@link #isAtomicRenameSupported()} returns {@code false}. Implementations which can perform a truly atomic
+   * replacing rename should override both methods.
+   *
+   * @param filePath the path to the file to be renamed
+   * @param newName  the file's new name
+   * @since 1.5.0
+   */
+  default void renameAtomically(String filePath, String newName) {
+    rename(filePath, newName, true);
+  }
+
+  /**
+   * @return whether {@link #renameAtomically(String, String)} actually replaces the target file atomically, rather than
+   *         falling back to a regular overwriting rename. Defaults to {@code false}.
+   * @since 1.5.0
+   */
+  default boolean isAtomicRenameSupported() {
+    return false;
+  }
 }
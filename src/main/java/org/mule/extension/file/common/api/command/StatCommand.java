@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.command;
+
+import org.mule.extension.file.common.api.FileAttributes;
+import org.mule.extension.file.common.api.FileConnectorConfig;
+import org.mule.extension.file.common.api.FileSystem;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command design pattern for obtaining the attributes of files without reading them
+ *
+ * @param <A> the generic type of the file attributes
+ * @since 1.5.0
+ */
+public interface StatCommand<A extends FileAttributes> {
+
+  /**
+   * Obtains the current attributes of a file under the considerations of
+   * {@link FileSystem#getAttributes(FileConnectorConfig, Collection)}
+   *
+   * @param filePath the path to the file
+   * @return the attributes of the file, or {@code null} if it doesn't exist
+   */
+  A getAttributes(String filePath);
+
+  /**
+   * Obtains the current attributes of many files at once under the considerations of
+   * {@link FileSystem#getAttributes(FileConnectorConfig, Collection)}
+   * <p>
+   * This default implementation looks up one file at a time through {@link #getAttributes(String)}. Implementations which
+   * can obtain the attributes of many files in a single round trip, for example by listing their parent directories once,
+   * should override it.
+   *
+   * @param filePaths the paths to the files
+   * @return the attributes of the files which exist, keyed by the given paths, in the same order
+   */
+  default Map<String, A> getAttributes(Collection<String> filePaths) {
+    Map<String, A> attributes = new LinkedHashMap<>();
+    for (String filePath : filePaths) {
+      A fileAttributes = getAttributes(filePath);
+      if (fileAttributes != null) {
+        attributes.put(filePath, fileAttributes);
+      }
+    }
+    return attributes;
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.command;
+
+import static java.lang.String.format;
+import static java.util.Collections.unmodifiableList;
+
+import org.mule.extension.file.common.api.batch.FileOperationResult;
+
+import java.util.List;
+
+/**
+ * The outcome of a {@link ParallelTreeDelete}
+ *
+ * @since 1.5.0
+ */
+public final class TreeDeleteReport {
+
+  private final String rootPath;
+  private final long deletedCount;
+  private final List<FileOperationResult> failures;
+
+  TreeDeleteReport(String rootPath, long deletedCount, List<FileOperationResult> failures) {
+    this.rootPath = rootPath;
+    this.deletedCount = deletedCount;
+    this.failures = unmodifiableList(failures);
+  }
+
+  /**
+   * @return the path of the file or directory which was requested to be deleted
+   */
+  public String getRootPath() {
+    return rootPath;
+  }
+
+  /**
+   * @return the amount of files and directories which were deleted
+   */
+  public long getDeletedCount() {
+    return deletedCount;
+  }
+
+  /**
+   * Returns a failed {@link FileOperationResult} for each file or directory which could not be deleted or listed. The
+   * directories which contain any of them are not deleted either, but are not reported.
+   *
+   * @return the failures
+   */
+  public List<FileOperationResult> getFailures() {
+    return failures;
+  }
+
+  /**
+   * @return whether the whole tree was deleted
+   */
+  public boolean isSuccessful() {
+    return failures.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return format("%s: %d deleted, %d failed", rootPath, deletedCount, failures.size());
+  }
+}
@@ -53,4 +53,38 @@ public interface WriteCommand {
   default void write(String filePath, InputStream content, FileWriteMode mode, boolean lock, boolean createParentDirectory) {
     write(filePath, content, mode, lock, createParentDirectory, null);
   }
+
+  /**
+   * Flushes the content of the file at the given path to the storage device, so that it survives a crash of the host.
+   * <p>
+   * This default implementation does nothing, which is the only option for file systems which don't expose such a
+   * capability. Those keep {@link #isSyncSupported()} returning {@code false}, so that writes which ask for a
+   * {@link org.mule.extension.file.common.api.DurabilityPolicy} are rejected instead of silently not being durable.
+   *
+   * @param filePath the path of a file which was written
+   * @since 1.5.0
+   */
+  default void sync(String filePath) {}
+
+  /**
+   * Whether {@link #sync(String)} actually flushes files to the storage device. Defaults to {@code false}.
+   *
+   * @return whether files can be synced
+   * @since 1.5.0
+   */
+  default boolean isSyncSupported() {
+    return false;
+  }
+
+  /**
+   * Flushes the directory entries of the parent directory of the file at the given path to the storage device, so that the
+   * creation or renaming of that file survives a crash of the host.
+   * <p>
+   * This default implementation does nothing, which is the only option for file systems which don't expose such a
+   * capability.
+   *
+   * @param filePath the path of a file which was created or renamed
+   * @since 1.5.0
+   */
+  default void syncParentDirectory(String filePath) {}
 }
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.connection;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import org.mule.extension.file.common.api.FileConnectorConfig;
+import org.mule.extension.file.common.api.FileSystem;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.connection.ConnectionHandler;
+import org.mule.runtime.core.api.connector.ConnectionManager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+
+/**
+ * A small pool of connections obtained through a {@link ConnectionManager} for a given {@link FileConnectorConfig}.
+ * <p>
+ * Unlike asking the {@link ConnectionManager} for a new connection each time, connections returned to this pool are kept warm
+ * so that the next borrower can reuse them right away. Each connection remembers the key it was last used for (typically the
+ * path of a file), and borrowers asking for the same key get that connection back if it's idle. This allows, for example, the
+ * attributes refresh and the content retrieval of the same file to run over the same connection.
+ * <p>
+ * The amount of connections borrowed at the same time is bounded, idle connections are discarded after a timeout and
+ * connections are validated before being handed out again. Expired idle connections are discarded whenever a connection is
+ * borrowed or released, and also by a periodic sweep which runs every idle timeout, so that a pool which is no longer used
+ * doesn't keep its connections (and the resources on the remote end) open until it's closed.
+ * <p>
+ * Instances are thread-safe. {@link #close()} must be invoked once the pool is no longer needed.
+ *
+ * @param <T> the type of fileSystem instances that the pool provides
+ * @since 1.5.0
+ */
+public class ConnectionPool<T extends FileSystem> {
+
+  private static final Logger LOGGER = getLogger(ConnectionPool.class);
+
+  /**
+   * Default maximum amount of connections borrowed at the same time
+   */
+  public static final int DEFAULT_MAX_CONNECTIONS = 4;
+
+  /**
+   * Default amount of milliseconds that an idle connection is kept for
+   */
+  public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 30000;
+
+  private final FileConnectorConfig config;
+  private final ConnectionManager connectionManager;
+  private final Semaphore permits;
+  private final long idleTimeoutNanos;
+  private final Deque<PooledConnection<T>> idleConnections = new ArrayDeque<>();
+  private final ScheduledExecutorService scheduler;
+  private final boolean ownScheduler;
+  private final ScheduledFuture<?> idleSweep;
+  private boolean closed = false;
+
+  /**
+   * Creates a new instance with the default limits and its own background thread
+   *
+   * @param config            the config the connections are obtained for
+   * @param connectionManager the {@link ConnectionManager} used to obtain the connections
+   */
+  public ConnectionPool(FileConnectorConfig config, ConnectionManager connectionManager) {
+    this(config, connectionManager, DEFAULT_MAX_CONNECTIONS, DEFAULT_IDLE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Creates a new instance with its own background thread
+   *
+   * @param config            the config the connections are obtained for
+   * @param connectionManager the {@link ConnectionManager} used to obtain the connections
+   * @param maxConnections    the maximum amount of connections borrowed at the same time
+   * @param idleTimeout       the amount of time an idle connection is kept for
+   * @param idleTimeoutUnit   the {@link TimeUnit} of the {@code idleTimeout}
+   */
+  public ConnectionPool(FileConnectorConfig config, ConnectionManager connectionManager, int maxConnections,
+                        long idleTimeout, TimeUnit idleTimeoutUnit) {
+    this(config, connectionManager, maxConnections, idleTimeout, idleTimeoutUnit, null);
+  }
+
+  /**
+   * Creates a new instance
+   *
+   * @param config            the config the connections are obtained for
+   * @param connectionManager the {@link ConnectionManager} used to obtain the connections
+   * @param maxConnections    the maximum amount of connections borrowed at the same time
+   * @param idleTimeout       the amount of time an idle connection is kept for
+   * @param idleTimeoutUnit   the {@link TimeUnit} of the {@code idleTimeout}
+   * @param scheduler         the {@link ScheduledExecutorService} on which the periodic sweep of idle connections runs. If
+   *                          {@code null}, the instance creates (and shuts down on {@link #close()}) its own single thread
+   *                          scheduler
+   */
+  public ConnectionPool(FileConnectorConfig config, ConnectionManager connectionManager, int maxConnections,
+                        long idleTimeout, TimeUnit idleTimeoutUnit, ScheduledExecutorService scheduler) {
+    this.config = config;
+    this.connectionManager = connectionManager;
+    this.permits = new Semaphore(maxConnections, true);
+    this.idleTimeoutNanos = idleTimeoutUnit.toNanos(idleTimeout);
+    this.ownScheduler = scheduler == null;
+    this.scheduler = ownScheduler ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "file-connector-connection-pool");
+      thread.setDaemon(true);
+      return thread;
+    }) : scheduler;
+    long sweepDelayNanos = Math.max(idleTimeoutNanos, 1);
+    this.idleSweep = this.scheduler.scheduleWithFixedDelay(this::evictIdleConnections, sweepDelayNanos, sweepDelayNanos,
+                                                           NANOSECONDS);
+  }
+
+  /**
+   * Borrows a connection, blocking if the maximum amount of connections is already borrowed. Idle connections last used for
+   * the given {@code key} are preferred, then the most recently used ones. A new connection is only created if no idle one
+   * passes validation.
+   *
+   * @param key the key the connection is going to be used for, typically a file path. Might be {@code null}
+   * @return a {@link PooledConnection} which <b>MUST</b> be given back through {@link #release(PooledConnection)} or
+   *         {@link #invalidate(PooledConnection)}
+   * @throws ConnectionException if a connection could not be obtained
+   */
+  public PooledConnection<T> borrow(String key) throws ConnectionException {
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ConnectionException("Interrupted while waiting for a connection", e);
+    }
+
+    try {
+      PooledConnection<T> connection;
+      while ((connection = pollIdle(key)) != null) {
+        if (isValid(connection)) {
+          connection.setKey(key);
+          return connection;
+        }
+        discard(connection);
+      }
+
+      ConnectionHandler<T> connectionHandler = connectionManager.getConnection(config);
+      try {
+        return new PooledConnection<>(connectionHandler, connectionHandler.getConnection(), key);
+      } catch (ConnectionException | RuntimeException e) {
+        connectionHandler.release();
+        throw e;
+      }
+    } catch (ConnectionException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Gives back a connection previously obtained through {@link #borrow(String)}, so that it can be reused.
+   *
+   * @param connection the borrowed connection
+   */
+  public void release(PooledConnection<T> connection) {
+    List<PooledConnection<T>> discarded = new ArrayList<>();
+    try {
+      synchronized (idleConnections) {
+        if (closed) {
+          discarded.add(connection);
+        } else {
+          connection.touch();
+          idleConnections.addFirst(connection);
+          collectExpired(discarded);
+        }
+      }
+    } finally {
+      permits.release();
+    }
+
+    discarded.forEach(this::discard);
+  }
+
+  /**
+   * Discards a connection previously obtained through {@link #borrow(String)} which is known to be broken.
+   *
+   * @param connection the borrowed connection
+   */
+  public void invalidate(PooledConnection<T> connection) {
+    try {
+      connection.getConnectionHandler().invalidate();
+    } finally {
+      permits.release();
+    }
+  }
+
+  /**
+   * Discards the idle connections which exceeded the idle timeout. This runs periodically on the background sweep, but can
+   * also be invoked to discard them right away.
+   */
+  public void evictIdleConnections() {
+    List<PooledConnection<T>> discarded = new ArrayList<>();
+    synchronized (idleConnections) {
+      collectExpired(discarded);
+    }
+    discarded.forEach(this::discard);
+  }
+
+  /**
+   * @return the amount of idle connections
+   */
+  public int getIdleCount() {
+    synchronized (idleConnections) {
+      return idleConnections.size();
+    }
+  }
+
+  /**
+   * Discards all the idle connections and stops the background sweep. Connections which are borrowed at the moment are
+   * discarded once released.
+   */
+  public void close() {
+    idleSweep.cancel(false);
+    if (ownScheduler) {
+      scheduler.shutdownNow();
+    }
+
+    List<PooledConnection<T>> discarded;
+    synchronized (idleConnections) {
+      closed = true;
+      discarded = new ArrayList<>(idleConnections);
+      idleConnections.clear();
+    }
+    discarded.forEach(this::discard);
+  }
+
+  private PooledConnection<T> pollIdle(String key) {
+    List<PooledConnection<T>> discarded = new ArrayList<>();
+    PooledConnection<T> connection = null;
+    synchronized (idleConnections) {
+      collectExpired(discarded);
+      for (Iterator<PooledConnection<T>> it = idleConnections.iterator(); key != null && it.hasNext();) {
+        PooledConnection<T> candidate = it.next();
+        if (Objects.equals(key, candidate.getKey())) {
+          it.remove();
+          connection = candidate;
+          break;
+        }
+      }
+      if (connection == null) {
+        connection = idleConnections.pollFirst();
+      }
+    }
+
+    discarded.forEach(this::discard);
+    return connection;
+  }
+
+  private void collectExpired(List<PooledConnection<T>> discarded) {
+    long now = nanoTime();
+    for (Iterator<PooledConnection<T>> it = idleConnections.iterator(); it.hasNext();) {
+      PooledConnection<T> connection = it.next();
+      if (now - connection.getLastUsed() > idleTimeoutNanos) {
+        it.remove();
+        discarded.add(connection);
+      }
+    }
+  }
+
+  private boolean isValid(PooledConnection<T> connection) {
+    try {
+      return connectionManager.testConnectivity(connection.getFileSystem(), connection.getConnectionHandler()).isValid();
+    } catch (RuntimeException e) {
+      LOGGER.debug("Pooled connection failed validation", e);
+      return false;
+    }
+  }
+
+  private void discard(PooledConnection<T> connection) {
+    try {
+      connection.getConnectionHandler().release();
+    } catch (RuntimeException e) {
+      LOGGER.debug("Failed to release discarded pooled connection", e);
+    }
+  }
+
+  /**
+   * A connection borrowed from a {@link ConnectionPool}
+   *
+   * @param <T> the type of the fileSystem instance
+   */
+  public static final class PooledConnection<T extends FileSystem> {
+
+    private final ConnectionHandler<T> connectionHandler;
+    private final T fileSystem;
+    private volatile String key;
+    private volatile long lastUsed = nanoTime();
+
+    private PooledConnection(ConnectionHandler<T> connectionHandler, T fileSystem, String key) {
+      this.connectionHandler = connectionHandler;
+      this.fileSystem = fileSystem;
+      this.key = key;
+    }
+
+    /**
+     * @return the borrowed {@link FileSystem}
+     */
+    public T getFileSystem() {
+      return fileSystem;
+    }
+
+    private ConnectionHandler<T> getConnectionHandler() {
+      return connectionHandler;
+    }
+
+    private String getKey() {
+      return key;
+    }
+
+    private void setKey(String key) {
+      this.key = key;
+    }
+
+    private long getLastUsed() {
+      return lastUsed;
+    }
+
+    private void touch() {
+      lastUsed = nanoTime();
+    }
+  }
+}
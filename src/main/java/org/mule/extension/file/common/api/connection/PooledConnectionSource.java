@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.connection;
+
+import org.mule.extension.file.common.api.FileSystem;
+import org.mule.extension.file.common.api.connection.ConnectionPool.PooledConnection;
+import org.mule.runtime.api.connection.ConnectionException;
+
+/**
+ * Implementation of {@link ConnectionSource} that borrows connections from a {@link ConnectionPool}. Releasing the connection
+ * gives it back to the pool instead of discarding it, and every borrow is done with the same key, so that consecutive
+ * usages of this source (like refreshing the attributes of a file and then reading its content) are likely to be served by
+ * the same warm connection. It is necessary that all instances of this class release all the connections that it asked for.
+ *
+ * @since 1.5.0
+ */
+public class PooledConnectionSource<T extends FileSystem> implements ConnectionSource<T> {
+
+  private final ConnectionPool<T> connectionPool;
+  private final String key;
+  private PooledConnection<T> connection;
+
+  /**
+   * Creates a new instance
+   *
+   * @param connectionPool the {@link ConnectionPool} to borrow connections from
+   * @param key            the key used to borrow connections, typically the path of the file to be handled
+   */
+  public PooledConnectionSource(ConnectionPool<T> connectionPool, String key) {
+    this.connectionPool = connectionPool;
+    this.key = key;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public T getConnection() throws ConnectionException {
+    if (connection == null) {
+      connection = connectionPool.borrow(key);
+    }
+    return connection.getFileSystem();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void releaseConnection() {
+    if (connection != null) {
+      PooledConnection<T> released = connection;
+      connection = null;
+      connectionPool.release(released);
+    }
+  }
+
+  /**
+   * Discards the connection currently held, if any, instead of giving it back to the pool. To be used when the connection is
+   * known to be broken.
+   */
+  public void invalidateConnection() {
+    if (connection != null) {
+      PooledConnection<T> invalidated = connection;
+      connection = null;
+      connectionPool.invalidate(invalidated);
+    }
+  }
+}
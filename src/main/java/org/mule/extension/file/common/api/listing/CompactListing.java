@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.listing;
+
+import static java.util.Arrays.copyOf;
+
+import org.mule.extension.file.common.api.FileAttributes;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Memory efficient, read only representation of the attributes of a large listing.
+ * <p>
+ * Instead of one attributes object (plus its {@link Result} wrapper, path, name and timestamp objects) per file, the
+ * attributes are kept in columns: the parent directories are interned and referenced by index, each name is stored once and
+ * the path is only built when asked for, and sizes, modification times and file types are kept in primitive arrays.
+ * <p>
+ * The listing is exposed as a {@link List} of {@link FileAttributes} flyweights, which are created on demand and hold no
+ * state other than their position, so callers should not keep them longer than needed. Two entries are equal when they
+ * describe the same file with the same attributes, regardless of the listing they belong to.
+ * <p>
+ * To keep the peak memory low the listing should be built while the files are being listed, through
+ * {@link org.mule.extension.file.common.api.FileSystem#listCompact(org.mule.extension.file.common.api.FileConnectorConfig,
+ * String, boolean, java.util.function.Predicate, ToLongFunction)} or by adding the files visited by
+ * {@link org.mule.extension.file.common.api.command.ListCommand#visit}, rather than out of an already obtained listing.
+ *
+ * @since 1.5.0
+ */
+public final class CompactListing extends AbstractList<CompactListing.Entry> implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final byte REGULAR_FILE = 1;
+  private static final byte DIRECTORY = 1 << 1;
+  private static final byte SYMBOLIC_LINK = 1 << 2;
+
+  private final String[] parents;
+  private final int[] parentIndexes;
+  private final String[] names;
+  private final long[] sizes;
+  private final long[] modifiedTimes;
+  private final byte[] types;
+
+  /**
+   * Creates a compact representation of the attributes of a listing, discarding its content streams. Since the whole
+   * {@code listing} is already in memory, this only reduces the memory retained afterwards.
+   *
+   * @param listing          the result of a listing
+   * @param lastModifiedTime extracts the modification time of each file, in milliseconds
+   * @param <A>              the generic type of the file attributes
+   * @return a new {@link CompactListing}
+   */
+  public static <A extends FileAttributes> CompactListing of(List<Result<InputStream, A>> listing,
+                                                             ToLongFunction<A> lastModifiedTime) {
+    Builder builder = builder();
+    for (Result<InputStream, A> result : listing) {
+      result.getAttributes().ifPresent(attributes -> builder.add(attributes, lastModifiedTime.applyAsLong(attributes)));
+    }
+    return builder.build();
+  }
+
+  /**
+   * @return a new {@link Builder}
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private CompactListing(String[] parents, int[] parentIndexes, String[] names, long[] sizes, long[] modifiedTimes,
+                         byte[] types) {
+    this.parents = parents;
+    this.parentIndexes = parentIndexes;
+    this.names = names;
+    this.sizes = sizes;
+    this.modifiedTimes = modifiedTimes;
+    this.types = types;
+  }
+
+  /**
+   * @param index the position of a file
+   * @return a {@link FileAttributes} view of the file at the given position
+   */
+  @Override
+  public Entry get(int index) {
+    if (index < 0 || index >= names.length) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + names.length);
+    }
+    return new Entry(this, index);
+  }
+
+  @Override
+  public int size() {
+    return names.length;
+  }
+
+  /**
+   * @return the amount of distinct parent directories of the files
+   */
+  public int getDirectoryCount() {
+    return parents.length;
+  }
+
+  /**
+   * Flyweight {@link FileAttributes} view over a file of a {@link CompactListing}
+   */
+  public static final class Entry implements FileAttributes {
+
+    private static final long serialVersionUID = 1L;
+
+    private final CompactListing listing;
+    private final int index;
+
+    private Entry(CompactListing listing, int index) {
+      this.listing = listing;
+      this.index = index;
+    }
+
+    @Override
+    public long getSize() {
+      return listing.sizes[index];
+    }
+
+    @Override
+    public boolean isRegularFile() {
+      return (listing.types[index] & REGULAR_FILE) != 0;
+    }
+
+    @Override
+    public boolean isDirectory() {
+      return (listing.types[index] & DIRECTORY) != 0;
+    }
+
+    @Override
+    public boolean isSymbolicLink() {
+      return (listing.types[index] & SYMBOLIC_LINK) != 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The path is built out of the parent directory and the name on each invocation.
+     */
+    @Override
+    public String getPath() {
+      return getParentPath() + listing.names[index];
+    }
+
+    @Override
+    public String getName() {
+      return listing.names[index];
+    }
+
+    /**
+     * @return the path of the parent directory, including its trailing separator, or an empty string if the path had none
+     */
+    public String getParentPath() {
+      return listing.parents[listing.parentIndexes[index]];
+    }
+
+    /**
+     * @return the modification time of the file, in milliseconds since the epoch
+     */
+    public long getLastModifiedTime() {
+      return listing.modifiedTimes[index];
+    }
+
+    /**
+     * Serializes a single entry listing instead of the whole one this view belongs to
+     */
+    private Object writeReplace() {
+      if (listing.size() == 1) {
+        return this;
+      }
+      return builder().add(getParentPath(), getName(), getSize(), getLastModifiedTime(), isRegularFile(), isDirectory(),
+                           isSymbolicLink())
+          .build().get(0);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Entry)) {
+        return false;
+      }
+      Entry other = (Entry) obj;
+      return getSize() == other.getSize() && getLastModifiedTime() == other.getLastModifiedTime()
+          && listing.types[index] == other.listing.types[other.index] && getName().equals(other.getName())
+          && getParentPath().equals(other.getParentPath());
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = getParentPath().hashCode();
+      hash = 31 * hash + getName().hashCode();
+      hash = 31 * hash + Long.hashCode(getSize());
+      hash = 31 * hash + Long.hashCode(getLastModifiedTime());
+      return 31 * hash + listing.types[index];
+    }
+
+    @Override
+    public String toString() {
+      return getPath();
+    }
+  }
+
+  /**
+   * Builds {@link CompactListing}s out of individual files
+   */
+  public static final class Builder {
+
+    private final List<String> parents = new ArrayList<>();
+    private final Map<String, Integer> parentIndexes = new HashMap<>();
+    private int[] parentIndex = new int[16];
+    private String[] names = new String[16];
+    private long[] sizes = new long[16];
+    private long[] modifiedTimes = new long[16];
+    private byte[] types = new byte[16];
+    private int count = 0;
+
+    private Builder() {}
+
+    /**
+     * Adds a file to the listing
+     *
+     * @param attributes       the attributes of the file
+     * @param lastModifiedTime the modification time of the file, in milliseconds
+     * @return this builder
+     */
+    public Builder add(FileAttributes attributes, long lastModifiedTime) {
+      String path = attributes.getPath();
+      int separator = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+      return add(path.substring(0, separator + 1), path.substring(separator + 1), attributes.getSize(), lastModifiedTime,
+                 attributes.isRegularFile(), attributes.isDirectory(), attributes.isSymbolicLink());
+    }
+
+    /**
+     * Adds a file to the listing
+     *
+     * @param parentPath       the path of the parent directory, including its trailing separator
+     * @param name             the name of the file
+     * @param size             the size of the file
+     * @param lastModifiedTime the modification time of the file, in milliseconds
+     * @param regularFile      whether the file is a regular one
+     * @param directory        whether the file is a directory
+     * @param symbolicLink     whether the file is a symbolic link
+     * @return this builder
+     */
+    public Builder add(String parentPath, String name, long size, long lastModifiedTime, boolean regularFile,
+                       boolean directory, boolean symbolicLink) {
+      if (count == names.length) {
+        int capacity = count * 2;
+        parentIndex = copyOf(parentIndex, capacity);
+        names = copyOf(names, capacity);
+        sizes = copyOf(sizes, capacity);
+        modifiedTimes = copyOf(modifiedTimes, capacity);
+        types = copyOf(types, capacity);
+      }
+
+      Integer index = parentIndexes.get(parentPath);
+      if (index == null) {
+        index = parents.size();
+        parents.add(parentPath);
+        parentIndexes.put(parentPath, index);
+      }
+
+      parentIndex[count] = index;
+      names[count] = name;
+      sizes[count] = size;
+      modifiedTimes[count] = lastModifiedTime;
+      types[count] = (byte) ((regularFile ? REGULAR_FILE : 0) | (directory ? DIRECTORY : 0) | (symbolicLink ? SYMBOLIC_LINK : 0));
+      count++;
+      return this;
+    }
+
+    /**
+     * @return a new {@link CompactListing} with the added files
+     */
+    public CompactListing build() {
+      return new CompactListing(parents.toArray(new String[0]), copyOf(parentIndex, count), copyOf(names, count),
+                                copyOf(sizes, count), copyOf(modifiedTimes, count), copyOf(types, count));
+    }
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.listing;
+
+import static java.util.Arrays.copyOf;
+import static org.mule.extension.file.common.api.listing.FileChange.Type.CREATED;
+import static org.mule.extension.file.common.api.listing.FileChange.Type.DELETED;
+import static org.mule.extension.file.common.api.listing.FileChange.Type.MODIFIED;
+
+import org.mule.extension.file.common.api.FileAttributes;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Compact fingerprint of the files of a directory at a given moment, used to find out which files were created, modified or
+ * deleted since a previous one without keeping whole listings in memory.
+ * <p>
+ * The fingerprint is kept as three parallel arrays: the paths of the files, sorted, and their sizes and modification times.
+ * That makes comparing two snapshots a single linear merge pass over both of them. Snapshots are immutable and
+ * {@link Serializable}, so they can be kept on an object store and survive restarts.
+ *
+ * @since 1.5.0
+ */
+public final class DirectorySnapshot implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final DirectorySnapshot EMPTY = new DirectorySnapshot(new String[0], new long[0], new long[0]);
+
+  private final String[] paths;
+  private final long[] sizes;
+  private final long[] modifiedTimes;
+
+  /**
+   * @return a snapshot with no files, against which all the files of a first snapshot are {@link FileChange.Type#CREATED}
+   */
+  public static DirectorySnapshot empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Creates a snapshot of the files returned by a listing. Directories are not included.
+   *
+   * @param listing          the result of a listing
+   * @param lastModifiedTime extracts the modification time of each file, in milliseconds
+   * @param <A>              the generic type of the file attributes
+   * @return a new snapshot
+   */
+  public static <A extends FileAttributes> DirectorySnapshot of(List<Result<InputStream, A>> listing,
+                                                                ToLongFunction<A> lastModifiedTime) {
+    Builder builder = builder();
+    for (Result<InputStream, A> result : listing) {
+      A attributes = result.getAttributes().orElse(null);
+      if (attributes != null && !attributes.isDirectory()) {
+        builder.add(attributes.getPath(), attributes.getSize(), lastModifiedTime.applyAsLong(attributes));
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * @return a new {@link Builder}
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private DirectorySnapshot(String[] paths, long[] sizes, long[] modifiedTimes) {
+    this.paths = paths;
+    this.sizes = sizes;
+    this.modifiedTimes = modifiedTimes;
+  }
+
+  /**
+   * Returns the changes which took place between the {@code previous} snapshot and this one, sorted by path.
+   *
+   * @param previous an older snapshot of the same directory
+   * @return the {@link FileChange}s
+   */
+  public List<FileChange> changesSince(DirectorySnapshot previous) {
+    List<FileChange> changes = new ArrayList<>();
+    int current = 0;
+    int old = 0;
+    while (current < paths.length || old < previous.paths.length) {
+      int comparison;
+      if (current == paths.length) {
+        comparison = 1;
+      } else if (old == previous.paths.length) {
+        comparison = -1;
+      } else {
+        comparison = paths[current].compareTo(previous.paths[old]);
+      }
+
+      if (comparison < 0) {
+        changes.add(new FileChange(CREATED, paths[current], sizes[current], modifiedTimes[current]));
+        current++;
+      } else if (comparison > 0) {
+        changes.add(new FileChange(DELETED, previous.paths[old], previous.sizes[old], previous.modifiedTimes[old]));
+        old++;
+      } else {
+        if (sizes[current] != previous.sizes[old] || modifiedTimes[current] != previous.modifiedTimes[old]) {
+          changes.add(new FileChange(MODIFIED, paths[current], sizes[current], modifiedTimes[current]));
+        }
+        current++;
+        old++;
+      }
+    }
+    return changes;
+  }
+
+  /**
+   * @return the amount of files in this snapshot
+   */
+  public int size() {
+    return paths.length;
+  }
+
+  /**
+   * Builds {@link DirectorySnapshot}s out of individual files
+   */
+  public static final class Builder {
+
+    private String[] paths = new String[16];
+    private long[] sizes = new long[16];
+    private long[] modifiedTimes = new long[16];
+    private int count = 0;
+
+    private Builder() {}
+
+    /**
+     * Adds a file to the snapshot
+     *
+     * @param path             the path of the file
+     * @param size             the size of the file
+     * @param lastModifiedTime the modification time of the file, in milliseconds
+     * @return this builder
+     */
+    public Builder add(String path, long size, long lastModifiedTime) {
+      if (count == paths.length) {
+        paths = copyOf(paths, count * 2);
+        sizes = copyOf(sizes, count * 2);
+        modifiedTimes = copyOf(modifiedTimes, count * 2);
+      }
+      paths[count] = path;
+      sizes[count] = size;
+      modifiedTimes[count] = lastModifiedTime;
+      count++;
+      return this;
+    }
+
+    /**
+     * @return a new {@link DirectorySnapshot} with the added files
+     */
+    public DirectorySnapshot build() {
+      Integer[] order = new Integer[count];
+      for (int i = 0; i < count; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, Comparator.comparing(i -> paths[i]));
+
+      String[] sortedPaths = new String[count];
+      long[] sortedSizes = new long[count];
+      long[] sortedModifiedTimes = new long[count];
+      for (int i = 0; i < count; i++) {
+        sortedPaths[i] = paths[order[i]];
+        sortedSizes[i] = sizes[order[i]];
+        sortedModifiedTimes[i] = modifiedTimes[order[i]];
+      }
+      return new DirectorySnapshot(sortedPaths, sortedSizes, sortedModifiedTimes);
+    }
+  }
+}
@@ -0,0 +1,414 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.listing;
+
+import static java.lang.String.format;
+import static java.lang.System.currentTimeMillis;
+import static java.nio.file.LinkOption.NOFOLLOW_LINKS;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.mule.runtime.api.i18n.I18nMessageFactory.createStaticMessage;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import org.mule.extension.file.common.api.FileAttributes;
+import org.mule.runtime.api.exception.MuleRuntimeException;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+
+/**
+ * Event driven alternative to polling a directory of a local file system on an interval. It relies on a {@link WatchService}
+ * to learn about created and modified files as soon as the operating system reports them, and pushes each of them as the same
+ * {@link Result} that listing the directory would have returned.
+ * <p>
+ * When {@code recursive}, all the sub-directories are watched as well, including the ones which are created after the
+ * watcher started. Since events are lost when the operating system can't keep up with them, an overflow makes the watcher
+ * fall back to a full rescan of the directory, which is also performed when the watcher starts, right after registering
+ * the directories, so that files which already existed or were created meanwhile are not missed.
+ * <p>
+ * Reported files are only delivered once their size stayed the same for {@code timeBetweenSizeCheck}, which is the same
+ * readiness criteria that listings apply, or for {@link #DEFAULT_SETTLE_MILLIS} when no size check is given. Further events
+ * for a file which is not ready yet restart its wait, so a file which is written in many chunks is delivered once.
+ * <p>
+ * The size and last modified time of each delivered file are remembered, and files are not delivered again, either because
+ * of a new event or of a rescan, unless one of them changed. The remembered files are forgotten once they're deleted or
+ * no longer listed by a rescan.
+ * <p>
+ * Events are processed on a single daemon thread, on which the {@code listener} is invoked. {@link #close()} must be invoked
+ * once the watcher is no longer needed. Watchers are usually obtained through
+ * {@link org.mule.extension.file.common.api.FileSystem#watch}, which starts them.
+ *
+ * @param <A> the generic type of the file attributes
+ * @since 1.5.0
+ */
+public class DirectoryWatcher<A extends FileAttributes> implements Closeable {
+
+  private static final Logger LOGGER = getLogger(DirectoryWatcher.class);
+  private static final long IDLE_POLL_MILLIS = 1000;
+
+  /**
+   * Amount of milliseconds that the size of a reported file must stay the same before being delivered, when no
+   * {@code timeBetweenSizeCheck} is given
+   */
+  public static final long DEFAULT_SETTLE_MILLIS = 100;
+
+  private final Path directory;
+  private final boolean recursive;
+  private final Function<Path, Result<InputStream, A>> resultFactory;
+  private final Supplier<List<Result<InputStream, A>>> rescan;
+  private final Predicate<A> matcher;
+  private final long readinessMillis;
+  private final Consumer<Result<InputStream, A>> listener;
+  private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+  private final Map<Path, PendingFile> pendingFiles = new LinkedHashMap<>();
+  private final Map<Path, FileVersion> deliveredFiles = new HashMap<>();
+  // a lock rather than a monitor, since starting registers the directory tree, which would pin a virtual thread
+  private final Lock lifecycleLock = new ReentrantLock();
+  private WatchService watchService;
+  private Thread thread;
+  private volatile boolean closed = false;
+
+  /**
+   * Creates a new instance. Nothing is watched until {@link #start()} is invoked.
+   *
+   * @param directory            the directory to watch
+   * @param recursive            whether to watch the sub-directories as well
+   * @param resultFactory        creates the {@link Result} for the file at the given {@link Path}, in the same way the
+   *                             listing of the file system would
+   * @param rescan               lists the whole {@code directory}, applying the {@code matcher} and the readiness checks. It's
+   *                             typically a {@link org.mule.extension.file.common.api.FileSystem#list} invocation
+   * @param matcher              a {@link Predicate} of {@link FileAttributes} used to filter the delivered files
+   * @param timeBetweenSizeCheck wait time between size checks to determine if a file is ready to be read in milliseconds.
+   *                             If {@code null}, {@link #DEFAULT_SETTLE_MILLIS} is used for the reported files
+   * @param listener             receives each of the delivered files
+   */
+  public DirectoryWatcher(Path directory, boolean recursive, Function<Path, Result<InputStream, A>> resultFactory,
+                          Supplier<List<Result<InputStream, A>>> rescan, Predicate<A> matcher, Long timeBetweenSizeCheck,
+                          Consumer<Result<InputStream, A>> listener) {
+    this.directory = directory.toAbsolutePath();
+    this.recursive = recursive;
+    this.resultFactory = resultFactory;
+    this.rescan = rescan;
+    this.matcher = matcher;
+    this.readinessMillis = timeBetweenSizeCheck != null ? timeBetweenSizeCheck : DEFAULT_SETTLE_MILLIS;
+    this.listener = listener;
+  }
+
+  /**
+   * Registers the directories, delivers the files they already contain and starts delivering the reported ones
+   *
+   * @throws MuleRuntimeException if the directories could not be registered
+   */
+  public void start() {
+    lifecycleLock.lock();
+    try {
+      if (thread != null) {
+        throw new IllegalStateException("Watcher was already started");
+      }
+
+      try {
+        watchService = directory.getFileSystem().newWatchService();
+        register(directory);
+      } catch (IOException e) {
+        closeWatchService();
+        throw new MuleRuntimeException(createStaticMessage(format("Could not watch directory '%s'", directory)), e);
+      }
+
+      thread = new Thread(this::run, "file-connector-watcher-" + directory.getFileName());
+      thread.setDaemon(true);
+      thread.start();
+    } finally {
+      lifecycleLock.unlock();
+    }
+  }
+
+  /**
+   * Stops watching the directories. Files which were waiting to be ready are discarded.
+   */
+  @Override
+  public void close() {
+    lifecycleLock.lock();
+    try {
+      closed = true;
+      closeWatchService();
+      if (thread != null) {
+        thread.interrupt();
+      }
+    } finally {
+      lifecycleLock.unlock();
+    }
+  }
+
+  private void run() {
+    rescan();
+    while (!closed) {
+      WatchKey key;
+      try {
+        key = watchService.poll(pendingFiles.isEmpty() ? IDLE_POLL_MILLIS : readinessMillis, MILLISECONDS);
+      } catch (InterruptedException | ClosedWatchServiceException e) {
+        return;
+      }
+
+      if (key != null) {
+        process(key);
+      }
+      deliverReadyFiles();
+    }
+  }
+
+  private void process(WatchKey key) {
+    Path watched = watchedDirectories.get(key);
+    if (watched == null) {
+      key.cancel();
+      return;
+    }
+
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == OVERFLOW) {
+        LOGGER.debug("Events were lost while watching directory '{}', rescanning it", directory);
+        if (recursive) {
+          // directories created meanwhile may have gone unnoticed
+          try {
+            register(directory);
+          } catch (IOException e) {
+            LOGGER.debug(format("Could not watch the sub-directories of '%s'", directory), e);
+          }
+        }
+        rescan();
+        continue;
+      }
+
+      Path path = watched.resolve((Path) event.context());
+      if (event.kind() == ENTRY_DELETE) {
+        pendingFiles.remove(path);
+        deliveredFiles.remove(path);
+      } else if (Files.isDirectory(path, NOFOLLOW_LINKS)) {
+        if (recursive && event.kind() == ENTRY_CREATE) {
+          registerNewDirectory(path);
+        }
+      } else {
+        onFileChanged(path);
+      }
+    }
+
+    if (!key.reset()) {
+      watchedDirectories.remove(key);
+    }
+  }
+
+  private void registerNewDirectory(Path path) {
+    // files created in the new directory before it was registered produce no events, so they're collected right away
+    try {
+      register(path);
+      collectFiles(path);
+    } catch (IOException e) {
+      LOGGER.debug(format("Could not watch new directory '%s', rescanning", path), e);
+      rescan();
+    }
+  }
+
+  private void collectFiles(Path path) throws IOException {
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+      for (Path child : stream) {
+        if (Files.isDirectory(child, NOFOLLOW_LINKS)) {
+          collectFiles(child);
+        } else {
+          onFileChanged(child);
+        }
+      }
+    }
+  }
+
+  private void register(Path path) throws IOException {
+    watchedDirectories.put(path.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), path);
+    if (recursive) {
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(path, child -> Files.isDirectory(child, NOFOLLOW_LINKS))) {
+        for (Path child : stream) {
+          register(child);
+        }
+      }
+    }
+  }
+
+  private void onFileChanged(Path path) {
+    pendingFiles.put(path, new PendingFile(size(path), currentTimeMillis()));
+  }
+
+  private void deliverReadyFiles() {
+    long now = currentTimeMillis();
+    Iterator<Map.Entry<Path, PendingFile>> iterator = pendingFiles.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Path, PendingFile> entry = iterator.next();
+      PendingFile pending = entry.getValue();
+      if (now - pending.checkedAt < readinessMillis) {
+        continue;
+      }
+
+      long size = size(entry.getKey());
+      if (size < 0) {
+        iterator.remove();
+      } else if (size == pending.size) {
+        iterator.remove();
+        deliver(entry.getKey());
+      } else {
+        pending.size = size;
+        pending.checkedAt = now;
+      }
+    }
+  }
+
+  private void deliver(Path path) {
+    FileVersion version = FileVersion.of(path);
+    if (version == null || version.equals(deliveredFiles.get(path))) {
+      return;
+    }
+
+    Result<InputStream, A> result;
+    try {
+      result = resultFactory.apply(path);
+    } catch (Exception e) {
+      LOGGER.debug(format("Could not obtain reported file '%s', skipping it", path), e);
+      return;
+    }
+
+    A attributes = result.getAttributes().orElse(null);
+    if (attributes != null && matcher.test(attributes)) {
+      deliveredFiles.put(path, version);
+      notify(result);
+    }
+  }
+
+  private void rescan() {
+    List<Result<InputStream, A>> results;
+    try {
+      results = rescan.get();
+    } catch (Exception e) {
+      LOGGER.warn(format("Could not rescan directory '%s'", directory), e);
+      return;
+    }
+
+    Map<Path, FileVersion> listedFiles = new HashMap<>();
+    for (Result<InputStream, A> result : results) {
+      A attributes = result.getAttributes().orElse(null);
+      if (attributes != null && !attributes.isDirectory()) {
+        Path path = directory.getFileSystem().getPath(attributes.getPath()).toAbsolutePath();
+        // files which are still being written are not listed, so they remain pending
+        pendingFiles.remove(path);
+        FileVersion version = FileVersion.of(path);
+        if (version != null) {
+          listedFiles.put(path, version);
+          if (!version.equals(deliveredFiles.get(path))) {
+            notify(result);
+          }
+        }
+      }
+    }
+    // forgets the files which were deleted while events were lost
+    deliveredFiles.clear();
+    deliveredFiles.putAll(listedFiles);
+  }
+
+  private void notify(Result<InputStream, A> result) {
+    try {
+      listener.accept(result);
+    } catch (Exception e) {
+      LOGGER.warn(format("Listener of directory '%s' failed", directory), e);
+    }
+  }
+
+  private void closeWatchService() {
+    if (watchService != null) {
+      try {
+        watchService.close();
+      } catch (IOException e) {
+        LOGGER.debug(format("Could not close the watch service of directory '%s'", directory), e);
+      }
+    }
+  }
+
+  private static long size(Path path) {
+    try {
+      return Files.size(path);
+    } catch (IOException e) {
+      return -1;
+    }
+  }
+
+  private static final class FileVersion {
+
+    private final long size;
+    private final long lastModifiedTime;
+
+    private FileVersion(long size, long lastModifiedTime) {
+      this.size = size;
+      this.lastModifiedTime = lastModifiedTime;
+    }
+
+    private static FileVersion of(Path path) {
+      try {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class, NOFOLLOW_LINKS);
+        return new FileVersion(attributes.size(), attributes.lastModifiedTime().toMillis());
+      } catch (IOException e) {
+        return null;
+      }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof FileVersion)) {
+        return false;
+      }
+      FileVersion other = (FileVersion) obj;
+      return size == other.size && lastModifiedTime == other.lastModifiedTime;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * Long.hashCode(size) + Long.hashCode(lastModifiedTime);
+    }
+  }
+
+  private static class PendingFile {
+
+    private long size;
+    private long checkedAt;
+
+    private PendingFile(long size, long checkedAt) {
+      this.size = size;
+      this.checkedAt = checkedAt;
+    }
+  }
+}
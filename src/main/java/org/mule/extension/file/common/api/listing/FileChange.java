@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.listing;
+
+import static java.lang.String.format;
+
+/**
+ * A change of a file between two {@link DirectorySnapshot}s
+ *
+ * @since 1.5.0
+ */
+public final class FileChange {
+
+  /**
+   * The kinds of change
+   */
+  public enum Type {
+    /**
+     * The file is only on the newer snapshot
+     */
+    CREATED,
+
+    /**
+     * The file is on both snapshots, with a different size or modification time
+     */
+    MODIFIED,
+
+    /**
+     * The file is only on the older snapshot
+     */
+    DELETED
+  }
+
+  private final Type type;
+  private final String path;
+  private final long size;
+  private final long lastModifiedTime;
+
+  FileChange(Type type, String path, long size, long lastModifiedTime) {
+    this.type = type;
+    this.path = path;
+    this.size = size;
+    this.lastModifiedTime = lastModifiedTime;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * @return the size of the file, as of the newer snapshot or the older one for {@link Type#DELETED} files
+   */
+  public long getSize() {
+    return size;
+  }
+
+  /**
+   * @return the modification time of the file, as of the newer snapshot or the older one for {@link Type#DELETED} files
+   */
+  public long getLastModifiedTime() {
+    return lastModifiedTime;
+  }
+
+  @Override
+  public String toString() {
+    return format("%s %s", type, path);
+  }
+}
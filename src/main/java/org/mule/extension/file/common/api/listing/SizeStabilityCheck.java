@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.listing;
+
+import static java.lang.Thread.sleep;
+import static org.mule.runtime.api.i18n.I18nMessageFactory.createStaticMessage;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import org.mule.extension.file.common.api.FileAttributes;
+import org.mule.extension.file.common.api.command.StatCommand;
+import org.mule.runtime.api.exception.MuleRuntimeException;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+
+/**
+ * Applies the size stability check to a whole listing at once: instead of waiting and refreshing the attributes of each file
+ * right before it's read, the wait happens once for all of them, and their attributes are refreshed through a single bulk
+ * lookup, such as {@link StatCommand#getAttributes(Collection)}, which implementations can serve with one round trip per
+ * directory.
+ * <p>
+ * A file is stable when its size didn't change between two consecutive lookups. Files which keep changing are checked
+ * again, up to a maximum amount of times, and files which are still changing or no longer exist afterwards are discarded,
+ * so that a later listing picks them up once they're complete.
+ *
+ * @param <A> the generic type of the file attributes
+ * @since 1.5.0
+ */
+public class SizeStabilityCheck<A extends FileAttributes> {
+
+  private static final Logger LOGGER = getLogger(SizeStabilityCheck.class);
+
+  /**
+   * Default amount of times a changing file is checked again
+   */
+  public static final int DEFAULT_MAX_RETRIES = 2;
+
+  private final Function<Collection<String>, Map<String, A>> bulkStat;
+  private final long timeBetweenSizeCheck;
+  private final int maxRetries;
+
+  /**
+   * Creates a new instance
+   *
+   * @param bulkStat             obtains the current attributes of the given paths, omitting the ones which don't exist
+   * @param timeBetweenSizeCheck wait time between size checks in milliseconds
+   * @param maxRetries           the amount of times a changing file is checked again
+   */
+  public SizeStabilityCheck(Function<Collection<String>, Map<String, A>> bulkStat, long timeBetweenSizeCheck,
+                            int maxRetries) {
+    this.bulkStat = bulkStat;
+    this.timeBetweenSizeCheck = timeBetweenSizeCheck;
+    this.maxRetries = maxRetries;
+  }
+
+  /**
+   * Returns the results of the given {@code listing} whose files are stable. Directories are always retained. The results
+   * keep their original order and content, but carry the latest attributes of their files.
+   *
+   * @param listing the result of a listing
+   * @return the stable results
+   */
+  public List<Result<InputStream, A>> retainStable(List<Result<InputStream, A>> listing) {
+    Map<String, Result<InputStream, A>> unstable = new LinkedHashMap<>();
+    Map<String, Long> sizes = new LinkedHashMap<>();
+    for (Result<InputStream, A> result : listing) {
+      A attributes = result.getAttributes().orElse(null);
+      if (attributes != null && !attributes.isDirectory()) {
+        unstable.put(attributes.getPath(), result);
+        sizes.put(attributes.getPath(), attributes.getSize());
+      }
+    }
+
+    Map<String, A> stable = new LinkedHashMap<>();
+    for (int attempt = 0; attempt <= maxRetries && !unstable.isEmpty(); attempt++) {
+      waitBetweenChecks();
+      Map<String, A> current = bulkStat.apply(new ArrayList<>(unstable.keySet()));
+      for (String path : new ArrayList<>(unstable.keySet())) {
+        A attributes = current.get(path);
+        if (attributes == null) {
+          LOGGER.debug("File '{}' no longer exists, discarding it", path);
+          unstable.remove(path);
+        } else if (attributes.getSize() == sizes.get(path)) {
+          unstable.remove(path);
+          stable.put(path, attributes);
+        } else {
+          sizes.put(path, attributes.getSize());
+        }
+      }
+    }
+
+    if (!unstable.isEmpty()) {
+      LOGGER.debug("{} files are still being written, discarding them", unstable.size());
+    }
+
+    List<Result<InputStream, A>> retained = new ArrayList<>(listing.size());
+    for (Result<InputStream, A> result : listing) {
+      A attributes = result.getAttributes().orElse(null);
+      if (attributes == null || attributes.isDirectory()) {
+        retained.add(result);
+      } else if (stable.containsKey(attributes.getPath())) {
+        retained.add(withAttributes(result, stable.get(attributes.getPath())));
+      }
+    }
+    return retained;
+  }
+
+  private void waitBetweenChecks() {
+    try {
+      sleep(timeBetweenSizeCheck);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MuleRuntimeException(createStaticMessage("Execution was interrupted while waiting to recheck file sizes"), e);
+    }
+  }
+
+  private Result<InputStream, A> withAttributes(Result<InputStream, A> result, A attributes) {
+    return Result.<InputStream, A>builder()
+        .output(result.getOutput())
+        .attributes(attributes)
+        .mediaType(result.getMediaType().orElse(null))
+        .attributesMediaType(result.getAttributesMediaType().orElse(null))
+        .build();
+  }
+}
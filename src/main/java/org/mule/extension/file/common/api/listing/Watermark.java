@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.listing;
+
+import static java.lang.Long.MIN_VALUE;
+import static java.lang.String.format;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableMap;
+
+import org.mule.extension.file.common.api.FileAttributes;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Immutable high-water mark of the files already emitted by the listings of a directory, used to list only the files which
+ * are newer than it.
+ * <p>
+ * It holds the highest (modification time, path) pair which was emitted. Since clocks of remote servers might be skewed and
+ * files might be written with a modification time slightly in the past, files which were modified up to a safety window
+ * before that mark are still considered new. To avoid emitting those twice, the watermark also remembers the files emitted
+ * within that window, along with their modification time.
+ *
+ * @since 1.5.0
+ */
+public final class Watermark implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final long modifiedTime;
+  private final String path;
+  private final long safetyWindowMillis;
+  private final Map<String, Long> recentlyEmitted;
+
+  /**
+   * @param safetyWindowMillis how long before the mark files are still considered new, in milliseconds
+   * @return a watermark under which no file was emitted yet
+   */
+  public static Watermark initial(long safetyWindowMillis) {
+    return new Watermark(MIN_VALUE, null, safetyWindowMillis, emptyMap());
+  }
+
+  private Watermark(long modifiedTime, String path, long safetyWindowMillis, Map<String, Long> recentlyEmitted) {
+    this.modifiedTime = modifiedTime;
+    this.path = path;
+    this.safetyWindowMillis = safetyWindowMillis;
+    this.recentlyEmitted = recentlyEmitted;
+  }
+
+  /**
+   * @param filePath         the path of a listed file
+   * @param lastModifiedTime the modification time of the file, in milliseconds
+   * @return whether the file was not emitted yet
+   */
+  public boolean isNew(String filePath, long lastModifiedTime) {
+    if (lastModifiedTime < getModifiedSince()) {
+      return false;
+    }
+    Long emittedModifiedTime = recentlyEmitted.get(filePath);
+    return emittedModifiedTime == null || emittedModifiedTime != lastModifiedTime;
+  }
+
+  /**
+   * Returns a {@link Predicate} which accepts the directories and the files which are {@link #isNew(String, long) new},
+   * meant to be combined with the matcher of a listing. Directories are always accepted so that they are still traversed.
+   *
+   * @param lastModifiedTime extracts the modification time of each file, in milliseconds
+   * @param <A>              the generic type of the file attributes
+   * @return a {@link Predicate} of the files which were not emitted yet
+   */
+  public <A extends FileAttributes> Predicate<A> newFiles(ToLongFunction<A> lastModifiedTime) {
+    return attributes -> attributes.isDirectory() || isNew(attributes.getPath(), lastModifiedTime.applyAsLong(attributes));
+  }
+
+  /**
+   * Returns the modification time from which files might be new, which is the mark minus the safety window. Implementations
+   * which can filter listings by modification time on the server side can push it down, as long as they still check the
+   * returned files through {@link #isNew(String, long)}.
+   *
+   * @return the modification time from which files might be new, in milliseconds
+   */
+  public long getModifiedSince() {
+    return modifiedTime == MIN_VALUE ? MIN_VALUE : modifiedTime - safetyWindowMillis;
+  }
+
+  /**
+   * Returns a new watermark which also covers the given {@code emitted} files.
+   *
+   * @param emitted          the files emitted by a listing
+   * @param lastModifiedTime extracts the modification time of each file, in milliseconds
+   * @param <A>              the generic type of the file attributes
+   * @return the advanced watermark
+   */
+  public <A extends FileAttributes> Watermark advance(List<Result<InputStream, A>> emitted,
+                                                      ToLongFunction<A> lastModifiedTime) {
+    long newModifiedTime = modifiedTime;
+    String newPath = path;
+    Map<String, Long> emittedTimes = new HashMap<>(recentlyEmitted);
+    for (Result<InputStream, A> result : emitted) {
+      A attributes = result.getAttributes().orElse(null);
+      if (attributes == null || attributes.isDirectory()) {
+        continue;
+      }
+      long time = lastModifiedTime.applyAsLong(attributes);
+      emittedTimes.put(attributes.getPath(), time);
+      boolean newer = time > newModifiedTime
+          || (time == newModifiedTime && (newPath == null || attributes.getPath().compareTo(newPath) > 0));
+      if (newer) {
+        newModifiedTime = time;
+        newPath = attributes.getPath();
+      }
+    }
+
+    long windowStart = newModifiedTime - safetyWindowMillis;
+    emittedTimes.values().removeIf(time -> time < windowStart);
+    return new Watermark(newModifiedTime, newPath, safetyWindowMillis, unmodifiableMap(emittedTimes));
+  }
+
+  /**
+   * @return the modification time of the newest emitted file, in milliseconds
+   */
+  public long getModifiedTime() {
+    return modifiedTime;
+  }
+
+  /**
+   * @return the path of the newest emitted file, or {@code null} if none was emitted yet
+   */
+  public String getPath() {
+    return path;
+  }
+
+  @Override
+  public String toString() {
+    return format("Watermark[modifiedTime=%d, path=%s, window=%dms, recent=%d]", modifiedTime, path, safetyWindowMillis,
+                  recentlyEmitted.size());
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.listing;
+
+import static java.lang.String.format;
+import static org.mule.runtime.api.i18n.I18nMessageFactory.createStaticMessage;
+
+import org.mule.extension.file.common.api.cache.PathKeys;
+import org.mule.runtime.api.exception.MuleRuntimeException;
+import org.mule.runtime.api.store.ObjectStore;
+import org.mule.runtime.api.store.ObjectStoreException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists the {@link Watermark} of each listed directory on an {@link ObjectStore}, so that incremental listings carry on
+ * from where they were after a restart.
+ *
+ * @since 1.5.0
+ */
+public class WatermarkStore {
+
+  private final ObjectStore<Watermark> store;
+  private final long safetyWindowMillis;
+
+  /**
+   * Creates a new instance
+   *
+   * @param store        the {@link ObjectStore} the watermarks are kept on
+   * @param safetyWindow how long before the mark files are still considered new, to make up for clock skew
+   * @param timeUnit     the {@link TimeUnit} of the {@code safetyWindow}
+   */
+  public WatermarkStore(ObjectStore<Watermark> store, long safetyWindow, TimeUnit timeUnit) {
+    this.store = store;
+    this.safetyWindowMillis = timeUnit.toMillis(safetyWindow);
+  }
+
+  /**
+   * @param directoryPath the path of a listed directory
+   * @return the {@link Watermark} of the directory, or an {@link Watermark#initial(long) initial} one if it was never listed
+   */
+  public Watermark get(String directoryPath) {
+    String key = PathKeys.normalize(directoryPath);
+    try {
+      return store.contains(key) ? store.retrieve(key) : Watermark.initial(safetyWindowMillis);
+    } catch (ObjectStoreException e) {
+      throw new MuleRuntimeException(createStaticMessage(format("Could not retrieve the watermark of '%s'", directoryPath)),
+                                     e);
+    }
+  }
+
+  /**
+   * Stores the given {@code watermark} as the one of the given directory
+   *
+   * @param directoryPath the path of a listed directory
+   * @param watermark     the new {@link Watermark} of the directory
+   */
+  public void update(String directoryPath, Watermark watermark) {
+    String key = PathKeys.normalize(directoryPath);
+    try {
+      if (store.contains(key)) {
+        store.remove(key);
+      }
+      store.store(key, watermark);
+    } catch (ObjectStoreException e) {
+      throw new MuleRuntimeException(createStaticMessage(format("Could not store the watermark of '%s'", directoryPath)), e);
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.lock;
+
+import static org.mule.extension.file.common.api.cache.PathKeys.normalize;
+
+import org.mule.extension.file.common.api.FileSystem;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Coordinates the threads of this JVM which concurrently try to create the same directory on a {@link FileSystem}.
+ * <p>
+ * The first thread to request the creation of a given directory becomes its owner and performs the actual creation (usually
+ * while holding a cluster wide lock). Any other thread which requests the same directory while that is in progress doesn't
+ * attempt the creation on its own, but waits for the owner to finish and gets the same outcome, including any exception.
+ * <p>
+ * Instances are scoped to a single storage, such as the connections of a config to the same server, so that directories with
+ * the same path on different storages are never coalesced. Keys are the normalized paths of the directories, which are
+ * expected to be absolute.
+ *
+ * @since 1.5.0
+ */
+public class DirectoryCreationCoordinator {
+
+  private static final DirectoryCreationCoordinator UNCOORDINATED = new DirectoryCreationCoordinator(false);
+
+  private final ConcurrentMap<String, CompletableFuture<Void>> creations = new ConcurrentHashMap<>();
+  private final boolean coordinated;
+
+  /**
+   * @return a coordinator which doesn't coalesce anything and simply runs every creation on the invoking thread
+   */
+  public static DirectoryCreationCoordinator uncoordinated() {
+    return UNCOORDINATED;
+  }
+
+  /**
+   * Creates a new instance
+   */
+  public DirectoryCreationCoordinator() {
+    this(true);
+  }
+
+  private DirectoryCreationCoordinator(boolean coordinated) {
+    this.coordinated = coordinated;
+  }
+
+  /**
+   * Runs the given {@code creation} unless another thread is already creating the same directory, in which case this method
+   * waits for it to complete.
+   *
+   * @param directoryPath the path of the directory to create
+   * @param creation      the action which creates the directory
+   * @return {@code true} if the invoking thread ran the {@code creation}, {@code false} if it waited on another thread's
+   * @throws RuntimeException the exception thrown by the {@code creation}, regardless of the thread which ran it
+   */
+  public boolean create(String directoryPath, Runnable creation) {
+    if (!coordinated) {
+      creation.run();
+      return true;
+    }
+
+    String key = normalize(directoryPath);
+    CompletableFuture<Void> ownCreation = new CompletableFuture<>();
+    CompletableFuture<Void> ongoingCreation = creations.putIfAbsent(key, ownCreation);
+    if (ongoingCreation != null) {
+      awaitCreation(ongoingCreation);
+      return false;
+    }
+
+    try {
+      creation.run();
+      ownCreation.complete(null);
+      return true;
+    } catch (RuntimeException | Error e) {
+      ownCreation.completeExceptionally(e);
+      throw e;
+    } finally {
+      creations.remove(key, ownCreation);
+    }
+  }
+
+  private void awaitCreation(CompletableFuture<Void> creation) {
+    try {
+      creation.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    }
+  }
+}
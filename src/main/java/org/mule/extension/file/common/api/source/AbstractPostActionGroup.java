@@ -9,13 +9,20 @@ package org.mule.extension.file.common.api.source;
 import org.mule.extension.file.common.api.AbstractFileSystem;
 import org.mule.extension.file.common.api.FileAttributes;
 import org.mule.extension.file.common.api.FileConnectorConfig;
+import org.mule.extension.file.common.api.batch.BatchRunner;
+import org.mule.extension.file.common.api.batch.FileOperationResult;
 import org.mule.extension.file.common.api.exceptions.FileAlreadyExistsException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
 
 /**
  * Groups post processing action parameters
@@ -69,17 +76,7 @@ public abstract class AbstractPostActionGroup {
       }
     } catch (FileAlreadyExistsException e) {
       if (!isAutoDelete()) {
-        if (getMoveToDirectory() == null) {
-          LOGGER.warn(format("A file with the same name was found when trying to rename '%s' to '%s'" +
-              ". The file '%s' was not renamed and it remains on the poll directory.",
-                             fileAttributes.getName(), getRenameTo(), fileAttributes.getPath()));
-        } else {
-          String moveToFileName = getRenameTo() == null ? fileAttributes.getName() : getRenameTo();
-          String moveToPath = Paths.get(getMoveToDirectory()).resolve(moveToFileName).toString();
-          LOGGER.warn(format("A file with the same name was found when trying to move '%s' to '%s'" +
-              ". The file '%s' was not sent to the moveTo directory and it remains on the poll directory.",
-                             fileAttributes.getPath(), moveToPath, fileAttributes.getPath()));
-        }
+        warnFileAlreadyExists(fileAttributes);
         throw e;
       }
     } finally {
@@ -88,4 +85,100 @@ public abstract class AbstractPostActionGroup {
       }
     }
   }
+
+  /**
+   * Applies this group's actions to all the given files under the same per-file semantics as
+   * {@link #apply(AbstractFileSystem, FileAttributes, FileConnectorConfig)}, but through the bulk operations of the
+   * {@code fileSystem}, so that connectors can process the whole batch at once:
+   * <ul>
+   * <li>Files are moved through {@link AbstractFileSystem#moveAll}, which resolves the {@link #getMoveToDirectory()} once
+   * for the whole batch. When {@link #getRenameTo()} is also set, files are moved one at a time, since each of them must be
+   * renamed on the way.</li>
+   * <li>Files are renamed through {@link AbstractFileSystem#renameAll}.</li>
+   * <li>Files which need to be deleted, either because that's the only action or because they could not be moved or renamed
+   * and {@link #isAutoDelete()} is set, are deleted through {@link AbstractFileSystem#deleteAll}.</li>
+   * </ul>
+   * Instead of throwing, failures are reported on the returned results.
+   *
+   * @param fileSystem the {@link AbstractFileSystem} the files are in
+   * @param files      the attributes of the files to apply the actions to
+   * @param config     the config that is parameterizing the actions
+   * @return a {@link FileOperationResult} per file, in the same order as the {@code files}
+   * @since 1.5.0
+   */
+  public List<FileOperationResult> apply(AbstractFileSystem fileSystem, Collection<? extends FileAttributes> files,
+                                         FileConnectorConfig config) {
+    List<FileAttributes> fileList = new ArrayList<>(files);
+    List<String> paths = fileList.stream().map(FileAttributes::getPath).collect(toList());
+
+    List<FileOperationResult> results;
+    if (getMoveToDirectory() != null) {
+      if (getRenameTo() == null) {
+        results = fileSystem.moveAll(config, paths.iterator(), getMoveToDirectory(), getOverwrite(), true);
+      } else {
+        results = new BatchRunner<String>().run(paths.iterator(), path -> path, null,
+                                                path -> fileSystem.move(config, path, getMoveToDirectory(), getOverwrite(),
+                                                                        true, getRenameTo()));
+      }
+    } else if (getRenameTo() != null) {
+      results = fileSystem.renameAll(paths.iterator(), getRenameTo(), getOverwrite());
+    } else {
+      return isAutoDelete() ? fileSystem.deleteAll(paths.iterator())
+          : paths.stream().map(FileOperationResult::success).collect(toList());
+    }
+
+    results = new ArrayList<>(results);
+    List<Integer> toDelete = new ArrayList<>();
+    for (int i = 0; i < results.size(); i++) {
+      Optional<Exception> failure = results.get(i).getFailure();
+      if (failure.isPresent()) {
+        if (failure.get() instanceof FileAlreadyExistsException && !isAutoDelete()) {
+          warnFileAlreadyExists(fileList.get(i));
+        }
+        if (isAutoDelete()) {
+          toDelete.add(i);
+        }
+      }
+    }
+
+    if (!toDelete.isEmpty()) {
+      List<FileOperationResult> deleted =
+          fileSystem.deleteAll(toDelete.stream().map(paths::get).collect(toList()).iterator());
+      for (int i = 0; i < toDelete.size(); i++) {
+        int index = toDelete.get(i);
+        boolean alreadyExisted = results.get(index).getFailure().get() instanceof FileAlreadyExistsException;
+        if (!deleted.get(i).isSuccessful() || alreadyExisted) {
+          results.set(index, deleted.get(i));
+        }
+      }
+    }
+
+    return results;
+  }
+
+  private void warnFileAlreadyExists(FileAttributes fileAttributes) {
+    if (getMoveToDirectory() == null) {
+      LOGGER.warn(format("A file with the same name was found when trying to rename '%s' to '%s'" +
+          ". The file '%s' was not renamed and it remains on the poll directory.",
+                         fileAttributes.getName(), getRenameTo(), fileAttributes.getPath()));
+    } else {
+      String moveToFileName = getRenameTo() == null ? fileAttributes.getName() : getRenameTo();
+      String moveToPath = Paths.get(getMoveToDirectory()).resolve(moveToFileName).toString();
+      LOGGER.warn(format("A file with the same name was found when trying to move '%s' to '%s'" +
+          ". The file '%s' was not sent to the moveTo directory and it remains on the poll directory.",
+                         fileAttributes.getPath(), moveToPath, fileAttributes.getPath()));
+    }
+  }
+
+  /**
+   * Submits this group's actions for the given file to the given {@code executor}, instead of applying them on the current
+   * thread.
+   *
+   * @param executor       the {@link AsyncPostActionExecutor} which applies the actions
+   * @param fileAttributes the attributes of the file to apply the actions to
+   * @since 1.5.0
+   */
+  public void applyAsync(AsyncPostActionExecutor executor, FileAttributes fileAttributes) {
+    executor.submit(this, fileAttributes);
+  }
 }
@@ -0,0 +1,386 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.source;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import org.mule.extension.file.common.api.AbstractFileSystem;
+import org.mule.extension.file.common.api.FileAttributes;
+import org.mule.extension.file.common.api.FileConnectorConfig;
+import org.mule.extension.file.common.api.connection.ConnectionSource;
+import org.mule.extension.file.common.api.connection.ManagerBasedConnectionSource;
+import org.mule.extension.file.common.api.exceptions.FileAlreadyExistsException;
+import org.mule.runtime.core.api.connector.ConnectionManager;
+
+import java.io.Closeable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+
+/**
+ * Runs the post actions of an {@link AbstractPostActionGroup} on a bounded pool of background threads, so that the thread
+ * which processed a file doesn't wait for it to be moved, renamed or deleted.
+ * <p>
+ * Actions are run with at-least-once semantics: each submitted action is recorded on an optional {@link PostActionJournal}
+ * before returning, and only removed from it once it's completed. Failed actions are retried up to a configurable amount of
+ * attempts before being reported to the {@link PostActionListener}. The actions still pending on the journal when the
+ * process stopped can be run again through {@link #recover()}.
+ * <p>
+ * The amount of actions waiting to be run is bounded: once the capacity is reached, {@link #submit} blocks the caller until
+ * an action completes. If the caller is interrupted while waiting, the action is left on the journal to be recovered, or run
+ * on the caller's thread when there's no journal. On {@link #close()}, the executor stops accepting actions and waits for the
+ * pending ones to be run. Actions which are interrupted because the wait timed out are reported to the
+ * {@link PostActionListener} and remain on the journal, and so do the ones which complete after the journal was closed.
+ * <p>
+ * Each action obtains its own connection through the given factory of {@link ConnectionSource}s, since the one used to
+ * process the file might have been released by the time the action runs.
+ *
+ * @since 1.5.0
+ */
+public class AsyncPostActionExecutor implements Closeable {
+
+  private static final Logger LOGGER = getLogger(AsyncPostActionExecutor.class);
+
+  /**
+   * Default amount of threads which run the actions
+   */
+  public static final int DEFAULT_PARALLELISM = 2;
+
+  /**
+   * Default amount of actions which can wait to be run
+   */
+  public static final int DEFAULT_CAPACITY = 1000;
+
+  /**
+   * Default amount of times an action is attempted
+   */
+  public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+  /**
+   * Default amount of milliseconds between two attempts of the same action
+   */
+  public static final long DEFAULT_RETRY_DELAY_MILLIS = 1000;
+
+  /**
+   * Default amount of seconds that {@link #close()} waits for the pending actions to be run
+   */
+  public static final long DEFAULT_DRAIN_TIMEOUT_SECONDS = 30;
+
+  private final FileConnectorConfig config;
+  private final Supplier<? extends ConnectionSource<? extends AbstractFileSystem>> connectionSourceFactory;
+  private final PostActionJournal journal;
+  private final PostActionListener listener;
+  private final int maxAttempts;
+  private final long retryDelayMillis;
+  private final Semaphore capacity;
+  private final ThreadPoolExecutor executor;
+  private volatile boolean closed = false;
+
+  /**
+   * Creates a new instance with the default settings, which obtains its connections from the given
+   * {@code connectionManager}
+   *
+   * @param config            the config that is parameterizing the actions
+   * @param connectionManager the {@link ConnectionManager} used to obtain the connections
+   * @param journal           the {@link PostActionJournal} the actions are recorded on. Might be {@code null}
+   * @param listener          the {@link PostActionListener} which is notified about the actions outcome
+   */
+  public AsyncPostActionExecutor(FileConnectorConfig config, ConnectionManager connectionManager, PostActionJournal journal,
+                                 PostActionListener listener) {
+    this(config, () -> new ManagerBasedConnectionSource<AbstractFileSystem>(config, connectionManager), journal, listener,
+         DEFAULT_PARALLELISM, DEFAULT_CAPACITY, DEFAULT_MAX_ATTEMPTS, DEFAULT_RETRY_DELAY_MILLIS);
+  }
+
+  /**
+   * Creates a new instance
+   *
+   * @param config                  the config that is parameterizing the actions
+   * @param connectionSourceFactory creates the {@link ConnectionSource} each action obtains its connection from
+   * @param journal                 the {@link PostActionJournal} the actions are recorded on. Might be {@code null}
+   * @param listener                the {@link PostActionListener} which is notified about the actions outcome
+   * @param parallelism             the amount of threads which run the actions
+   * @param capacity                the amount of actions which can wait to be run
+   * @param maxAttempts             the amount of times an action is attempted
+   * @param retryDelayMillis        the amount of milliseconds between two attempts of the same action
+   */
+  public AsyncPostActionExecutor(FileConnectorConfig config,
+                                 Supplier<? extends ConnectionSource<? extends AbstractFileSystem>> connectionSourceFactory,
+                                 PostActionJournal journal, PostActionListener listener, int parallelism, int capacity,
+                                 int maxAttempts, long retryDelayMillis) {
+    if (parallelism < 1 || capacity < 1 || maxAttempts < 1) {
+      throw new IllegalArgumentException("parallelism, capacity and maxAttempts must be greater than zero");
+    }
+    this.config = config;
+    this.connectionSourceFactory = connectionSourceFactory;
+    this.journal = journal;
+    this.listener = listener != null ? listener : new PostActionListener() {};
+    this.maxAttempts = maxAttempts;
+    this.retryDelayMillis = retryDelayMillis;
+    this.capacity = new Semaphore(capacity);
+
+    AtomicInteger count = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0, MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+      Thread thread = new Thread(runnable, "file-connector-post-action-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Submits the post actions of the given {@code postActionGroup} for the file with the given {@code fileAttributes}. The
+   * parameters of the group are captured at this point.
+   *
+   * @param postActionGroup the {@link AbstractPostActionGroup} to apply
+   * @param fileAttributes  the attributes of the file to apply the group to
+   */
+  public void submit(AbstractPostActionGroup postActionGroup, FileAttributes fileAttributes) {
+    PostActionSnapshot snapshot = new PostActionSnapshot(postActionGroup.getMoveToDirectory(), postActionGroup.getRenameTo(),
+                                                         postActionGroup.getOverwrite(), postActionGroup.isAutoDelete());
+    long id = journal != null
+        ? journal.add(fileAttributes.getPath(), fileAttributes.getName(), snapshot.moveToDirectory, snapshot.renameTo,
+                      snapshot.overwrite, snapshot.autoDelete)
+        : -1;
+    enqueue(id, snapshot, fileAttributes);
+  }
+
+  /**
+   * Submits again all the actions which are pending on the journal, typically because the process stopped before they
+   * were run. Since the actions might have been run before the process stopped, it's expected for some of them to fail
+   * because the file is no longer there. This method is meant to be invoked once, right after the executor is created.
+   *
+   * @return the amount of resubmitted actions
+   */
+  public int recover() {
+    if (journal == null) {
+      return 0;
+    }
+
+    int recovered = 0;
+    for (PostActionJournal.Entry entry : journal.recover()) {
+      PostActionSnapshot snapshot = new PostActionSnapshot(entry.getMoveToDirectory(), entry.getRenameTo(),
+                                                           entry.isOverwrite(), entry.isAutoDelete());
+      enqueue(entry.getId(), snapshot, new JournaledFileAttributes(entry.getPath(), entry.getName()));
+      recovered++;
+    }
+    if (recovered > 0) {
+      LOGGER.info("Recovered {} pending post actions", recovered);
+    }
+    return recovered;
+  }
+
+  /**
+   * Stops accepting actions and waits up to {@link #DEFAULT_DRAIN_TIMEOUT_SECONDS} for the pending ones to be run
+   */
+  @Override
+  public void close() {
+    close(DEFAULT_DRAIN_TIMEOUT_SECONDS, SECONDS);
+  }
+
+  /**
+   * Stops accepting actions and waits for the pending ones to be run. The actions which were not run when the {@code timeout}
+   * elapses remain on the journal.
+   *
+   * @param timeout  how long to wait for the pending actions
+   * @param timeUnit the {@link TimeUnit} of the {@code timeout}
+   */
+  public void close(long timeout, TimeUnit timeUnit) {
+    closed = true;
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(timeout, timeUnit)) {
+        int remaining = executor.shutdownNow().size();
+        LOGGER.warn(format("%d post actions were not run before the timeout elapsed. %s", remaining,
+                           journal != null ? "They remain on the journal." : "They were discarded."));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      executor.shutdownNow();
+    } finally {
+      if (journal != null) {
+        journal.close();
+      }
+    }
+  }
+
+  private void enqueue(long id, PostActionSnapshot snapshot, FileAttributes fileAttributes) {
+    if (closed) {
+      throw new IllegalStateException("Cannot submit post actions to a closed executor");
+    }
+
+    try {
+      capacity.acquire();
+    } catch (InterruptedException e) {
+      if (journal != null) {
+        Thread.currentThread().interrupt();
+        LOGGER.warn("Interrupted while waiting to submit the post action of '{}'. It remains on the journal",
+                    fileAttributes.getPath());
+        return;
+      }
+      // without a journal nothing would ever run it again
+      LOGGER.warn("Interrupted while waiting to submit the post action of '{}'. Running it on the current thread",
+                  fileAttributes.getPath());
+      try {
+        run(id, snapshot, fileAttributes);
+      } finally {
+        Thread.currentThread().interrupt();
+      }
+      return;
+    }
+
+    try {
+      executor.execute(() -> {
+        try {
+          run(id, snapshot, fileAttributes);
+        } finally {
+          capacity.release();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      capacity.release();
+      throw new IllegalStateException("Cannot submit post actions to a closed executor", e);
+    }
+  }
+
+  private void run(long id, PostActionSnapshot snapshot, FileAttributes fileAttributes) {
+    for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+      ConnectionSource<? extends AbstractFileSystem> connectionSource = connectionSourceFactory.get();
+      boolean applied = false;
+      try {
+        snapshot.apply(connectionSource.getConnection(), fileAttributes, config);
+        applied = true;
+      } catch (FileAlreadyExistsException e) {
+        complete(id);
+        listener.onFileAlreadyExists(fileAttributes, e);
+        return;
+      } catch (Exception e) {
+        if (attempt == maxAttempts) {
+          LOGGER.error(format("Post action of '%s' failed after %d attempts", fileAttributes.getPath(), attempt), e);
+          complete(id);
+          listener.onFailure(fileAttributes, e);
+          return;
+        }
+        LOGGER.debug(format("Attempt %d of the post action of '%s' failed, retrying", attempt, fileAttributes.getPath()), e);
+      } finally {
+        connectionSource.releaseConnection();
+      }
+
+      // completed outside of the try, so that a failure to record it isn't taken as a failure of the action
+      if (applied) {
+        complete(id);
+        return;
+      }
+
+      try {
+        Thread.sleep(retryDelayMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        LOGGER.warn("Interrupted while waiting to retry the post action of '{}'. {}", fileAttributes.getPath(),
+                    journal != null ? "It remains on the journal." : "It was discarded.");
+        listener.onInterrupted(fileAttributes);
+        return;
+      }
+    }
+  }
+
+  private void complete(long id) {
+    if (journal != null && id >= 0) {
+      journal.complete(id);
+    }
+  }
+
+  private static class PostActionSnapshot extends AbstractPostActionGroup {
+
+    private final String moveToDirectory;
+    private final String renameTo;
+    private final boolean overwrite;
+    private final boolean autoDelete;
+
+    private PostActionSnapshot(String moveToDirectory, String renameTo, boolean overwrite, boolean autoDelete) {
+      this.moveToDirectory = moveToDirectory;
+      this.renameTo = renameTo;
+      this.overwrite = overwrite;
+      this.autoDelete = autoDelete;
+    }
+
+    @Override
+    public boolean isAutoDelete() {
+      return autoDelete;
+    }
+
+    @Override
+    public String getMoveToDirectory() {
+      return moveToDirectory;
+    }
+
+    @Override
+    public String getRenameTo() {
+      return renameTo;
+    }
+
+    @Override
+    public boolean getOverwrite() {
+      return overwrite;
+    }
+
+    @Override
+    public boolean isApplyPostActionWhenFailed() {
+      return true;
+    }
+  }
+
+  private static class JournaledFileAttributes implements FileAttributes {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String path;
+    private final String name;
+
+    private JournaledFileAttributes(String path, String name) {
+      this.path = path;
+      this.name = name;
+    }
+
+    @Override
+    public long getSize() {
+      return 0;
+    }
+
+    @Override
+    public boolean isRegularFile() {
+      return true;
+    }
+
+    @Override
+    public boolean isDirectory() {
+      return false;
+    }
+
+    @Override
+    public boolean isSymbolicLink() {
+      return false;
+    }
+
+    @Override
+    public String getPath() {
+      return path;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+  }
+}
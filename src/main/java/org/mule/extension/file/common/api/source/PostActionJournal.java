@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.source;
+
+import static java.lang.Boolean.parseBoolean;
+import static java.lang.Long.parseLong;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.mule.runtime.api.i18n.I18nMessageFactory.createStaticMessage;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import org.mule.runtime.api.exception.MuleRuntimeException;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+
+/**
+ * Small append-only local journal of the post actions which were submitted to an {@link AsyncPostActionExecutor} but not yet
+ * completed, so that they can be {@link #recover() recovered} and run again if the process stops before that.
+ * <p>
+ * Each submitted action appends one line, and so does each completed one. Once no actions are pending, the file is
+ * truncated, so it only grows while there's a backlog.
+ * <p>
+ * Lines are flushed to the operating system as soon as they're written, but the file is not forced to the storage device,
+ * since that would cost a sync for each processed file. The journal therefore survives the process being stopped or killed,
+ * but the most recent entries might be lost if the whole host crashes or loses power.
+ * <p>
+ * Once {@link #close() closed}, completions are no longer recorded, so the affected actions are recovered (and run again)
+ * the next time the journal is opened.
+ *
+ * @since 1.5.0
+ */
+public class PostActionJournal implements Closeable {
+
+  private static final Logger LOGGER = getLogger(PostActionJournal.class);
+
+  private static final String PENDING = "+";
+  private static final String DONE = "-";
+  private static final String SEPARATOR = "\t";
+
+  private final Path file;
+  private final Map<Long, Entry> pending = new LinkedHashMap<>();
+  // a lock rather than a monitor, since it's held while writing the file, which would pin a virtual thread
+  private final Lock lock = new ReentrantLock();
+  private BufferedWriter writer;
+  private long nextId = 0;
+
+  /**
+   * Creates a new instance which keeps its entries on the given {@code file}. The file is created if it doesn't exist, and
+   * the entries which were pending on it are loaded.
+   *
+   * @param file the journal file
+   */
+  public PostActionJournal(Path file) {
+    this.file = file;
+    load();
+  }
+
+  /**
+   * Records a newly submitted action
+   *
+   * @return the id of the entry, to be passed to {@link #complete(long)}
+   */
+  long add(String path, String name, String moveToDirectory, String renameTo, boolean overwrite, boolean autoDelete) {
+    lock.lock();
+    try {
+      if (writer == null) {
+        throw new IllegalStateException(format("Post action journal '%s' is closed", file));
+      }
+      Entry entry = new Entry(nextId++, path, name, moveToDirectory, renameTo, overwrite, autoDelete);
+      pending.put(entry.id, entry);
+      append(PENDING + SEPARATOR + entry.id + SEPARATOR + encode(path) + SEPARATOR + encode(name) + SEPARATOR
+          + encode(moveToDirectory) + SEPARATOR + encode(renameTo) + SEPARATOR + overwrite + SEPARATOR + autoDelete);
+      return entry.id;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Records that the action with the given {@code id} won't be run again
+   */
+  void complete(long id) {
+    lock.lock();
+    try {
+      if (writer == null) {
+        LOGGER.debug("Post action journal '{}' is closed, action {} remains pending", file, id);
+        return;
+      }
+      if (pending.remove(id) == null) {
+        return;
+      }
+
+      if (pending.isEmpty()) {
+        truncate();
+      } else {
+        append(DONE + SEPARATOR + id);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return the actions which are pending, in the order in which they were submitted
+   */
+  public List<Entry> recover() {
+    lock.lock();
+    try {
+      return new ArrayList<>(pending.values());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return the amount of actions which are pending
+   */
+  public int getPendingCount() {
+    lock.lock();
+    try {
+      return pending.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      if (writer != null) {
+        try {
+          writer.close();
+        } catch (IOException e) {
+          LOGGER.warn(format("Could not close post action journal '%s'", file), e);
+        }
+        writer = null;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void load() {
+    try {
+      if (Files.exists(file)) {
+        for (String line : Files.readAllLines(file, UTF_8)) {
+          String[] fields = line.split(SEPARATOR, -1);
+          if (fields.length == 8 && PENDING.equals(fields[0])) {
+            Entry entry = new Entry(parseLong(fields[1]), decode(fields[2]), decode(fields[3]), decode(fields[4]),
+                                    decode(fields[5]), parseBoolean(fields[6]), parseBoolean(fields[7]));
+            pending.put(entry.id, entry);
+            nextId = Math.max(nextId, entry.id + 1);
+          } else if (fields.length == 2 && DONE.equals(fields[0])) {
+            pending.remove(parseLong(fields[1]));
+          } else if (!line.isEmpty()) {
+            LOGGER.warn("Skipping malformed line of post action journal '{}'", file);
+          }
+        }
+      } else if (file.getParent() != null) {
+        Files.createDirectories(file.getParent());
+      }
+      writer = Files.newBufferedWriter(file, UTF_8, CREATE, WRITE, APPEND);
+    } catch (IOException | RuntimeException e) {
+      throw new MuleRuntimeException(createStaticMessage(format("Could not open post action journal '%s'", file)), e);
+    }
+  }
+
+  private void append(String line) {
+    try {
+      writer.write(line);
+      writer.newLine();
+      writer.flush();
+    } catch (IOException e) {
+      LOGGER.warn(format("Could not write to post action journal '%s'", file), e);
+    }
+  }
+
+  private void truncate() {
+    try {
+      writer.close();
+      writer = Files.newBufferedWriter(file, UTF_8, CREATE, WRITE, TRUNCATE_EXISTING);
+    } catch (IOException e) {
+      LOGGER.warn(format("Could not truncate post action journal '%s'", file), e);
+    }
+  }
+
+  private static String encode(String value) {
+    if (value == null) {
+      return "";
+    }
+    try {
+      return URLEncoder.encode(value, UTF_8.name());
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String decode(String value) {
+    if (value.isEmpty()) {
+      return null;
+    }
+    try {
+      return URLDecoder.decode(value, UTF_8.name());
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * A post action which was submitted but not completed
+   */
+  public static final class Entry {
+
+    private final long id;
+    private final String path;
+    private final String name;
+    private final String moveToDirectory;
+    private final String renameTo;
+    private final boolean overwrite;
+    private final boolean autoDelete;
+
+    private Entry(long id, String path, String name, String moveToDirectory, String renameTo, boolean overwrite,
+                  boolean autoDelete) {
+      this.id = id;
+      this.path = path;
+      this.name = name;
+      this.moveToDirectory = moveToDirectory;
+      this.renameTo = renameTo;
+      this.overwrite = overwrite;
+      this.autoDelete = autoDelete;
+    }
+
+    long getId() {
+      return id;
+    }
+
+    public String getPath() {
+      return path;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getMoveToDirectory() {
+      return moveToDirectory;
+    }
+
+    public String getRenameTo() {
+      return renameTo;
+    }
+
+    public boolean isOverwrite() {
+      return overwrite;
+    }
+
+    public boolean isAutoDelete() {
+      return autoDelete;
+    }
+  }
+}
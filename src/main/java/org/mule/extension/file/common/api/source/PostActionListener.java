@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.source;
+
+import org.mule.extension.file.common.api.FileAttributes;
+import org.mule.extension.file.common.api.exceptions.FileAlreadyExistsException;
+
+/**
+ * Gets notified about the outcome of the post actions run by an {@link AsyncPostActionExecutor}, which can no longer be
+ * reported to the thread that processed the file.
+ *
+ * @since 1.5.0
+ */
+public interface PostActionListener {
+
+  /**
+   * Invoked when a post action could not move or rename a file because the target already exists. The warning that
+   * {@link AbstractPostActionGroup#apply} logs in that case is still logged.
+   *
+   * @param fileAttributes the attributes of the file the action was applied to
+   * @param exception      the exception thrown by the action
+   */
+  default void onFileAlreadyExists(FileAttributes fileAttributes, FileAlreadyExistsException exception) {}
+
+  /**
+   * Invoked when a post action failed and will not be retried anymore
+   *
+   * @param fileAttributes the attributes of the file the action was applied to
+   * @param exception      the exception thrown by the last attempt
+   */
+  default void onFailure(FileAttributes fileAttributes, Exception exception) {}
+
+  /**
+   * Invoked when the thread running a post action was interrupted before it could attempt it again, typically because the
+   * executor was closed before the pending actions were run. The action remains on the journal, if there's one.
+   *
+   * @param fileAttributes the attributes of the file the action was applied to
+   */
+  default void onInterrupted(FileAttributes fileAttributes) {}
+}
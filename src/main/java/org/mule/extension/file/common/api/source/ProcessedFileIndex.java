@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.source;
+
+import static java.lang.String.format;
+import static java.lang.System.currentTimeMillis;
+import static org.mule.runtime.api.i18n.I18nMessageFactory.createStaticMessage;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import org.mule.extension.file.common.api.FileAttributes;
+import org.mule.extension.file.common.api.util.BloomFilter;
+import org.mule.runtime.api.exception.MuleRuntimeException;
+import org.mule.runtime.api.store.ObjectStore;
+import org.mule.runtime.api.store.ObjectStoreException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+
+/**
+ * Remembers which files were already processed by a poller which neither moves nor deletes them, so that they're not
+ * processed again on the next poll. A file is identified by its path, size and last modification time, so a file which is
+ * modified after being processed is considered a new one.
+ * <p>
+ * Processed files are kept on a persistent {@link ObjectStore}, along with the moment in which they were processed, and
+ * expire after a configurable time. Since looking them up on the store for each listed file on each poll is expensive, the
+ * index keeps two in-memory structures in front of it:
+ * <ul>
+ * <li>A {@link BloomFilter} of all the processed files, which answers "never processed" for new files without hitting
+ * the store.</li>
+ * <li>A bounded cache of the files which the store confirmed as processed, which answers "already processed" for files
+ * which keep being listed on every poll. It's sized after the expected amount of files rather than evicting the least
+ * recently used ones, since every poll lists all the files of the directory and an LRU smaller than that would evict each
+ * file right before it's listed again. Once full, further files are looked up on the store, and it's cleared whenever the
+ * expired files are purged.</li>
+ * </ul>
+ * Only files which pass the filter and are not on the cache are looked up on the store. The same instance is meant to be
+ * shared across poll cycles. Instances are thread-safe.
+ *
+ * @since 1.5.0
+ */
+public class ProcessedFileIndex {
+
+  private static final Logger LOGGER = getLogger(ProcessedFileIndex.class);
+
+  /**
+   * Default amount of processed files the Bloom filter is sized for
+   */
+  public static final int DEFAULT_EXPECTED_FILES = 100000;
+
+  /**
+   * Default rate of false positives of the Bloom filter
+   */
+  public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+  private final ObjectStore<Long> store;
+  private final long expiryMillis;
+  private final double falsePositiveRate;
+  private final Map<String, Long> confirmed = new ConcurrentHashMap<>();
+  private final int confirmedCacheSize;
+  private final AtomicInteger filteredFiles = new AtomicInteger();
+  // a lock rather than a monitor, since rebuilding reads the whole object store, which would pin a virtual thread
+  private final Lock rebuildLock = new ReentrantLock();
+  private volatile BloomFilter filter;
+  private volatile int capacity;
+
+  /**
+   * Creates a new instance with the default sizes
+   *
+   * @param store    the {@link ObjectStore} in which the processed files are kept
+   * @param expiry   how long a processed file is remembered. Non positive values mean forever
+   * @param timeUnit the {@link TimeUnit} of the {@code expiry}
+   */
+  public ProcessedFileIndex(ObjectStore<Long> store, long expiry, TimeUnit timeUnit) {
+    this(store, expiry, timeUnit, DEFAULT_EXPECTED_FILES, DEFAULT_FALSE_POSITIVE_RATE, DEFAULT_EXPECTED_FILES);
+  }
+
+  /**
+   * Creates a new instance. The Bloom filter is populated with the files which are already on the {@code store}.
+   *
+   * @param store              the {@link ObjectStore} in which the processed files are kept
+   * @param expiry             how long a processed file is remembered. Non positive values mean forever
+   * @param timeUnit           the {@link TimeUnit} of the {@code expiry}
+   * @param expectedFiles      the amount of processed files the Bloom filter is sized for. Once exceeded, the filter is
+   *                           rebuilt out of the {@code store} with twice the size
+   * @param falsePositiveRate  the rate of false positives of the Bloom filter
+   * @param confirmedCacheSize the amount of confirmed files kept in memory, which should be at least the amount of files
+   *                           listed on each poll
+   */
+  public ProcessedFileIndex(ObjectStore<Long> store, long expiry, TimeUnit timeUnit, int expectedFiles,
+                            double falsePositiveRate, int confirmedCacheSize) {
+    this.store = store;
+    this.expiryMillis = expiry > 0 ? timeUnit.toMillis(expiry) : 0;
+    this.falsePositiveRate = falsePositiveRate;
+    this.confirmedCacheSize = confirmedCacheSize;
+    rebuild(expectedFiles);
+  }
+
+  /**
+   * @param fileAttributes   the attributes of a listed file
+   * @param lastModifiedTime the last modification time of the file, in milliseconds
+   * @return whether the file was already processed
+   */
+  public boolean isProcessed(FileAttributes fileAttributes, long lastModifiedTime) {
+    return isProcessed(fileAttributes.getPath(), fileAttributes.getSize(), lastModifiedTime);
+  }
+
+  /**
+   * @param path             the path of a listed file
+   * @param size             the size of the file
+   * @param lastModifiedTime the last modification time of the file, in milliseconds
+   * @return whether the file was already processed
+   */
+  public boolean isProcessed(String path, long size, long lastModifiedTime) {
+    String key = key(path, size, lastModifiedTime);
+    if (!filter.mightContain(key)) {
+      return false;
+    }
+
+    Long processedAt = confirmed.get(key);
+    if (processedAt == null) {
+      processedAt = retrieve(key);
+      if (processedAt == null) {
+        return false;
+      }
+    }
+
+    if (isExpired(processedAt)) {
+      forget(key);
+      return false;
+    }
+
+    confirm(key, processedAt);
+    return true;
+  }
+
+  /**
+   * Records the given file as processed
+   *
+   * @param fileAttributes   the attributes of the processed file
+   * @param lastModifiedTime the last modification time of the file, in milliseconds
+   */
+  public void markProcessed(FileAttributes fileAttributes, long lastModifiedTime) {
+    markProcessed(fileAttributes.getPath(), fileAttributes.getSize(), lastModifiedTime);
+  }
+
+  /**
+   * Records the given file as processed
+   *
+   * @param path             the path of the processed file
+   * @param size             the size of the file
+   * @param lastModifiedTime the last modification time of the file, in milliseconds
+   */
+  public void markProcessed(String path, long size, long lastModifiedTime) {
+    String key = key(path, size, lastModifiedTime);
+    long now = currentTimeMillis();
+    try {
+      if (store.contains(key)) {
+        store.remove(key);
+      }
+      store.store(key, now);
+    } catch (ObjectStoreException e) {
+      throw new MuleRuntimeException(createStaticMessage(format("Could not record file '%s' as processed", path)), e);
+    }
+
+    // the filter might be replaced by a concurrent rebuild, which may have listed the store before the key was stored
+    BloomFilter current;
+    do {
+      current = filter;
+      current.add(key);
+    } while (current != filter);
+
+    confirm(key, now);
+    if (filteredFiles.incrementAndGet() > capacity) {
+      grow();
+    }
+  }
+
+  /**
+   * Removes the expired files from the store and rebuilds the Bloom filter out of the remaining ones
+   *
+   * @return the amount of removed files
+   */
+  public int purgeExpired() {
+    int purged = 0;
+    try {
+      for (String key : store.allKeys()) {
+        Long processedAt = retrieve(key);
+        if (processedAt != null && isExpired(processedAt)) {
+          forget(key);
+          purged++;
+        }
+      }
+    } catch (ObjectStoreException e) {
+      throw new MuleRuntimeException(createStaticMessage("Could not purge the expired processed files"), e);
+    }
+    rebuild(capacity);
+    // makes room for the files which are still being listed
+    confirmed.clear();
+    return purged;
+  }
+
+  private void grow() {
+    rebuildLock.lock();
+    try {
+      if (filteredFiles.get() > capacity) {
+        rebuild(capacity * 2);
+      }
+    } finally {
+      rebuildLock.unlock();
+    }
+  }
+
+  private void rebuild(int size) {
+    rebuildLock.lock();
+    try {
+      BloomFilter rebuilt = new BloomFilter(size, falsePositiveRate);
+      int count = 0;
+      try {
+        for (String key : store.allKeys()) {
+          rebuilt.add(key);
+          count++;
+        }
+      } catch (ObjectStoreException e) {
+        throw new MuleRuntimeException(createStaticMessage("Could not load the processed files"), e);
+      }
+      if (count > size) {
+        LOGGER.debug("{} processed files exceed the expected {}, Bloom filter will be less effective", count, size);
+      }
+      filteredFiles.set(count);
+      capacity = size;
+      filter = rebuilt;
+    } finally {
+      rebuildLock.unlock();
+    }
+  }
+
+  private Long retrieve(String key) {
+    try {
+      return store.contains(key) ? store.retrieve(key) : null;
+    } catch (ObjectStoreException e) {
+      throw new MuleRuntimeException(createStaticMessage(format("Could not look up processed file '%s'", key)), e);
+    }
+  }
+
+  private void confirm(String key, long processedAt) {
+    // racing threads might exceed the size by a few entries, which is harmless
+    if (confirmed.size() < confirmedCacheSize || confirmed.containsKey(key)) {
+      confirmed.put(key, processedAt);
+    }
+  }
+
+  private void forget(String key) {
+    confirmed.remove(key);
+    try {
+      if (store.contains(key)) {
+        store.remove(key);
+      }
+    } catch (ObjectStoreException e) {
+      LOGGER.debug(format("Could not remove expired processed file '%s'", key), e);
+    }
+  }
+
+  private boolean isExpired(long processedAt) {
+    return expiryMillis > 0 && currentTimeMillis() - processedAt > expiryMillis;
+  }
+
+  private static String key(String path, long size, long lastModifiedTime) {
+    return path + "|" + size + "|" + lastModifiedTime;
+  }
+}
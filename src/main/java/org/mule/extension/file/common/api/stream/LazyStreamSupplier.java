@@ -7,6 +7,8 @@
 package org.mule.extension.file.common.api.stream;
 
 import java.io.InputStream;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 
 /**
@@ -20,16 +22,21 @@ public final class LazyStreamSupplier implements Supplier<InputStream> {
   private volatile InputStream stream;
   private Supplier<InputStream> delegate;
   private boolean supplied = false;
+  private final Lock lock = new ReentrantLock();
 
   public LazyStreamSupplier(Supplier<InputStream> streamFactory) {
     delegate = () -> {
-      synchronized (this) {
+      // an explicit lock rather than a monitor, so that virtual threads are not pinned while the stream is opened
+      lock.lock();
+      try {
         if (!supplied) {
           supplied = true;
           stream = streamFactory.get();
           delegate = () -> stream;
         }
         return stream;
+      } finally {
+        lock.unlock();
       }
     };
   }
@@ -0,0 +1,455 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.stream;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.commons.io.IOUtils.closeQuietly;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import org.mule.extension.file.common.api.AbstractConnectedFileInputStreamSupplier;
+import org.mule.extension.file.common.api.FileConnectorConfig;
+import org.mule.extension.file.common.api.FileSystem;
+import org.mule.extension.file.common.api.connection.ConnectionSource;
+import org.mule.extension.file.common.api.connection.ManagerBasedConnectionSource;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.core.api.connector.ConnectionManager;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+
+/**
+ * Groups the content suppliers of the files returned by one listing, so that their contents are read one after the other
+ * over a single shared connection instead of each supplier acquiring and releasing its own.
+ * <p>
+ * Each supplier {@link #add(Function) added} to the batch gets its own {@link ConnectionSource}. Only one of them can hold
+ * the shared connection at a time: from the moment it asks for it until it releases it (for content, that is when the
+ * returned stream is closed). Suppliers which need a connection while the shared one is in use don't wait, but fall back to
+ * a dedicated connection, so consumers which keep several streams open at once never deadlock.
+ * <p>
+ * Optionally, when a prefetch {@link Executor} is given, obtaining the content of a file triggers the opening of the next
+ * file of the batch on that executor. The prefetch waits a bounded time for the shared connection to be free, so that the
+ * next file is opened as soon as the stream of the current one is closed. If the next file is requested while its prefetch
+ * is still waiting, the prefetch is abandoned and the file is opened right away, so that consumers which request the next
+ * file before closing the current stream are never delayed.
+ * <p>
+ * The batch <b>MUST</b> be {@link #close() closed} once the listing has been processed. The shared connection is released
+ * then, or as soon as the supplier holding it at that moment releases it.
+ *
+ * @param <T> the type of fileSystem used by the suppliers
+ * @since 1.5.0
+ */
+public class ReadBatch<T extends FileSystem> implements Closeable {
+
+  private static final Logger LOGGER = getLogger(ReadBatch.class);
+
+  /**
+   * Default amount of milliseconds that a prefetch waits for the shared connection before giving up, in which case the file
+   * is opened once requested
+   */
+  public static final long DEFAULT_PREFETCH_WAIT_MILLIS = 5000;
+
+  private final ConnectionSource<T> sharedConnectionSource;
+  private final Supplier<ConnectionSource<T>> fallbackConnectionSourceFactory;
+  private final Executor prefetchExecutor;
+  private final long prefetchWaitNanos;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition turnReleased = lock.newCondition();
+  private final List<BatchEntry> entries = new ArrayList<>();
+  private boolean turnTaken = false;
+  private boolean closed = false;
+
+  /**
+   * Creates a new instance which obtains its connections from the given {@code connectionManager} and doesn't prefetch
+   *
+   * @param config            the config the connections are obtained for
+   * @param connectionManager the {@link ConnectionManager} used to obtain the connections
+   */
+  public ReadBatch(FileConnectorConfig config, ConnectionManager connectionManager) {
+    this(new ManagerBasedConnectionSource<>(config, connectionManager),
+         () -> new ManagerBasedConnectionSource<>(config, connectionManager));
+  }
+
+  /**
+   * Creates a new instance which doesn't prefetch
+   *
+   * @param sharedConnectionSource          the {@link ConnectionSource} of the shared connection
+   * @param fallbackConnectionSourceFactory creates the {@link ConnectionSource} used when the shared connection is busy
+   */
+  public ReadBatch(ConnectionSource<T> sharedConnectionSource, Supplier<ConnectionSource<T>> fallbackConnectionSourceFactory) {
+    this(sharedConnectionSource, fallbackConnectionSourceFactory, null, DEFAULT_PREFETCH_WAIT_MILLIS, MILLISECONDS);
+  }
+
+  /**
+   * Creates a new instance
+   *
+   * @param sharedConnectionSource          the {@link ConnectionSource} of the shared connection
+   * @param fallbackConnectionSourceFactory creates the {@link ConnectionSource} used when the shared connection is busy
+   * @param prefetchExecutor                the {@link Executor} on which the next file is opened. {@code null} disables the
+   *                                        prefetch
+   * @param prefetchWait                    how long a prefetch waits for the shared connection to be free before giving up
+   * @param prefetchWaitUnit                the {@link TimeUnit} of the {@code prefetchWait}
+   */
+  public ReadBatch(ConnectionSource<T> sharedConnectionSource, Supplier<ConnectionSource<T>> fallbackConnectionSourceFactory,
+                   Executor prefetchExecutor, long prefetchWait, TimeUnit prefetchWaitUnit) {
+    this.sharedConnectionSource = sharedConnectionSource;
+    this.fallbackConnectionSourceFactory = fallbackConnectionSourceFactory;
+    this.prefetchExecutor = prefetchExecutor;
+    this.prefetchWaitNanos = prefetchWaitUnit.toNanos(prefetchWait);
+  }
+
+  /**
+   * Adds a file to the batch. Files are expected to be added in the same order in which they're going to be read.
+   *
+   * @param supplierFactory creates the supplier of the file's content out of the {@link ConnectionSource} it has to use
+   * @return a {@link Supplier} of the file's content, to be used in place of the created supplier
+   */
+  public Supplier<InputStream> add(Function<ConnectionSource<T>,
+                                            ? extends AbstractConnectedFileInputStreamSupplier<T>> supplierFactory) {
+    BatchConnectionSource connectionSource = new BatchConnectionSource();
+    AbstractConnectedFileInputStreamSupplier<T> supplier = supplierFactory.apply(connectionSource);
+    lock.lock();
+    try {
+      BatchEntry entry = new BatchEntry(entries.size(), supplier, connectionSource);
+      entries.add(entry);
+      return entry;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Releases the shared connection, right away if it's not in use or otherwise as soon as it's released. Files which were
+   * prefetched but never consumed are closed.
+   */
+  @Override
+  public void close() {
+    List<BatchEntry> unclaimed = new ArrayList<>();
+    boolean releaseShared;
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      for (BatchEntry entry : entries) {
+        if (entry.prefetch == PrefetchState.WAITING) {
+          entry.prefetch = PrefetchState.ABANDONED;
+        } else if (entry.prefetch == PrefetchState.OPENING && !entry.claimed) {
+          unclaimed.add(entry);
+        }
+      }
+      releaseShared = !turnTaken;
+      turnReleased.signalAll();
+    } finally {
+      lock.unlock();
+    }
+
+    unclaimed.forEach(BatchEntry::discard);
+    if (releaseShared) {
+      sharedConnectionSource.releaseConnection();
+    }
+  }
+
+  private void prefetchAfter(int index) {
+    if (prefetchExecutor == null) {
+      return;
+    }
+
+    BatchEntry next;
+    lock.lock();
+    try {
+      if (closed || index + 1 >= entries.size()) {
+        return;
+      }
+      next = entries.get(index + 1);
+      if (next.claimed || next.prefetch != PrefetchState.NONE) {
+        return;
+      }
+      next.prefetch = PrefetchState.WAITING;
+    } finally {
+      lock.unlock();
+    }
+
+    try {
+      prefetchExecutor.execute(next::prefetch);
+    } catch (RejectedExecutionException e) {
+      LOGGER.debug("Prefetch of the next file was rejected, it will be opened when requested", e);
+      lock.lock();
+      try {
+        if (next.prefetch == PrefetchState.WAITING) {
+          next.prefetch = PrefetchState.NONE;
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  private boolean acquireTurn() {
+    lock.lock();
+    try {
+      if (turnTaken || closed) {
+        return false;
+      }
+      turnTaken = true;
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Waits for the turn on behalf of the prefetch of the given {@code entry}, for as long as the prefetch is not abandoned
+   */
+  private boolean acquireTurnForPrefetch(BatchEntry entry) {
+    lock.lock();
+    try {
+      long remaining = prefetchWaitNanos;
+      while (turnTaken && !closed && entry.prefetch == PrefetchState.WAITING && remaining > 0) {
+        remaining = turnReleased.awaitNanos(remaining);
+      }
+      if (turnTaken || closed || entry.prefetch != PrefetchState.WAITING) {
+        entry.prefetch = PrefetchState.ABANDONED;
+        return false;
+      }
+      turnTaken = true;
+      entry.prefetch = PrefetchState.OPENING;
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      entry.prefetch = PrefetchState.ABANDONED;
+      return false;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void releaseTurn() {
+    boolean releaseShared;
+    lock.lock();
+    try {
+      turnTaken = false;
+      releaseShared = closed;
+      turnReleased.signalAll();
+    } finally {
+      lock.unlock();
+    }
+
+    if (releaseShared) {
+      sharedConnectionSource.releaseConnection();
+    }
+  }
+
+  private enum PrefetchState {
+    NONE, WAITING, OPENING, ABANDONED
+  }
+
+  private class BatchEntry implements Supplier<InputStream> {
+
+    private final int index;
+    private final AbstractConnectedFileInputStreamSupplier<T> supplier;
+    private final BatchConnectionSource connectionSource;
+    private final CompletableFuture<InputStream> prefetched = new CompletableFuture<>();
+    private PrefetchState prefetch = PrefetchState.NONE;
+    private boolean claimed = false;
+
+    private BatchEntry(int index, AbstractConnectedFileInputStreamSupplier<T> supplier, BatchConnectionSource connectionSource) {
+      this.index = index;
+      this.supplier = supplier;
+      this.connectionSource = connectionSource;
+    }
+
+    @Override
+    public InputStream get() {
+      boolean opening;
+      lock.lock();
+      try {
+        claimed = true;
+        opening = prefetch == PrefetchState.OPENING;
+        if (prefetch == PrefetchState.WAITING) {
+          // the turn is probably held by a stream which the consumer didn't close yet, so don't wait for it
+          prefetch = PrefetchState.ABANDONED;
+          turnReleased.signalAll();
+        }
+      } finally {
+        lock.unlock();
+      }
+
+      InputStream content = opening ? join() : supplier.get();
+      prefetchAfter(index);
+      return content;
+    }
+
+    private void prefetch() {
+      if (!acquireTurnForPrefetch(this)) {
+        return;
+      }
+
+      connectionSource.pin();
+      InputStream content = null;
+      Throwable failure = null;
+      try {
+        content = supplier.get();
+      } catch (Throwable t) {
+        failure = t;
+      }
+
+      // the consumer can only release the connection once it gets the content, so the turn is handed over first
+      try {
+        connectionSource.unpin();
+      } finally {
+        if (failure == null) {
+          prefetched.complete(content);
+        } else {
+          prefetched.completeExceptionally(failure);
+        }
+      }
+    }
+
+    private void discard() {
+      prefetched.whenComplete((content, e) -> {
+        if (content != null) {
+          closeQuietly(content);
+        }
+        supplier.releaseConnectionUsedForContentInputStream();
+      });
+    }
+
+    private InputStream join() {
+      try {
+        return prefetched.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        if (e.getCause() instanceof Error) {
+          throw (Error) e.getCause();
+        }
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * {@link ConnectionSource} of a single file of the batch. Its state is shared by the thread which prefetches the file and
+   * the one which consumes it, so it's only accessed while holding the batch's lock.
+   */
+  private class BatchConnectionSource implements ConnectionSource<T> {
+
+    private boolean pinned = false;
+    private boolean holdsTurn = false;
+    private boolean inUse = false;
+    private ConnectionSource<T> fallbackConnectionSource;
+
+    @Override
+    public T getConnection() throws ConnectionException {
+      ConnectionSource<T> fallback;
+      lock.lock();
+      try {
+        if (pinned || holdsTurn) {
+          inUse = true;
+          fallback = null;
+        } else if (fallbackConnectionSource != null) {
+          fallback = fallbackConnectionSource;
+        } else if (!turnTaken && !closed) {
+          turnTaken = true;
+          holdsTurn = true;
+          inUse = true;
+          fallback = null;
+        } else {
+          fallbackConnectionSource = fallbackConnectionSourceFactory.get();
+          fallback = fallbackConnectionSource;
+        }
+      } finally {
+        lock.unlock();
+      }
+
+      if (fallback != null) {
+        return fallback.getConnection();
+      }
+      try {
+        return sharedConnectionSource.getConnection();
+      } catch (ConnectionException | RuntimeException e) {
+        releaseConnection();
+        throw e;
+      }
+    }
+
+    @Override
+    public void releaseConnection() {
+      boolean releaseTurn = false;
+      ConnectionSource<T> released = null;
+      lock.lock();
+      try {
+        if (pinned) {
+          // the turn is kept until the prefetch finished opening the file
+          inUse = false;
+        } else if (holdsTurn) {
+          holdsTurn = false;
+          inUse = false;
+          releaseTurn = true;
+        } else if (fallbackConnectionSource != null) {
+          released = fallbackConnectionSource;
+          fallbackConnectionSource = null;
+        }
+      } finally {
+        lock.unlock();
+      }
+
+      if (releaseTurn) {
+        releaseTurn();
+      } else if (released != null) {
+        released.releaseConnection();
+      }
+    }
+
+    /**
+     * Starts the opening of a prefetched file, which uses the turn acquired by the prefetch
+     */
+    private void pin() {
+      lock.lock();
+      try {
+        pinned = true;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Ends the opening of a prefetched file: the turn is kept if the opened content still uses the shared connection
+     */
+    private void unpin() {
+      boolean releaseTurn;
+      lock.lock();
+      try {
+        pinned = false;
+        holdsTurn = inUse;
+        releaseTurn = !inUse;
+      } finally {
+        lock.unlock();
+      }
+
+      if (releaseTurn) {
+        releaseTurn();
+      }
+    }
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.util;
+
+import static java.lang.Math.ceil;
+import static java.lang.Math.log;
+import static java.lang.Math.max;
+import static java.lang.Math.round;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter of strings: a compact probabilistic set which answers whether a value might have been added
+ * (with a configurable rate of false positives) or was definitely never added. Values cannot be removed.
+ *
+ * @since 1.5.0
+ */
+public final class BloomFilter {
+
+  private static final double LN_2 = log(2);
+
+  private final AtomicLongArray bits;
+  private final long bitCount;
+  private final int hashCount;
+
+  /**
+   * Creates a new instance sized to hold the given amount of values with the given rate of false positives
+   *
+   * @param expectedValues    the amount of values expected to be added
+   * @param falsePositiveRate the desired rate of false positives once {@code expectedValues} were added, between 0 and 1
+   */
+  public BloomFilter(int expectedValues, double falsePositiveRate) {
+    if (expectedValues < 1) {
+      throw new IllegalArgumentException("expectedValues must be greater than zero");
+    }
+    if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+    }
+
+    long optimalBits = (long) ceil(-expectedValues * log(falsePositiveRate) / (LN_2 * LN_2));
+    bits = new AtomicLongArray((int) max(1, (optimalBits + 63) / 64));
+    bitCount = bits.length() * 64L;
+    hashCount = (int) max(1, round((double) bitCount / expectedValues * LN_2));
+  }
+
+  /**
+   * Adds the given {@code value}
+   *
+   * @param value the value to add
+   */
+  public void add(String value) {
+    long hash = hash(value);
+    int first = (int) hash;
+    int second = (int) (hash >>> 32);
+    for (int i = 0; i < hashCount; i++) {
+      long index = index(first + i * second);
+      int word = (int) (index >>> 6);
+      long mask = 1L << index;
+      long current;
+      do {
+        current = bits.get(word);
+        if ((current & mask) != 0) {
+          break;
+        }
+      } while (!bits.compareAndSet(word, current, current | mask));
+    }
+  }
+
+  /**
+   * @param value the value to test
+   * @return {@code false} if the value was definitely never added, {@code true} if it might have been
+   */
+  public boolean mightContain(String value) {
+    long hash = hash(value);
+    int first = (int) hash;
+    int second = (int) (hash >>> 32);
+    for (int i = 0; i < hashCount; i++) {
+      long index = index(first + i * second);
+      if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private long index(int combinedHash) {
+    return (combinedHash & Integer.MAX_VALUE) % bitCount;
+  }
+
+  /**
+   * 64 bits FNV-1a hash of the UTF-8 bytes of the value, with a final avalanche step so that both halves can be used as
+   * independent hashes
+   */
+  private static long hash(String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : value.getBytes(UTF_8)) {
+      hash ^= b;
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
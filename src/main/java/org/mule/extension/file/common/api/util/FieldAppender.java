@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.util;
+
+import java.util.function.Consumer;
+
+/**
+ * Builds {@code toString()} representations out of the fields which each class contributes, without any reflection. The
+ * format is the one of {@code ToStringStyle.SHORT_PREFIX_STYLE}: {@code ClassName[field=value,other=value]}, with the
+ * simple name of the class.
+ * <p>
+ * The representation is written into a {@link StringBuilder} which is reused by each thread, so that building it only
+ * allocates the resulting {@link String}.
+ *
+ * @since 1.5.0
+ */
+public final class FieldAppender {
+
+  private static final int MAX_REUSED_CAPACITY = 4096;
+  private static final ThreadLocal<FieldAppender> CURRENT = ThreadLocal.withInitial(FieldAppender::new);
+
+  private StringBuilder builder = new StringBuilder(128);
+  private boolean inUse = false;
+  private boolean first;
+
+  /**
+   * Builds the representation of the given {@code object}
+   *
+   * @param object the object being represented
+   * @param fields appends the fields of the {@code object}
+   * @return the representation
+   */
+  public static String toString(Object object, Consumer<FieldAppender> fields) {
+    FieldAppender appender = CURRENT.get();
+    if (appender.inUse) {
+      // a field is being represented while its owner still is, so the shared builder can't be used
+      appender = new FieldAppender();
+    }
+
+    appender.inUse = true;
+    try {
+      appender.builder.append(object.getClass().getSimpleName()).append('[');
+      appender.first = true;
+      fields.accept(appender);
+      return appender.builder.append(']').toString();
+    } finally {
+      appender.reset();
+    }
+  }
+
+  private FieldAppender() {}
+
+  /**
+   * Appends a field
+   *
+   * @param name  the name of the field
+   * @param value the value of the field. Might be {@code null}
+   * @return this appender
+   */
+  public FieldAppender append(String name, Object value) {
+    startField(name);
+    if (value == null) {
+      builder.append("<null>");
+    } else {
+      builder.append(value);
+    }
+    return this;
+  }
+
+  /**
+   * Appends a field
+   *
+   * @param name  the name of the field
+   * @param value the value of the field
+   * @return this appender
+   */
+  public FieldAppender append(String name, long value) {
+    startField(name);
+    builder.append(value);
+    return this;
+  }
+
+  /**
+   * Appends a field
+   *
+   * @param name  the name of the field
+   * @param value the value of the field
+   * @return this appender
+   */
+  public FieldAppender append(String name, boolean value) {
+    startField(name);
+    builder.append(value);
+    return this;
+  }
+
+  private void startField(String name) {
+    if (!first) {
+      builder.append(',');
+    }
+    first = false;
+    builder.append(name).append('=');
+  }
+
+  private void reset() {
+    if (builder.capacity() > MAX_REUSED_CAPACITY) {
+      builder = new StringBuilder(128);
+    } else {
+      builder.setLength(0);
+    }
+    inUse = false;
+  }
+}
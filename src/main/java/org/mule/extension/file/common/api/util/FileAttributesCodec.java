@@ -0,0 +1,382 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.util;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonList;
+import static org.mule.runtime.api.i18n.I18nMessageFactory.createStaticMessage;
+
+import org.mule.extension.file.common.api.FileAttributes;
+import org.mule.runtime.api.exception.MuleRuntimeException;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Compact binary codec for {@link FileAttributes}, meant to replace Java serialization when attributes are kept on object
+ * stores, persistent queues or journals.
+ * <p>
+ * Many attributes can be encoded together, in which case each path is stored as the length of the prefix it shares with the
+ * previous one plus the remaining suffix, which makes listings of the same directory considerably smaller. Numbers are
+ * stored as variable length integers. Timestamps are stored as the seconds and nanoseconds of their date and time as if it
+ * was UTC, so they keep their full precision and decode to the same value regardless of the time zone.
+ * <p>
+ * This class encodes the fields which all {@link FileAttributes} have: the path, the size and the file type. Each
+ * implementation of {@link FileAttributes} has its own subclass, which appends its own fields through
+ * {@link #writeFields(FileAttributes, Output)} and creates the instances on {@link #readFields(FileFields, Input)}. The
+ * encoding carries both the version of this format and the {@link #getFieldsVersion() version} of the subclass' fields, so
+ * that subclasses can keep reading what older versions of them wrote.
+ *
+ * @param <A> the generic type of the file attributes
+ * @since 1.5.0
+ */
+public abstract class FileAttributesCodec<A extends FileAttributes> {
+
+  /**
+   * Version of the format written by this class
+   */
+  public static final int FORMAT_VERSION = 2;
+
+  /**
+   * The first version of the format, which stored timestamps as milliseconds in the system's default time zone
+   */
+  private static final int MILLIS_TIMESTAMP_FORMAT_VERSION = 1;
+
+  private static final int MAGIC = 0xFA;
+  private static final int REGULAR_FILE = 1;
+  private static final int DIRECTORY = 1 << 1;
+  private static final int SYMBOLIC_LINK = 1 << 2;
+
+  /**
+   * @param attributes the attributes to encode
+   * @return the encoded attributes
+   */
+  public byte[] encode(A attributes) {
+    return encodeAll(singletonList(attributes));
+  }
+
+  /**
+   * @param attributes the attributes to encode together
+   * @return the encoded attributes
+   */
+  public byte[] encodeAll(Collection<? extends A> attributes) {
+    Output out = new Output();
+    out.writeByte(MAGIC);
+    out.writeVarInt(FORMAT_VERSION);
+    out.writeVarInt(getFieldsVersion());
+    out.writeVarInt(attributes.size());
+
+    String previousPath = "";
+    for (A fileAttributes : attributes) {
+      String path = fileAttributes.getPath();
+      int shared = sharedPrefixLength(previousPath, path);
+      out.writeVarInt(shared);
+      out.writeString(path.substring(shared));
+      out.writeVarLong(fileAttributes.getSize());
+      out.writeByte((fileAttributes.isRegularFile() ? REGULAR_FILE : 0)
+          | (fileAttributes.isDirectory() ? DIRECTORY : 0)
+          | (fileAttributes.isSymbolicLink() ? SYMBOLIC_LINK : 0));
+      writeFields(fileAttributes, out);
+      previousPath = path;
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * @param bytes attributes encoded through {@link #encode(FileAttributes)}
+   * @return the decoded attributes
+   * @throws MuleRuntimeException if the {@code bytes} don't contain exactly one encoded attributes
+   */
+  public A decode(byte[] bytes) {
+    List<A> attributes = decodeAll(bytes);
+    if (attributes.size() != 1) {
+      throw new MuleRuntimeException(createStaticMessage(format("Expected one encoded file but found %d",
+                                                                attributes.size())));
+    }
+    return attributes.get(0);
+  }
+
+  /**
+   * @param bytes attributes encoded through {@link #encodeAll(Collection)}
+   * @return the decoded attributes, in the same order they were encoded
+   * @throws MuleRuntimeException if the {@code bytes} are not valid encoded attributes
+   */
+  public List<A> decodeAll(byte[] bytes) {
+    Input in = new Input(bytes);
+    if (in.readByte() != MAGIC) {
+      throw new MuleRuntimeException(createStaticMessage("Content is not encoded file attributes"));
+    }
+    int formatVersion = in.readVarInt();
+    if (formatVersion > FORMAT_VERSION) {
+      throw new MuleRuntimeException(createStaticMessage(format("Unsupported file attributes format version %d",
+                                                                formatVersion)));
+    }
+    in.formatVersion = formatVersion;
+    in.fieldsVersion = in.readVarInt();
+
+    int count = in.readVarInt();
+    List<A> attributes = new ArrayList<>(count);
+    String previousPath = "";
+    for (int i = 0; i < count; i++) {
+      int shared = in.readVarInt();
+      if (shared > previousPath.length()) {
+        throw new MuleRuntimeException(createStaticMessage("Corrupted file attributes content"));
+      }
+      String path = previousPath.substring(0, shared) + in.readString();
+      long size = in.readVarLong();
+      int type = in.readByte();
+      attributes.add(readFields(new FileFields(path, size, (type & REGULAR_FILE) != 0, (type & DIRECTORY) != 0,
+                                               (type & SYMBOLIC_LINK) != 0),
+                                in));
+      previousPath = path;
+    }
+    return attributes;
+  }
+
+  /**
+   * Returns the version of the fields written by {@link #writeFields(FileAttributes, Output)}, which is then available to
+   * {@link #readFields(FileFields, Input)} through {@link Input#getFieldsVersion()}. Subclasses should increase it each
+   * time they change their fields. Defaults to {@code 1}.
+   *
+   * @return the version of the fields
+   */
+  protected int getFieldsVersion() {
+    return 1;
+  }
+
+  /**
+   * Appends the fields of the given {@code attributes} which are specific to its implementation
+   *
+   * @param attributes the attributes being encoded
+   * @param out        the {@link Output} to write to
+   */
+  protected abstract void writeFields(A attributes, Output out);
+
+  /**
+   * Reads the fields written by {@link #writeFields(FileAttributes, Output)} and creates the attributes instance
+   *
+   * @param fields the common fields, already decoded
+   * @param in     the {@link Input} to read from
+   * @return the decoded attributes
+   */
+  protected abstract A readFields(FileFields fields, Input in);
+
+  private static int sharedPrefixLength(String previous, String current) {
+    int max = Math.min(previous.length(), current.length());
+    int shared = 0;
+    while (shared < max && previous.charAt(shared) == current.charAt(shared)) {
+      shared++;
+    }
+    // never split a surrogate pair
+    if (shared > 0 && Character.isHighSurrogate(current.charAt(shared - 1))) {
+      shared--;
+    }
+    return shared;
+  }
+
+  /**
+   * The fields which all {@link FileAttributes} have
+   */
+  public static final class FileFields {
+
+    private final String path;
+    private final long size;
+    private final boolean regularFile;
+    private final boolean directory;
+    private final boolean symbolicLink;
+
+    private FileFields(String path, long size, boolean regularFile, boolean directory, boolean symbolicLink) {
+      this.path = path;
+      this.size = size;
+      this.regularFile = regularFile;
+      this.directory = directory;
+      this.symbolicLink = symbolicLink;
+    }
+
+    public String getPath() {
+      return path;
+    }
+
+    public long getSize() {
+      return size;
+    }
+
+    public boolean isRegularFile() {
+      return regularFile;
+    }
+
+    public boolean isDirectory() {
+      return directory;
+    }
+
+    public boolean isSymbolicLink() {
+      return symbolicLink;
+    }
+  }
+
+  /**
+   * Destination of the encoded fields
+   */
+  public static final class Output {
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+
+    private Output() {}
+
+    public void writeByte(int value) {
+      bytes.write(value);
+    }
+
+    public void writeBoolean(boolean value) {
+      bytes.write(value ? 1 : 0);
+    }
+
+    /**
+     * Writes a non negative int in as few bytes as possible
+     */
+    public void writeVarInt(int value) {
+      writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Writes a long in as few bytes as possible. Negative values take the most space.
+     */
+    public void writeVarLong(long value) {
+      while ((value & ~0x7FL) != 0) {
+        bytes.write((int) ((value & 0x7F) | 0x80));
+        value >>>= 7;
+      }
+      bytes.write((int) value);
+    }
+
+    /**
+     * Writes a string, which might be {@code null}
+     */
+    public void writeString(String value) {
+      if (value == null) {
+        writeVarInt(0);
+        return;
+      }
+      byte[] encoded = value.getBytes(UTF_8);
+      writeVarInt(encoded.length + 1);
+      bytes.write(encoded, 0, encoded.length);
+    }
+
+    /**
+     * Writes a timestamp, which might be {@code null}
+     */
+    public void writeTimestamp(LocalDateTime value) {
+      writeBoolean(value != null);
+      if (value != null) {
+        writeZigZag(value.toEpochSecond(ZoneOffset.UTC));
+        writeVarInt(value.getNano());
+      }
+    }
+
+    private void writeZigZag(long value) {
+      writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    private byte[] toByteArray() {
+      return bytes.toByteArray();
+    }
+  }
+
+  /**
+   * Source of the encoded fields
+   */
+  public static final class Input {
+
+    private final byte[] bytes;
+    private int position = 0;
+    private int formatVersion;
+    private int fieldsVersion;
+
+    private Input(byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    /**
+     * @return the {@link FileAttributesCodec#getFieldsVersion() version} of the fields being read
+     */
+    public int getFieldsVersion() {
+      return fieldsVersion;
+    }
+
+    public int readByte() {
+      if (position >= bytes.length) {
+        throw new MuleRuntimeException(createStaticMessage("Unexpected end of encoded file attributes"));
+      }
+      return bytes[position++] & 0xFF;
+    }
+
+    public boolean readBoolean() {
+      return readByte() != 0;
+    }
+
+    public int readVarInt() {
+      long value = readVarLong();
+      if (value < 0 || value > Integer.MAX_VALUE) {
+        throw new MuleRuntimeException(createStaticMessage("Corrupted file attributes content"));
+      }
+      return (int) value;
+    }
+
+    public long readVarLong() {
+      long value = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        int b = readByte();
+        value |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new MuleRuntimeException(createStaticMessage("Corrupted file attributes content"));
+    }
+
+    public String readString() {
+      int length = readVarInt();
+      if (length == 0) {
+        return null;
+      }
+      length--;
+      if (length > bytes.length - position) {
+        throw new MuleRuntimeException(createStaticMessage("Unexpected end of encoded file attributes"));
+      }
+      String value = new String(bytes, position, length, UTF_8);
+      position += length;
+      return value;
+    }
+
+    public LocalDateTime readTimestamp() {
+      if (!readBoolean()) {
+        return null;
+      }
+      if (formatVersion == MILLIS_TIMESTAMP_FORMAT_VERSION) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(readZigZag()), ZoneId.systemDefault());
+      }
+      long seconds = readZigZag();
+      int nanos = readVarInt();
+      if (nanos > 999999999) {
+        throw new MuleRuntimeException(createStaticMessage("Corrupted file attributes content"));
+      }
+      return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    private long readZigZag() {
+      long encoded = readVarLong();
+      return (encoded >>> 1) ^ -(encoded & 1);
+    }
+  }
+}
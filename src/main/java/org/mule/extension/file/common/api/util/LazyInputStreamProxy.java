@@ -54,6 +54,10 @@ public class LazyInputStreamProxy extends InputStream {
 
   @Override
   public void close() throws IOException {
+    // a stream which was never opened has nothing to release, so it's not opened just to be closed
+    if (delegate == null && !streamSupplier.isSupplied()) {
+      return;
+    }
     getDelegate().close();
   }
 
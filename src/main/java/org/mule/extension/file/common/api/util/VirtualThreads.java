@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.util;
+
+import static java.lang.Boolean.getBoolean;
+import static java.lang.String.format;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+
+/**
+ * Utilities to run the blocking work of the connectors on virtual threads, when enabled through the
+ * {@value #VIRTUAL_THREADS_PROPERTY} system property and supported by the running JVM.
+ * <p>
+ * Since this module targets Java 8, virtual threads are looked up reflectively. On JVMs without them, or when the mode is not
+ * enabled, every method falls back transparently to platform threads.
+ * <p>
+ * A virtual thread which blocks while holding a monitor pins its carrier thread, which the JVM can report. When the mode is
+ * enabled, the log says whether that report ({@value #TRACE_PINNED_THREADS_PROPERTY}) is on, and how to turn it on
+ * otherwise. The code of this module holds {@link java.util.concurrent.locks.Lock locks} rather than monitors while doing
+ * I/O, so the reported frames point to the callers.
+ *
+ * @since 1.5.0
+ */
+public final class VirtualThreads {
+
+  private VirtualThreads() {}
+
+  private static final Logger LOGGER = getLogger(VirtualThreads.class);
+
+  /**
+   * System property which enables the virtual threads mode
+   */
+  public static final String VIRTUAL_THREADS_PROPERTY = "mule.file.virtualThreads.enabled";
+
+  /**
+   * System property of the JVM which prints the stack trace of the virtual threads which block while pinned
+   */
+  public static final String TRACE_PINNED_THREADS_PROPERTY = "jdk.tracePinnedThreads";
+
+  private static final Method IS_VIRTUAL = lookupIsVirtual();
+  private static final AtomicBoolean modeLogged = new AtomicBoolean();
+
+  /**
+   * @return whether the running JVM supports virtual threads
+   */
+  public static boolean isSupported() {
+    return IS_VIRTUAL != null;
+  }
+
+  /**
+   * @return whether the virtual threads mode was requested and the running JVM supports it
+   */
+  public static boolean isEnabled() {
+    boolean requested = getBoolean(VIRTUAL_THREADS_PROPERTY);
+    if (requested && modeLogged.compareAndSet(false, true)) {
+      if (isSupported()) {
+        LOGGER.info("Virtual threads mode is enabled, blocking file operations will run on virtual threads");
+        logPinningDiagnostics();
+      } else {
+        LOGGER.warn(format("Virtual threads mode was requested through the '%s' system property, but Java %s doesn't "
+            + "support them. Platform threads will be used instead.", VIRTUAL_THREADS_PROPERTY,
+                           System.getProperty("java.version")));
+      }
+    }
+    return requested && isSupported();
+  }
+
+  /**
+   * @param thread a {@link Thread}
+   * @return whether the given {@code thread} is a virtual one
+   */
+  public static boolean isVirtual(Thread thread) {
+    if (IS_VIRTUAL == null) {
+      return false;
+    }
+    try {
+      return (Boolean) IS_VIRTUAL.invoke(thread);
+    } catch (ReflectiveOperationException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Returns an {@link ExecutorService} which runs each task on a new virtual thread if the mode {@link #isEnabled() is
+   * enabled}, or the one provided by the {@code fallback} otherwise.
+   *
+   * @param namePrefix the prefix of the name of the virtual threads
+   * @param fallback   provides the {@link ExecutorService} to use when virtual threads are not enabled
+   * @return an {@link ExecutorService}
+   */
+  public static ExecutorService newExecutor(String namePrefix, Supplier<ExecutorService> fallback) {
+    if (isEnabled()) {
+      try {
+        Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+        Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+        builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+        ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+            .invoke(null, threadFactory);
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        LOGGER.warn("Could not create a virtual threads executor, platform threads will be used instead", e);
+      }
+    }
+    return fallback.get();
+  }
+
+  /**
+   * @return whether the JVM reports the virtual threads which block while pinned to their carrier
+   */
+  public static boolean isPinningTraced() {
+    return System.getProperty(TRACE_PINNED_THREADS_PROPERTY) != null;
+  }
+
+  private static void logPinningDiagnostics() {
+    if (isPinningTraced()) {
+      LOGGER.info(format("Virtual threads which block while pinned to their carrier will be reported by the JVM (%s=%s)",
+                         TRACE_PINNED_THREADS_PROPERTY, System.getProperty(TRACE_PINNED_THREADS_PROPERTY)));
+    } else {
+      LOGGER.info(format("To find the virtual threads which block while pinned to their carrier, start the JVM with "
+          + "-D%s=short (Java 21 to 23), or record the jdk.VirtualThreadPinned event with Java Flight Recorder",
+                         TRACE_PINNED_THREADS_PROPERTY));
+    }
+  }
+
+  private static Method lookupIsVirtual() {
+    try {
+      return Thread.class.getMethod("isVirtual");
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+}
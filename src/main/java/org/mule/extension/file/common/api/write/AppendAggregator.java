@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.write;
+
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.mule.extension.file.common.api.FileWriteMode.APPEND;
+import static org.mule.runtime.api.i18n.I18nMessageFactory.createStaticMessage;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import org.mule.extension.file.common.api.FileSystem;
+import org.mule.extension.file.common.api.FileWriteMode;
+import org.mule.runtime.api.exception.MuleRuntimeException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+
+/**
+ * Coalesces small appends into the same files, so that many of them are written through a single
+ * {@link FileWriteMode#APPEND} write of a {@link FileSystem}, paying the cost of opening, locking and closing the file once
+ * per batch instead of once per append. Batches are written through
+ * {@link FileSystem#write(String, InputStream, FileWriteMode, boolean, boolean)}, so that the caches of the file system
+ * learn about them.
+ * <p>
+ * Appends are buffered per target path. The buffer of a path is flushed as soon as it reaches the configured size, on the
+ * appending thread, or once the configured delay since its first pending append elapses, on a background thread. The
+ * connection behind a {@link FileSystem} can't be used concurrently, so batches are written one at a time, even for
+ * different paths. The content of each path is written in the same order in which it was appended. The state kept for paths
+ * which received no appends during the idle timeout is discarded.
+ * <p>
+ * Each append returns a {@link CompletableFuture} which is completed once the batch it belongs to was written, or completed
+ * exceptionally with the exception thrown while writing it.
+ * <p>
+ * Instances are thread-safe. {@link #close()} must be invoked once the aggregator is no longer needed, in order to flush any
+ * pending content.
+ *
+ * @since 1.5.0
+ */
+public class AppendAggregator implements Closeable {
+
+  private static final Logger LOGGER = getLogger(AppendAggregator.class);
+
+  /**
+   * Default amount of bytes which triggers the flush of a path
+   */
+  public static final int DEFAULT_MAX_BATCH_BYTES = 64 * 1024;
+
+  /**
+   * Default amount of milliseconds that appended content waits before being flushed
+   */
+  public static final long DEFAULT_MAX_DELAY_MILLIS = 50;
+
+  /**
+   * Default amount of milliseconds after which the state of a path which received no appends is discarded
+   */
+  public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 60000;
+
+  private final FileSystem<?> fileSystem;
+  private final boolean lock;
+  private final boolean createParentDirectories;
+  private final int maxBatchBytes;
+  private final long maxDelayNanos;
+  private final long idleTimeoutNanos;
+  private final ScheduledExecutorService scheduler;
+  private final boolean ownScheduler;
+  private final ScheduledFuture<?> idleSweep;
+  private final ConcurrentMap<String, PathBuffer> buffers = new ConcurrentHashMap<>();
+  private final ReentrantLock writeLock = new ReentrantLock(true);
+  private volatile boolean closed = false;
+
+  /**
+   * Creates a new instance with the default thresholds and its own background thread
+   *
+   * @param fileSystem              the {@link FileSystem} on which the batches are written
+   * @param lock                    whether to lock each file while a batch is written into it
+   * @param createParentDirectories whether to create the parent directories of the files which don't exist
+   */
+  public AppendAggregator(FileSystem<?> fileSystem, boolean lock, boolean createParentDirectories) {
+    this(fileSystem, lock, createParentDirectories, DEFAULT_MAX_BATCH_BYTES, DEFAULT_MAX_DELAY_MILLIS,
+         DEFAULT_IDLE_TIMEOUT_MILLIS, MILLISECONDS, null);
+  }
+
+  /**
+   * Creates a new instance
+   *
+   * @param fileSystem              the {@link FileSystem} on which the batches are written
+   * @param lock                    whether to lock each file while a batch is written into it
+   * @param createParentDirectories whether to create the parent directories of the files which don't exist
+   * @param maxBatchBytes           the amount of buffered bytes which triggers the flush of a path
+   * @param maxDelay                how long appended content waits before being flushed
+   * @param idleTimeout             how long the state of a path which receives no appends is kept
+   * @param timeUnit                the {@link TimeUnit} of {@code maxDelay} and {@code idleTimeout}
+   * @param scheduler               the {@link ScheduledExecutorService} on which delayed flushes run. If {@code null}, the
+   *                                instance creates (and shuts down on {@link #close()}) its own single thread scheduler
+   */
+  public AppendAggregator(FileSystem<?> fileSystem, boolean lock, boolean createParentDirectories, int maxBatchBytes,
+                          long maxDelay, long idleTimeout, TimeUnit timeUnit, ScheduledExecutorService scheduler) {
+    this.fileSystem = fileSystem;
+    this.lock = lock;
+    this.createParentDirectories = createParentDirectories;
+    this.maxBatchBytes = maxBatchBytes;
+    this.maxDelayNanos = timeUnit.toNanos(maxDelay);
+    this.idleTimeoutNanos = timeUnit.toNanos(idleTimeout);
+    this.ownScheduler = scheduler == null;
+    this.scheduler = ownScheduler ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "file-connector-append-aggregator");
+      thread.setDaemon(true);
+      return thread;
+    }) : scheduler;
+    this.idleSweep = this.scheduler.scheduleWithFixedDelay(this::discardIdleBuffers, idleTimeoutNanos, idleTimeoutNanos,
+                                                           NANOSECONDS);
+  }
+
+  /**
+   * Appends the given {@code content} to the file at the given {@code path}
+   *
+   * @param path    the path of the file to append to
+   * @param content the content to append
+   * @return a {@link CompletableFuture} completed once the content was written
+   */
+  public CompletableFuture<Void> append(String path, byte[] content) {
+    if (closed) {
+      throw new IllegalStateException("Cannot append to a closed aggregator");
+    }
+
+    CompletableFuture<Void> written = new CompletableFuture<>();
+    boolean[] flushNow = new boolean[1];
+    PathBuffer buffer = buffers.compute(path, (p, current) -> {
+      PathBuffer pathBuffer = current != null ? current : new PathBuffer(p);
+      flushNow[0] = pathBuffer.add(content, written);
+      return pathBuffer;
+    });
+
+    if (flushNow[0]) {
+      buffer.flush();
+    }
+    return written;
+  }
+
+  /**
+   * Appends the given {@code content} to the file at the given {@code path}. The stream is fully consumed and closed before
+   * this method returns.
+   *
+   * @param path    the path of the file to append to
+   * @param content the content to append
+   * @return a {@link CompletableFuture} completed once the content was written
+   */
+  public CompletableFuture<Void> append(String path, InputStream content) {
+    try (InputStream stream = content) {
+      return append(path, IOUtils.toByteArray(stream));
+    } catch (IOException e) {
+      throw new MuleRuntimeException(createStaticMessage(format("Could not read the content to append to '%s'", path)), e);
+    }
+  }
+
+  /**
+   * Writes all the pending content right away
+   */
+  public void flush() {
+    buffers.values().forEach(PathBuffer::flush);
+  }
+
+  /**
+   * Writes all the pending content and stops accepting appends
+   */
+  @Override
+  public void close() {
+    closed = true;
+    idleSweep.cancel(false);
+    flush();
+    if (ownScheduler) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  private void discardIdleBuffers() {
+    long now = nanoTime();
+    for (String path : buffers.keySet()) {
+      buffers.computeIfPresent(path, (p, buffer) -> buffer.isIdle(now) ? null : buffer);
+    }
+  }
+
+  private class PathBuffer {
+
+    private final String path;
+    private ByteArrayOutputStream content = new ByteArrayOutputStream();
+    private List<CompletableFuture<Void>> waiters = new ArrayList<>();
+    private long lastActivity = nanoTime();
+    private boolean flushing = false;
+
+    private PathBuffer(String path) {
+      this.path = path;
+    }
+
+    /**
+     * @return whether the buffer reached the size threshold
+     */
+    private synchronized boolean add(byte[] bytes, CompletableFuture<Void> written) {
+      if (waiters.isEmpty()) {
+        try {
+          scheduler.schedule(this::flush, maxDelayNanos, NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+          LOGGER.debug(format("Could not schedule the flush of '%s', it will be written on the next flush", path), e);
+        }
+      }
+      content.write(bytes, 0, bytes.length);
+      waiters.add(written);
+      lastActivity = nanoTime();
+      return content.size() >= maxBatchBytes;
+    }
+
+    private synchronized boolean isIdle(long now) {
+      return waiters.isEmpty() && !flushing && now - lastActivity > idleTimeoutNanos;
+    }
+
+    private void flush() {
+      // batches are taken and written while holding the write lock of the aggregator, so that they're written in the same
+      // order they were taken and never use the connection concurrently
+      writeLock.lock();
+      try {
+        byte[] batch;
+        List<CompletableFuture<Void>> batchWaiters;
+        synchronized (this) {
+          if (waiters.isEmpty()) {
+            return;
+          }
+          batch = content.toByteArray();
+          batchWaiters = waiters;
+          content = new ByteArrayOutputStream();
+          waiters = new ArrayList<>();
+          flushing = true;
+        }
+
+        try {
+          fileSystem.write(path, new ByteArrayInputStream(batch), APPEND, lock, createParentDirectories);
+          batchWaiters.forEach(written -> written.complete(null));
+        } catch (Throwable t) {
+          LOGGER.debug(format("Could not append %d bytes to '%s'", batch.length, path), t);
+          batchWaiters.forEach(written -> written.completeExceptionally(t));
+          if (t instanceof Error) {
+            throw (Error) t;
+          }
+        } finally {
+          synchronized (this) {
+            flushing = false;
+            lastActivity = nanoTime();
+          }
+        }
+      } finally {
+        writeLock.unlock();
+      }
+    }
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.file.common.api.write;
+
+import static java.lang.System.nanoTime;
+
+import org.mule.extension.file.common.api.DurabilityPolicy;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Implements the {@link DurabilityPolicy#GROUP_COMMIT} policy: threads which need the same file to be synced to the storage
+ * device share a single sync of it.
+ * <p>
+ * A thread which asks for a file which is not being synced syncs it right away, on its own thread, so that syncs of
+ * different files run concurrently and an idle file is never delayed. Threads which ask for a file while it's being synced
+ * can't rely on that sync, since it might have started before their write, so they join a batch which waits for it. The first
+ * thread of the batch leads it: it syncs the file on behalf of the whole batch as soon as the running sync finished, the
+ * batch reached its maximum size or the configured interval elapsed, whichever happens first. Every thread of the batch
+ * returns once that sync finished, or throws the exception which it threw.
+ * <p>
+ * Unlike the group commit of a database, which appends every transaction to a single log and syncs it once for all of them,
+ * syncs are only shared between writes of the same file: the JDK can only sync one file at a time (there's no portable
+ * equivalent to {@code syncfs}), so writes of different files can't share a single barrier, and batching them per interval
+ * would only delay them.
+ * <p>
+ * Instances are thread-safe.
+ *
+ * @since 1.5.0
+ */
+public class GroupCommit {
+
+  /**
+   * Default maximum amount of milliseconds that a batch waits for the running sync of its file
+   */
+  public static final long DEFAULT_INTERVAL_MILLIS = 10;
+
+  /**
+   * Default amount of threads after which a batch is synced without waiting for the running sync of its file
+   */
+  public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+
+  private final Consumer<String> syncer;
+  private final long intervalNanos;
+  private final int maxBatchSize;
+  private final Lock lock = new ReentrantLock();
+  private final Condition changed = lock.newCondition();
+  private final Map<String, FileSyncs> files = new HashMap<>();
+
+  /**
+   * Creates a new instance
+   *
+   * @param syncer       syncs the file at the given path to the storage device
+   * @param interval     the maximum amount of time that a batch waits for the running sync of its file
+   * @param intervalUnit the {@link TimeUnit} of the {@code interval}
+   */
+  public GroupCommit(Consumer<String> syncer, long interval, TimeUnit intervalUnit) {
+    this(syncer, interval, intervalUnit, DEFAULT_MAX_BATCH_SIZE);
+  }
+
+  /**
+   * Creates a new instance
+   *
+   * @param syncer       syncs the file at the given path to the storage device
+   * @param interval     the maximum amount of time that a batch waits for the running sync of its file
+   * @param intervalUnit the {@link TimeUnit} of the {@code interval}
+   * @param maxBatchSize the amount of threads after which a batch is synced without waiting for the running sync
+   */
+  public GroupCommit(Consumer<String> syncer, long interval, TimeUnit intervalUnit, int maxBatchSize) {
+    this.syncer = syncer;
+    this.intervalNanos = intervalUnit.toNanos(interval);
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  /**
+   * Blocks until the file at the given {@code path} was synced to the storage device, by this thread or on its behalf
+   *
+   * @param path the path of a file which was written
+   */
+  public void sync(String path) {
+    FileSyncs fileSyncs;
+    Batch batch;
+    boolean leader;
+    lock.lock();
+    try {
+      fileSyncs = files.computeIfAbsent(path, p -> new FileSyncs());
+      batch = fileSyncs.nextBatch;
+      if (batch == null) {
+        batch = new Batch();
+        fileSyncs.nextBatch = batch;
+      }
+      leader = batch.size++ == 0;
+      if (batch.size >= maxBatchSize) {
+        changed.signalAll();
+      }
+    } finally {
+      lock.unlock();
+    }
+
+    if (leader) {
+      lead(path, fileSyncs, batch);
+    }
+
+    try {
+      batch.synced.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private void lead(String path, FileSyncs fileSyncs, Batch batch) {
+    lock.lock();
+    try {
+      long deadline = nanoTime() + intervalNanos;
+      long remaining = intervalNanos;
+      while (fileSyncs.running > 0 && batch.size < maxBatchSize && remaining > 0) {
+        try {
+          changed.awaitNanos(remaining);
+        } catch (InterruptedException e) {
+          // sync right away, waiting is just an optimization
+          Thread.currentThread().interrupt();
+          break;
+        }
+        remaining = deadline - nanoTime();
+      }
+      fileSyncs.nextBatch = null;
+      fileSyncs.running++;
+    } finally {
+      lock.unlock();
+    }
+
+    try {
+      syncer.accept(path);
+      batch.synced.complete(null);
+    } catch (Throwable t) {
+      batch.synced.completeExceptionally(t);
+    } finally {
+      lock.lock();
+      try {
+        fileSyncs.running--;
+        if (fileSyncs.running == 0 && fileSyncs.nextBatch == null) {
+          files.remove(path);
+        }
+        changed.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  private static final class FileSyncs {
+
+    private int running = 0;
+    private Batch nextBatch;
+  }
+
+  private static final class Batch {
+
+    private final CompletableFuture<Void> synced = new CompletableFuture<>();
+    private int size = 0;
+  }
+}
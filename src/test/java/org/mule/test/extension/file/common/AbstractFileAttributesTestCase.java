@@ -7,12 +7,14 @@
 package org.mule.test.extension.file.common;
 
 import static org.apache.commons.lang3.SystemUtils.IS_OS_WINDOWS;
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assume.assumeTrue;
 import static org.mule.extension.file.common.api.util.UriUtils.createUri;
 
 import org.mule.extension.file.common.api.AbstractFileAttributes;
+import org.mule.extension.file.common.api.util.FieldAppender;
 
 import java.net.URI;
 import java.nio.file.Path;
@@ -135,6 +137,44 @@ public class AbstractFileAttributesTestCase {
     assertFileName(path);
   }
 
+  @Test
+  public void toStringWithAppendedFields() {
+    SizedFileAttributes attributes = new SizedFileAttributes(Paths.get("/root/myFile.txt"), 5, null);
+    assertThat(attributes.toString(), equalTo("SizedFileAttributes[path=/root/myFile.txt,fileName=myFile.txt,size=5,"
+        + "previous=<null>]"));
+  }
+
+  @Test
+  public void toStringWithNestedAttributes() {
+    SizedFileAttributes previous = new SizedFileAttributes(Paths.get("/root/old.txt"), 1, null);
+    SizedFileAttributes attributes = new SizedFileAttributes(Paths.get("/root/new.txt"), 2, previous);
+    assertThat(attributes.toString(), equalTo("SizedFileAttributes[path=/root/new.txt,fileName=new.txt,size=2,"
+        + "previous=SizedFileAttributes[path=/root/old.txt,fileName=old.txt,size=1,previous=<null>]]"));
+    assertThat(previous.toString(), equalTo("SizedFileAttributes[path=/root/old.txt,fileName=old.txt,size=1,"
+        + "previous=<null>]"));
+  }
+
+  @Test
+  public void toStringWithoutAppendedFieldsUsesReflection() {
+    ConcreteFileAttributes attributes = new ConcreteFileAttributes(Paths.get("/root/myFile.txt"));
+    assertThat(attributes.toString(), containsString("path=/root/myFile.txt"));
+    assertThat(attributes.toString(), containsString("fileName=myFile.txt"));
+  }
+
+  @Test
+  public void toStringOfSubclassWithOwnFieldsUsesReflection() {
+    VersionedFileAttributes attributes = new VersionedFileAttributes(Paths.get("/root/myFile.txt"), 5, "v2");
+    assertThat(attributes.toString(), containsString("size=5"));
+    assertThat(attributes.toString(), containsString("version=v2"));
+  }
+
+  @Test
+  public void toStringOfSubclassWithoutOwnFieldsUsesAppendedFields() {
+    RenamedFileAttributes attributes = new RenamedFileAttributes(Paths.get("/root/myFile.txt"), 5);
+    assertThat(attributes.toString(), equalTo("RenamedFileAttributes[path=/root/myFile.txt,fileName=myFile.txt,size=5,"
+        + "previous=<null>]"));
+  }
+
   private void assertFileName(String path) {
     ConcreteFileAttributes pathAttributes = new ConcreteFileAttributes(Paths.get(path));
     ConcreteFileAttributes uriAttributes = new ConcreteFileAttributes(createUri(path));
@@ -173,4 +213,62 @@ public class AbstractFileAttributesTestCase {
     }
   }
 
+  private static class SizedFileAttributes extends AbstractFileAttributes {
+
+    private final long size;
+    private final SizedFileAttributes previous;
+
+    public SizedFileAttributes(Path path, long size, SizedFileAttributes previous) {
+      super(path);
+      this.size = size;
+      this.previous = previous;
+    }
+
+    @Override
+    protected void appendFields(FieldAppender appender) {
+      super.appendFields(appender);
+      appender.append("size", size).append("previous", previous);
+    }
+
+    @Override
+    public long getSize() {
+      return size;
+    }
+
+    @Override
+    public boolean isRegularFile() {
+      return true;
+    }
+
+    @Override
+    public boolean isDirectory() {
+      return false;
+    }
+
+    @Override
+    public boolean isSymbolicLink() {
+      return false;
+    }
+  }
+
+  private static class VersionedFileAttributes extends SizedFileAttributes {
+
+    private final String version;
+
+    public VersionedFileAttributes(Path path, long size, String version) {
+      super(path, size, null);
+      this.version = version;
+    }
+
+    public String getVersion() {
+      return version;
+    }
+  }
+
+  private static class RenamedFileAttributes extends SizedFileAttributes {
+
+    public RenamedFileAttributes(Path path, long size) {
+      super(path, size, null);
+    }
+  }
 }
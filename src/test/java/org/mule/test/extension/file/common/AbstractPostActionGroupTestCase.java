@@ -6,6 +6,7 @@
  */
 package org.mule.test.extension.file.common;
 
+import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
@@ -14,6 +15,7 @@ import static org.mockito.Mockito.when;
 import org.mule.extension.file.common.api.AbstractFileSystem;
 import org.mule.extension.file.common.api.FileAttributes;
 import org.mule.extension.file.common.api.FileConnectorConfig;
+import org.mule.extension.file.common.api.batch.FileOperationResult;
 import org.mule.extension.file.common.api.command.CopyCommand;
 import org.mule.extension.file.common.api.command.CreateDirectoryCommand;
 import org.mule.extension.file.common.api.command.DeleteCommand;
@@ -27,7 +29,9 @@ import org.mule.extension.file.common.api.lock.PathLock;
 import org.mule.extension.file.common.api.source.AbstractPostActionGroup;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
 
 import org.junit.Before;
@@ -45,6 +49,9 @@ public class AbstractPostActionGroupTestCase {
   public static final String RENAME = "rename";
 
   private static final String originalName = "original.txt";
+  private static final String originalPath = "input/original.txt";
+  private static final String otherName = "other.txt";
+  private static final String otherPath = "input/other.txt";
   private static final String renameTo = "renamed.txt";
   private static final String moveToDirectory = "output";
 
@@ -59,6 +66,7 @@ public class AbstractPostActionGroupTestCase {
   public void setUp() {
     fileAttributes = mock(FileAttributes.class);
     when(fileAttributes.getName()).thenReturn(originalName);
+    when(fileAttributes.getPath()).thenReturn(originalPath);
     fileConnectorConfig = mock(FileConnectorConfig.class);
     fileSystem = new ConcreteFileSystem("");
   }
@@ -154,6 +162,53 @@ public class AbstractPostActionGroupTestCase {
     assertThat(fileSystem.getActionExecuted(), is(MOVE));
   }
 
+  @Test
+  public void batchMoveToDirectory() {
+    fileSystem.clearActions();
+    fileSystem.setCanMove(true);
+    List<FileOperationResult> results = applyBatch(moveToDirectory, null, false);
+    assertThat(results.size(), is(2));
+    assertThat(results.get(0).isSuccessful(), is(true));
+    assertThat(results.get(1).isSuccessful(), is(true));
+    assertThat(fileSystem.getActionsExecuted(), is(asList(MOVE, MOVE)));
+  }
+
+  @Test
+  public void batchFailMoveToDirectoryReportsFailures() {
+    fileSystem.clearActions();
+    fileSystem.setCanMove(false);
+    List<FileOperationResult> results = applyBatch(moveToDirectory, renameTo, false);
+    assertThat(results.get(0).getFailure().get() instanceof FileAlreadyExistsException, is(true));
+    assertThat(results.get(1).getFailure().get() instanceof FileAlreadyExistsException, is(true));
+    assertThat(fileSystem.getActionsExecuted().isEmpty(), is(true));
+  }
+
+  @Test
+  public void batchFailRenameToAndAutoDelete() {
+    fileSystem.clearActions();
+    fileSystem.setCanRename(false);
+    List<FileOperationResult> results = applyBatch(null, renameTo, true);
+    assertThat(results.get(0).isSuccessful(), is(true));
+    assertThat(results.get(1).isSuccessful(), is(true));
+    assertThat(fileSystem.getActionsExecuted(), is(asList(DELETE, DELETE)));
+  }
+
+  @Test
+  public void batchAutoDelete() {
+    fileSystem.clearActions();
+    List<FileOperationResult> results = applyBatch(null, null, true);
+    assertThat(results.get(0).getPath(), is(originalPath));
+    assertThat(fileSystem.getActionsExecuted(), is(asList(DELETE, DELETE)));
+  }
+
+  private List<FileOperationResult> applyBatch(String moveToDirectory, String renameTo, boolean autoDelete) {
+    FileAttributes otherFileAttributes = mock(FileAttributes.class);
+    when(otherFileAttributes.getName()).thenReturn(otherName);
+    when(otherFileAttributes.getPath()).thenReturn(otherPath);
+    ConcretePostActionGroup postActionGroup = new ConcretePostActionGroup(moveToDirectory, renameTo, autoDelete);
+    return postActionGroup.apply(fileSystem, asList(fileAttributes, otherFileAttributes), fileConnectorConfig);
+  }
+
   private void apply(String moveToDirectory, String renameTo, boolean autoDelete) {
     ConcretePostActionGroup postActionGroup = new ConcretePostActionGroup(moveToDirectory, renameTo, autoDelete);
     postActionGroup.apply(fileSystem, fileAttributes, fileConnectorConfig);
@@ -231,6 +286,10 @@ public class AbstractPostActionGroupTestCase {
       return this.actions.element();
     }
 
+    public List<String> getActionsExecuted() {
+      return new ArrayList<>(this.actions);
+    }
+
     public void setCanRename(boolean canRename) {
       this.canRename = canRename;
     }
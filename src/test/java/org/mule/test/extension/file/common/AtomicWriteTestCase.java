@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.endsWith;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mule.extension.file.common.api.DurabilityPolicy.FILE_SYNC;
+import static org.mule.extension.file.common.api.DurabilityPolicy.NONE;
+import static org.mule.extension.file.common.api.AbstractFileSystem.ATOMIC_WRITE_TEMP_SUFFIX;
+import static org.mule.extension.file.common.api.FileWriteMode.ATOMIC_OVERWRITE;
+import static org.mule.extension.file.common.api.FileWriteMode.OVERWRITE;
+
+import org.mule.extension.file.common.api.AbstractFileAttributes;
+import org.mule.extension.file.common.api.AbstractFileSystem;
+import org.mule.extension.file.common.api.FileAttributes;
+import org.mule.extension.file.common.api.FileWriteMode;
+import org.mule.extension.file.common.api.command.CopyCommand;
+import org.mule.extension.file.common.api.command.CreateDirectoryCommand;
+import org.mule.extension.file.common.api.command.DeleteCommand;
+import org.mule.extension.file.common.api.command.ListCommand;
+import org.mule.extension.file.common.api.command.MoveCommand;
+import org.mule.extension.file.common.api.command.ReadCommand;
+import org.mule.extension.file.common.api.command.RenameCommand;
+import org.mule.extension.file.common.api.command.WriteCommand;
+import org.mule.extension.file.common.api.exceptions.IllegalPathException;
+import org.mule.extension.file.common.api.lock.PathLock;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+import org.mule.tck.size.SmallTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+@SmallTest
+public class AtomicWriteTestCase {
+
+  private final RecordingFileSystem fileSystem = new RecordingFileSystem();
+
+  @Test
+  public void contentIsWrittenToTempFileAndRenamedIntoPlace() {
+    fileSystem.write("dir/file.txt", content(), ATOMIC_OVERWRITE, false, true);
+
+    assertThat(fileSystem.actions.size(), is(2));
+    String write = fileSystem.actions.get(0);
+    assertThat(write, startsWith("write OVERWRITE dir/.file.txt."));
+    assertThat(write, endsWith(ATOMIC_WRITE_TEMP_SUFFIX));
+    String tempPath = write.substring("write OVERWRITE ".length());
+    assertThat(fileSystem.actions.get(1), is("renameAtomically " + tempPath + " file.txt"));
+  }
+
+  @Test
+  public void tempFileIsSyncedWhenRequired() {
+    fileSystem.syncBeforeRename = true;
+    fileSystem.write("file.txt", content(), ATOMIC_OVERWRITE, false, true);
+
+    assertThat(fileSystem.actions.size(), is(4));
+    assertThat(fileSystem.actions.get(1), startsWith("sync .file.txt."));
+    assertThat(fileSystem.actions.get(3), is("syncParentDirectory file.txt"));
+  }
+
+  @Test
+  public void durabilityIsRejectedWhenSyncIsNotSupported() {
+    fileSystem.syncSupported = false;
+    try {
+      fileSystem.write("file.txt", content(), OVERWRITE, FILE_SYNC, false, true);
+      fail("durability should have been rejected");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage(), containsString("FILE_SYNC"));
+    }
+
+    assertThat(fileSystem.actions.isEmpty(), is(true));
+  }
+
+  @Test
+  public void syncBeforeRenameIsRejectedWhenSyncIsNotSupported() {
+    fileSystem.syncSupported = false;
+    fileSystem.syncBeforeRename = true;
+    try {
+      fileSystem.write("file.txt", content(), ATOMIC_OVERWRITE, false, true);
+      fail("sync before rename should have been rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    assertThat(fileSystem.actions.isEmpty(), is(true));
+  }
+
+  @Test
+  public void writeWithoutDurabilityDoesNotNeedSync() {
+    fileSystem.syncSupported = false;
+    fileSystem.write("file.txt", content(), OVERWRITE, NONE, false, true);
+
+    assertThat(fileSystem.actions, is(asList("write OVERWRITE file.txt")));
+  }
+
+  @Test
+  public void parentDirectoryIsNotSyncedWithoutDurability() {
+    fileSystem.write("dir/file.txt", content(), ATOMIC_OVERWRITE, false, true);
+
+    assertThat(fileSystem.actions.contains("syncParentDirectory dir/file.txt"), is(false));
+  }
+
+  @Test
+  public void listingSkipsTempFiles() {
+    fileSystem.files.add(new TestAttributes("/dir/file.txt", false));
+    fileSystem.files.add(new TestAttributes("/dir/.file.txt.5d1c2b4e" + ATOMIC_WRITE_TEMP_SUFFIX, false));
+    fileSystem.files.add(new TestAttributes("/dir/.hidden", false));
+    fileSystem.files.add(new TestAttributes("/dir/notes" + ATOMIC_WRITE_TEMP_SUFFIX, false));
+    fileSystem.files.add(new TestAttributes("/dir/.sub" + ATOMIC_WRITE_TEMP_SUFFIX, true));
+
+    List<String> names = new ArrayList<>();
+    for (Result<InputStream, FileAttributes> result : fileSystem.list(null, "dir", false, attributes -> true)) {
+      names.add(result.getAttributes().get().getName());
+    }
+
+    assertThat(names, is(asList("file.txt", ".hidden", "notes" + ATOMIC_WRITE_TEMP_SUFFIX, ".sub" + ATOMIC_WRITE_TEMP_SUFFIX)));
+  }
+
+  @Test
+  public void tempFileNames() {
+    assertThat(AbstractFileSystem.isAtomicWriteTempFile(".file.txt.5d1c2b4e" + ATOMIC_WRITE_TEMP_SUFFIX), is(true));
+    assertThat(AbstractFileSystem.isAtomicWriteTempFile("file.txt" + ATOMIC_WRITE_TEMP_SUFFIX), is(false));
+    assertThat(AbstractFileSystem.isAtomicWriteTempFile(".file.txt"), is(false));
+  }
+
+  @Test
+  public void tempFileIsDeletedWhenRenameFails() {
+    fileSystem.failRename = true;
+    try {
+      fileSystem.write("file.txt", content(), ATOMIC_OVERWRITE, false, true);
+    } catch (IllegalPathException e) {
+      // expected
+    }
+
+    assertThat(fileSystem.actions.size(), is(3));
+    assertThat(fileSystem.actions.get(2), startsWith("delete .file.txt."));
+  }
+
+  @Test
+  public void defaultRenameIsNotReportedAsAtomic() {
+    RenameCommand renameCommand = (filePath, newName, overwrite) -> {};
+    assertThat(renameCommand.isAtomicRenameSupported(), is(false));
+  }
+
+  @Test
+  public void writeFallsBackToNonAtomicRename() {
+    fileSystem.atomicRename = false;
+    fileSystem.write("file.txt", content(), ATOMIC_OVERWRITE, false, true);
+    fileSystem.write("file.txt", content(), ATOMIC_OVERWRITE, false, true);
+
+    assertThat(fileSystem.actions.size(), is(4));
+    assertThat(fileSystem.actions.get(3), startsWith("renameAtomically .file.txt."));
+  }
+
+  @Test
+  public void otherModesAreNotIntercepted() {
+    fileSystem.write("file.txt", content(), OVERWRITE, false, true);
+
+    assertThat(fileSystem.actions.size(), is(1));
+    assertThat(fileSystem.actions.get(0), is("write OVERWRITE file.txt"));
+  }
+
+  @Test
+  public void tempPathWithWindowsSeparators() {
+    assertThat(AbstractFileSystem.getAtomicWriteTempPath("dir\\file.txt"), startsWith("dir\\.file.txt."));
+  }
+
+  private InputStream content() {
+    return new ByteArrayInputStream("content".getBytes());
+  }
+
+  private static class TestAttributes extends AbstractFileAttributes {
+
+    private final boolean directory;
+
+    private TestAttributes(String path, boolean directory) {
+      super(Paths.get(path));
+      this.directory = directory;
+    }
+
+    @Override
+    public long getSize() {
+      return 0;
+    }
+
+    @Override
+    public boolean isRegularFile() {
+      return !directory;
+    }
+
+    @Override
+    public boolean isDirectory() {
+      return directory;
+    }
+
+    @Override
+    public boolean isSymbolicLink() {
+      return false;
+    }
+  }
+
+  private static class RecordingFileSystem extends AbstractFileSystem<FileAttributes> {
+
+    private final List<String> actions = new ArrayList<>();
+    private final List<FileAttributes> files = new ArrayList<>();
+    private boolean syncBeforeRename = false;
+    private boolean failRename = false;
+    private boolean atomicRename = true;
+    private boolean syncSupported = true;
+
+    private RecordingFileSystem() {
+      super("");
+    }
+
+    @Override
+    protected boolean isSyncBeforeAtomicRename() {
+      return syncBeforeRename;
+    }
+
+    @Override
+    protected ListCommand getListCommand() {
+      return (ListCommand<FileAttributes>) (config, directoryPath, recursive, matcher) -> {
+        List<Result<InputStream, FileAttributes>> results = new ArrayList<>();
+        for (FileAttributes file : files) {
+          if (matcher.test(file)) {
+            results.add(Result.<InputStream, FileAttributes>builder().attributes(file).build());
+          }
+        }
+        return results;
+      };
+    }
+
+    @Override
+    protected ReadCommand getReadCommand() {
+      return null;
+    }
+
+    @Override
+    protected WriteCommand getWriteCommand() {
+      return new WriteCommand() {
+
+        @Override
+        public void write(String filePath, InputStream content, FileWriteMode mode, boolean lock,
+                          boolean createParentDirectory, String encoding) {
+          actions.add("write " + mode + " " + filePath);
+        }
+
+        @Override
+        public void sync(String filePath) {
+          actions.add("sync " + filePath);
+        }
+
+        @Override
+        public boolean isSyncSupported() {
+          return syncSupported;
+        }
+
+        @Override
+        public void syncParentDirectory(String filePath) {
+          actions.add("syncParentDirectory " + filePath);
+        }
+      };
+    }
+
+    @Override
+    protected CopyCommand getCopyCommand() {
+      return null;
+    }
+
+    @Override
+    protected MoveCommand getMoveCommand() {
+      return null;
+    }
+
+    @Override
+    protected DeleteCommand getDeleteCommand() {
+      return filePath -> actions.add("delete " + filePath);
+    }
+
+    @Override
+    protected RenameCommand getRenameCommand() {
+      return new RenameCommand() {
+
+        @Override
+        public void rename(String filePath, String newName, boolean overwrite) {
+          actions.add("rename " + filePath + " " + newName);
+        }
+
+        @Override
+        public void renameAtomically(String filePath, String newName) {
+          actions.add("renameAtomically " + filePath + " " + newName);
+          if (failRename) {
+            throw new IllegalPathException("rename failed");
+          }
+        }
+
+        @Override
+        public boolean isAtomicRenameSupported() {
+          return atomicRename;
+        }
+      };
+    }
+
+    @Override
+    protected CreateDirectoryCommand getCreateDirectoryCommand() {
+      return null;
+    }
+
+    @Override
+    protected PathLock createLock(Path path) {
+      return null;
+    }
+
+    @Override
+    public void changeToBaseDir() {}
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.mule.extension.file.common.api.AsyncFileSystem;
+import org.mule.extension.file.common.api.ExecutorAsyncFileSystem;
+import org.mule.extension.file.common.api.FileAttributes;
+import org.mule.extension.file.common.api.FileSystem;
+import org.mule.extension.file.common.api.exceptions.IllegalPathException;
+import org.mule.tck.size.SmallTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+@SmallTest
+public class ExecutorAsyncFileSystemTestCase {
+
+  private final FileSystem<FileAttributes> fileSystem = mock(FileSystem.class);
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void operationIsDelegated() throws Exception {
+    AsyncFileSystem<FileAttributes> async = new ExecutorAsyncFileSystem<>(fileSystem, executor, 1);
+    async.delete("file.txt").get(5, SECONDS);
+    verify(fileSystem).delete("file.txt");
+  }
+
+  @Test
+  public void failureCompletesFutureExceptionally() throws Exception {
+    doThrow(new IllegalPathException("not there")).when(fileSystem).delete(anyString());
+    AsyncFileSystem<FileAttributes> async = new ExecutorAsyncFileSystem<>(fileSystem, executor, 1);
+    try {
+      async.delete("file.txt").get(5, SECONDS);
+      fail("Expected the future to fail");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause(), instanceOf(IllegalPathException.class));
+    }
+  }
+
+  @Test
+  public void inFlightOperationsAreBounded() throws Exception {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    doAnswer(invocation -> {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      Thread.sleep(10);
+      running.decrementAndGet();
+      return null;
+    }).when(fileSystem).delete(anyString());
+
+    AsyncFileSystem<FileAttributes> async = new ExecutorAsyncFileSystem<>(fileSystem, executor, 2);
+    List<CompletableFuture<Void>> deletions = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      deletions.add(async.delete("file" + i + ".txt"));
+    }
+    CompletableFuture.allOf(deletions.toArray(new CompletableFuture[0])).get(5, SECONDS);
+
+    assertThat(maxRunning.get() <= 2, is(true));
+  }
+
+  @Test
+  public void dependentStageCanSubmitOperation() throws Exception {
+    AsyncFileSystem<FileAttributes> async = new ExecutorAsyncFileSystem<>(fileSystem, executor, 1);
+    async.delete("first.txt").thenCompose(v -> async.delete("second.txt")).get(5, SECONDS);
+    verify(fileSystem).delete("second.txt");
+  }
+
+  @Test
+  public void submittingBeyondLimitDoesNotBlock() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    List<String> deleted = new CopyOnWriteArrayList<>();
+    doAnswer(invocation -> {
+      String path = (String) invocation.getArguments()[0];
+      if (path.equals("file0.txt")) {
+        release.await(5, SECONDS);
+      }
+      deleted.add(path);
+      return null;
+    }).when(fileSystem).delete(anyString());
+
+    AsyncFileSystem<FileAttributes> async = new ExecutorAsyncFileSystem<>(fileSystem, executor, 1);
+    List<CompletableFuture<Void>> deletions = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      deletions.add(async.delete("file" + i + ".txt"));
+    }
+    assertThat(deletions.get(4).isDone(), is(false));
+
+    release.countDown();
+    CompletableFuture.allOf(deletions.toArray(new CompletableFuture[0])).get(5, SECONDS);
+    assertThat(deleted, is(asList("file0.txt", "file1.txt", "file2.txt", "file3.txt", "file4.txt")));
+  }
+
+  @Test
+  public void closeRejectsQueuedAndNewOperations() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      started.countDown();
+      release.await(5, SECONDS);
+      return null;
+    }).when(fileSystem).delete("first.txt");
+
+    ExecutorAsyncFileSystem<FileAttributes> async = new ExecutorAsyncFileSystem<>(fileSystem, executor, 1);
+    CompletableFuture<Void> first = async.delete("first.txt");
+    CompletableFuture<Void> queued = async.delete("second.txt");
+    assertThat(started.await(5, SECONDS), is(true));
+    async.close();
+
+    assertRejected(queued);
+    assertRejected(async.delete("third.txt"));
+    release.countDown();
+    first.get(5, SECONDS);
+    verify(fileSystem, never()).delete("second.txt");
+  }
+
+  @Test
+  public void defaultInstancesShareTheExecutor() throws Exception {
+    Executor shared = ExecutorAsyncFileSystem.sharedExecutor();
+    assertThat(ExecutorAsyncFileSystem.sharedExecutor(), is(sameInstance(shared)));
+
+    ExecutorAsyncFileSystem<FileAttributes> first = new ExecutorAsyncFileSystem<>(fileSystem);
+    first.delete("first.txt").get(5, SECONDS);
+    first.close();
+
+    ExecutorAsyncFileSystem<FileAttributes> second = new ExecutorAsyncFileSystem<>(fileSystem);
+    try {
+      second.delete("second.txt").get(5, SECONDS);
+    } finally {
+      second.close();
+    }
+    verify(fileSystem).delete("second.txt");
+  }
+
+  private void assertRejected(CompletableFuture<Void> future) throws Exception {
+    try {
+      future.get(5, SECONDS);
+      fail("Expected the operation to be rejected");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause(), instanceOf(RejectedExecutionException.class));
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common;
+
+import org.mule.runtime.api.store.ObjectDoesNotExistException;
+import org.mule.runtime.api.store.ObjectStore;
+import org.mule.runtime.api.store.ObjectStoreException;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link ObjectStore} which keeps its entries in memory and counts the lookups it serves, so that tests can tell whether a
+ * component went to the store or answered out of its own caches. Sharing an instance across components simulates a
+ * persistent store surviving a restart.
+ */
+public class InMemoryObjectStore<T extends Serializable> implements ObjectStore<T> {
+
+  private final Map<String, T> entries = new ConcurrentHashMap<>();
+  private final AtomicInteger lookups = new AtomicInteger();
+
+  @Override
+  public boolean contains(String key) {
+    lookups.incrementAndGet();
+    return entries.containsKey(key);
+  }
+
+  @Override
+  public void store(String key, T value) throws ObjectStoreException {
+    entries.put(key, value);
+  }
+
+  @Override
+  public T retrieve(String key) throws ObjectStoreException {
+    T value = entries.get(key);
+    if (value == null) {
+      throw new ObjectDoesNotExistException();
+    }
+    return value;
+  }
+
+  @Override
+  public T remove(String key) throws ObjectStoreException {
+    T value = entries.remove(key);
+    if (value == null) {
+      throw new ObjectDoesNotExistException();
+    }
+    return value;
+  }
+
+  @Override
+  public boolean isPersistent() {
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    entries.clear();
+  }
+
+  @Override
+  public void open() {}
+
+  @Override
+  public void close() {}
+
+  @Override
+  public List<String> allKeys() {
+    return new ArrayList<>(entries.keySet());
+  }
+
+  @Override
+  public Map<String, T> retrieveAll() {
+    return new HashMap<>(entries);
+  }
+
+  /**
+   * @return the amount of times {@link #contains(String)} was invoked
+   */
+  public int getLookups() {
+    return lookups.get();
+  }
+
+  /**
+   * Replaces the value of every entry
+   *
+   * @param value the new value
+   */
+  public void replaceAll(T value) {
+    entries.replaceAll((key, old) -> value);
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.api.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.mule.extension.file.common.api.util.BloomFilter;
+import org.mule.tck.size.SmallTest;
+
+import org.junit.Test;
+
+@SmallTest
+public class BloomFilterTestCase {
+
+  private static final int VALUES = 10000;
+
+  @Test
+  public void addedValuesAreAlwaysContained() {
+    BloomFilter filter = new BloomFilter(VALUES, 0.01);
+    for (int i = 0; i < VALUES; i++) {
+      filter.add("/data/input/file" + i + ".csv|1024|" + i);
+    }
+
+    for (int i = 0; i < VALUES; i++) {
+      assertThat(filter.mightContain("/data/input/file" + i + ".csv|1024|" + i), is(true));
+    }
+  }
+
+  @Test
+  public void falsePositiveRateIsBounded() {
+    BloomFilter filter = new BloomFilter(VALUES, 0.01);
+    for (int i = 0; i < VALUES; i++) {
+      filter.add("/data/input/file" + i + ".csv");
+    }
+
+    int falsePositives = 0;
+    for (int i = 0; i < VALUES; i++) {
+      if (filter.mightContain("/data/other/file" + i + ".csv")) {
+        falsePositives++;
+      }
+    }
+    assertThat(falsePositives < VALUES * 0.02, is(true));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidFalsePositiveRate() {
+    new BloomFilter(VALUES, 1);
+  }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.api.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.mule.extension.file.common.api.AbstractFileAttributes;
+import org.mule.extension.file.common.api.util.FileAttributesCodec;
+import org.mule.runtime.api.exception.MuleRuntimeException;
+import org.mule.tck.size.SmallTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+@SmallTest
+public class FileAttributesCodecTestCase {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FileAttributesCodecTestCase.class);
+  private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2024, 3, 1, 10, 15, 30);
+  private static final int FILES = 1000;
+
+  private final TestAttributesCodec codec = new TestAttributesCodec();
+
+  @Test
+  public void singleRoundTrip() {
+    TestAttributes attributes = new TestAttributes("/data/in/file.csv", 1024, false, TIMESTAMP);
+    TestAttributes decoded = codec.decode(codec.encode(attributes));
+
+    assertEqual(decoded, attributes);
+  }
+
+  @Test
+  public void batchRoundTrip() {
+    List<TestAttributes> listing = listing();
+    List<TestAttributes> decoded = codec.decodeAll(codec.encodeAll(listing));
+
+    assertThat(decoded.size(), is(listing.size()));
+    for (int i = 0; i < listing.size(); i++) {
+      assertEqual(decoded.get(i), listing.get(i));
+    }
+  }
+
+  @Test
+  public void nullTimestampAndNonAsciiNames() {
+    TestAttributes attributes = new TestAttributes("/data/\u00f1and\u00fa/\ud83d\udcc4.txt", 0, true, null);
+    assertEqual(codec.decode(codec.encode(attributes)), attributes);
+  }
+
+  @Test
+  public void smallerThanJavaSerialization() throws Exception {
+    List<TestAttributes> listing = listing();
+    byte[] encoded = codec.encodeAll(listing);
+    byte[] serialized = serialize(listing);
+
+    LOGGER.info("Encoded {} files in {} bytes, Java serialization took {} bytes", FILES, encoded.length, serialized.length);
+    assertThat(encoded.length * 4 < serialized.length, is(true));
+  }
+
+  @Test
+  public void timestampKeepsNanoseconds() {
+    TestAttributes attributes = new TestAttributes("/data/in/file.csv", 1, false, TIMESTAMP.withNano(123456789));
+    assertEqual(codec.decode(codec.encode(attributes)), attributes);
+  }
+
+  @Test
+  public void timestampBeforeEpochRoundTrip() {
+    TestAttributes attributes = new TestAttributes("/data/in/file.csv", 1, false, LocalDateTime.of(1969, 12, 31, 23, 59, 59, 1));
+    assertEqual(codec.decode(codec.encode(attributes)), attributes);
+  }
+
+  @Test
+  public void timestampDoesNotDependOnTimeZone() {
+    TimeZone timeZone = TimeZone.getDefault();
+    try {
+      TimeZone.setDefault(TimeZone.getTimeZone("America/Argentina/Buenos_Aires"));
+      // falls on the hour skipped by the daylight saving change of the decoding time zone
+      TestAttributes attributes = new TestAttributes("/data/in/file.csv", 1, false, LocalDateTime.of(2024, 3, 31, 2, 30));
+      byte[] encoded = codec.encode(attributes);
+
+      TimeZone.setDefault(TimeZone.getTimeZone("Europe/Madrid"));
+      assertEqual(codec.decode(encoded), attributes);
+    } finally {
+      TimeZone.setDefault(timeZone);
+    }
+  }
+
+  @Test
+  public void firstFormatVersionIsStillRead() {
+    long millis = TIMESTAMP.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    bytes.write(0xFA);
+    bytes.write(1);
+    bytes.write(1);
+    bytes.write(1);
+    bytes.write(0);
+    byte[] path = "/data/in/file.csv".getBytes(UTF_8);
+    bytes.write(path.length + 1);
+    bytes.write(path, 0, path.length);
+    bytes.write(8);
+    bytes.write(1);
+    bytes.write(1);
+    writeVarLong(bytes, millis << 1);
+
+    TestAttributes decoded = codec.decode(bytes.toByteArray());
+
+    assertThat(decoded.getPath(), is("/data/in/file.csv"));
+    assertThat(decoded.getSize(), is(8L));
+    assertThat(decoded.getTimestamp(), is(TIMESTAMP));
+  }
+
+  @Test(expected = MuleRuntimeException.class)
+  public void newerFormatIsRejected() {
+    byte[] encoded = codec.encode(new TestAttributes("/data/in/file.csv", 1, false, TIMESTAMP));
+    encoded[1] = (byte) (FileAttributesCodec.FORMAT_VERSION + 1);
+    codec.decode(encoded);
+  }
+
+  @Test(expected = MuleRuntimeException.class)
+  public void truncatedContentIsRejected() {
+    byte[] encoded = codec.encode(new TestAttributes("/data/in/file.csv", 1, false, TIMESTAMP));
+    byte[] truncated = new byte[encoded.length - 3];
+    System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+    codec.decode(truncated);
+  }
+
+  private List<TestAttributes> listing() {
+    List<TestAttributes> listing = new ArrayList<>();
+    for (int i = 0; i < FILES; i++) {
+      listing.add(new TestAttributes("/data/input/2024/03/01/invoice-" + i + ".csv", i * 1024L, i % 10 == 0,
+                                     TIMESTAMP.plusSeconds(i)));
+    }
+    return listing;
+  }
+
+  private void assertEqual(TestAttributes actual, TestAttributes expected) {
+    assertThat(actual.getPath(), is(expected.getPath()));
+    assertThat(actual.getName(), is(expected.getName()));
+    assertThat(actual.getSize(), is(expected.getSize()));
+    assertThat(actual.isDirectory(), is(expected.isDirectory()));
+    assertThat(actual.getTimestamp(), is(expected.getTimestamp()));
+  }
+
+  private static void writeVarLong(ByteArrayOutputStream bytes, long value) {
+    while ((value & ~0x7FL) != 0) {
+      bytes.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    bytes.write((int) value);
+  }
+
+  private byte[] serialize(Object value) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(value);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static class TestAttributes extends AbstractFileAttributes {
+
+    private final long size;
+    private final boolean directory;
+    private final LocalDateTime timestamp;
+
+    private TestAttributes(String path, long size, boolean directory, LocalDateTime timestamp) {
+      super(Paths.get(path));
+      this.size = size;
+      this.directory = directory;
+      this.timestamp = timestamp;
+    }
+
+    @Override
+    public long getSize() {
+      return size;
+    }
+
+    @Override
+    public boolean isRegularFile() {
+      return !directory;
+    }
+
+    @Override
+    public boolean isDirectory() {
+      return directory;
+    }
+
+    @Override
+    public boolean isSymbolicLink() {
+      return false;
+    }
+
+    public LocalDateTime getTimestamp() {
+      return timestamp;
+    }
+  }
+
+  private static class TestAttributesCodec extends FileAttributesCodec<TestAttributes> {
+
+    @Override
+    protected void writeFields(TestAttributes attributes, Output out) {
+      out.writeTimestamp(attributes.getTimestamp());
+    }
+
+    @Override
+    protected TestAttributes readFields(FileFields fields, Input in) {
+      return new TestAttributes(fields.getPath(), fields.getSize(), fields.isDirectory(), in.readTimestamp());
+    }
+  }
+}
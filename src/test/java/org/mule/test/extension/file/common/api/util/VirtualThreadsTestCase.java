@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.api.util;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+import static org.mule.extension.file.common.api.util.VirtualThreads.TRACE_PINNED_THREADS_PROPERTY;
+import static org.mule.extension.file.common.api.util.VirtualThreads.VIRTUAL_THREADS_PROPERTY;
+import static org.mule.extension.file.common.api.util.VirtualThreads.isEnabled;
+import static org.mule.extension.file.common.api.util.VirtualThreads.isPinningTraced;
+import static org.mule.extension.file.common.api.util.VirtualThreads.isSupported;
+import static org.mule.extension.file.common.api.util.VirtualThreads.isVirtual;
+import static org.mule.extension.file.common.api.util.VirtualThreads.newExecutor;
+
+import org.mule.tck.size.SmallTest;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Test;
+
+@SmallTest
+public class VirtualThreadsTestCase {
+
+  @After
+  public void tearDown() {
+    System.clearProperty(VIRTUAL_THREADS_PROPERTY);
+    System.clearProperty(TRACE_PINNED_THREADS_PROPERTY);
+  }
+
+  @Test
+  public void pinningIsTracedWhenTheJvmPropertyIsSet() {
+    assertThat(isPinningTraced(), is(false));
+    System.setProperty(TRACE_PINNED_THREADS_PROPERTY, "short");
+    assertThat(isPinningTraced(), is(true));
+  }
+
+  @Test
+  public void platformThreadIsNotVirtual() {
+    assertThat(isVirtual(Thread.currentThread()), is(false));
+  }
+
+  @Test
+  public void fallbackExecutorIsUsedWhenNotEnabled() {
+    ExecutorService fallback = Executors.newSingleThreadExecutor();
+    try {
+      assertThat(isEnabled(), is(false));
+      assertThat(newExecutor("test-", () -> fallback), is(sameInstance(fallback)));
+    } finally {
+      fallback.shutdownNow();
+    }
+  }
+
+  @Test
+  public void tasksRunOnVirtualThreadsWhenEnabled() throws Exception {
+    assumeTrue(isSupported());
+    System.setProperty(VIRTUAL_THREADS_PROPERTY, "true");
+
+    ExecutorService executor = newExecutor("test-", () -> {
+      throw new AssertionError("Fallback should not be used");
+    });
+    try {
+      assertThat(executor.submit(() -> isVirtual(Thread.currentThread())).get(5, SECONDS), is(true));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.batch;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.mule.extension.file.common.api.batch.BatchRunner;
+import org.mule.extension.file.common.api.batch.FileOperationResult;
+import org.mule.tck.size.SmallTest;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+
+@SmallTest
+public class BatchRunnerTestCase {
+
+  private final ExecutorService executor = newFixedThreadPool(4);
+
+  @After
+  public void after() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void failuresAreReportedPerEntry() {
+    List<FileOperationResult> results = new BatchRunner<String>()
+        .run(asList("a.txt", "fail.txt", "b.txt").iterator(), path -> path, null, path -> {
+          if (path.startsWith("fail")) {
+            throw new IllegalStateException(path);
+          }
+        });
+
+    assertThat(results.size(), is(3));
+    assertThat(results.get(0).isSuccessful(), is(true));
+    assertThat(results.get(1).isSuccessful(), is(false));
+    assertThat(results.get(1).getFailure().get().getMessage(), is("fail.txt"));
+    assertThat(results.get(2).isSuccessful(), is(true));
+  }
+
+  @Test
+  public void resultsKeepOrderWhenRunConcurrently() {
+    List<String> paths = asList("a/1", "b/2", "c/3", "d/4", "e/5", "f/6", "g/7", "h/8");
+    List<FileOperationResult> results = new BatchRunner<String>(executor, 4)
+        .run(paths.iterator(), path -> path, null, path -> sleep(paths.size() - Integer.parseInt(path.substring(2))));
+
+    for (int i = 0; i < paths.size(); i++) {
+      assertThat(results.get(i).getPath(), is(paths.get(i)));
+      assertThat(results.get(i).isSuccessful(), is(true));
+    }
+  }
+
+  @Test
+  public void parallelismIsBounded() {
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+    new BatchRunner<String>(executor, 2).run(asList("1", "2", "3", "4", "5", "6").iterator(), path -> path, null, path -> {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      sleep(20);
+      inFlight.decrementAndGet();
+    });
+
+    assertThat(maxInFlight.get() <= 2, is(true));
+  }
+
+  @Test
+  public void groupLeaderCompletesBeforeTheRestOfTheGroup() {
+    Set<String> createdDirectories = ConcurrentHashMap.newKeySet();
+    AtomicInteger creations = new AtomicInteger();
+    List<FileOperationResult> results = new BatchRunner<String>(executor, 4)
+        .run(asList("dir/1", "dir/2", "dir/3", "dir/4").iterator(), path -> path, path -> "dir", path -> {
+          if (!createdDirectories.contains("dir")) {
+            sleep(50);
+            createdDirectories.add("dir");
+            creations.incrementAndGet();
+          }
+        });
+
+    assertThat(creations.get(), is(1));
+    results.forEach(result -> assertThat(result.isSuccessful(), is(true)));
+  }
+
+  @Test
+  public void errorIsRethrownAndReleasesItsSlot() throws Exception {
+    AtomicInteger processed = new AtomicInteger();
+    AtomicReference<Throwable> thrown = new AtomicReference<>();
+    BatchRunner<String> runner = new BatchRunner<>(executor, 2);
+    Thread caller = new Thread(() -> {
+      try {
+        runner.run(asList("1", "error", "2", "3", "4").iterator(), path -> path, null, path -> {
+          if (path.equals("error")) {
+            throw new StackOverflowError(path);
+          }
+          processed.incrementAndGet();
+        });
+      } catch (Throwable t) {
+        thrown.set(t);
+      }
+    });
+    caller.start();
+    caller.join(5000);
+
+    assertThat(caller.isAlive(), is(false));
+    assertThat(thrown.get() instanceof StackOverflowError, is(true));
+    assertThat(processed.get(), is(4));
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
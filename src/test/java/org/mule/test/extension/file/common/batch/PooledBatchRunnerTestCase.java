@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.batch;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.mule.extension.file.common.api.FileConnectorConfig;
+import org.mule.extension.file.common.api.FileSystem;
+import org.mule.extension.file.common.api.batch.FileOperationResult;
+import org.mule.extension.file.common.api.batch.PooledBatchRunner;
+import org.mule.extension.file.common.api.connection.ConnectionPool;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.connection.ConnectionHandler;
+import org.mule.runtime.api.connection.ConnectionValidationResult;
+import org.mule.runtime.core.api.connector.ConnectionManager;
+import org.mule.tck.size.SmallTest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SmallTest
+public class PooledBatchRunnerTestCase {
+
+  private final ExecutorService executor = newFixedThreadPool(4);
+  private final ConnectionManager connectionManager = mock(ConnectionManager.class);
+  private final ConnectionValidationResult validationResult = mock(ConnectionValidationResult.class);
+  private final List<FileSystem> connections = new CopyOnWriteArrayList<>();
+  private final Map<String, FileSystem> usedConnections = new ConcurrentHashMap<>();
+  private final AtomicBoolean firstMoved = new AtomicBoolean();
+
+  private ConnectionPool<FileSystem> connectionPool;
+  private CyclicBarrier bothInFlight;
+
+  @Before
+  public void setUp() throws ConnectionException {
+    connectionPool = new ConnectionPool<>(mock(FileConnectorConfig.class), connectionManager, 2, 1, MINUTES);
+    bothInFlight = new CyclicBarrier(2);
+    when(validationResult.isValid()).thenReturn(true);
+    when(connectionManager.testConnectivity(any(), any())).thenReturn(validationResult);
+    when(connectionManager.getConnection(any())).thenAnswer(invocation -> {
+      ConnectionHandler<FileSystem> connectionHandler = mock(ConnectionHandler.class);
+      FileSystem fileSystem = newFileSystem();
+      when(connectionHandler.getConnection()).thenReturn(fileSystem);
+      connections.add(fileSystem);
+      return connectionHandler;
+    });
+  }
+
+  @After
+  public void tearDown() {
+    connectionPool.close();
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void filesAreDeletedConcurrentlyOverSeparateConnections() {
+    List<FileOperationResult> results =
+        new PooledBatchRunner<>(connectionPool, executor, 2).deleteAll(asList("/in/a.txt", "/in/b.txt").iterator());
+
+    assertThat(results.get(0).isSuccessful(), is(true));
+    assertThat(results.get(1).isSuccessful(), is(true));
+    assertThat(connections.size(), is(2));
+    assertThat(usedConnections.get("/in/a.txt") == usedConnections.get("/in/b.txt"), is(false));
+    assertThat(connectionPool.getIdleCount(), is(2));
+  }
+
+  @Test
+  public void failureToDeleteIsReportedPerFile() {
+    List<FileOperationResult> results = new PooledBatchRunner<>(connectionPool, executor, 2)
+        .deleteAll(asList("/in/a.txt", "/in/fail.txt", "/in/b.txt").iterator());
+
+    assertThat(results.size(), is(3));
+    assertThat(results.get(0).isSuccessful(), is(true));
+    assertThat(results.get(1).isSuccessful(), is(false));
+    assertThat(results.get(2).isSuccessful(), is(true));
+    assertThat(connectionPool.getIdleCount(), is(2));
+  }
+
+  @Test
+  public void firstFileIsMovedBeforeTheRestWhenCreatingTargetDirectory() {
+    List<FileOperationResult> results = new PooledBatchRunner<>(connectionPool, executor, 2)
+        .moveAll(null, asList("/in/first.txt", "/in/a.txt", "/in/b.txt").iterator(), "/out", false, true);
+
+    for (FileOperationResult result : results) {
+      assertThat(result.isSuccessful(), is(true));
+    }
+    assertThat(usedConnections.size(), is(3));
+  }
+
+  @Test
+  public void connectionFailureIsReportedAsFailure() throws ConnectionException {
+    doThrow(new ConnectionException("Connection refused")).when(connectionManager).getConnection(any());
+
+    List<FileOperationResult> results =
+        new PooledBatchRunner<>(connectionPool, executor, 2).deleteAll(asList("/in/a.txt", "/in/b.txt").iterator());
+
+    assertThat(results.get(0).isSuccessful(), is(false));
+    assertThat(results.get(1).isSuccessful(), is(false));
+  }
+
+  private FileSystem newFileSystem() {
+    FileSystem fileSystem = mock(FileSystem.class);
+    doAnswer(invocation -> {
+      String path = (String) invocation.getArguments()[0];
+      usedConnections.put(path, fileSystem);
+      if (path.contains("fail")) {
+        throw new IllegalStateException(path);
+      }
+      // only passes if both files are deleted at the same time
+      bothInFlight.await(5, SECONDS);
+      return null;
+    }).when(fileSystem).delete(anyString());
+    doAnswer(invocation -> {
+      String path = (String) invocation.getArguments()[1];
+      usedConnections.put(path, fileSystem);
+      if (path.equals("/in/first.txt")) {
+        Thread.sleep(20);
+        firstMoved.set(true);
+      } else if (!firstMoved.get()) {
+        throw new IllegalStateException(path + " was moved before the first file");
+      }
+      return null;
+    }).when(fileSystem).move(any(), anyString(), anyString(), anyBoolean(), anyBoolean(), any());
+    return fileSystem;
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.cache;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.mule.extension.file.common.api.FileSystem;
+import org.mule.extension.file.common.api.cache.DirectoryCache;
+import org.mule.extension.file.common.api.cache.PathKeys;
+import org.mule.extension.file.common.api.command.AbstractFileCommand;
+import org.mule.tck.size.SmallTest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.junit.Before;
+import org.junit.Test;
+
+@SmallTest
+public class DirectoryCacheTestCase {
+
+  private DirectoryCache cache;
+
+  @Before
+  public void setUp() {
+    cache = new DirectoryCache(10, 1, MINUTES);
+  }
+
+  @Test
+  public void unknownDirectory() {
+    assertThat(cache.isKnown("/base/dir"), is(false));
+  }
+
+  @Test
+  public void markedDirectoryAndAncestorsAreKnown() {
+    cache.markExisting("/base/dir/sub/");
+    assertThat(cache.isKnown("/base/dir/sub"), is(true));
+    assertThat(cache.isKnown("/base/dir"), is(true));
+    assertThat(cache.isKnown("/base"), is(true));
+    assertThat(cache.isKnown("/base/other"), is(false));
+  }
+
+  @Test
+  public void windowsSeparatorsAreNormalized() {
+    cache.markExisting("C:\\base\\dir");
+    assertThat(cache.isKnown("C:/base/./dir"), is(true));
+  }
+
+  @Test
+  public void invalidateRemovesDescendants() {
+    cache.markExisting("/base/dir/sub");
+    cache.markExisting("/base/directory");
+    cache.invalidate("/base/dir");
+    assertThat(cache.isKnown("/base/dir/sub"), is(false));
+    assertThat(cache.isKnown("/base/dir"), is(false));
+    assertThat(cache.isKnown("/base/directory"), is(true));
+    assertThat(cache.isKnown("/base"), is(true));
+  }
+
+  @Test
+  public void entriesExpire() throws Exception {
+    cache = new DirectoryCache(10, 1, MILLISECONDS);
+    cache.markExisting("/base");
+    Thread.sleep(10);
+    assertThat(cache.isKnown("/base"), is(false));
+  }
+
+  @Test
+  public void leastRecentlyUsedEntriesAreEvicted() {
+    cache = new DirectoryCache(2, 1, MINUTES);
+    cache.markExisting("a");
+    cache.markExisting("b");
+    cache.isKnown("a");
+    cache.markExisting("c");
+    assertThat(cache.isKnown("a"), is(true));
+    assertThat(cache.isKnown("b"), is(false));
+    assertThat(cache.isKnown("c"), is(true));
+  }
+
+  @Test
+  public void disabledCacheRemembersNothing() {
+    DirectoryCache disabled = DirectoryCache.disabled();
+    disabled.markExisting("/base");
+    assertThat(disabled.isEnabled(), is(false));
+    assertThat(disabled.isKnown("/base"), is(false));
+  }
+
+  @Test
+  public void commandSkipsExistenceChecksAndLockOnCacheHit() {
+    TestCommand command = new TestCommand(fileSystemWith(cache));
+    command.existing.add("/base/dir");
+
+    command.assureParentFolderExists("/base/dir/file1.txt", true);
+    int checksAfterFirstWrite = command.existsChecks.size();
+    command.assureParentFolderExists("/base/dir/file2.txt", true);
+
+    assertThat(command.existsChecks.size(), is(checksAfterFirstWrite));
+  }
+
+  @Test
+  public void createdDirectoryIsRemembered() {
+    TestCommand command = new TestCommand(fileSystemWith(cache));
+
+    command.assureParentFolderExists("/base/dir/file1.txt", true);
+    command.assureParentFolderExists("/base/dir/file2.txt", true);
+
+    assertThat(command.created.size(), is(1));
+    assertThat(cache.isKnown("/base/dir"), is(true));
+  }
+
+  @Test
+  public void forgottenDirectoryIsCheckedAgain() {
+    TestCommand command = new TestCommand(fileSystemWith(cache));
+    command.assureParentFolderExists("/base/dir/file1.txt", true);
+
+    command.existing.clear();
+    command.forgetDirectory("/base/dir");
+    command.assureParentFolderExists("/base/dir/file2.txt", true);
+
+    assertThat(command.created.size(), is(2));
+  }
+
+  private FileSystem fileSystemWith(DirectoryCache directoryCache) {
+    FileSystem fileSystem = mock(FileSystem.class);
+    when(fileSystem.getDirectoryCache()).thenReturn(directoryCache);
+    when(fileSystem.createMuleLock(anyString())).thenReturn(new ReentrantLock());
+    return fileSystem;
+  }
+
+  private static class TestCommand extends AbstractFileCommand<FileSystem, String> {
+
+    private final Set<String> existing = new HashSet<>();
+    private final List<String> existsChecks = new ArrayList<>();
+    private final List<String> created = new ArrayList<>();
+
+    private TestCommand(FileSystem fileSystem) {
+      super(fileSystem);
+    }
+
+    @Override
+    protected boolean exists(String path) {
+      existsChecks.add(path);
+      return existing.contains(path);
+    }
+
+    @Override
+    protected void doMkDirs(String directoryPath) {
+      created.add(directoryPath);
+      existing.add(directoryPath);
+    }
+
+    @Override
+    protected void assureParentFolderExists(String path, boolean createParentFolder) {
+      super.assureParentFolderExists(path, createParentFolder);
+    }
+
+    @Override
+    protected void forgetDirectory(String path) {
+      super.forgetDirectory(path);
+    }
+
+    @Override
+    protected String getParent(String path) {
+      return PathKeys.getParent(path);
+    }
+
+    @Override
+    protected String getBasePath(FileSystem fileSystem) {
+      return "/base";
+    }
+
+    @Override
+    protected String resolvePath(String basePath, String filePath) {
+      return PathKeys.resolve(basePath, filePath);
+    }
+
+    @Override
+    protected String getAbsolutePath(String path) {
+      return path;
+    }
+
+    @Override
+    protected String pathToString(String path) {
+      return path;
+    }
+  }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.cache;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mule.extension.file.common.api.DurabilityPolicy.FILE_SYNC;
+import static org.mule.extension.file.common.api.FileWriteMode.ATOMIC_OVERWRITE;
+import static org.mule.extension.file.common.api.FileWriteMode.OVERWRITE;
+
+import org.mule.extension.file.common.api.AbstractFileSystem;
+import org.mule.extension.file.common.api.FileAttributes;
+import org.mule.extension.file.common.api.FileWriteMode;
+import org.mule.extension.file.common.api.cache.ListingCache;
+import org.mule.extension.file.common.api.command.CopyCommand;
+import org.mule.extension.file.common.api.command.CreateDirectoryCommand;
+import org.mule.extension.file.common.api.command.DeleteCommand;
+import org.mule.extension.file.common.api.command.ListCommand;
+import org.mule.extension.file.common.api.command.MoveCommand;
+import org.mule.extension.file.common.api.command.ReadCommand;
+import org.mule.extension.file.common.api.command.RenameCommand;
+import org.mule.extension.file.common.api.command.WriteCommand;
+import org.mule.extension.file.common.api.lock.PathLock;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+import org.mule.tck.size.SmallTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.junit.Before;
+import org.junit.Test;
+
+@SmallTest
+public class ListingCacheTestCase {
+
+  private static final Predicate<FileAttributes> MATCHER = attributes -> true;
+
+  private ListingCache<FileAttributes> cache;
+  private AtomicInteger listings;
+
+  @Before
+  public void setUp() {
+    cache = new ListingCache<>(10, 1, MINUTES);
+    listings = new AtomicInteger();
+  }
+
+  @Test
+  public void repeatedListingIsServedFromCache() {
+    list("/base/dir", false, MATCHER);
+    list("/base/./dir/", false, MATCHER);
+
+    assertThat(listings.get(), is(1));
+    assertThat(cache.getHitCount(), is(1L));
+    assertThat(cache.getMissCount(), is(1L));
+    assertThat(cache.getHitRatio(), is(0.5));
+  }
+
+  @Test
+  public void cachedListingIsTransformedOnHit() {
+    List<Result<InputStream, FileAttributes>> copy = new ArrayList<>();
+    list("/base/dir", false, MATCHER);
+    List<Result<InputStream, FileAttributes>> hit =
+        cache.get("/base/dir", false, MATCHER, null, null, this::doList, results -> copy);
+
+    assertThat(hit, is(sameInstance(copy)));
+  }
+
+  @Test
+  public void differentMatcherOrRecursionIsListedAgain() {
+    list("/base/dir", false, MATCHER);
+    list("/base/dir", true, MATCHER);
+    list("/base/dir", false, attributes -> true);
+
+    assertThat(listings.get(), is(3));
+  }
+
+  @Test
+  public void writeIntoDirectoryInvalidatesIt() {
+    list("/base/dir", false, MATCHER);
+    cache.invalidate("/base/dir/file.txt");
+    list("/base/dir", false, MATCHER);
+
+    assertThat(listings.get(), is(2));
+  }
+
+  @Test
+  public void writeIntoSubDirectoryInvalidatesRecursiveListingsOnly() {
+    list("/base", false, MATCHER);
+    list("/base", true, MATCHER);
+    cache.invalidate("/base/dir/file.txt");
+    list("/base", false, MATCHER);
+    list("/base", true, MATCHER);
+
+    assertThat(listings.get(), is(3));
+  }
+
+  @Test
+  public void deletedDirectoryInvalidatesListingsInsideOfIt() {
+    list("/base/dir/sub", false, MATCHER);
+    list("/base/other", false, MATCHER);
+    cache.invalidate("/base/dir");
+    list("/base/dir/sub", false, MATCHER);
+    list("/base/other", false, MATCHER);
+
+    assertThat(listings.get(), is(3));
+  }
+
+  @Test
+  public void listingConcurrentWithInvalidationIsNotCached() {
+    cache.get("/base/dir", false, MATCHER, null, null, () -> {
+      cache.invalidate("/base/dir/file.txt");
+      return doList();
+    }, results -> results);
+    list("/base/dir", false, MATCHER);
+
+    assertThat(listings.get(), is(2));
+  }
+
+  @Test
+  public void leastRecentlyUsedListingIsEvicted() {
+    cache = new ListingCache<>(2, 1, MINUTES);
+    list("/base/a", false, MATCHER);
+    list("/base/b", false, MATCHER);
+    list("/base/a", false, MATCHER);
+    list("/base/c", false, MATCHER);
+    list("/base/a", false, MATCHER);
+    list("/base/b", false, MATCHER);
+
+    assertThat(listings.get(), is(4));
+    assertThat(cache.getEvictionCount(), is(2L));
+  }
+
+  @Test
+  public void disabledCacheAlwaysLists() {
+    cache = ListingCache.disabled();
+    list("/base/dir", false, MATCHER);
+    list("/base/dir", false, MATCHER);
+
+    assertThat(listings.get(), is(2));
+    assertThat(cache.isEnabled(), is(false));
+  }
+
+  @Test
+  public void writeThroughFileSystemInvalidatesListing() {
+    TestFileSystem fileSystem = new TestFileSystem();
+    fileSystem.list(null, "dir", false, MATCHER, null);
+    fileSystem.list(null, "dir", false, MATCHER, null);
+    fileSystem.write("dir/file.txt", content(), OVERWRITE, false, true, null);
+    fileSystem.list(null, "dir", false, MATCHER, null);
+    fileSystem.write("dir/file.txt", content(), OVERWRITE, FILE_SYNC, false, true);
+    fileSystem.list(null, "dir", false, MATCHER, null);
+
+    assertThat(listings.get(), is(3));
+  }
+
+  @Test
+  public void failedWriteThroughFileSystemInvalidatesListing() {
+    TestFileSystem fileSystem = new TestFileSystem();
+    fileSystem.failWrites = true;
+    fileSystem.list(null, "dir", false, MATCHER, null);
+    writeIgnoringFailure(() -> fileSystem.write("dir/file.txt", content(), OVERWRITE, false, true, null));
+    fileSystem.list(null, "dir", false, MATCHER, null);
+    writeIgnoringFailure(() -> fileSystem.write("dir/file.txt", content(), ATOMIC_OVERWRITE, FILE_SYNC, false, true));
+    fileSystem.list(null, "dir", false, MATCHER, null);
+
+    assertThat(listings.get(), is(3));
+  }
+
+  @Test
+  public void fileSystemOperationsInvalidateListings() {
+    TestFileSystem fileSystem = new TestFileSystem();
+    fileSystem.list(null, "dir", false, MATCHER, null);
+    fileSystem.delete("dir/file.txt");
+    fileSystem.list(null, "dir", false, MATCHER, null);
+    fileSystem.rename("dir/file.txt", "other.txt", true);
+    fileSystem.list(null, "dir", false, MATCHER, null);
+    fileSystem.createDirectory("dir/sub");
+    fileSystem.list(null, "dir", false, MATCHER, null);
+    fileSystem.copy(null, "other/file.txt", "dir", true, true, null);
+    fileSystem.list(null, "dir", false, MATCHER, null);
+    fileSystem.move(null, "dir/file.txt", "other", true, true, null);
+    fileSystem.list(null, "dir", false, MATCHER, null);
+
+    assertThat(listings.get(), is(6));
+  }
+
+  @Test
+  public void operationsOnOtherDirectoriesKeepListing() {
+    TestFileSystem fileSystem = new TestFileSystem();
+    fileSystem.list(null, "dir", false, MATCHER, null);
+    fileSystem.write("other/file.txt", content(), OVERWRITE, false, true, null);
+    fileSystem.delete("other/file.txt");
+    fileSystem.list(null, "dir", false, MATCHER, null);
+
+    assertThat(listings.get(), is(1));
+  }
+
+  private void writeIgnoringFailure(Runnable write) {
+    try {
+      write.run();
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  private InputStream content() {
+    return new ByteArrayInputStream("content".getBytes());
+  }
+
+  private void list(String directory, boolean recursive, Predicate<FileAttributes> matcher) {
+    cache.get(directory, recursive, matcher, null, null, this::doList, results -> results);
+  }
+
+  private List<Result<InputStream, FileAttributes>> doList() {
+    listings.incrementAndGet();
+    return singletonList(mock(Result.class));
+  }
+
+  private class TestFileSystem extends AbstractFileSystem<FileAttributes> {
+
+    private boolean failWrites = false;
+
+    private TestFileSystem() {
+      super("/base");
+    }
+
+    @Override
+    protected ListingCache<FileAttributes> createListingCache() {
+      return new ListingCache<>(10, 1, MINUTES);
+    }
+
+    @Override
+    protected ListCommand getListCommand() {
+      return (config, directoryPath, recursive, matcher) -> {
+        listings.incrementAndGet();
+        return emptyList();
+      };
+    }
+
+    @Override
+    protected WriteCommand getWriteCommand() {
+      return new WriteCommand() {
+
+        @Override
+        public void write(String filePath, InputStream content, FileWriteMode mode, boolean lock, boolean createParentDirectory,
+                          String encoding) {
+          if (failWrites) {
+            throw new IllegalStateException("write failed");
+          }
+        }
+
+        @Override
+        public boolean isSyncSupported() {
+          return true;
+        }
+      };
+    }
+
+    @Override
+    protected DeleteCommand getDeleteCommand() {
+      return filePath -> {};
+    }
+
+    @Override
+    protected RenameCommand getRenameCommand() {
+      return (filePath, newName, overwrite) -> {};
+    }
+
+    @Override
+    protected CreateDirectoryCommand getCreateDirectoryCommand() {
+      return directoryPath -> {};
+    }
+
+    @Override
+    protected CopyCommand getCopyCommand() {
+      return (config, sourcePath, targetPath, overwrite, createParentDirectories, renameTo) -> {};
+    }
+
+    @Override
+    protected MoveCommand getMoveCommand() {
+      return (config, sourcePath, targetPath, overwrite, createParentDirectories, renameTo) -> {};
+    }
+
+    @Override
+    protected ReadCommand getReadCommand() {
+      return null;
+    }
+
+    @Override
+    protected PathLock createLock(Path path) {
+      return null;
+    }
+
+    @Override
+    public void changeToBaseDir() {}
+  }
+}
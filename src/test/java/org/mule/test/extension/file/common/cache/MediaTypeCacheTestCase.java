@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mule.runtime.api.metadata.MediaType.APPLICATION_JSON;
+import static org.mule.runtime.api.metadata.MediaType.BINARY;
+import static org.mule.runtime.api.metadata.MediaType.TEXT;
+
+import org.mule.extension.file.common.api.cache.MediaTypeCache;
+import org.mule.runtime.api.metadata.MediaType;
+import org.mule.tck.size.SmallTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.activation.MimetypesFileTypeMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+@SmallTest
+public class MediaTypeCacheTestCase {
+
+  private MimetypesFileTypeMap mimetypesFileTypeMap;
+  private MediaTypeCache cache;
+  private AtomicInteger reads;
+
+  @Before
+  public void setUp() {
+    mimetypesFileTypeMap = mock(MimetypesFileTypeMap.class);
+    when(mimetypesFileTypeMap.getContentType(anyString())).thenReturn("text/csv");
+    cache = new MediaTypeCache(mimetypesFileTypeMap, 10);
+    reads = new AtomicInteger();
+  }
+
+  @Test
+  public void extensionIsResolvedOnce() {
+    MediaType first = cache.getMediaType("/in/first.csv");
+    MediaType second = cache.getMediaType("/in/second.csv");
+
+    assertThat(first.getSubType(), is("csv"));
+    assertThat(second, is(sameInstance(first)));
+    verify(mimetypesFileTypeMap, times(1)).getContentType(anyString());
+  }
+
+  @Test
+  public void customMappingTakesPrecedence() {
+    MediaType custom = MediaType.create("application", "vnd.custom");
+    cache.register("CSV", custom);
+
+    assertThat(cache.getMediaType("/in/file.csv"), is(sameInstance(custom)));
+    verify(mimetypesFileTypeMap, never()).getContentType(anyString());
+  }
+
+  @Test
+  public void amountOfExtensionsIsBounded() {
+    cache = new MediaTypeCache(mimetypesFileTypeMap, 1);
+    cache.getMediaType("/in/file.csv");
+    cache.getMediaType("/in/file.txt");
+    cache.getMediaType("/in/file.txt");
+    cache.getMediaType("/in/file.csv");
+
+    verify(mimetypesFileTypeMap, times(3)).getContentType(anyString());
+  }
+
+  @Test
+  public void contentIsNotReadForFilesWithExtension() {
+    cache.getMediaType("/in/file.csv", content("{}"));
+    assertThat(reads.get(), is(0));
+  }
+
+  @Test
+  public void extensionlessFilesAreSniffed() {
+    assertThat(cache.getMediaType("/in/data", content("  {\"key\": \"value\"}")), is(APPLICATION_JSON));
+    assertThat(cache.getMediaType("/in/notes", content("some notes\n")), is(TEXT));
+    assertThat(cache.getMediaType("/in/report", content("%PDF-1.4")).getSubType(), is("pdf"));
+    assertThat(cache.getMediaType("/in.d/blob", () -> count(new ByteArrayInputStream(new byte[] {0, 1, 2}))),
+               is(BINARY));
+    assertThat(reads.get(), is(4));
+    verify(mimetypesFileTypeMap, never()).getContentType(anyString());
+  }
+
+  @Test
+  public void extensionlessFilesWithoutContentAreBinary() {
+    assertThat(cache.getMediaType("/in/data"), is(BINARY));
+    assertThat(cache.getMediaType("/in/data.", content("text")), is(TEXT));
+  }
+
+  private Supplier<InputStream> content(String content) {
+    return () -> count(new ByteArrayInputStream(content.getBytes(UTF_8)));
+  }
+
+  private InputStream count(InputStream stream) {
+    reads.incrementAndGet();
+    return stream;
+  }
+}
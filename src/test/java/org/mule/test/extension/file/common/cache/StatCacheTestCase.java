@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.cache;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.mule.extension.file.common.api.AbstractFileSystem;
+import org.mule.extension.file.common.api.FileAttributes;
+import org.mule.extension.file.common.api.cache.StatCache;
+import org.mule.extension.file.common.api.command.CopyCommand;
+import org.mule.extension.file.common.api.command.CreateDirectoryCommand;
+import org.mule.extension.file.common.api.command.DeleteCommand;
+import org.mule.extension.file.common.api.command.ListCommand;
+import org.mule.extension.file.common.api.command.MoveCommand;
+import org.mule.extension.file.common.api.command.ReadCommand;
+import org.mule.extension.file.common.api.command.RenameCommand;
+import org.mule.extension.file.common.api.command.WriteCommand;
+import org.mule.extension.file.common.api.lock.PathLock;
+import org.mule.tck.size.SmallTest;
+
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+@SmallTest
+public class StatCacheTestCase {
+
+  private final Object owner = new Object();
+
+  @Test
+  public void nothingIsCachedOutsideScope() {
+    assertThat(StatCache.current(owner), is(nullValue()));
+  }
+
+  @Test
+  public void repeatedLookupIsAnsweredFromCache() {
+    try (StatCache.Scope scope = StatCache.open(owner)) {
+      StatCache cache = StatCache.current(owner);
+      assertThat(cache.exists("/base/file.txt", () -> true), is(true));
+      assertThat(cache.exists("/base/./file.txt", () -> false), is(true));
+
+      assertThat(cache.getLookupCount(), is(1));
+      assertThat(cache.getHitCount(), is(1));
+    }
+    assertThat(StatCache.current(owner), is(nullValue()));
+  }
+
+  @Test
+  public void missingAttributesAreRememberedAsNotExisting() {
+    try (StatCache.Scope scope = StatCache.open(owner)) {
+      StatCache cache = StatCache.current(owner);
+      assertThat(cache.getAttributes("/base/file.txt", () -> null), is(nullValue()));
+      assertThat(cache.exists("/base/file.txt", () -> true), is(false));
+
+      assertThat(cache.getLookupCount(), is(1));
+      assertThat(cache.getHitCount(), is(1));
+    }
+  }
+
+  @Test
+  public void nestedScopeOfSameOwnerSharesCache() {
+    try (StatCache.Scope outer = StatCache.open(owner)) {
+      StatCache cache = StatCache.current(owner);
+      try (StatCache.Scope inner = StatCache.open(owner)) {
+        assertThat(StatCache.current(owner), is(sameInstance(cache)));
+        cache.exists("/base/file.txt", () -> true);
+      }
+
+      assertThat(StatCache.current(owner), is(sameInstance(cache)));
+      assertThat(cache.exists("/base/file.txt", () -> false), is(true));
+    }
+  }
+
+  @Test
+  public void scopeOfOtherOwnerIsSeparate() {
+    Object other = new Object();
+    try (StatCache.Scope outer = StatCache.open(owner)) {
+      StatCache cache = StatCache.current(owner);
+      try (StatCache.Scope inner = StatCache.open(other)) {
+        assertThat(StatCache.current(owner), is(nullValue()));
+        assertThat(StatCache.current(other).exists("/base/file.txt", () -> true), is(true));
+      }
+
+      assertThat(StatCache.current(owner), is(sameInstance(cache)));
+      assertThat(StatCache.current(other), is(nullValue()));
+      assertThat(cache.exists("/base/file.txt", () -> false), is(false));
+    }
+  }
+
+  @Test
+  public void invalidationForgetsPathParentAndDescendants() {
+    try (StatCache.Scope scope = StatCache.open(owner)) {
+      StatCache cache = StatCache.current(owner);
+      for (String path : new String[] {"/base", "/base/dir", "/base/dir/file.txt", "/base/other.txt"}) {
+        cache.exists(path, () -> true);
+      }
+
+      cache.invalidate("/base/dir");
+
+      assertThat(cache.exists("/base", () -> false), is(false));
+      assertThat(cache.exists("/base/dir", () -> false), is(false));
+      assertThat(cache.exists("/base/dir/file.txt", () -> false), is(false));
+      assertThat(cache.exists("/base/other.txt", () -> false), is(true));
+      assertThat(cache.getHitCount(), is(1));
+    }
+  }
+
+  @Test
+  public void nestedDeleteInvalidatesEnclosingScope() {
+    TestFileSystem fileSystem = new TestFileSystem();
+    try (StatCache.Scope scope = StatCache.open(fileSystem)) {
+      StatCache cache = StatCache.current(fileSystem);
+      cache.exists("/base/target.txt", () -> true);
+
+      fileSystem.delete("target.txt");
+
+      assertThat(cache.exists("/base/target.txt", () -> false), is(false));
+    }
+  }
+
+  @Test
+  public void nestedRenameInvalidatesBothNames() {
+    TestFileSystem fileSystem = new TestFileSystem();
+    try (StatCache.Scope scope = StatCache.open(fileSystem)) {
+      StatCache cache = StatCache.current(fileSystem);
+      cache.exists("/base/dir/source.txt", () -> true);
+      cache.exists("/base/dir/renamed.txt", () -> false);
+
+      fileSystem.rename("dir/source.txt", "renamed.txt", false);
+
+      assertThat(cache.exists("/base/dir/source.txt", () -> false), is(false));
+      assertThat(cache.exists("/base/dir/renamed.txt", () -> true), is(true));
+      assertThat(cache.getHitCount(), is(0));
+    }
+  }
+
+  private static class TestFileSystem extends AbstractFileSystem<FileAttributes> {
+
+    private TestFileSystem() {
+      super("/base");
+    }
+
+    @Override
+    protected DeleteCommand getDeleteCommand() {
+      return filePath -> {};
+    }
+
+    @Override
+    protected RenameCommand getRenameCommand() {
+      return (filePath, newName, overwrite) -> {};
+    }
+
+    @Override
+    protected ListCommand getListCommand() {
+      return null;
+    }
+
+    @Override
+    protected ReadCommand getReadCommand() {
+      return null;
+    }
+
+    @Override
+    protected WriteCommand getWriteCommand() {
+      return null;
+    }
+
+    @Override
+    protected CopyCommand getCopyCommand() {
+      return null;
+    }
+
+    @Override
+    protected MoveCommand getMoveCommand() {
+      return null;
+    }
+
+    @Override
+    protected CreateDirectoryCommand getCreateDirectoryCommand() {
+      return null;
+    }
+
+    @Override
+    protected PathLock createLock(Path path) {
+      return null;
+    }
+
+    @Override
+    public void changeToBaseDir() {}
+  }
+}
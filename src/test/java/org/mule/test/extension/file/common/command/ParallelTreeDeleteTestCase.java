@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.command;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.mule.extension.file.common.api.command.ParallelTreeDelete;
+import org.mule.extension.file.common.api.command.TreeDeleteReport;
+import org.mule.tck.size.SmallTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SmallTest
+public class ParallelTreeDeleteTestCase {
+
+  private static final String FAILING_FILE = "root/b/locked.txt";
+  private static final int DEPTH = 10000;
+
+  private final ExecutorService executor = newFixedThreadPool(4);
+  private final Map<String, Boolean> tree = new ConcurrentHashMap<>();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+  private final AtomicInteger picked = new AtomicInteger();
+  private final AtomicInteger maxPending = new AtomicInteger();
+
+  @Before
+  public void before() {
+    directory("root");
+    directory("root/a");
+    directory("root/a/aa");
+    directory("root/b");
+    for (int i = 0; i < 10; i++) {
+      file("root/a/file" + i);
+      file("root/a/aa/file" + i);
+      file("root/b/file" + i);
+    }
+  }
+
+  @After
+  public void after() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void deleteWholeTree() {
+    TreeDeleteReport report = new InMemoryTreeDelete(3).delete("root");
+
+    assertThat(report.isSuccessful(), is(true));
+    assertThat(report.getDeletedCount(), is(34L));
+    assertThat(tree.isEmpty(), is(true));
+    assertThat(maxInFlight.get() <= 3, is(true));
+  }
+
+  @Test
+  public void failuresKeepAncestors() {
+    file(FAILING_FILE);
+    TreeDeleteReport report = new InMemoryTreeDelete(4).delete("root");
+
+    assertThat(report.isSuccessful(), is(false));
+    assertThat(report.getFailures().size(), is(1));
+    assertThat(report.getFailures().get(0).getPath(), is(FAILING_FILE));
+    assertThat(tree.containsKey("root/a"), is(false));
+    assertThat(tree.containsKey("root/b/file0"), is(false));
+    assertThat(tree.containsKey("root/b"), is(true));
+    assertThat(tree.containsKey("root"), is(true));
+  }
+
+  @Test
+  public void workIsPickedOnlyWhenThereIsRoomForIt() {
+    for (int i = 0; i < 500; i++) {
+      file("root/wide" + i);
+    }
+    TreeDeleteReport report = new InMemoryTreeDelete(3).delete("root");
+
+    assertThat(report.isSuccessful(), is(true));
+    assertThat(tree.isEmpty(), is(true));
+    // the children of a directory are only looked at once there's room to delete them, so at most the operations in flight
+    // plus the four directories of the tree are pending at once, instead of every one of the 534 files and directories
+    assertThat(maxPending.get() <= 3 + 4, is(true));
+  }
+
+  @Test
+  public void deepTreeWithRejectingExecutor() {
+    Executor rejecting = command -> {
+      throw new RejectedExecutionException();
+    };
+    TreeDeleteReport report = new DeepTreeDelete(rejecting).delete(0);
+
+    assertThat(report.isSuccessful(), is(true));
+    assertThat(report.getDeletedCount(), is(2L * (DEPTH + 1)));
+  }
+
+  @Test
+  public void deepTreeWithCallerRunsExecutor() {
+    TreeDeleteReport report = new DeepTreeDelete(Runnable::run).delete(0);
+
+    assertThat(report.isSuccessful(), is(true));
+    assertThat(report.getDeletedCount(), is(2L * (DEPTH + 1)));
+  }
+
+  @Test
+  public void deepTree() {
+    TreeDeleteReport report = new DeepTreeDelete(executor).delete(0);
+
+    assertThat(report.isSuccessful(), is(true));
+    assertThat(report.getDeletedCount(), is(2L * (DEPTH + 1)));
+  }
+
+  private void directory(String path) {
+    tree.put(path, true);
+  }
+
+  private void file(String path) {
+    tree.put(path, false);
+  }
+
+  private class InMemoryTreeDelete extends ParallelTreeDelete<String> {
+
+    private InMemoryTreeDelete(int parallelism) {
+      super(executor, parallelism);
+    }
+
+    @Override
+    protected List<String> listChildren(String directory) {
+      track();
+      List<String> children = new ArrayList<>();
+      for (String path : tree.keySet()) {
+        if (path.startsWith(directory + "/") && path.indexOf('/', directory.length() + 1) < 0) {
+          children.add(path);
+        }
+      }
+      return children;
+    }
+
+    @Override
+    protected boolean isDirectory(String path) {
+      maxPending.accumulateAndGet(picked.incrementAndGet(), Math::max);
+      return tree.get(path);
+    }
+
+    @Override
+    protected void deleteFile(String file) {
+      track();
+      picked.decrementAndGet();
+      if (file.equals(FAILING_FILE)) {
+        throw new IllegalStateException("locked");
+      }
+      tree.remove(file);
+    }
+
+    @Override
+    protected void deleteEmptyDirectory(String directory) {
+      track();
+      picked.decrementAndGet();
+      tree.remove(directory);
+    }
+
+    @Override
+    protected String pathToString(String path) {
+      return path;
+    }
+
+    private void track() {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(2);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      inFlight.decrementAndGet();
+    }
+  }
+
+  /**
+   * A chain of {@link #DEPTH} nested directories, each one containing a file. Directories are identified by their depth, and
+   * files by the negated depth of the directory which follows theirs.
+   */
+  private static class DeepTreeDelete extends ParallelTreeDelete<Integer> {
+
+    private DeepTreeDelete(Executor executor) {
+      super(executor, 4);
+    }
+
+    @Override
+    protected List<Integer> listChildren(Integer directory) {
+      List<Integer> children = new ArrayList<>();
+      children.add(-(directory + 1));
+      if (directory < DEPTH) {
+        children.add(directory + 1);
+      }
+      return children;
+    }
+
+    @Override
+    protected boolean isDirectory(Integer path) {
+      return path >= 0;
+    }
+
+    @Override
+    protected void deleteFile(Integer file) {}
+
+    @Override
+    protected void deleteEmptyDirectory(Integer directory) {}
+
+    @Override
+    protected String pathToString(Integer path) {
+      return String.valueOf(path);
+    }
+  }
+}
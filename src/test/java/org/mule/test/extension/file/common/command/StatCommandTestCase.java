@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.command;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.mule.extension.file.common.api.FileAttributes;
+import org.mule.extension.file.common.api.command.StatCommand;
+import org.mule.tck.size.SmallTest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+@SmallTest
+public class StatCommandTestCase {
+
+  private final Map<String, FileAttributes> files = new HashMap<>();
+  private final List<String> lookups = new ArrayList<>();
+
+  private final StatCommand<FileAttributes> command = filePath -> {
+    lookups.add(filePath);
+    return files.get(filePath);
+  };
+
+  @Test
+  public void bulkLookupKeepsOrderOfGivenPaths() {
+    addFile("/in/a.txt");
+    addFile("/in/b.txt");
+    addFile("/in/c.txt");
+
+    Map<String, FileAttributes> attributes = command.getAttributes(asList("/in/c.txt", "/in/a.txt", "/in/b.txt"));
+
+    assertThat(new ArrayList<>(attributes.keySet()), is(asList("/in/c.txt", "/in/a.txt", "/in/b.txt")));
+    assertThat(attributes.get("/in/a.txt"), is(files.get("/in/a.txt")));
+  }
+
+  @Test
+  public void bulkLookupOmitsMissingFiles() {
+    addFile("/in/a.txt");
+
+    Map<String, FileAttributes> attributes = command.getAttributes(asList("/in/a.txt", "/in/missing.txt"));
+
+    assertThat(attributes.size(), is(1));
+    assertThat(attributes.containsKey("/in/missing.txt"), is(false));
+    assertThat(lookups, is(asList("/in/a.txt", "/in/missing.txt")));
+  }
+
+  private void addFile(String path) {
+    FileAttributes attributes = mock(FileAttributes.class);
+    when(attributes.getPath()).thenReturn(path);
+    files.put(path, attributes);
+  }
+}
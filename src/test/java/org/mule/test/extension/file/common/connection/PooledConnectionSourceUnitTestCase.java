@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.connection;
+
+import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsNot.not;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.mule.extension.file.common.api.AbstractConnectedFileInputStreamSupplier;
+import org.mule.extension.file.common.api.FileAttributes;
+import org.mule.extension.file.common.api.FileConnectorConfig;
+import org.mule.extension.file.common.api.FileSystem;
+import org.mule.extension.file.common.api.connection.ConnectionPool;
+import org.mule.extension.file.common.api.connection.PooledConnectionSource;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.connection.ConnectionHandler;
+import org.mule.runtime.api.connection.ConnectionValidationResult;
+import org.mule.runtime.api.exception.MuleRuntimeException;
+import org.mule.runtime.core.api.connector.ConnectionManager;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PooledConnectionSourceUnitTestCase {
+
+  private FileConnectorConfig fileConnectorConfig = mock(FileConnectorConfig.class);
+
+  private ConnectionManager connectionManager = mock(ConnectionManager.class);
+
+  private ConnectionValidationResult validationResult = mock(ConnectionValidationResult.class);
+
+  private List<ConnectionHandler> connectionHandlers = new ArrayList<>();
+
+  private ConnectionPool<FileSystem> connectionPool;
+
+  @Before
+  public void doSetup() throws ConnectionException {
+    connectionPool = new ConnectionPool<>(fileConnectorConfig, connectionManager, 2, 1, MINUTES);
+    when(validationResult.isValid()).thenReturn(true);
+    when(connectionManager.testConnectivity(any(), any())).thenReturn(validationResult);
+    when(connectionManager.getConnection(any())).thenAnswer(invocationOnMock -> {
+      ConnectionHandler connectionHandler = mock(ConnectionHandler.class);
+      when(connectionHandler.getConnection()).thenReturn(mock(FileSystem.class));
+      connectionHandlers.add(connectionHandler);
+      return connectionHandler;
+    });
+  }
+
+  @After
+  public void tearDown() {
+    connectionPool.close();
+  }
+
+  @Test
+  public void releasedConnectionIsReused() throws ConnectionException {
+    PooledConnectionSource<FileSystem> connectionSource = new PooledConnectionSource<>(connectionPool, "/file.txt");
+    FileSystem firstFileSystem = connectionSource.getConnection();
+    connectionSource.releaseConnection();
+    FileSystem secondFileSystem = connectionSource.getConnection();
+    connectionSource.releaseConnection();
+
+    assertThat(firstFileSystem, is(secondFileSystem));
+    verify(connectionManager, times(1)).getConnection(any());
+    verify(connectionHandlers.get(0), times(0)).release();
+  }
+
+  @Test
+  public void connectionLastUsedForSameKeyIsPreferred() throws ConnectionException {
+    PooledConnectionSource<FileSystem> firstSource = new PooledConnectionSource<>(connectionPool, "/first.txt");
+    PooledConnectionSource<FileSystem> secondSource = new PooledConnectionSource<>(connectionPool, "/second.txt");
+    FileSystem firstFileSystem = firstSource.getConnection();
+    FileSystem secondFileSystem = secondSource.getConnection();
+    firstSource.releaseConnection();
+    secondSource.releaseConnection();
+
+    assertThat(firstSource.getConnection(), is(firstFileSystem));
+    assertThat(secondSource.getConnection(), is(secondFileSystem));
+  }
+
+  @Test
+  public void invalidConnectionIsReplaced() throws ConnectionException {
+    PooledConnectionSource<FileSystem> connectionSource = new PooledConnectionSource<>(connectionPool, "/file.txt");
+    FileSystem firstFileSystem = connectionSource.getConnection();
+    connectionSource.releaseConnection();
+
+    when(validationResult.isValid()).thenReturn(false);
+    FileSystem secondFileSystem = connectionSource.getConnection();
+
+    assertThat(firstFileSystem, is(not(secondFileSystem)));
+    verify(connectionHandlers.get(0), times(1)).release();
+  }
+
+  @Test
+  public void invalidatedConnectionIsNotReused() throws ConnectionException {
+    PooledConnectionSource<FileSystem> connectionSource = new PooledConnectionSource<>(connectionPool, "/file.txt");
+    connectionSource.getConnection();
+    connectionSource.invalidateConnection();
+
+    assertThat(connectionPool.getIdleCount(), is(0));
+    verify(connectionHandlers.get(0), times(1)).invalidate();
+  }
+
+  @Test
+  public void idleConnectionsAreEvicted() throws Exception {
+    connectionPool.close();
+    connectionPool = new ConnectionPool<>(fileConnectorConfig, connectionManager, 2, 1, MILLISECONDS);
+    PooledConnectionSource<FileSystem> connectionSource = new PooledConnectionSource<>(connectionPool, "/file.txt");
+    connectionSource.getConnection();
+    connectionSource.releaseConnection();
+
+    Thread.sleep(10);
+    connectionPool.evictIdleConnections();
+
+    assertThat(connectionPool.getIdleCount(), is(0));
+    verify(connectionHandlers.get(0), times(1)).release();
+  }
+
+  @Test
+  public void idleConnectionsAreEvictedInTheBackground() throws Exception {
+    connectionPool.close();
+    connectionPool = new ConnectionPool<>(fileConnectorConfig, connectionManager, 2, 10, MILLISECONDS);
+    PooledConnectionSource<FileSystem> connectionSource = new PooledConnectionSource<>(connectionPool, "/file.txt");
+    connectionSource.getConnection();
+    connectionSource.releaseConnection();
+
+    long deadline = currentTimeMillis() + 5000;
+    while (connectionPool.getIdleCount() > 0 && currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+
+    assertThat(connectionPool.getIdleCount(), is(0));
+    verify(connectionHandlers.get(0), times(1)).release();
+  }
+
+  @Test
+  public void connectionIsReleasedWhenRefreshingAttributesFails() {
+    FileAttributes attributes = mock(FileAttributes.class);
+    when(attributes.getPath()).thenReturn("/file.txt");
+    AbstractConnectedFileInputStreamSupplier<FileSystem> supplier =
+        new AbstractConnectedFileInputStreamSupplier<FileSystem>(attributes, 1L, connectionPool) {
+
+          @Override
+          protected FileAttributes getUpdatedAttributes(FileSystem fileSystem) {
+            throw new IllegalStateException("Broken connection");
+          }
+
+          @Override
+          protected InputStream getContentInputStream(FileSystem fileSystem) {
+            return null;
+          }
+
+          @Override
+          protected boolean fileWasDeleted(MuleRuntimeException e) {
+            return false;
+          }
+        };
+
+    try {
+      supplier.get();
+      fail("Refreshing the attributes should have failed");
+    } catch (IllegalStateException e) {
+      assertThat(connectionPool.getIdleCount(), is(1));
+    }
+  }
+
+  @Test
+  public void borrowedConnectionsAreBounded() throws Exception {
+    PooledConnectionSource<FileSystem> firstSource = new PooledConnectionSource<>(connectionPool, "/first.txt");
+    PooledConnectionSource<FileSystem> secondSource = new PooledConnectionSource<>(connectionPool, "/second.txt");
+    PooledConnectionSource<FileSystem> thirdSource = new PooledConnectionSource<>(connectionPool, "/third.txt");
+    firstSource.getConnection();
+    secondSource.getConnection();
+
+    CountDownLatch borrowed = new CountDownLatch(1);
+    Thread borrower = new Thread(() -> {
+      try {
+        thirdSource.getConnection();
+        borrowed.countDown();
+      } catch (ConnectionException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    borrower.start();
+
+    assertThat(borrowed.await(100, MILLISECONDS), is(false));
+    firstSource.releaseConnection();
+    assertThat(borrowed.await(5, SECONDS), is(true));
+    borrower.join();
+    verify(connectionManager, times(2)).getConnection(any());
+  }
+
+  @Test
+  public void connectionsReleasedAfterCloseAreDiscarded() throws ConnectionException {
+    PooledConnectionSource<FileSystem> connectionSource = new PooledConnectionSource<>(connectionPool, "/file.txt");
+    connectionSource.getConnection();
+    connectionPool.close();
+    connectionSource.releaseConnection();
+
+    assertThat(connectionPool.getIdleCount(), is(0));
+    verify(connectionHandlers.get(0), times(1)).release();
+  }
+}
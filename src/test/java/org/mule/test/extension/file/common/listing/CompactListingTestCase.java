@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.listing;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.mule.extension.file.common.api.AbstractFileAttributes;
+import org.mule.extension.file.common.api.AbstractFileSystem;
+import org.mule.extension.file.common.api.FileConnectorConfig;
+import org.mule.extension.file.common.api.command.CopyCommand;
+import org.mule.extension.file.common.api.command.CreateDirectoryCommand;
+import org.mule.extension.file.common.api.command.DeleteCommand;
+import org.mule.extension.file.common.api.command.ListCommand;
+import org.mule.extension.file.common.api.command.MoveCommand;
+import org.mule.extension.file.common.api.command.ReadCommand;
+import org.mule.extension.file.common.api.command.RenameCommand;
+import org.mule.extension.file.common.api.command.WriteCommand;
+import org.mule.extension.file.common.api.listing.CompactListing;
+import org.mule.extension.file.common.api.lock.PathLock;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+import org.mule.tck.size.SmallTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+@SmallTest
+public class CompactListingTestCase {
+
+  @Test
+  public void keepsAttributesOfEachFile() {
+    CompactListing listing = listing(new TestAttributes("/in/a.txt", 10, false, 1000),
+                                     new TestAttributes("/in/sub", 0, true, 2000),
+                                     new TestAttributes("/in/sub/b.txt", 20, false, 3000));
+
+    assertThat(listing.size(), is(3));
+    assertThat(listing.getDirectoryCount(), is(2));
+    assertThat(listing.get(0).getPath(), is("/in/a.txt"));
+    assertThat(listing.get(0).getName(), is("a.txt"));
+    assertThat(listing.get(0).getSize(), is(10L));
+    assertThat(listing.get(0).isRegularFile(), is(true));
+    assertThat(listing.get(1).isDirectory(), is(true));
+    assertThat(listing.get(2).getParentPath(), is("/in/sub/"));
+    assertThat(listing.get(2).getLastModifiedTime(), is(3000L));
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void indexOutOfBounds() {
+    listing(new TestAttributes("/in/a.txt", 10, false, 1000)).get(1);
+  }
+
+  @Test
+  public void entriesOfDifferentListingsAreEqual() {
+    CompactListing first = listing(new TestAttributes("/in/a.txt", 10, false, 1000),
+                                   new TestAttributes("/in/b.txt", 20, false, 2000));
+    CompactListing second = listing(new TestAttributes("/in/b.txt", 20, false, 2000));
+
+    assertThat(first.get(1).equals(second.get(0)), is(true));
+    assertThat(first.get(1).hashCode(), is(second.get(0).hashCode()));
+    assertThat(first.get(0).equals(second.get(0)), is(false));
+    assertThat(first.contains(second.get(0)), is(true));
+    assertThat(first.indexOf(second.get(0)), is(1));
+  }
+
+  @Test
+  public void entriesWithDifferentAttributesAreNotEqual() {
+    CompactListing listing = listing(new TestAttributes("/in/a.txt", 10, false, 1000),
+                                     new TestAttributes("/in/a.txt", 11, false, 1000),
+                                     new TestAttributes("/in/a.txt", 10, false, 1001),
+                                     new TestAttributes("/in/a.txt", 10, true, 1000),
+                                     new TestAttributes("/out/a.txt", 10, false, 1000));
+
+    Set<CompactListing.Entry> entries = new HashSet<>(listing);
+    assertThat(entries.size(), is(5));
+  }
+
+  @Test
+  public void listingsWithEqualEntriesAreEqual() {
+    CompactListing listing = listing(new TestAttributes("/in/a.txt", 10, false, 1000));
+    CompactListing other = listing(new TestAttributes("/in/a.txt", 10, false, 1000));
+
+    assertThat(listing.equals(other), is(true));
+    assertThat(listing.hashCode(), is(other.hashCode()));
+  }
+
+  @Test
+  public void ofListing() {
+    List<Result<InputStream, TestAttributes>> results = new ArrayList<>();
+    results.add(Result.<InputStream, TestAttributes>builder().attributes(new TestAttributes("/in/a.txt", 10, false, 1000))
+        .build());
+    results.add(Result.<InputStream, TestAttributes>builder().attributes(new TestAttributes("/in/b.txt", 20, false, 2000))
+        .build());
+
+    CompactListing listing = CompactListing.of(results, TestAttributes::getLastModifiedTime);
+
+    assertThat(listing.size(), is(2));
+    assertThat(listing.get(1).getPath(), is("/in/b.txt"));
+    assertThat(listing.get(1).getLastModifiedTime(), is(2000L));
+  }
+
+  @Test
+  public void listCompactBuildsWhileVisiting() {
+    List<TestAttributes> files = asList(new TestAttributes("/base/in/a.txt", 10, false, 1000),
+                                        new TestAttributes("/base/in/b.csv", 20, false, 2000),
+                                        new TestAttributes("/base/in/c.txt", 30, false, 3000));
+    TestFileSystem fileSystem = new TestFileSystem(new ListCommand<TestAttributes>() {
+
+      @Override
+      public List<Result<InputStream, TestAttributes>> list(FileConnectorConfig config, String directoryPath,
+                                                            boolean recursive, Predicate<TestAttributes> matcher) {
+        throw new AssertionError("Files should be visited rather than listed");
+      }
+
+      @Override
+      public void visit(FileConnectorConfig config, String directoryPath, boolean recursive,
+                        Predicate<TestAttributes> matcher, Consumer<TestAttributes> visitor) {
+        files.stream().filter(matcher).forEach(visitor);
+      }
+    });
+
+    CompactListing listing = fileSystem.listCompact(null, "in", false, attributes -> attributes.getName().endsWith(".txt"),
+                                                    TestAttributes::getLastModifiedTime);
+
+    assertThat(listing.size(), is(2));
+    assertThat(listing.get(0).getPath(), is("/base/in/a.txt"));
+    assertThat(listing.get(1).getPath(), is("/base/in/c.txt"));
+    assertThat(listing.get(1).getLastModifiedTime(), is(3000L));
+  }
+
+  @Test
+  public void visitFallsBackToListing() {
+    List<TestAttributes> files = asList(new TestAttributes("/base/in/a.txt", 10, false, 1000),
+                                        new TestAttributes("/base/in/b.csv", 20, false, 2000));
+    TestFileSystem fileSystem = new TestFileSystem((config, directoryPath, recursive, matcher) -> {
+      List<Result<InputStream, TestAttributes>> results = new ArrayList<>();
+      for (TestAttributes file : files) {
+        if (matcher.test(file)) {
+          results.add(Result.<InputStream, TestAttributes>builder().attributes(file).build());
+        }
+      }
+      return results;
+    });
+
+    CompactListing listing = fileSystem.listCompact(null, "in", false, attributes -> attributes.getName().endsWith(".txt"),
+                                                    TestAttributes::getLastModifiedTime);
+
+    assertThat(listing.size(), is(1));
+    assertThat(listing.get(0).getPath(), is("/base/in/a.txt"));
+  }
+
+  @Test
+  public void singleEntrySurvivesSerialization() throws Exception {
+    CompactListing listing = listing(new TestAttributes("/in/a.txt", 10, false, 1000),
+                                     new TestAttributes("/in/b.txt", 20, false, 2000));
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(listing.get(1));
+    }
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      CompactListing.Entry entry = (CompactListing.Entry) in.readObject();
+      assertThat(entry.equals(listing.get(1)), is(true));
+    }
+  }
+
+  private static CompactListing listing(TestAttributes... files) {
+    CompactListing.Builder builder = CompactListing.builder();
+    for (TestAttributes file : files) {
+      builder.add(file, file.getLastModifiedTime());
+    }
+    return builder.build();
+  }
+
+  private static class TestAttributes extends AbstractFileAttributes {
+
+    private final long size;
+    private final boolean directory;
+    private final long lastModifiedTime;
+
+    private TestAttributes(String path, long size, boolean directory, long lastModifiedTime) {
+      super(Paths.get(path));
+      this.size = size;
+      this.directory = directory;
+      this.lastModifiedTime = lastModifiedTime;
+    }
+
+    @Override
+    public long getSize() {
+      return size;
+    }
+
+    @Override
+    public boolean isRegularFile() {
+      return !directory;
+    }
+
+    @Override
+    public boolean isDirectory() {
+      return directory;
+    }
+
+    @Override
+    public boolean isSymbolicLink() {
+      return false;
+    }
+
+    public long getLastModifiedTime() {
+      return lastModifiedTime;
+    }
+  }
+
+  private static class TestFileSystem extends AbstractFileSystem<TestAttributes> {
+
+    private final ListCommand<TestAttributes> listCommand;
+
+    private TestFileSystem(ListCommand<TestAttributes> listCommand) {
+      super("/base");
+      this.listCommand = listCommand;
+    }
+
+    @Override
+    protected ListCommand getListCommand() {
+      return listCommand;
+    }
+
+    @Override
+    protected DeleteCommand getDeleteCommand() {
+      return null;
+    }
+
+    @Override
+    protected RenameCommand getRenameCommand() {
+      return null;
+    }
+
+    @Override
+    protected ReadCommand getReadCommand() {
+      return null;
+    }
+
+    @Override
+    protected WriteCommand getWriteCommand() {
+      return null;
+    }
+
+    @Override
+    protected CopyCommand getCopyCommand() {
+      return null;
+    }
+
+    @Override
+    protected MoveCommand getMoveCommand() {
+      return null;
+    }
+
+    @Override
+    protected CreateDirectoryCommand getCreateDirectoryCommand() {
+      return null;
+    }
+
+    @Override
+    protected PathLock createLock(Path path) {
+      return null;
+    }
+
+    @Override
+    public void changeToBaseDir() {}
+  }
+}
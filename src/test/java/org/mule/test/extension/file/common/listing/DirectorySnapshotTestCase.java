@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.listing;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mule.extension.file.common.api.listing.FileChange.Type.CREATED;
+import static org.mule.extension.file.common.api.listing.FileChange.Type.DELETED;
+import static org.mule.extension.file.common.api.listing.FileChange.Type.MODIFIED;
+
+import org.mule.extension.file.common.api.listing.DirectorySnapshot;
+import org.mule.extension.file.common.api.listing.FileChange;
+import org.mule.tck.size.SmallTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+
+import org.junit.Test;
+
+@SmallTest
+public class DirectorySnapshotTestCase {
+
+  @Test
+  public void allFilesAreCreatedSinceEmptySnapshot() {
+    DirectorySnapshot snapshot = DirectorySnapshot.builder().add("/in/b.txt", 10, 1).add("/in/a.txt", 20, 2).build();
+    List<FileChange> changes = snapshot.changesSince(DirectorySnapshot.empty());
+
+    assertThat(changes.size(), is(2));
+    assertChange(changes.get(0), CREATED, "/in/a.txt");
+    assertChange(changes.get(1), CREATED, "/in/b.txt");
+  }
+
+  @Test
+  public void detectsCreatedModifiedAndDeletedFiles() {
+    DirectorySnapshot previous = DirectorySnapshot.builder()
+        .add("/in/a.txt", 10, 1)
+        .add("/in/b.txt", 10, 1)
+        .add("/in/c.txt", 10, 1)
+        .add("/in/d.txt", 10, 1)
+        .build();
+    DirectorySnapshot current = DirectorySnapshot.builder()
+        .add("/in/e.txt", 10, 1)
+        .add("/in/d.txt", 10, 2)
+        .add("/in/b.txt", 15, 1)
+        .add("/in/a.txt", 10, 1)
+        .build();
+
+    List<FileChange> changes = current.changesSince(previous);
+    assertThat(changes.size(), is(4));
+    assertChange(changes.get(0), MODIFIED, "/in/b.txt");
+    assertChange(changes.get(1), DELETED, "/in/c.txt");
+    assertChange(changes.get(2), MODIFIED, "/in/d.txt");
+    assertChange(changes.get(3), CREATED, "/in/e.txt");
+    assertThat(changes.get(1).getSize(), is(10L));
+  }
+
+  @Test
+  public void noChangesBetweenEqualSnapshots() {
+    DirectorySnapshot.Builder builder = DirectorySnapshot.builder();
+    for (int i = 0; i < 100; i++) {
+      builder.add("/in/file" + i, i, i);
+    }
+    DirectorySnapshot snapshot = builder.build();
+
+    assertThat(snapshot.size(), is(100));
+    assertThat(snapshot.changesSince(snapshot).isEmpty(), is(true));
+  }
+
+  @Test
+  public void survivesSerialization() throws Exception {
+    DirectorySnapshot snapshot = DirectorySnapshot.builder().add("/in/a.txt", 10, 1).add("/in/b.txt", 20, 2).build();
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(snapshot);
+    }
+    DirectorySnapshot restored;
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      restored = (DirectorySnapshot) in.readObject();
+    }
+
+    assertThat(restored.changesSince(snapshot).isEmpty(), is(true));
+    assertThat(restored.size(), is(2));
+  }
+
+  private void assertChange(FileChange change, FileChange.Type type, String path) {
+    assertThat(change.getType(), is(type));
+    assertThat(change.getPath(), is(path));
+  }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.listing;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.util.Collections.emptyList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mule.extension.file.common.api.listing.DirectoryWatcher.DEFAULT_SETTLE_MILLIS;
+
+import org.mule.extension.file.common.api.FileAttributes;
+import org.mule.extension.file.common.api.listing.DirectoryWatcher;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+import org.mule.tck.size.SmallTest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SmallTest
+public class DirectoryWatcherTestCase {
+
+  private static final long SIZE_CHECK_MILLIS = 300;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final BlockingQueue<String> delivered = new LinkedBlockingQueue<>();
+  private final CountDownLatch scanned = new CountDownLatch(1);
+  private Predicate<TestAttributes> matcher;
+  private Path directory;
+  private DirectoryWatcher<TestAttributes> watcher;
+
+  @Before
+  public void setUp() {
+    directory = temporaryFolder.getRoot().toPath();
+  }
+
+  @After
+  public void tearDown() {
+    if (watcher != null) {
+      watcher.close();
+    }
+  }
+
+  @Test
+  public void existingFilesAreDeliveredOnStart() throws Exception {
+    write(directory.resolve("existing.txt"), "content");
+    start(false, attributes -> true, null);
+
+    assertThat(delivered.poll(5, SECONDS), is("existing.txt"));
+  }
+
+  @Test
+  public void createdFileIsDelivered() throws Exception {
+    start(false, attributes -> true, null);
+    write(directory.resolve("created.txt"), "content");
+
+    assertThat(delivered.poll(5, SECONDS), is("created.txt"));
+  }
+
+  @Test
+  public void notMatchingFileIsNotDelivered() throws Exception {
+    start(false, attributes -> attributes.getName().endsWith(".txt"), null);
+    write(directory.resolve("skipped.csv"), "content");
+    write(directory.resolve("created.txt"), "content");
+
+    assertThat(delivered.poll(5, SECONDS), is("created.txt"));
+    assertThat(deliveredWithin(200).contains("skipped.csv"), is(false));
+  }
+
+  @Test
+  public void filesInNewSubDirectoryAreDelivered() throws Exception {
+    start(true, attributes -> true, null);
+    Path subDirectory = Files.createDirectories(directory.resolve("sub"));
+    write(subDirectory.resolve("early.txt"), "content");
+    Thread.sleep(200);
+    write(subDirectory.resolve("late.txt"), "content");
+
+    List<String> names = new ArrayList<>();
+    while (names.size() < 2) {
+      String name = delivered.poll(5, SECONDS);
+      assertThat(name == null, is(false));
+      if (!names.contains(name)) {
+        names.add(name);
+      }
+    }
+    assertThat(names.contains("early.txt"), is(true));
+    assertThat(names.contains("late.txt"), is(true));
+  }
+
+  @Test
+  public void subDirectoriesAreNotWatchedWhenNotRecursive() throws Exception {
+    Path subDirectory = Files.createDirectories(directory.resolve("sub"));
+    start(false, attributes -> true, null);
+    write(subDirectory.resolve("nested.txt"), "content");
+    write(directory.resolve("created.txt"), "content");
+
+    assertThat(delivered.poll(5, SECONDS), is("created.txt"));
+    assertThat(deliveredWithin(200).contains("nested.txt"), is(false));
+  }
+
+  @Test
+  public void fileIsDeliveredOnceItsSizeIsStable() throws Exception {
+    start(false, attributes -> true, SIZE_CHECK_MILLIS);
+    Path file = directory.resolve("growing.txt");
+    write(file, "first");
+    for (int i = 0; i < 3; i++) {
+      Thread.sleep(SIZE_CHECK_MILLIS / 3);
+      Files.write(file, "more".getBytes(UTF_8), APPEND);
+      assertThat(delivered.isEmpty(), is(true));
+    }
+
+    assertThat(delivered.poll(5, SECONDS), is("growing.txt"));
+    assertThat(delivered.poll(2 * SIZE_CHECK_MILLIS, MILLISECONDS), is(nullValue()));
+  }
+
+  @Test
+  public void fileWrittenInChunksIsDeliveredOnceWithoutSizeCheck() throws Exception {
+    start(false, attributes -> true, null);
+    Path file = directory.resolve("growing.txt");
+    write(file, "first");
+    for (int i = 0; i < 3; i++) {
+      Thread.sleep(DEFAULT_SETTLE_MILLIS / 4);
+      Files.write(file, "more".getBytes(UTF_8), APPEND);
+    }
+
+    assertThat(delivered.poll(5, SECONDS), is("growing.txt"));
+    assertThat(delivered.poll(5 * DEFAULT_SETTLE_MILLIS, MILLISECONDS), is(nullValue()));
+  }
+
+  @Test
+  public void unchangedFileIsNotDeliveredAgain() throws Exception {
+    start(false, attributes -> true, null);
+    Path file = directory.resolve("created.txt");
+    write(file, "content");
+    assertThat(delivered.poll(5, SECONDS), is("created.txt"));
+
+    Files.setLastModifiedTime(file, Files.getLastModifiedTime(file));
+    assertThat(delivered.poll(5 * DEFAULT_SETTLE_MILLIS, MILLISECONDS), is(nullValue()));
+
+    write(file, "modified content");
+    assertThat(delivered.poll(5, SECONDS), is("created.txt"));
+  }
+
+  @Test
+  public void existingFileIsNotDeliveredAgainOnEvent() throws Exception {
+    Path file = directory.resolve("existing.txt");
+    write(file, "content");
+    start(false, attributes -> true, null);
+    assertThat(delivered.poll(5, SECONDS), is("existing.txt"));
+
+    Files.setLastModifiedTime(file, Files.getLastModifiedTime(file));
+    assertThat(delivered.poll(5 * DEFAULT_SETTLE_MILLIS, MILLISECONDS), is(nullValue()));
+  }
+
+  @Test
+  public void deletedPendingFileIsNotDelivered() throws Exception {
+    start(false, attributes -> true, SIZE_CHECK_MILLIS);
+    Path file = directory.resolve("deleted.txt");
+    write(file, "content");
+    Files.delete(file);
+
+    assertThat(delivered.poll(3 * SIZE_CHECK_MILLIS, MILLISECONDS), is(nullValue()));
+  }
+
+  @Test
+  public void nothingIsDeliveredAfterClose() throws Exception {
+    start(false, attributes -> true, null);
+    watcher.close();
+    write(directory.resolve("created.txt"), "content");
+
+    assertThat(delivered.poll(500, MILLISECONDS), is(nullValue()));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void watcherCannotBeStartedTwice() {
+    start(false, attributes -> true, null);
+    watcher.start();
+  }
+
+  private void start(boolean recursive, Predicate<TestAttributes> matcher, Long timeBetweenSizeCheck) {
+    this.matcher = matcher;
+    watcher = new DirectoryWatcher<>(directory, recursive, this::toResult, this::scan, matcher, timeBetweenSizeCheck,
+                                     result -> delivered.add(result.getAttributes().get().getName()));
+    watcher.start();
+    // so that the files created by the tests are reported as events rather than found by the initial scan
+    try {
+      assertThat(scanned.await(5, SECONDS), is(true));
+    } catch (InterruptedException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private List<String> deliveredWithin(long millis) throws InterruptedException {
+    Thread.sleep(millis);
+    List<String> names = new ArrayList<>();
+    delivered.drainTo(names);
+    return names;
+  }
+
+  private List<Result<InputStream, TestAttributes>> scan() {
+    List<Result<InputStream, TestAttributes>> results = new ArrayList<>();
+    try (Stream<Path> files = Files.list(directory)) {
+      files.filter(Files::isRegularFile).map(this::toResult)
+          .filter(result -> matcher.test(result.getAttributes().get()))
+          .forEach(results::add);
+    } catch (IOException e) {
+      return emptyList();
+    } finally {
+      scanned.countDown();
+    }
+    return results;
+  }
+
+  private Result<InputStream, TestAttributes> toResult(Path path) {
+    return Result.<InputStream, TestAttributes>builder().attributes(new TestAttributes(path)).build();
+  }
+
+  private static void write(Path file, String content) throws IOException {
+    Files.write(file, content.getBytes(UTF_8));
+  }
+
+  private static class TestAttributes implements FileAttributes {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Path path;
+
+    private TestAttributes(Path path) {
+      this.path = path;
+    }
+
+    @Override
+    public long getSize() {
+      return 0;
+    }
+
+    @Override
+    public boolean isRegularFile() {
+      return !isDirectory();
+    }
+
+    @Override
+    public boolean isDirectory() {
+      return Files.isDirectory(path);
+    }
+
+    @Override
+    public boolean isSymbolicLink() {
+      return false;
+    }
+
+    @Override
+    public String getPath() {
+      return path.toString();
+    }
+
+    @Override
+    public String getName() {
+      return path.getFileName().toString();
+    }
+  }
+}
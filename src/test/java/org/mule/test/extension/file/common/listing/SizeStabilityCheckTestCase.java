@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.listing;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.mule.extension.file.common.api.AbstractFileSystem;
+import org.mule.extension.file.common.api.FileAttributes;
+import org.mule.extension.file.common.api.FileConnectorConfig;
+import org.mule.extension.file.common.api.command.CopyCommand;
+import org.mule.extension.file.common.api.command.CreateDirectoryCommand;
+import org.mule.extension.file.common.api.command.DeleteCommand;
+import org.mule.extension.file.common.api.command.ListCommand;
+import org.mule.extension.file.common.api.command.MoveCommand;
+import org.mule.extension.file.common.api.command.ReadCommand;
+import org.mule.extension.file.common.api.command.RenameCommand;
+import org.mule.extension.file.common.api.command.StatCommand;
+import org.mule.extension.file.common.api.command.WriteCommand;
+import org.mule.extension.file.common.api.listing.SizeStabilityCheck;
+import org.mule.extension.file.common.api.lock.PathLock;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+import org.mule.tck.size.SmallTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+@SmallTest
+public class SizeStabilityCheckTestCase {
+
+  private final Map<String, List<Long>> sizes = new HashMap<>();
+  private final List<Collection<String>> lookups = new ArrayList<>();
+
+  @Test
+  public void stableFilesAreRetainedWithLatestAttributes() {
+    sizes.put("/in/a.txt", asList(10L));
+    sizes.put("/in/b.txt", asList(5L));
+    List<Result<InputStream, FileAttributes>> listing = asList(result("/in/a.txt", 10), result("/in/b.txt", 5));
+
+    List<Result<InputStream, FileAttributes>> retained = check(2).retainStable(listing);
+
+    assertThat(retained.size(), is(2));
+    assertThat(retained.get(0).getAttributes().get().getPath(), is("/in/a.txt"));
+    assertThat(retained.get(1).getAttributes().get().getPath(), is("/in/b.txt"));
+    assertThat(retained.get(0).getAttributes().get() == listing.get(0).getAttributes().get(), is(false));
+    assertThat(retained.get(0).getOutput(), is(sameInstance(listing.get(0).getOutput())));
+    assertThat(lookups.size(), is(1));
+  }
+
+  @Test
+  public void fileWhichStopsGrowingIsRetained() {
+    sizes.put("/in/stable.txt", asList(1L));
+    sizes.put("/in/growing.txt", asList(20L, 20L));
+
+    List<Result<InputStream, FileAttributes>> retained =
+        check(2).retainStable(asList(result("/in/stable.txt", 1), result("/in/growing.txt", 10)));
+
+    assertThat(retained.size(), is(2));
+    assertThat(retained.get(1).getAttributes().get().getSize(), is(20L));
+    assertThat(lookups.size(), is(2));
+    assertThat(lookups.get(1), is((Collection<String>) asList("/in/growing.txt")));
+  }
+
+  @Test
+  public void fileStillGrowingAfterRetriesIsDiscarded() {
+    sizes.put("/in/growing.txt", asList(20L, 30L, 40L, 50L));
+
+    List<Result<InputStream, FileAttributes>> retained = check(2).retainStable(asList(result("/in/growing.txt", 10)));
+
+    assertThat(retained.isEmpty(), is(true));
+    assertThat(lookups.size(), is(3));
+  }
+
+  @Test
+  public void deletedFileIsDiscarded() {
+    sizes.put("/in/a.txt", asList(10L));
+
+    List<Result<InputStream, FileAttributes>> retained =
+        check(2).retainStable(asList(result("/in/a.txt", 10), result("/in/deleted.txt", 10)));
+
+    assertThat(retained.size(), is(1));
+    assertThat(retained.get(0).getAttributes().get().getPath(), is("/in/a.txt"));
+  }
+
+  @Test
+  public void directoriesAreRetainedWithoutLookup() {
+    FileAttributes directory = attributes("/in/sub", 0);
+    when(directory.isDirectory()).thenReturn(true);
+    Result<InputStream, FileAttributes> result = Result.<InputStream, FileAttributes>builder().attributes(directory).build();
+
+    List<Result<InputStream, FileAttributes>> retained = check(2).retainStable(asList(result));
+
+    assertThat(retained.size(), is(1));
+    assertThat(retained.get(0), is(sameInstance(result)));
+    assertThat(lookups.isEmpty(), is(true));
+  }
+
+  @Test
+  public void listingLeavesOutUnstableFilesWhenCheckedAtOnce() {
+    sizes.put("/base/in/stable.txt", asList(10L));
+    sizes.put("/base/in/growing.txt", asList(20L, 30L, 40L, 50L));
+    List<Long> sizeChecks = new ArrayList<>();
+    TestFileSystem fileSystem = new TestFileSystem(new ListCommand<FileAttributes>() {
+
+      @Override
+      public List<Result<InputStream, FileAttributes>> list(FileConnectorConfig config, String directoryPath,
+                                                            boolean recursive, Predicate<FileAttributes> matcher) {
+        throw new AssertionError("The listing should get the size check");
+      }
+
+      @Override
+      public List<Result<InputStream, FileAttributes>> list(FileConnectorConfig config, String directoryPath,
+                                                            boolean recursive, Predicate<FileAttributes> matcher,
+                                                            Long timeBetweenSizeCheck) {
+        sizeChecks.add(timeBetweenSizeCheck);
+        return asList(result("/base/in/stable.txt", 10), result("/base/in/growing.txt", 10));
+      }
+    });
+
+    List<Result<InputStream, FileAttributes>> listing = fileSystem.list(null, "in", false, attributes -> true, 1L);
+
+    assertThat(listing.size(), is(1));
+    assertThat(listing.get(0).getAttributes().get().getPath(), is("/base/in/stable.txt"));
+    assertThat(sizeChecks, is(asList((Long) null)));
+  }
+
+  private SizeStabilityCheck<FileAttributes> check(int maxRetries) {
+    return new SizeStabilityCheck<>(this::stat, 1, maxRetries);
+  }
+
+  private Map<String, FileAttributes> stat(Collection<String> paths) {
+    lookups.add(new ArrayList<>(paths));
+    Map<String, FileAttributes> current = new LinkedHashMap<>();
+    for (String path : paths) {
+      List<Long> fileSizes = sizes.get(path);
+      if (fileSizes != null) {
+        int lookup = (int) lookups.stream().filter(l -> l.contains(path)).count() - 1;
+        current.put(path, attributes(path, fileSizes.get(Math.min(lookup, fileSizes.size() - 1))));
+      }
+    }
+    return current;
+  }
+
+  private Result<InputStream, FileAttributes> result(String path, long size) {
+    return Result.<InputStream, FileAttributes>builder()
+        .output(new ByteArrayInputStream(new byte[0]))
+        .attributes(attributes(path, size))
+        .build();
+  }
+
+  private FileAttributes attributes(String path, long size) {
+    FileAttributes attributes = mock(FileAttributes.class);
+    when(attributes.getPath()).thenReturn(path);
+    when(attributes.getSize()).thenReturn(size);
+    return attributes;
+  }
+
+  private class TestFileSystem extends AbstractFileSystem<FileAttributes> {
+
+    private final ListCommand<FileAttributes> listCommand;
+
+    private TestFileSystem(ListCommand<FileAttributes> listCommand) {
+      super("/base");
+      this.listCommand = listCommand;
+    }
+
+    @Override
+    protected ListCommand getListCommand() {
+      return listCommand;
+    }
+
+    @Override
+    protected StatCommand<FileAttributes> getStatCommand() {
+      return new StatCommand<FileAttributes>() {
+
+        @Override
+        public FileAttributes getAttributes(String filePath) {
+          return stat(singletonList(filePath)).get(filePath);
+        }
+
+        @Override
+        public Map<String, FileAttributes> getAttributes(Collection<String> filePaths) {
+          return stat(filePaths);
+        }
+      };
+    }
+
+    @Override
+    protected DeleteCommand getDeleteCommand() {
+      return null;
+    }
+
+    @Override
+    protected RenameCommand getRenameCommand() {
+      return null;
+    }
+
+    @Override
+    protected ReadCommand getReadCommand() {
+      return null;
+    }
+
+    @Override
+    protected WriteCommand getWriteCommand() {
+      return null;
+    }
+
+    @Override
+    protected CopyCommand getCopyCommand() {
+      return null;
+    }
+
+    @Override
+    protected MoveCommand getMoveCommand() {
+      return null;
+    }
+
+    @Override
+    protected CreateDirectoryCommand getCreateDirectoryCommand() {
+      return null;
+    }
+
+    @Override
+    protected PathLock createLock(Path path) {
+      return null;
+    }
+
+    @Override
+    public void changeToBaseDir() {}
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.listing;
+
+import static java.lang.Long.MIN_VALUE;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.mule.extension.file.common.api.AbstractFileAttributes;
+import org.mule.extension.file.common.api.listing.Watermark;
+import org.mule.extension.file.common.api.listing.WatermarkStore;
+import org.mule.runtime.api.exception.MuleRuntimeException;
+import org.mule.runtime.api.store.ObjectStoreException;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+import org.mule.tck.size.SmallTest;
+import org.mule.test.extension.file.common.InMemoryObjectStore;
+
+import java.io.InputStream;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+@SmallTest
+public class WatermarkStoreTestCase {
+
+  private final InMemoryObjectStore<Watermark> objectStore = new InMemoryObjectStore<>();
+  private final WatermarkStore store = new WatermarkStore(objectStore, 2, SECONDS);
+
+  @Test
+  public void unknownDirectoryGetsInitialWatermarkWithTheSafetyWindow() {
+    Watermark watermark = store.get("/in");
+
+    assertThat(watermark.getModifiedTime(), is(MIN_VALUE));
+    assertThat(advance(watermark, "/in/a.txt", 10000).getModifiedSince(), is(8000L));
+    assertThat(objectStore.allKeys().isEmpty(), is(true));
+  }
+
+  @Test
+  public void updatedWatermarkIsRetrieved() {
+    store.update("/in", advance(store.get("/in"), "/in/a.txt", 10000));
+
+    Watermark watermark = store.get("/in");
+    assertThat(watermark.getModifiedTime(), is(10000L));
+    assertThat(watermark.isNew("/in/a.txt", 10000), is(false));
+  }
+
+  @Test
+  public void updateReplacesThePreviousWatermark() {
+    store.update("/in", advance(store.get("/in"), "/in/a.txt", 10000));
+    store.update("/in", advance(store.get("/in"), "/in/b.txt", 20000));
+
+    assertThat(store.get("/in").getPath(), is("/in/b.txt"));
+    assertThat(objectStore.allKeys().size(), is(1));
+  }
+
+  @Test
+  public void equivalentPathsShareTheWatermark() {
+    store.update("/in/", advance(store.get("/in/"), "/in/a.txt", 10000));
+
+    assertThat(store.get("/in").getModifiedTime(), is(10000L));
+    assertThat(store.get("/data/../in/./").getModifiedTime(), is(10000L));
+    assertThat(store.get("/out").getModifiedTime(), is(MIN_VALUE));
+  }
+
+  @Test
+  public void watermarkSurvivesRestart() {
+    store.update("/in", advance(store.get("/in"), "/in/a.txt", 10000));
+
+    WatermarkStore restarted = new WatermarkStore(objectStore, 2, SECONDS);
+    assertThat(restarted.get("/in").getPath(), is("/in/a.txt"));
+  }
+
+  @Test(expected = MuleRuntimeException.class)
+  public void failureToStoreIsWrapped() {
+    WatermarkStore failing = new WatermarkStore(new InMemoryObjectStore<Watermark>() {
+
+      @Override
+      public void store(String key, Watermark value) throws ObjectStoreException {
+        throw new ObjectStoreException();
+      }
+    }, 2, SECONDS);
+    failing.update("/in", store.get("/in"));
+  }
+
+  @Test(expected = MuleRuntimeException.class)
+  public void failureToRetrieveIsWrapped() {
+    WatermarkStore failing = new WatermarkStore(new InMemoryObjectStore<Watermark>() {
+
+      @Override
+      public boolean contains(String key) {
+        return true;
+      }
+    }, 2, SECONDS);
+    failing.get("/in");
+  }
+
+  private static Watermark advance(Watermark watermark, String path, long lastModifiedTime) {
+    TestAttributes attributes = new TestAttributes(path, lastModifiedTime);
+    return watermark.advance(singletonList(Result.<InputStream, TestAttributes>builder().attributes(attributes).build()),
+                             TestAttributes::getLastModifiedTime);
+  }
+
+  private static class TestAttributes extends AbstractFileAttributes {
+
+    private final long lastModifiedTime;
+
+    private TestAttributes(String path, long lastModifiedTime) {
+      super(Paths.get(path));
+      this.lastModifiedTime = lastModifiedTime;
+    }
+
+    @Override
+    public long getSize() {
+      return 0;
+    }
+
+    @Override
+    public boolean isRegularFile() {
+      return true;
+    }
+
+    @Override
+    public boolean isDirectory() {
+      return false;
+    }
+
+    @Override
+    public boolean isSymbolicLink() {
+      return false;
+    }
+
+    public long getLastModifiedTime() {
+      return lastModifiedTime;
+    }
+  }
+}
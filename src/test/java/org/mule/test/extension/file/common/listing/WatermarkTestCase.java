@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.listing;
+
+import static java.lang.Long.MIN_VALUE;
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.mule.extension.file.common.api.AbstractFileAttributes;
+import org.mule.extension.file.common.api.listing.Watermark;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+import org.mule.tck.size.SmallTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+@SmallTest
+public class WatermarkTestCase {
+
+  private static final long WINDOW = 100;
+
+  @Test
+  public void initialWatermarkConsidersEverythingNew() {
+    Watermark watermark = Watermark.initial(WINDOW);
+
+    assertThat(watermark.isNew("/in/a.txt", 0), is(true));
+    assertThat(watermark.isNew("/in/a.txt", MIN_VALUE), is(true));
+    assertThat(watermark.getModifiedSince(), is(MIN_VALUE));
+    assertThat(watermark.getPath(), is(nullValue()));
+  }
+
+  @Test
+  public void advanceMovesTheMarkToTheNewestFile() {
+    Watermark watermark = Watermark.initial(WINDOW).advance(results(file("/in/b.txt", 1000), file("/in/a.txt", 2000),
+                                                                   file("/in/c.txt", 1500)),
+                                                           TestAttributes::getLastModifiedTime);
+
+    assertThat(watermark.getModifiedTime(), is(2000L));
+    assertThat(watermark.getPath(), is("/in/a.txt"));
+    assertThat(watermark.getModifiedSince(), is(2000L - WINDOW));
+  }
+
+  @Test
+  public void filesModifiedAtTheSameTimeAreOrderedByPath() {
+    Watermark watermark = Watermark.initial(WINDOW).advance(results(file("/in/b.txt", 1000), file("/in/a.txt", 1000)),
+                                                           TestAttributes::getLastModifiedTime);
+
+    assertThat(watermark.getPath(), is("/in/b.txt"));
+  }
+
+  @Test
+  public void filesBeforeTheSafetyWindowAreNotNew() {
+    Watermark watermark = Watermark.initial(WINDOW).advance(results(file("/in/a.txt", 1000)),
+                                                           TestAttributes::getLastModifiedTime);
+
+    assertThat(watermark.isNew("/in/old.txt", 1000 - WINDOW - 1), is(false));
+    assertThat(watermark.isNew("/in/late.txt", 1000 - WINDOW), is(true));
+    assertThat(watermark.isNew("/in/late.txt", 999), is(true));
+  }
+
+  @Test
+  public void filesEmittedWithinTheSafetyWindowAreNotNewUnlessModified() {
+    Watermark watermark = Watermark.initial(WINDOW).advance(results(file("/in/a.txt", 950), file("/in/b.txt", 1000)),
+                                                           TestAttributes::getLastModifiedTime);
+
+    assertThat(watermark.isNew("/in/a.txt", 950), is(false));
+    assertThat(watermark.isNew("/in/b.txt", 1000), is(false));
+    assertThat(watermark.isNew("/in/a.txt", 980), is(true));
+  }
+
+  @Test
+  public void filesWhichLeaveTheSafetyWindowArePruned() {
+    Watermark watermark = Watermark.initial(WINDOW).advance(results(file("/in/a.txt", 1000), file("/in/b.txt", 1050)),
+                                                           TestAttributes::getLastModifiedTime);
+    assertThat(watermark.toString(), containsString("recent=2"));
+
+    watermark = watermark.advance(results(file("/in/c.txt", 1120)), TestAttributes::getLastModifiedTime);
+    assertThat(watermark.toString(), containsString("recent=2"));
+    assertThat(watermark.isNew("/in/b.txt", 1050), is(false));
+    assertThat(watermark.isNew("/in/a.txt", 1000), is(false));
+
+    watermark = watermark.advance(results(file("/in/d.txt", 5000)), TestAttributes::getLastModifiedTime);
+    assertThat(watermark.toString(), containsString("recent=1"));
+  }
+
+  @Test
+  public void advanceDoesNotChangeTheOriginalWatermark() {
+    Watermark initial = Watermark.initial(WINDOW);
+    initial.advance(results(file("/in/a.txt", 1000)), TestAttributes::getLastModifiedTime);
+
+    assertThat(initial.isNew("/in/a.txt", 1000), is(true));
+    assertThat(initial.getModifiedTime(), is(MIN_VALUE));
+  }
+
+  @Test
+  public void directoriesAreNotTracked() {
+    Watermark watermark = Watermark.initial(WINDOW).advance(results(directory("/in/sub", 5000), file("/in/a.txt", 1000)),
+                                                           TestAttributes::getLastModifiedTime);
+
+    assertThat(watermark.getModifiedTime(), is(1000L));
+    assertThat(watermark.getPath(), is("/in/a.txt"));
+  }
+
+  @Test
+  public void newFilesAcceptsDirectoriesAndNewFiles() {
+    Watermark watermark = Watermark.initial(WINDOW).advance(results(file("/in/a.txt", 1000)),
+                                                           TestAttributes::getLastModifiedTime);
+    Predicate<TestAttributes> newFiles = watermark.newFiles(TestAttributes::getLastModifiedTime);
+
+    assertThat(newFiles.test(file("/in/a.txt", 1000)), is(false));
+    assertThat(newFiles.test(file("/in/b.txt", 500)), is(false));
+    assertThat(newFiles.test(file("/in/b.txt", 1000)), is(true));
+    assertThat(newFiles.test(directory("/in/sub", 500)), is(true));
+  }
+
+  @Test
+  public void survivesSerialization() throws Exception {
+    Watermark watermark = Watermark.initial(WINDOW).advance(results(file("/in/a.txt", 1000)),
+                                                           TestAttributes::getLastModifiedTime);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(watermark);
+    }
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      Watermark deserialized = (Watermark) in.readObject();
+      assertThat(deserialized.getModifiedTime(), is(1000L));
+      assertThat(deserialized.getPath(), is("/in/a.txt"));
+      assertThat(deserialized.isNew("/in/a.txt", 1000), is(false));
+      assertThat(deserialized.isNew("/in/b.txt", 1000), is(true));
+    }
+  }
+
+  private static List<Result<InputStream, TestAttributes>> results(TestAttributes... files) {
+    List<Result<InputStream, TestAttributes>> results = new ArrayList<>();
+    for (TestAttributes file : asList(files)) {
+      results.add(Result.<InputStream, TestAttributes>builder().attributes(file).build());
+    }
+    return results;
+  }
+
+  private static TestAttributes file(String path, long lastModifiedTime) {
+    return new TestAttributes(path, false, lastModifiedTime);
+  }
+
+  private static TestAttributes directory(String path, long lastModifiedTime) {
+    return new TestAttributes(path, true, lastModifiedTime);
+  }
+
+  private static class TestAttributes extends AbstractFileAttributes {
+
+    private final boolean directory;
+    private final long lastModifiedTime;
+
+    private TestAttributes(String path, boolean directory, long lastModifiedTime) {
+      super(Paths.get(path));
+      this.directory = directory;
+      this.lastModifiedTime = lastModifiedTime;
+    }
+
+    @Override
+    public long getSize() {
+      return 0;
+    }
+
+    @Override
+    public boolean isRegularFile() {
+      return !directory;
+    }
+
+    @Override
+    public boolean isDirectory() {
+      return directory;
+    }
+
+    @Override
+    public boolean isSymbolicLink() {
+      return false;
+    }
+
+    public long getLastModifiedTime() {
+      return lastModifiedTime;
+    }
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.lock;
+
+import static java.lang.Thread.State.WAITING;
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.mule.extension.file.common.api.AbstractFileSystem;
+import org.mule.extension.file.common.api.FileAttributes;
+import org.mule.extension.file.common.api.command.CopyCommand;
+import org.mule.extension.file.common.api.command.CreateDirectoryCommand;
+import org.mule.extension.file.common.api.command.DeleteCommand;
+import org.mule.extension.file.common.api.command.ListCommand;
+import org.mule.extension.file.common.api.command.MoveCommand;
+import org.mule.extension.file.common.api.command.ReadCommand;
+import org.mule.extension.file.common.api.command.RenameCommand;
+import org.mule.extension.file.common.api.command.WriteCommand;
+import org.mule.extension.file.common.api.exceptions.IllegalPathException;
+import org.mule.extension.file.common.api.lock.DirectoryCreationCoordinator;
+import org.mule.extension.file.common.api.lock.PathLock;
+import org.mule.tck.size.SmallTest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+@SmallTest
+public class DirectoryCreationCoordinatorTestCase {
+
+  private static final int WAITERS = 5;
+
+  private final DirectoryCreationCoordinator coordinator = new DirectoryCreationCoordinator();
+
+  @Test
+  public void concurrentCreationsAreCoalesced() throws Exception {
+    AtomicInteger creations = new AtomicInteger();
+    AtomicInteger owners = new AtomicInteger();
+    CountDownLatch ownerStarted = new CountDownLatch(1);
+    CountDownLatch releaseOwner = new CountDownLatch(1);
+
+    Thread owner = new Thread(() -> {
+      if (coordinator.create("/base/dir", () -> {
+        creations.incrementAndGet();
+        ownerStarted.countDown();
+        awaitUninterruptibly(releaseOwner);
+      })) {
+        owners.incrementAndGet();
+      }
+    });
+    owner.start();
+    ownerStarted.await(5, SECONDS);
+
+    List<Thread> waiters = new ArrayList<>();
+    for (int i = 0; i < WAITERS; i++) {
+      Thread waiter = new Thread(() -> {
+        if (coordinator.create("/base/./dir/", creations::incrementAndGet)) {
+          owners.incrementAndGet();
+        }
+      });
+      waiters.add(waiter);
+      waiter.start();
+    }
+
+    for (Thread waiter : waiters) {
+      while (waiter.getState() != WAITING) {
+        Thread.sleep(5);
+      }
+    }
+    releaseOwner.countDown();
+
+    owner.join(5000);
+    for (Thread waiter : waiters) {
+      waiter.join(5000);
+    }
+
+    assertThat(creations.get(), is(1));
+    assertThat(owners.get(), is(1));
+  }
+
+  @Test
+  public void sequentialCreationsAreNotCoalesced() {
+    AtomicInteger creations = new AtomicInteger();
+    assertThat(coordinator.create("/base/dir", creations::incrementAndGet), is(true));
+    assertThat(coordinator.create("/base/dir", creations::incrementAndGet), is(true));
+    assertThat(creations.get(), is(2));
+  }
+
+  @Test(expected = IllegalPathException.class)
+  public void failureIsPropagated() {
+    coordinator.create("/base/dir", () -> {
+      throw new IllegalPathException("failed");
+    });
+  }
+
+  @Test
+  public void uncoordinatedRunsEveryCreation() {
+    AtomicInteger creations = new AtomicInteger();
+    DirectoryCreationCoordinator.uncoordinated().create("/base/dir", creations::incrementAndGet);
+    DirectoryCreationCoordinator.uncoordinated().create("/base/dir", creations::incrementAndGet);
+    assertThat(creations.get(), is(2));
+  }
+
+  @Test
+  public void fileSystemsOfTheSameStorageShareState() {
+    String storageId = "sftp://" + randomUUID();
+    TestFileSystem first = new TestFileSystem(storageId);
+    TestFileSystem second = new TestFileSystem(storageId);
+
+    assertThat(first.getDirectoryCreationCoordinator(), is(sameInstance(second.getDirectoryCreationCoordinator())));
+    assertThat(first.getDirectoryCache(), is(sameInstance(second.getDirectoryCache())));
+
+    first.getDirectoryCache().markExisting("/base/dir");
+    assertThat(second.getDirectoryCache().isKnown("/base/dir"), is(true));
+  }
+
+  @Test
+  public void fileSystemsOfDifferentStoragesDontShareState() {
+    TestFileSystem first = new TestFileSystem("sftp://" + randomUUID());
+    TestFileSystem second = new TestFileSystem("sftp://" + randomUUID());
+
+    assertThat(first.getDirectoryCreationCoordinator(), is(not(sameInstance(second.getDirectoryCreationCoordinator()))));
+    assertThat(first.getDirectoryCache(), is(not(sameInstance(second.getDirectoryCache()))));
+  }
+
+  @Test
+  public void fileSystemsOfUnknownStoragesDontShareState() {
+    TestFileSystem first = new TestFileSystem(null);
+    TestFileSystem second = new TestFileSystem(null);
+
+    assertThat(first.getDirectoryCreationCoordinator(), is(not(sameInstance(second.getDirectoryCreationCoordinator()))));
+    assertThat(first.getDirectoryCache(), is(not(sameInstance(second.getDirectoryCache()))));
+  }
+
+  @Test
+  public void localFileSystemsShareState() {
+    TestFileSystem first = new LocalTestFileSystem();
+    TestFileSystem second = new LocalTestFileSystem();
+
+    assertThat(first.getDirectoryCreationCoordinator(), is(sameInstance(second.getDirectoryCreationCoordinator())));
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    try {
+      latch.await(5, SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static class LocalTestFileSystem extends TestFileSystem {
+
+    private LocalTestFileSystem() {
+      super(null);
+    }
+
+    @Override
+    protected Path getLocalPath(String filePath) {
+      return Paths.get(filePath);
+    }
+  }
+
+  private static class TestFileSystem extends AbstractFileSystem<FileAttributes> {
+
+    private final String storageId;
+
+    private TestFileSystem(String storageId) {
+      super("/base");
+      this.storageId = storageId;
+    }
+
+    @Override
+    protected String getStorageId() {
+      return storageId != null ? storageId : super.getStorageId();
+    }
+
+    @Override
+    protected ListCommand getListCommand() {
+      return null;
+    }
+
+    @Override
+    protected ReadCommand getReadCommand() {
+      return null;
+    }
+
+    @Override
+    protected WriteCommand getWriteCommand() {
+      return null;
+    }
+
+    @Override
+    protected CopyCommand getCopyCommand() {
+      return null;
+    }
+
+    @Override
+    protected MoveCommand getMoveCommand() {
+      return null;
+    }
+
+    @Override
+    protected DeleteCommand getDeleteCommand() {
+      return null;
+    }
+
+    @Override
+    protected RenameCommand getRenameCommand() {
+      return null;
+    }
+
+    @Override
+    protected CreateDirectoryCommand getCreateDirectoryCommand() {
+      return null;
+    }
+
+    @Override
+    protected PathLock createLock(Path path) {
+      return null;
+    }
+
+    @Override
+    public void changeToBaseDir() {}
+  }
+}
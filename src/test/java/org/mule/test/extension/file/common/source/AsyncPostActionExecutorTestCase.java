@@ -0,0 +1,404 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.source;
+
+import static java.lang.System.currentTimeMillis;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.mule.extension.file.common.api.AbstractFileSystem;
+import org.mule.extension.file.common.api.FileAttributes;
+import org.mule.extension.file.common.api.FileConnectorConfig;
+import org.mule.extension.file.common.api.command.CopyCommand;
+import org.mule.extension.file.common.api.command.CreateDirectoryCommand;
+import org.mule.extension.file.common.api.command.DeleteCommand;
+import org.mule.extension.file.common.api.command.ListCommand;
+import org.mule.extension.file.common.api.command.MoveCommand;
+import org.mule.extension.file.common.api.command.ReadCommand;
+import org.mule.extension.file.common.api.command.RenameCommand;
+import org.mule.extension.file.common.api.command.WriteCommand;
+import org.mule.extension.file.common.api.connection.ConnectionSource;
+import org.mule.extension.file.common.api.exceptions.FileAlreadyExistsException;
+import org.mule.extension.file.common.api.lock.PathLock;
+import org.mule.extension.file.common.api.source.AbstractPostActionGroup;
+import org.mule.extension.file.common.api.source.AsyncPostActionExecutor;
+import org.mule.extension.file.common.api.source.PostActionJournal;
+import org.mule.extension.file.common.api.source.PostActionListener;
+import org.mule.tck.size.SmallTest;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SmallTest
+public class AsyncPostActionExecutorTestCase {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final TestFileSystem fileSystem = new TestFileSystem();
+  private final AtomicInteger releasedConnections = new AtomicInteger();
+  private final List<String> failures = new CopyOnWriteArrayList<>();
+  private final List<String> alreadyExisting = new CopyOnWriteArrayList<>();
+  private final List<String> interrupted = new CopyOnWriteArrayList<>();
+  private final CountDownLatch outcomeReported = new CountDownLatch(1);
+
+  private AsyncPostActionExecutor executor;
+
+  @After
+  public void tearDown() {
+    fileSystem.unblock.countDown();
+    if (executor != null) {
+      executor.close(5, SECONDS);
+    }
+  }
+
+  @Test
+  public void actionIsRunInBackground() {
+    PostActionJournal journal = newJournal();
+    executor = newExecutor(journal, 1, 10);
+    executor.submit(new PostActions(null, true), file("a.txt"));
+    executor.close(5, SECONDS);
+
+    assertThat(fileSystem.deleted.contains("/in/a.txt"), is(true));
+    assertThat(releasedConnections.get(), is(1));
+    assertThat(new PostActionJournal(journalFile()).getPendingCount(), is(0));
+  }
+
+  @Test
+  public void failedActionIsRetriedBeforeBeingReported() throws Exception {
+    fileSystem.failDeletes = true;
+    executor = newExecutor(null, 1, 10);
+    executor.submit(new PostActions(null, true), file("a.txt"));
+
+    assertThat(outcomeReported.await(5, SECONDS), is(true));
+    executor.close(5, SECONDS);
+    assertThat(fileSystem.deleteAttempts.get(), is(3));
+    assertThat(failures.size(), is(1));
+    assertThat(releasedConnections.get(), is(3));
+  }
+
+  @Test
+  public void existingTargetIsReportedWithoutRetrying() throws Exception {
+    executor = newExecutor(null, 1, 10);
+    executor.submit(new PostActions("renamed.txt", false), file("a.txt"));
+
+    assertThat(outcomeReported.await(5, SECONDS), is(true));
+    assertThat(fileSystem.renameAttempts.get(), is(1));
+    assertThat(alreadyExisting.size(), is(1));
+    assertThat(failures.size(), is(0));
+  }
+
+  @Test
+  public void submitAfterCloseIsRejected() {
+    executor = newExecutor(null, 1, 10);
+    executor.close();
+
+    try {
+      executor.submit(new PostActions(null, true), file("a.txt"));
+      throw new AssertionError("submit should have failed");
+    } catch (IllegalStateException e) {
+      assertThat(fileSystem.deleted.isEmpty(), is(true));
+    }
+  }
+
+  @Test
+  public void interruptedSubmitRunsActionInlineWithoutJournal() throws Exception {
+    executor = newExecutor(null, 1, 1);
+    fileSystem.blockDeletes = true;
+    executor.submit(new PostActions(null, true), file("blocked.txt"));
+    assertThat(fileSystem.deleteStarted.await(5, SECONDS), is(true));
+    fileSystem.blockDeletes = false;
+
+    Thread.currentThread().interrupt();
+    executor.submit(new PostActions(null, true), file("a.txt"));
+
+    assertThat(Thread.interrupted(), is(true));
+    assertThat(fileSystem.deleted.contains("/in/a.txt"), is(true));
+  }
+
+  @Test
+  public void interruptedSubmitLeavesActionOnJournal() throws Exception {
+    PostActionJournal journal = newJournal();
+    executor = newExecutor(journal, 1, 1);
+    fileSystem.blockDeletes = true;
+    executor.submit(new PostActions(null, true), file("blocked.txt"));
+    assertThat(fileSystem.deleteStarted.await(5, SECONDS), is(true));
+
+    Thread.currentThread().interrupt();
+    executor.submit(new PostActions(null, true), file("a.txt"));
+
+    assertThat(Thread.interrupted(), is(true));
+    assertThat(fileSystem.deleted.contains("/in/a.txt"), is(false));
+    assertThat(journal.getPendingCount(), is(2));
+  }
+
+  @Test
+  public void pendingActionsAreReplayedAfterRestart() throws Exception {
+    executor = newExecutor(newJournal(), 1, 10);
+    fileSystem.blockDeletes = true;
+    executor.submit(new PostActions(null, true), file("a.txt"));
+    executor.submit(new PostActions("renamed.txt", false), file("b.txt"));
+    assertThat(fileSystem.deleteStarted.await(5, SECONDS), is(true));
+    // stops before the actions completed, as if the process was killed
+    executor.close(10, MILLISECONDS);
+
+    PostActionJournal journal = newJournal();
+    assertThat(journal.getPendingCount(), is(2));
+    assertThat(journal.recover().get(0).getPath(), is("/in/a.txt"));
+    assertThat(journal.recover().get(1).getRenameTo(), is("renamed.txt"));
+
+    fileSystem.blockDeletes = false;
+    fileSystem.renameExisting = false;
+    executor = newExecutor(journal, 1, 10);
+    assertThat(executor.recover(), is(2));
+    executor.close(5, SECONDS);
+
+    assertThat(fileSystem.deleted.contains("/in/a.txt"), is(true));
+    assertThat(fileSystem.renamed.contains("/in/b.txt"), is(true));
+    assertThat(new PostActionJournal(journalFile()).getPendingCount(), is(0));
+  }
+
+  @Test
+  public void actionInterruptedOnCloseIsReportedAndLeftOnJournal() throws Exception {
+    executor = newExecutor(newJournal(), 1, 10);
+    fileSystem.blockDeletes = true;
+    executor.submit(new PostActions(null, true), file("a.txt"));
+    assertThat(fileSystem.deleteStarted.await(5, SECONDS), is(true));
+    executor.close(10, MILLISECONDS);
+
+    assertThat(outcomeReported.await(5, SECONDS), is(true));
+    assertThat(interrupted, is(asList("/in/a.txt")));
+    assertThat(failures.isEmpty(), is(true));
+    assertThat(new PostActionJournal(journalFile()).getPendingCount(), is(1));
+  }
+
+  @Test
+  public void actionCompletedAfterCloseIsNotRetried() throws Exception {
+    executor = newExecutor(newJournal(), 1, 10);
+    fileSystem.blockDeletes = true;
+    fileSystem.uninterruptibleDeletes = true;
+    executor.submit(new PostActions(null, true), file("a.txt"));
+    assertThat(fileSystem.deleteStarted.await(5, SECONDS), is(true));
+    executor.close(10, MILLISECONDS);
+    fileSystem.unblock.countDown();
+
+    long deadline = currentTimeMillis() + 5000;
+    while (releasedConnections.get() == 0 && currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    Thread.sleep(50);
+
+    assertThat(fileSystem.deleteAttempts.get(), is(1));
+    assertThat(fileSystem.deleted.contains("/in/a.txt"), is(true));
+    assertThat(failures.isEmpty(), is(true));
+    assertThat(interrupted.isEmpty(), is(true));
+    // the completion couldn't be recorded, so it's run again on recovery
+    assertThat(new PostActionJournal(journalFile()).getPendingCount(), is(1));
+  }
+
+  private AsyncPostActionExecutor newExecutor(PostActionJournal journal, int parallelism, int capacity) {
+    return new AsyncPostActionExecutor(mock(FileConnectorConfig.class), this::newConnectionSource, journal, new Listener(),
+                                       parallelism, capacity, 3, 0);
+  }
+
+  private ConnectionSource<TestFileSystem> newConnectionSource() {
+    return new ConnectionSource<TestFileSystem>() {
+
+      @Override
+      public TestFileSystem getConnection() {
+        return fileSystem;
+      }
+
+      @Override
+      public void releaseConnection() {
+        releasedConnections.incrementAndGet();
+      }
+    };
+  }
+
+  private PostActionJournal newJournal() {
+    return new PostActionJournal(journalFile());
+  }
+
+  private Path journalFile() {
+    return temporaryFolder.getRoot().toPath().resolve("journal").resolve("post-actions.log");
+  }
+
+  private FileAttributes file(String name) {
+    FileAttributes attributes = mock(FileAttributes.class);
+    when(attributes.getName()).thenReturn(name);
+    when(attributes.getPath()).thenReturn("/in/" + name);
+    return attributes;
+  }
+
+  private class Listener implements PostActionListener {
+
+    @Override
+    public void onFileAlreadyExists(FileAttributes fileAttributes, FileAlreadyExistsException exception) {
+      alreadyExisting.add(fileAttributes.getPath());
+      outcomeReported.countDown();
+    }
+
+    @Override
+    public void onFailure(FileAttributes fileAttributes, Exception exception) {
+      failures.add(fileAttributes.getPath());
+      outcomeReported.countDown();
+    }
+
+    @Override
+    public void onInterrupted(FileAttributes fileAttributes) {
+      interrupted.add(fileAttributes.getPath());
+      outcomeReported.countDown();
+    }
+  }
+
+  private static class PostActions extends AbstractPostActionGroup {
+
+    private final String renameTo;
+    private final boolean autoDelete;
+
+    private PostActions(String renameTo, boolean autoDelete) {
+      this.renameTo = renameTo;
+      this.autoDelete = autoDelete;
+    }
+
+    @Override
+    public boolean isAutoDelete() {
+      return autoDelete;
+    }
+
+    @Override
+    public String getMoveToDirectory() {
+      return null;
+    }
+
+    @Override
+    public String getRenameTo() {
+      return renameTo;
+    }
+
+    @Override
+    public boolean getOverwrite() {
+      return false;
+    }
+
+    @Override
+    public boolean isApplyPostActionWhenFailed() {
+      return true;
+    }
+  }
+
+  private static class TestFileSystem extends AbstractFileSystem<FileAttributes> {
+
+    private final List<String> deleted = new CopyOnWriteArrayList<>();
+    private final List<String> renamed = new CopyOnWriteArrayList<>();
+    private final AtomicInteger deleteAttempts = new AtomicInteger();
+    private final AtomicInteger renameAttempts = new AtomicInteger();
+    private final CountDownLatch deleteStarted = new CountDownLatch(1);
+    private final CountDownLatch unblock = new CountDownLatch(1);
+    private volatile boolean failDeletes = false;
+    private volatile boolean blockDeletes = false;
+    private volatile boolean uninterruptibleDeletes = false;
+    private volatile boolean renameExisting = true;
+
+    private TestFileSystem() {
+      super("");
+    }
+
+    @Override
+    protected DeleteCommand getDeleteCommand() {
+      return filePath -> {
+        deleteAttempts.incrementAndGet();
+        if (blockDeletes) {
+          deleteStarted.countDown();
+          boolean wasInterrupted = false;
+          while (true) {
+            try {
+              unblock.await();
+              break;
+            } catch (InterruptedException e) {
+              wasInterrupted = true;
+              if (!uninterruptibleDeletes) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while deleting " + filePath);
+              }
+            }
+          }
+          if (wasInterrupted) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        if (failDeletes) {
+          throw new IllegalStateException("Could not delete " + filePath);
+        }
+        deleted.add(filePath);
+      };
+    }
+
+    @Override
+    protected RenameCommand getRenameCommand() {
+      return (filePath, newName, overwrite) -> {
+        renameAttempts.incrementAndGet();
+        if (renameExisting) {
+          throw new FileAlreadyExistsException(newName + " already exists");
+        }
+        renamed.add(filePath);
+      };
+    }
+
+    @Override
+    protected ListCommand getListCommand() {
+      return null;
+    }
+
+    @Override
+    protected ReadCommand getReadCommand() {
+      return null;
+    }
+
+    @Override
+    protected WriteCommand getWriteCommand() {
+      return null;
+    }
+
+    @Override
+    protected CopyCommand getCopyCommand() {
+      return null;
+    }
+
+    @Override
+    protected MoveCommand getMoveCommand() {
+      return null;
+    }
+
+    @Override
+    protected CreateDirectoryCommand getCreateDirectoryCommand() {
+      return null;
+    }
+
+    @Override
+    protected PathLock createLock(Path path) {
+      return null;
+    }
+
+    @Override
+    public void changeToBaseDir() {}
+  }
+}
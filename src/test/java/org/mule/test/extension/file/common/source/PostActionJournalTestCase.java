@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.source;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.mule.extension.file.common.api.source.PostActionJournal;
+import org.mule.tck.size.SmallTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SmallTest
+public class PostActionJournalTestCase {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void missingJournalIsCreated() {
+    Path file = temporaryFolder.getRoot().toPath().resolve("journal").resolve("post-actions.log");
+    PostActionJournal journal = new PostActionJournal(file);
+    journal.close();
+
+    assertThat(Files.exists(file), is(true));
+    assertThat(journal.getPendingCount(), is(0));
+  }
+
+  @Test
+  public void pendingEntriesAreLoaded() throws IOException {
+    PostActionJournal journal = open("+\t0\t%2Fin%2Fa+b.txt\ta+b.txt\t%2Fout\t\ttrue\tfalse",
+                                     "+\t1\t%2Fin%2Fc.txt\tc.txt\t\tc.done\tfalse\ttrue");
+
+    List<PostActionJournal.Entry> entries = journal.recover();
+    assertThat(entries.size(), is(2));
+    assertThat(entries.get(0).getPath(), is("/in/a b.txt"));
+    assertThat(entries.get(0).getName(), is("a b.txt"));
+    assertThat(entries.get(0).getMoveToDirectory(), is("/out"));
+    assertThat(entries.get(0).getRenameTo(), is(nullValue()));
+    assertThat(entries.get(0).isOverwrite(), is(true));
+    assertThat(entries.get(0).isAutoDelete(), is(false));
+    assertThat(entries.get(1).getMoveToDirectory(), is(nullValue()));
+    assertThat(entries.get(1).getRenameTo(), is("c.done"));
+    assertThat(entries.get(1).isAutoDelete(), is(true));
+    journal.close();
+  }
+
+  @Test
+  public void completedEntriesAreNotLoaded() throws IOException {
+    PostActionJournal journal = open("+\t0\t%2Fin%2Fa.txt\ta.txt\t\t\tfalse\ttrue",
+                                     "+\t1\t%2Fin%2Fb.txt\tb.txt\t\t\tfalse\ttrue",
+                                     "-\t0");
+
+    assertThat(journal.getPendingCount(), is(1));
+    assertThat(journal.recover().get(0).getPath(), is("/in/b.txt"));
+    journal.close();
+  }
+
+  @Test
+  public void malformedLinesAreSkipped() throws IOException {
+    PostActionJournal journal = open("+\t0\t%2Fin%2Fa.txt\ta.txt\t\t\tfalse\ttrue",
+                                     "+\t1\t%2Fin%2Fb.txt",
+                                     "garbage");
+
+    assertThat(journal.getPendingCount(), is(1));
+    journal.close();
+  }
+
+  private PostActionJournal open(String... lines) throws IOException {
+    Path file = temporaryFolder.newFile("post-actions.log").toPath();
+    Files.write(file, asList(lines), UTF_8);
+    return new PostActionJournal(file);
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.source;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.mule.extension.file.common.api.source.ProcessedFileIndex;
+import org.mule.tck.size.SmallTest;
+import org.mule.test.extension.file.common.InMemoryObjectStore;
+
+import org.junit.Test;
+
+@SmallTest
+public class ProcessedFileIndexTestCase {
+
+  private static final int FILES = 20;
+
+  private final InMemoryObjectStore<Long> store = new InMemoryObjectStore<>();
+
+  @Test
+  public void processedFileIsRemembered() {
+    ProcessedFileIndex index = newIndex(100, 100);
+    index.markProcessed("/in/file.txt", 10, 1000);
+
+    assertThat(index.isProcessed("/in/file.txt", 10, 1000), is(true));
+    assertThat(index.isProcessed("/in/other.txt", 10, 1000), is(false));
+  }
+
+  @Test
+  public void modifiedFileIsNotProcessed() {
+    ProcessedFileIndex index = newIndex(100, 100);
+    index.markProcessed("/in/file.txt", 10, 1000);
+
+    assertThat(index.isProcessed("/in/file.txt", 20, 1000), is(false));
+    assertThat(index.isProcessed("/in/file.txt", 10, 2000), is(false));
+  }
+
+  @Test
+  public void processedFilesSurviveRestart() {
+    markAll(newIndex(100, 100));
+    ProcessedFileIndex restarted = newIndex(100, 100);
+
+    for (int i = 0; i < FILES; i++) {
+      assertThat(restarted.isProcessed("/in/file" + i, i, 1000), is(true));
+    }
+  }
+
+  @Test
+  public void confirmedFilesAreNotLookedUpAgain() {
+    markAll(newIndex(100, 100));
+    ProcessedFileIndex restarted = newIndex(100, 100);
+
+    int beforeFirstPoll = store.getLookups();
+    poll(restarted);
+    int afterFirstPoll = store.getLookups();
+    poll(restarted);
+
+    assertThat(afterFirstPoll - beforeFirstPoll, is(FILES));
+    assertThat(store.getLookups(), is(afterFirstPoll));
+  }
+
+  @Test
+  public void listingLargerThanCacheDoesNotThrash() {
+    markAll(newIndex(100, 100));
+    ProcessedFileIndex restarted = newIndex(100, FILES / 2);
+    poll(restarted);
+
+    for (int i = 0; i < 3; i++) {
+      int before = store.getLookups();
+      poll(restarted);
+      assertThat(store.getLookups() - before, is(FILES / 2));
+    }
+  }
+
+  @Test
+  public void filterGrowsBeyondExpectedFiles() {
+    ProcessedFileIndex index = newIndex(4, 100);
+    markAll(index);
+
+    for (int i = 0; i < FILES; i++) {
+      assertThat(index.isProcessed("/in/file" + i, i, 1000), is(true));
+    }
+  }
+
+  @Test
+  public void expiredFilesArePurged() {
+    ProcessedFileIndex index = newIndex(100, 100);
+    markAll(index);
+    store.replaceAll(0L);
+
+    assertThat(index.purgeExpired(), is(FILES));
+    assertThat(store.allKeys().isEmpty(), is(true));
+    assertThat(index.isProcessed("/in/file0", 0, 1000), is(false));
+  }
+
+  @Test
+  public void expiredFileIsNotProcessed() {
+    ProcessedFileIndex index = newIndex(100, 100);
+    markAll(index);
+    store.replaceAll(0L);
+    ProcessedFileIndex restarted = newIndex(100, 100);
+
+    assertThat(restarted.isProcessed("/in/file0", 0, 1000), is(false));
+    assertThat(store.allKeys().size(), is(FILES - 1));
+  }
+
+  private ProcessedFileIndex newIndex(int expectedFiles, int confirmedCacheSize) {
+    return new ProcessedFileIndex(store, 1, HOURS, expectedFiles, 0.01, confirmedCacheSize);
+  }
+
+  private void markAll(ProcessedFileIndex index) {
+    for (int i = 0; i < FILES; i++) {
+      index.markProcessed("/in/file" + i, i, 1000);
+    }
+  }
+
+  private void poll(ProcessedFileIndex index) {
+    for (int i = 0; i < FILES; i++) {
+      assertThat(index.isProcessed("/in/file" + i, i, 1000), is(true));
+    }
+  }
+}
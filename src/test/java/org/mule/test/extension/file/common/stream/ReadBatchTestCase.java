@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.mule.extension.file.common.api.AbstractConnectedFileInputStreamSupplier;
+import org.mule.extension.file.common.api.FileAttributes;
+import org.mule.extension.file.common.api.FileSystem;
+import org.mule.extension.file.common.api.connection.ConnectionSource;
+import org.mule.extension.file.common.api.stream.ReadBatch;
+import org.mule.runtime.api.exception.MuleRuntimeException;
+import org.mule.tck.size.SmallTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SmallTest
+public class ReadBatchTestCase {
+
+  private CountingConnectionSource sharedConnectionSource;
+  private List<CountingConnectionSource> fallbackConnectionSources;
+  private ExecutorService prefetchExecutor;
+
+  @Before
+  public void setUp() {
+    sharedConnectionSource = new CountingConnectionSource();
+    fallbackConnectionSources = new ArrayList<>();
+    prefetchExecutor = Executors.newSingleThreadExecutor();
+  }
+
+  @After
+  public void tearDown() {
+    prefetchExecutor.shutdownNow();
+  }
+
+  @Test
+  public void filesAreReadInOrderOverSharedConnection() throws Exception {
+    ReadBatch<FileSystem> batch = new ReadBatch<>(sharedConnectionSource, this::newFallbackConnectionSource);
+    List<TestSupplier> suppliers = new ArrayList<>();
+    List<Supplier<InputStream>> contents = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      contents.add(add(batch, "file" + i, suppliers));
+    }
+
+    for (int i = 0; i < 3; i++) {
+      try (InputStream content = contents.get(i).get()) {
+        assertThat(IOUtils.toString(content, UTF_8), is("file" + i));
+      }
+      assertThat(suppliers.get(i).usedConnection.get(), is(sameInstance(sharedConnectionSource.connection)));
+    }
+    batch.close();
+
+    assertThat(fallbackConnectionSources.size(), is(0));
+    assertThat(sharedConnectionSource.releases.get(), is(1));
+  }
+
+  @Test
+  public void fileRequestedWhileSharedConnectionIsBusyUsesFallbackConnection() throws Exception {
+    ReadBatch<FileSystem> batch = new ReadBatch<>(sharedConnectionSource, this::newFallbackConnectionSource);
+    List<TestSupplier> suppliers = new ArrayList<>();
+    Supplier<InputStream> first = add(batch, "first", suppliers);
+    Supplier<InputStream> second = add(batch, "second", suppliers);
+
+    InputStream firstContent = first.get();
+    InputStream secondContent = second.get();
+
+    assertThat(suppliers.get(0).usedConnection.get(), is(sameInstance(sharedConnectionSource.connection)));
+    assertThat(fallbackConnectionSources.size(), is(1));
+    assertThat(suppliers.get(1).usedConnection.get(), is(sameInstance(fallbackConnectionSources.get(0).connection)));
+
+    secondContent.close();
+    assertThat(fallbackConnectionSources.get(0).releases.get(), is(1));
+    firstContent.close();
+    batch.close();
+    assertThat(sharedConnectionSource.releases.get(), is(1));
+  }
+
+  @Test
+  public void nextFileIsPrefetchedOnceCurrentStreamIsClosed() throws Exception {
+    ReadBatch<FileSystem> batch = prefetchingBatch();
+    List<TestSupplier> suppliers = new ArrayList<>();
+    Supplier<InputStream> first = add(batch, "first", suppliers);
+    Supplier<InputStream> second = add(batch, "second", suppliers);
+
+    first.get().close();
+    assertThat(suppliers.get(1).opened.await(5, SECONDS), is(true));
+
+    try (InputStream secondContent = second.get()) {
+      assertThat(IOUtils.toString(secondContent, UTF_8), is("second"));
+    }
+    assertThat(suppliers.get(1).opens.get(), is(1));
+    assertThat(suppliers.get(1).usedConnection.get(), is(sameInstance(sharedConnectionSource.connection)));
+    assertThat(fallbackConnectionSources.size(), is(0));
+    batch.close();
+  }
+
+  @Test
+  public void nextFileRequestedBeforeClosingCurrentStreamIsNotDelayed() throws Exception {
+    ReadBatch<FileSystem> batch = prefetchingBatch();
+    List<TestSupplier> suppliers = new ArrayList<>();
+    Supplier<InputStream> first = add(batch, "first", suppliers);
+    Supplier<InputStream> second = add(batch, "second", suppliers);
+
+    InputStream firstContent = first.get();
+    AtomicReference<String> secondContent = new AtomicReference<>();
+    Thread reader = new Thread(() -> {
+      try (InputStream content = second.get()) {
+        secondContent.set(IOUtils.toString(content, UTF_8));
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    });
+    reader.start();
+    reader.join(5000);
+
+    assertThat(reader.isAlive(), is(false));
+    assertThat(secondContent.get(), is("second"));
+    assertThat(suppliers.get(1).opens.get(), is(1));
+    assertThat(suppliers.get(1).usedConnection.get(), is(sameInstance(fallbackConnectionSources.get(0).connection)));
+
+    firstContent.close();
+    batch.close();
+    assertThat(sharedConnectionSource.releases.get(), is(1));
+  }
+
+  @Test
+  public void sharedConnectionIsReleasedOnceOpenStreamIsClosed() throws Exception {
+    ReadBatch<FileSystem> batch = new ReadBatch<>(sharedConnectionSource, this::newFallbackConnectionSource);
+    InputStream content = add(batch, "file", new ArrayList<>()).get();
+
+    batch.close();
+    assertThat(sharedConnectionSource.releases.get(), is(0));
+
+    content.close();
+    assertThat(sharedConnectionSource.releases.get(), is(1));
+  }
+
+  @Test
+  public void closeDiscardsUnclaimedPrefetchedFile() throws Exception {
+    ReadBatch<FileSystem> batch = prefetchingBatch();
+    List<TestSupplier> suppliers = new ArrayList<>();
+    Supplier<InputStream> first = add(batch, "first", suppliers);
+    add(batch, "second", suppliers);
+
+    first.get().close();
+    assertThat(suppliers.get(1).opened.await(5, SECONDS), is(true));
+    batch.close();
+
+    assertThat(suppliers.get(1).closed.await(5, SECONDS), is(true));
+    assertThat(sharedConnectionSource.releases.get(), is(1));
+  }
+
+  @Test
+  public void streamClosedRightAfterPrefetchEndsReleasesTheTurn() throws Exception {
+    for (int i = 0; i < 200; i++) {
+      sharedConnectionSource = new CountingConnectionSource();
+      fallbackConnectionSources.clear();
+      ReadBatch<FileSystem> batch = prefetchingBatch();
+      List<TestSupplier> suppliers = new ArrayList<>();
+      Supplier<InputStream> first = add(batch, "first", suppliers);
+      Supplier<InputStream> second = add(batch, "second", suppliers);
+      Supplier<InputStream> third = add(batch, "third", suppliers);
+
+      first.get().close();
+      // races the release of the second file's stream against the end of its prefetch
+      second.get().close();
+      try (InputStream thirdContent = third.get()) {
+        assertThat(IOUtils.toString(thirdContent, UTF_8), is("third"));
+      }
+      batch.close();
+
+      assertThat(fallbackConnectionSources.size(), is(0));
+      assertThat(suppliers.get(2).usedConnection.get(), is(sameInstance(sharedConnectionSource.connection)));
+      assertThat(sharedConnectionSource.releases.get(), is(1));
+    }
+  }
+
+  private ReadBatch<FileSystem> prefetchingBatch() {
+    return new ReadBatch<>(sharedConnectionSource, this::newFallbackConnectionSource, prefetchExecutor, 1, HOURS);
+  }
+
+  private Supplier<InputStream> add(ReadBatch<FileSystem> batch, String name, List<TestSupplier> suppliers) {
+    FileAttributes attributes = mock(FileAttributes.class);
+    when(attributes.getPath()).thenReturn(name);
+    return batch.add(connectionSource -> {
+      TestSupplier supplier = new TestSupplier(attributes, connectionSource);
+      suppliers.add(supplier);
+      return supplier;
+    });
+  }
+
+  private synchronized ConnectionSource<FileSystem> newFallbackConnectionSource() {
+    CountingConnectionSource connectionSource = new CountingConnectionSource();
+    fallbackConnectionSources.add(connectionSource);
+    return connectionSource;
+  }
+
+  private static class CountingConnectionSource implements ConnectionSource<FileSystem> {
+
+    private final FileSystem connection = mock(FileSystem.class);
+    private final AtomicInteger releases = new AtomicInteger();
+
+    @Override
+    public FileSystem getConnection() {
+      return connection;
+    }
+
+    @Override
+    public void releaseConnection() {
+      releases.incrementAndGet();
+    }
+  }
+
+  private static class TestSupplier extends AbstractConnectedFileInputStreamSupplier<FileSystem> {
+
+    private final AtomicReference<FileSystem> usedConnection = new AtomicReference<>();
+    private final AtomicInteger opens = new AtomicInteger();
+    private final CountDownLatch opened = new CountDownLatch(1);
+    private final CountDownLatch closed = new CountDownLatch(1);
+
+    private TestSupplier(FileAttributes attributes, ConnectionSource<FileSystem> connectionSource) {
+      super(attributes, null, connectionSource);
+    }
+
+    @Override
+    protected FileAttributes getUpdatedAttributes(FileSystem fileSystem) {
+      return attributes;
+    }
+
+    @Override
+    protected InputStream getContentInputStream(FileSystem fileSystem) {
+      usedConnection.set(fileSystem);
+      opens.incrementAndGet();
+      opened.countDown();
+      return new ByteArrayInputStream(attributes.getPath().getBytes(UTF_8)) {
+
+        @Override
+        public void close() {
+          releaseConnectionUsedForContentInputStream();
+          closed.countDown();
+        }
+      };
+    }
+
+    @Override
+    protected boolean fileWasDeleted(MuleRuntimeException e) {
+      return false;
+    }
+  }
+}
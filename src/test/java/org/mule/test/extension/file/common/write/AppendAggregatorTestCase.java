@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.write;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mule.extension.file.common.api.FileWriteMode.APPEND;
+
+import org.mule.extension.file.common.api.AbstractFileSystem;
+import org.mule.extension.file.common.api.FileAttributes;
+import org.mule.extension.file.common.api.FileWriteMode;
+import org.mule.extension.file.common.api.command.CopyCommand;
+import org.mule.extension.file.common.api.command.CreateDirectoryCommand;
+import org.mule.extension.file.common.api.command.DeleteCommand;
+import org.mule.extension.file.common.api.command.ListCommand;
+import org.mule.extension.file.common.api.command.MoveCommand;
+import org.mule.extension.file.common.api.command.ReadCommand;
+import org.mule.extension.file.common.api.command.RenameCommand;
+import org.mule.extension.file.common.api.command.WriteCommand;
+import org.mule.extension.file.common.api.exceptions.IllegalPathException;
+import org.mule.extension.file.common.api.lock.PathLock;
+import org.mule.extension.file.common.api.write.AppendAggregator;
+import org.mule.tck.size.SmallTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Test;
+
+@SmallTest
+public class AppendAggregatorTestCase {
+
+  private final List<String> writes = new CopyOnWriteArrayList<>();
+  private volatile Throwable failure;
+  private volatile long writeDelayMillis = 0;
+  private final AtomicInteger concurrentWrites = new AtomicInteger();
+  private final AtomicInteger maxConcurrentWrites = new AtomicInteger();
+  private final TestFileSystem fileSystem = new TestFileSystem((filePath, content, mode, lock, createParentDirectory,
+                                                                encoding) -> {
+    assertThat(mode, is(APPEND));
+    maxConcurrentWrites.accumulateAndGet(concurrentWrites.incrementAndGet(), Math::max);
+    try {
+      if (failure instanceof Error) {
+        throw (Error) failure;
+      } else if (failure != null) {
+        throw (RuntimeException) failure;
+      }
+      Thread.sleep(writeDelayMillis);
+      writes.add(filePath + ":" + IOUtils.toString(content, UTF_8));
+    } catch (IOException | InterruptedException e) {
+      throw new IllegalStateException(e);
+    } finally {
+      concurrentWrites.decrementAndGet();
+    }
+  });
+  private AppendAggregator aggregator;
+
+  @After
+  public void tearDown() {
+    if (aggregator != null) {
+      aggregator.close();
+    }
+  }
+
+  @Test
+  public void appendsToSameFileAreWrittenAtOnce() {
+    aggregator = newAggregator(1024, HOURS.toMillis(1));
+    List<CompletableFuture<Void>> written = new ArrayList<>();
+    for (String line : new String[] {"a", "b", "c"}) {
+      written.add(aggregator.append("file.txt", bytes(line)));
+    }
+    assertThat(writes.isEmpty(), is(true));
+
+    aggregator.flush();
+
+    assertThat(writes.size(), is(1));
+    assertThat(writes.get(0), is("file.txt:abc"));
+    for (CompletableFuture<Void> future : written) {
+      assertThat(future.isDone(), is(true));
+      assertThat(future.isCompletedExceptionally(), is(false));
+    }
+  }
+
+  @Test
+  public void appendsToDifferentFilesAreWrittenSeparately() {
+    aggregator = newAggregator(1024, HOURS.toMillis(1));
+    aggregator.append("first.txt", bytes("a"));
+    aggregator.append("second.txt", bytes("b"));
+    aggregator.append("first.txt", bytes("c"));
+
+    aggregator.flush();
+
+    assertThat(writes.size(), is(2));
+    assertThat(writes.contains("first.txt:ac"), is(true));
+    assertThat(writes.contains("second.txt:b"), is(true));
+  }
+
+  @Test
+  public void batchIsWrittenRightAwayOnceItReachesMaxSize() {
+    aggregator = newAggregator(4, HOURS.toMillis(1));
+    CompletableFuture<Void> first = aggregator.append("file.txt", bytes("ab"));
+    assertThat(writes.isEmpty(), is(true));
+
+    CompletableFuture<Void> second = aggregator.append("file.txt", bytes("cd"));
+
+    assertThat(writes.size(), is(1));
+    assertThat(writes.get(0), is("file.txt:abcd"));
+    assertThat(first.isDone(), is(true));
+    assertThat(second.isDone(), is(true));
+  }
+
+  @Test
+  public void batchIsWrittenOnceDelayElapses() throws Exception {
+    aggregator = newAggregator(1024, 20);
+    aggregator.append("file.txt", bytes("a")).get(5, SECONDS);
+
+    assertThat(writes.get(0), is("file.txt:a"));
+  }
+
+  @Test
+  public void failureIsPropagatedToEveryWaiter() {
+    failure = new IllegalPathException("Could not write");
+    aggregator = newAggregator(1024, HOURS.toMillis(1));
+    List<CompletableFuture<Void>> written = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      written.add(aggregator.append("file.txt", bytes("a")));
+    }
+
+    aggregator.flush();
+
+    for (CompletableFuture<Void> future : written) {
+      try {
+        future.get();
+        throw new AssertionError("append should have failed");
+      } catch (ExecutionException e) {
+        assertThat(e.getCause(), is(sameInstance(failure)));
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      }
+    }
+  }
+
+  @Test
+  public void errorIsPropagatedToEveryWaiter() {
+    failure = new StackOverflowError();
+    aggregator = newAggregator(1024, HOURS.toMillis(1));
+    CompletableFuture<Void> first = aggregator.append("file.txt", bytes("a"));
+    CompletableFuture<Void> second = aggregator.append("file.txt", bytes("b"));
+
+    try {
+      aggregator.flush();
+      throw new AssertionError("flush should have failed");
+    } catch (StackOverflowError e) {
+      assertThat(first.isCompletedExceptionally(), is(true));
+      assertThat(second.isCompletedExceptionally(), is(true));
+    }
+  }
+
+  @Test
+  public void fileCanBeAppendedToAfterFailure() {
+    failure = new IllegalPathException("Could not write");
+    aggregator = newAggregator(1024, HOURS.toMillis(1));
+    aggregator.append("file.txt", bytes("a"));
+    aggregator.flush();
+
+    failure = null;
+    CompletableFuture<Void> written = aggregator.append("file.txt", bytes("b"));
+    aggregator.flush();
+
+    assertThat(written.isCompletedExceptionally(), is(false));
+    assertThat(writes.get(0), is("file.txt:b"));
+  }
+
+  @Test
+  public void streamIsAppended() {
+    aggregator = newAggregator(1024, HOURS.toMillis(1));
+    aggregator.append("file.txt", new ByteArrayInputStream(bytes("stream")));
+    aggregator.flush();
+
+    assertThat(writes.get(0), is("file.txt:stream"));
+  }
+
+  @Test
+  public void closeWritesPendingContent() {
+    aggregator = newAggregator(1024, HOURS.toMillis(1));
+    CompletableFuture<Void> written = aggregator.append("file.txt", bytes("a"));
+
+    aggregator.close();
+
+    assertThat(written.isDone(), is(true));
+    assertThat(writes.get(0), is("file.txt:a"));
+  }
+
+  @Test
+  public void batchesAreWrittenThroughTheFileSystem() {
+    aggregator = newAggregator(1024, HOURS.toMillis(1));
+    aggregator.append("first.txt", bytes("a"));
+    aggregator.append("second.txt", bytes("b"));
+
+    aggregator.flush();
+
+    assertThat(fileSystem.writes.get(), is(2));
+  }
+
+  @Test
+  public void batchesOfDifferentFilesAreNotWrittenConcurrently() throws Exception {
+    writeDelayMillis = 5;
+    aggregator = newAggregator(1, HOURS.toMillis(1));
+    List<Thread> appenders = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      String path = "file" + i + ".txt";
+      Thread appender = new Thread(() -> {
+        for (int j = 0; j < 5; j++) {
+          aggregator.append(path, bytes("a"));
+        }
+      });
+      appenders.add(appender);
+      appender.start();
+    }
+    for (Thread appender : appenders) {
+      appender.join(5000);
+    }
+
+    assertThat(writes.size(), is(20));
+    assertThat(maxConcurrentWrites.get(), is(1));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void appendAfterCloseIsRejected() {
+    aggregator = newAggregator(1024, HOURS.toMillis(1));
+    aggregator.close();
+    aggregator.append("file.txt", bytes("a"));
+  }
+
+  private AppendAggregator newAggregator(int maxBatchBytes, long maxDelayMillis) {
+    return new AppendAggregator(fileSystem, false, true, maxBatchBytes, maxDelayMillis, HOURS.toMillis(1), MILLISECONDS, null);
+  }
+
+  private static byte[] bytes(String content) {
+    return content.getBytes(UTF_8);
+  }
+
+  private static class TestFileSystem extends AbstractFileSystem<FileAttributes> {
+
+    private final WriteCommand writeCommand;
+    private final AtomicInteger writes = new AtomicInteger();
+
+    private TestFileSystem(WriteCommand writeCommand) {
+      super("");
+      this.writeCommand = writeCommand;
+    }
+
+    @Override
+    public void write(String filePath, InputStream content, FileWriteMode mode, boolean lock,
+                      boolean createParentDirectories) {
+      writes.incrementAndGet();
+      super.write(filePath, content, mode, lock, createParentDirectories);
+    }
+
+    @Override
+    protected WriteCommand getWriteCommand() {
+      return writeCommand;
+    }
+
+    @Override
+    protected ListCommand getListCommand() {
+      return null;
+    }
+
+    @Override
+    protected ReadCommand getReadCommand() {
+      return null;
+    }
+
+    @Override
+    protected CopyCommand getCopyCommand() {
+      return null;
+    }
+
+    @Override
+    protected MoveCommand getMoveCommand() {
+      return null;
+    }
+
+    @Override
+    protected DeleteCommand getDeleteCommand() {
+      return null;
+    }
+
+    @Override
+    protected RenameCommand getRenameCommand() {
+      return null;
+    }
+
+    @Override
+    protected CreateDirectoryCommand getCreateDirectoryCommand() {
+      return null;
+    }
+
+    @Override
+    protected PathLock createLock(Path path) {
+      return null;
+    }
+
+    @Override
+    public void changeToBaseDir() {}
+  }
+}
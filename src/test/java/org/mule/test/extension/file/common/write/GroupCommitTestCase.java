@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.test.extension.file.common.write;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.mule.extension.file.common.api.exceptions.IllegalPathException;
+import org.mule.extension.file.common.api.write.GroupCommit;
+import org.mule.tck.size.SmallTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+@SmallTest
+public class GroupCommitTestCase {
+
+  private static final int WRITERS = 8;
+
+  private final Map<String, AtomicInteger> syncs = new ConcurrentHashMap<>();
+  private final CountDownLatch firstSyncStarted = new CountDownLatch(1);
+  private final CountDownLatch releaseFirstSync = new CountDownLatch(1);
+
+  @Test
+  public void idleFileIsSyncedRightAway() {
+    GroupCommit groupCommit = new GroupCommit(this::recordSync, 1, HOURS);
+    groupCommit.sync("file.txt");
+
+    assertThat(syncs.get("file.txt").get(), is(1));
+  }
+
+  @Test
+  public void sequentialSyncsAreNotGrouped() {
+    GroupCommit groupCommit = new GroupCommit(this::recordSync, 1, HOURS);
+    groupCommit.sync("file.txt");
+    groupCommit.sync("file.txt");
+
+    assertThat(syncs.get("file.txt").get(), is(2));
+  }
+
+  @Test
+  public void syncsWhileSyncingShareOneSync() throws Exception {
+    GroupCommit groupCommit = new GroupCommit(this::blockFirstSync, 1, HOURS, WRITERS);
+    Thread first = start(() -> groupCommit.sync("file.txt"));
+    assertThat(firstSyncStarted.await(5, SECONDS), is(true));
+
+    List<Thread> writers = new ArrayList<>();
+    for (int i = 0; i < WRITERS; i++) {
+      writers.add(start(() -> groupCommit.sync("file.txt")));
+    }
+    // the batch is full, so it doesn't wait for the running sync
+    for (Thread writer : writers) {
+      writer.join(5000);
+      assertThat(writer.isAlive(), is(false));
+    }
+    releaseFirstSync.countDown();
+    first.join(5000);
+
+    assertThat(first.isAlive(), is(false));
+    assertThat(syncs.get("file.txt").get(), is(2));
+  }
+
+  @Test
+  public void batchIsSyncedOnceRunningSyncFinishes() throws Exception {
+    GroupCommit groupCommit = new GroupCommit(this::blockFirstSync, 1, HOURS);
+    Thread first = start(() -> groupCommit.sync("file.txt"));
+    assertThat(firstSyncStarted.await(5, SECONDS), is(true));
+
+    Thread second = start(() -> groupCommit.sync("file.txt"));
+    releaseFirstSync.countDown();
+    first.join(5000);
+    second.join(5000);
+
+    assertThat(second.isAlive(), is(false));
+    assertThat(syncs.get("file.txt").get(), is(2));
+  }
+
+  @Test
+  public void differentFilesAreSyncedConcurrently() throws Exception {
+    CountDownLatch otherSyncStarted = new CountDownLatch(1);
+    List<Boolean> overlapped = new CopyOnWriteArrayList<>();
+    GroupCommit groupCommit = new GroupCommit(path -> {
+      recordSync(path);
+      if (path.equals("first.txt")) {
+        try {
+          overlapped.add(otherSyncStarted.await(5, SECONDS));
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      } else {
+        otherSyncStarted.countDown();
+      }
+    }, 1, HOURS);
+
+    Thread first = start(() -> groupCommit.sync("first.txt"));
+    groupCommit.sync("second.txt");
+    first.join(5000);
+
+    assertThat(overlapped.get(0), is(true));
+    assertThat(syncs.get("first.txt").get(), is(1));
+    assertThat(syncs.get("second.txt").get(), is(1));
+  }
+
+  @Test
+  public void syncFailureIsPropagatedToWholeBatch() throws Exception {
+    List<Throwable> failures = new CopyOnWriteArrayList<>();
+    GroupCommit groupCommit = new GroupCommit(path -> {
+      if (blockFirstSync(path) > 1) {
+        throw new IllegalPathException("Path doesn't exist");
+      }
+    }, 1, HOURS, WRITERS);
+    Thread first = start(() -> groupCommit.sync("file.txt"));
+    assertThat(firstSyncStarted.await(5, SECONDS), is(true));
+
+    List<Thread> writers = new ArrayList<>();
+    for (int i = 0; i < WRITERS; i++) {
+      writers.add(start(() -> {
+        try {
+          groupCommit.sync("file.txt");
+        } catch (IllegalPathException e) {
+          failures.add(e);
+        }
+      }));
+    }
+    for (Thread writer : writers) {
+      writer.join(5000);
+    }
+    releaseFirstSync.countDown();
+    first.join(5000);
+
+    assertThat(failures.size(), is(WRITERS));
+    assertThat(syncs.get("file.txt").get(), is(2));
+  }
+
+  private int blockFirstSync(String path) {
+    int count = recordSync(path);
+    if (count == 1) {
+      firstSyncStarted.countDown();
+      try {
+        releaseFirstSync.await(5, SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    return count;
+  }
+
+  private int recordSync(String path) {
+    return syncs.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+  }
+
+  private Thread start(Runnable task) {
+    Thread thread = new Thread(task);
+    thread.start();
+    return thread;
+  }
+}